@@ -0,0 +1,79 @@
+package ie.strix.gnss.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ie.strix.gnss.nmea.ByteScanner;
+
+/**
+ * Delimiter scanning and checksum over a whole NMEA log with each {@link ByteScanner}: the
+ * sentence framing loop of NmeaFramer without the parsing. "default" is the Vector API scanner
+ * on Java 21+ when the JVM has {@code --add-modules jdk.incubator.vector}, eg
+ * {@code -jvmArgsAppend "--add-modules jdk.incubator.vector"}, and SWAR otherwise.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteScannerBenchmark {
+
+	@Param({ "scalar", "swar", "default" })
+	public String scanner;
+
+	private ByteScanner byteScanner;
+	private byte[] log;
+
+	@Setup
+	public void setup () {
+		switch (scanner) {
+		case "scalar": byteScanner = ByteScanner.scalar(); break;
+		case "swar": byteScanner = ByteScanner.swar(); break;
+		default: byteScanner = ByteScanner.getDefault();
+		}
+		log = SyntheticData.nmeaLog(1000);
+	}
+
+	/**
+	 * @return XOR of all sentence checksums, so nothing is dead code.
+	 */
+	@Benchmark
+	public int frameSentences () {
+		final ByteScanner s = byteScanner;
+		final byte[] buf = log;
+		int result = 0;
+		int pos = s.indexOf(buf, 0, buf.length, (byte)'$');
+		while (pos < buf.length) {
+			final int end = s.indexOfSentenceEnd(buf, pos + 1, buf.length);
+			result ^= s.xor(buf, pos + 1, end);
+			pos = s.indexOf(buf, end, buf.length, (byte)'$');
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of fields in the log.
+	 */
+	@Benchmark
+	public int indexFields () {
+		final ByteScanner s = byteScanner;
+		final byte[] buf = log;
+		int n = 0;
+		for (int i = s.indexOfFieldEnd(buf, 0, buf.length); i < buf.length; i = s.indexOfFieldEnd(buf, i + 1, buf.length)) {
+			n++;
+		}
+		return n;
+	}
+}
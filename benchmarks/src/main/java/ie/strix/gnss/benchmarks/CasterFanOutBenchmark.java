@@ -0,0 +1,172 @@
+package ie.strix.gnss.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ie.strix.gnss.ntrip.caster.NtripCaster;
+
+/**
+ * RTCM fan-out through an in-process {@link NtripCaster} over loopback sockets: a base station
+ * client sends one epoch of MSM7 frames (about 1.5KB) and the operation completes when every
+ * rover client has received it. Throughput is epochs per second through the caster. The gc
+ * profiler's alloc.rate.norm only counts the benchmark thread (the base station client); the
+ * caster threads show in gc.count and gc.time.
+ *
+ * The caster logs the raw stream to rtcm-BENCH.log in the working directory, which is deleted
+ * after the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Benchmark)
+public class CasterFanOutBenchmark {
+
+	private static final String MOUNTPOINT = "BENCH";
+
+	@Param({ "1", "10", "100" })
+	public int rovers;
+
+	private NtripCaster caster;
+	private Socket base;
+	private OutputStream baseOut;
+	private final List<Socket> roverSockets = new ArrayList<>();
+	private final AtomicLong received = new AtomicLong();
+	private long expected;
+	private byte[] epoch;
+
+	@Setup
+	public void setup () throws IOException, InterruptedException {
+		final Random random = new Random(4);
+		epoch = concat(SyntheticData.rtcmFrame(1077, 420, random), SyntheticData.rtcmFrame(1087, 310, random),
+				SyntheticData.rtcmFrame(1097, 360, random), SyntheticData.rtcmFrame(1127, 390, random));
+
+		caster = new NtripCaster(0, 0);
+		caster.start();
+		base = connect();
+		baseOut = base.getOutputStream();
+		baseOut.write(("SOURCE /" + MOUNTPOINT + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		baseOut.flush();
+		for (int i = 0; i < rovers; i++) {
+			roverSockets.add(connectRover());
+		}
+		received.set(0);
+		expected = 0;
+	}
+
+	@TearDown
+	public void tearDown () throws IOException {
+		for (Socket socket : roverSockets) {
+			socket.close();
+		}
+		roverSockets.clear();
+		base.close();
+		caster.stop();
+		new File("rtcm-" + MOUNTPOINT + ".log").delete();
+	}
+
+	@Benchmark
+	public long fanOut () throws IOException {
+		baseOut.write(epoch);
+		baseOut.flush();
+		expected += (long)epoch.length * rovers;
+		while (received.get() < expected) {
+			LockSupport.parkNanos(1_000);
+		}
+		return expected;
+	}
+
+	private Socket connect () throws IOException {
+		final Socket socket = new Socket(InetAddress.getLoopbackAddress(), caster.getNtripPort());
+		socket.setTcpNoDelay(true);
+		return socket;
+	}
+
+	/**
+	 * Connect a rover, retrying until the base station is registered, and start a thread that
+	 * counts the bytes it receives.
+	 */
+	private Socket connectRover () throws IOException, InterruptedException {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			final Socket socket = connect();
+			socket.getOutputStream().write(("GET /" + MOUNTPOINT + " HTTP/1.0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			final InputStream in = socket.getInputStream();
+			final String status = readLine(in);
+			if (status.startsWith("ICY 200")) {
+				readLine(in);
+				final Thread drain = new Thread(() -> drain(in), "rover-drain");
+				drain.setDaemon(true);
+				drain.start();
+				return socket;
+			}
+			socket.close();
+			Thread.sleep(20);
+		}
+		throw new IOException("mountpoint " + MOUNTPOINT + " not available");
+	}
+
+	private void drain (InputStream in) {
+		final byte[] buf = new byte[16384];
+		try {
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				received.addAndGet(n);
+			}
+		} catch (IOException e) {
+			// closed in tearDown
+		}
+	}
+
+	/**
+	 * Read a CRLF terminated line byte by byte, so that no RTCM data is consumed with it.
+	 */
+	private static String readLine (InputStream in) throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		int b;
+		while ((b = in.read()) >= 0 && b != '\n') {
+			if (b != '\r') {
+				sb.append((char)b);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static byte[] concat (byte[]... parts) {
+		int length = 0;
+		for (byte[] part : parts) {
+			length += part.length;
+		}
+		final byte[] result = new byte[length];
+		int offset = 0;
+		for (byte[] part : parts) {
+			System.arraycopy(part, 0, result, offset, part.length);
+			offset += part.length;
+		}
+		return result;
+	}
+}
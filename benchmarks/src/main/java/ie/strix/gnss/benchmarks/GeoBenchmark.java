@@ -0,0 +1,60 @@
+package ie.strix.gnss.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.Track;
+
+/**
+ * Track interpolation and coordinate conversion.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class GeoBenchmark {
+
+	private static final long START = 1_700_000_000_000L;
+	/** One hour at 10Hz */
+	private static final int N_PVT = 36_000;
+
+	private Track track;
+	private long t;
+
+	@Setup
+	public void setup () {
+		final List<PVT> pvts = new ArrayList<>();
+		for (int i = 0; i < N_PVT; i++) {
+			pvts.add(new PVT(START + i * 100L, 53.28 + i * 1e-6, -8.99 + i * 1e-6, 20 + i % 10));
+		}
+		track = new Track(pvts);
+	}
+
+	/** Interpolate at a time between fixes, stepping through the track */
+	@Benchmark
+	public PVT interpolate () {
+		t = (t + 7_919) % (N_PVT * 100L - 100);
+		return track.interpolate(START + t);
+	}
+
+	@Benchmark
+	public double[] ecefToLatLngAlt () {
+		return ECEF.ecefToLatLngAlt(3_806_286.0, -602_331.0, 5_059_770.0);
+	}
+}
@@ -0,0 +1,107 @@
+package ie.strix.gnss.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ie.strix.gnss.rtcm.BitReader;
+import ie.strix.gnss.rtcm.MsmDecoder;
+import ie.strix.gnss.rtcm.RTCM3;
+import ie.strix.gnss.rtcm.Rtcm3Parser;
+
+/**
+ * RTCM3 framing and CRC. The stream is 60 one second epochs of MSM7 for four constellations
+ * plus a 1005 every 10 seconds (about 100KB).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RtcmBenchmark {
+
+	private byte[] stream;
+	private byte[] frame;
+	private ByteBuffer direct;
+	private final Rtcm3Parser.FrameView view = new Rtcm3Parser.FrameView();
+	private final BitReader bitReader = new BitReader();
+	private long cells;
+	private final MsmDecoder msmDecoder = new MsmDecoder(epoch -> cells += epoch.getSize());
+
+	@Setup
+	public void setup () {
+		stream = SyntheticData.rtcmStream(60);
+		frame = SyntheticData.rtcmFrame(1077, 420, new Random(3));
+		direct = ByteBuffer.allocateDirect(stream.length).put(stream).flip();
+	}
+
+	@Benchmark
+	public List<Rtcm3Parser.Frame> parseAll () {
+		return Rtcm3Parser.parseAll(stream);
+	}
+
+	/** Message type of each frame, CRC checked, read in place */
+	@Benchmark
+	public void viewHeaders (Blackhole bh) {
+		view.setVerifyCrc(true).reset(stream, 0, stream.length);
+		while (view.next()) {
+			bh.consume(view.getMessageType());
+		}
+	}
+
+	/** Message type of each frame, trusting the framing */
+	@Benchmark
+	public void viewHeadersNoCrc (Blackhole bh) {
+		view.setVerifyCrc(false).reset(stream, 0, stream.length);
+		while (view.next()) {
+			bh.consume(view.getMessageType());
+		}
+	}
+
+	@Benchmark
+	public int forEachFrameDirect (Blackhole bh) {
+		return Rtcm3Parser.forEachFrame(direct, frame -> bh.consume(frame.getMessageType()));
+	}
+
+	/** CRC of one 420 byte MSM7 frame */
+	@Benchmark
+	public int computeCRC24Q () {
+		return RTCM3.computeCRC24Q(frame, frame.length - 3);
+	}
+
+	/** Every field of one 420 byte MSM7 frame read as alternating 15 and 22 bit signed fields */
+	@Benchmark
+	public long bitReaderFields () {
+		bitReader.reset(frame, 3, frame.length - 6);
+		long sum = 0;
+		while (bitReader.getRemainingBits() >= 37) {
+			sum += bitReader.readSigned(15);
+			sum += bitReader.readSigned(22);
+		}
+		return sum;
+	}
+
+	/** Every MSM7 frame of the stream decoded and assembled into epochs */
+	@Benchmark
+	public long msmDecode () {
+		view.setVerifyCrc(false).reset(stream, 0, stream.length);
+		while (view.next()) {
+			msmDecoder.accept(view);
+		}
+		return cells;
+	}
+}
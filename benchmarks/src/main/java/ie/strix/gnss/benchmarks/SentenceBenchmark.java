@@ -0,0 +1,85 @@
+package ie.strix.gnss.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ie.strix.gnss.nmea.ChecksumFailException;
+import ie.strix.gnss.nmea.GGA;
+import ie.strix.gnss.nmea.Sentence;
+import ie.strix.gnss.nmea.SentencePool;
+import ie.strix.gnss.nmea.Util;
+
+/**
+ * Parsing one sentence of each type: {@link Sentence#valueOf(String)} creates a new object,
+ * {@link SentencePool} reuses one. The decode benchmarks also read the fields, as sentences
+ * are indexed on parse and decoded on access (GGA only).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class SentenceBenchmark {
+
+	@Param({ "GGA", "RMC", "GSA", "GSV", "GST", "GLL", "VTG" })
+	public String type;
+
+	private String sentence;
+	private byte[] bytes;
+	private SentencePool pool;
+
+	@Setup
+	public void setup () {
+		sentence = SyntheticData.SENTENCES.get(type);
+		bytes = sentence.getBytes(StandardCharsets.US_ASCII);
+		pool = new SentencePool();
+	}
+
+	@Benchmark
+	public Sentence valueOf () throws ChecksumFailException {
+		return Sentence.valueOf(sentence);
+	}
+
+	@Benchmark
+	public Sentence poolParse () {
+		return pool.parse(sentence);
+	}
+
+	@Benchmark
+	public Sentence poolParseBytes () {
+		return pool.parse(bytes, 0, bytes.length);
+	}
+
+	@Benchmark
+	public double poolParseAndDecode () {
+		final Sentence s = pool.parse(sentence);
+		if (s instanceof GGA) {
+			final GGA gga = (GGA)s;
+			return gga.getLatitudeDeg() + gga.getLongitudeDeg() + gga.getAltitudeM() + gga.getFixTypeValue();
+		}
+		return 0;
+	}
+
+	@Benchmark
+	public boolean isChecksumValid () {
+		return Util.isChecksumValid(sentence);
+	}
+
+	@Benchmark
+	public boolean isChecksumValidBytes () {
+		return Util.isChecksumValid(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,66 @@
+package ie.strix.gnss.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.nmea.Stream;
+
+/**
+ * {@link Stream#readAllPVT()} over a synthetic 10Hz four constellation log with GSV at 1Hz
+ * (about 750 bytes per epoch). Throughput is logs per second; multiply by the log size for bytes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class StreamBenchmark {
+
+	@Param({ "10000" })
+	public int epochs;
+
+	private byte[] log;
+
+	@Setup
+	public void setup () {
+		log = SyntheticData.nmeaLog(epochs);
+	}
+
+	/** Byte source: framed by NmeaFramer */
+	@Benchmark
+	public List<PVT> readAllPVTBytes () {
+		return new Stream(new ByteArrayInputStream(log)).readAllPVT();
+	}
+
+	/** Byte source with sentence objects reused and only the types needed for PVT parsed */
+	@Benchmark
+	public List<PVT> readAllPVTBytesReused () {
+		final Stream stream = new Stream(new ByteArrayInputStream(log));
+		stream.setReuseSentences(true);
+		stream.setSentenceTypes("GGA");
+		return stream.readAllPVT();
+	}
+
+	/** Reader source: a String per line */
+	@Benchmark
+	public List<PVT> readAllPVTReader () {
+		return new Stream(new InputStreamReader(new ByteArrayInputStream(log), StandardCharsets.US_ASCII)).readAllPVT();
+	}
+}
@@ -0,0 +1,67 @@
+package ie.strix.gnss.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import ie.strix.gnss.sim.NmeaGenerator;
+import ie.strix.gnss.sim.RtcmGenerator;
+import ie.strix.gnss.sim.Trajectory;
+
+/**
+ * Deterministic input data for the benchmarks.
+ */
+final class SyntheticData {
+
+	/** 2024-11-03T12:00:00Z */
+	private static final long START = 1_730_635_200_000L;
+
+	/**
+	 * The first sentence of each supported type from one {@link NmeaGenerator} epoch, with a
+	 * valid checksum.
+	 */
+	static final Map<String, String> SENTENCES = new LinkedHashMap<>();
+
+	static {
+		final NmeaGenerator generator = new NmeaGenerator(Trajectory.circle(48.117, 11.517, 545, 100, 60), START, 100, 1);
+		generator.setGll(true);
+		for (String line : new String(generator.generate(1), StandardCharsets.US_ASCII).split("\r\n")) {
+			SENTENCES.putIfAbsent(line.substring(3, 6), line);
+		}
+	}
+
+	private SyntheticData () {
+	}
+
+	/**
+	 * @param nEpoch Number of 10Hz epochs.
+	 * @return A receiver log from {@link NmeaGenerator} driving laps of a test track: RMC,
+	 *         GGA, GSA, GST and VTG every epoch and GSV at 1Hz.
+	 */
+	static byte[] nmeaLog (int nEpoch) {
+		final NmeaGenerator generator = new NmeaGenerator(Trajectory.circle(48.117, 11.517, 545, 100, 60), START, 100, 1);
+		generator.setSkyViewInterval(10);
+		return generator.generate(nEpoch);
+	}
+
+	/**
+	 * @return An RTCM3 frame of the given type with random content and a valid CRC.
+	 */
+	static byte[] rtcmFrame (int messageType, int payloadLength, Random random) {
+		final byte[] payload = new byte[payloadLength];
+		random.nextBytes(payload);
+		payload[0] = (byte)(messageType >> 4);
+		payload[1] = (byte)((messageType << 4) | (payload[1] & 0x0f));
+		return RtcmGenerator.frame(payload, payloadLength);
+	}
+
+	/**
+	 * @param nEpoch Number of 1Hz epochs.
+	 * @return A base station stream from {@link RtcmGenerator}: 1005 every 10 epochs and MSM7
+	 *         for four constellations.
+	 */
+	static byte[] rtcmStream (int nEpoch) {
+		return new RtcmGenerator(1, 48.117, 11.517, 545, START, 1000, 2).generate(nEpoch);
+	}
+}
@@ -6,6 +6,7 @@ public class ECEF {
 	private static final double A = 6378137.0; // Semi-major axis (meters)
 	private static final double F = 1 / 298.257223563; // Flattening
 	private static final double E2 = F * (2 - F); // Square of eccentricity
+	private static final double EP2 = E2 / (1 - E2); // Square of second eccentricity
 
 	/**
 	 * Converts ECEF coordinates (x, y, z) to geodetic coordinates (lat, lon, alt).
@@ -25,7 +26,7 @@ public class ECEF {
 		double sinTheta = Math.sin(theta);
 		double cosTheta = Math.cos(theta);
 
-		double lat = Math.atan2(z + E2 * b * sinTheta * sinTheta * sinTheta,
+		double lat = Math.atan2(z + EP2 * b * sinTheta * sinTheta * sinTheta,
 				r - E2 * A * cosTheta * cosTheta * cosTheta); // Radians
 
 		double sinLat = Math.sin(lat);
@@ -38,4 +39,45 @@ public class ECEF {
 
 		return new double[] { latDeg, lonDeg, alt };
 	}
+
+	/**
+	 * Converts geodetic coordinates (lat, lon, alt) to ECEF coordinates (x, y, z).
+	 * 
+	 * @param latDeg Latitude in degrees
+	 * @param lonDeg Longitude in degrees
+	 * @param alt Height above the WGS84 ellipsoid in meters
+	 * @return double[] with [x, y, z] in meters
+	 */
+	public static double[] latLngAltToEcef(double latDeg, double lonDeg, double alt) {
+		double lat = Math.toRadians(latDeg);
+		double lon = Math.toRadians(lonDeg);
+		double sinLat = Math.sin(lat);
+		double cosLat = Math.cos(lat);
+		double N = A / Math.sqrt(1 - E2 * sinLat * sinLat);
+
+		double x = (N + alt) * cosLat * Math.cos(lon);
+		double y = (N + alt) * cosLat * Math.sin(lon);
+		double z = (N * (1 - E2) + alt) * sinLat;
+
+		return new double[] { x, y, z };
+	}
+
+	/**
+	 * Elevation of a target, eg a satellite, above the horizon of an observer.
+	 * 
+	 * @param observer ECEF [x, y, z] in meters
+	 * @param target ECEF [x, y, z] in meters
+	 * @return Elevation in degrees, negative below the horizon
+	 */
+	public static double elevation(double[] observer, double[] target) {
+		double[] latLngAlt = ecefToLatLngAlt(observer[0], observer[1], observer[2]);
+		double lat = Math.toRadians(latLngAlt[0]);
+		double lon = Math.toRadians(latLngAlt[1]);
+		double dx = target[0] - observer[0];
+		double dy = target[1] - observer[1];
+		double dz = target[2] - observer[2];
+		// Component of the line of sight along the local vertical
+		double up = Math.cos(lat) * Math.cos(lon) * dx + Math.cos(lat) * Math.sin(lon) * dy + Math.sin(lat) * dz;
+		return Math.toDegrees(Math.asin(up / Math.sqrt(dx * dx + dy * dy + dz * dz)));
+	}
 }
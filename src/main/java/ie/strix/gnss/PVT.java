@@ -12,6 +12,8 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * PVT is a aggregate of several NMEA sentences in one epoch. Since no one NMEA sentence 
  * holds all the epoch information this class performs that function.
+ * 
+ * Values are held as primitives. A value that is not known is NaN.
  */
 @Data
 @Slf4j
@@ -19,45 +21,45 @@ public class PVT {
 
 	//private String isoDate;
 	private String isoTimestamp;
-	private Long timestamp;
+	private long timestamp;
 	
 	/**
 	 * Latitude in degrees.
 	 */
-	private Double latitude;
+	private double latitude = Double.NaN;
 	
 	/**
 	 * Longitude in degrees
 	 */
-	private Double longitude;
+	private double longitude = Double.NaN;
 	
 	/**
 	 * Altitude [define] in meters above [define].
 	 */
-	private Double altitude;
+	private double altitude = Double.NaN;
 	
 	/**
 	 * GNSS fix type using NMEA 0183 GGA convention.
 	 */
-	private Integer fixType = 0;
+	private int fixType = 0;
 	
 	/**
 	 * This is the direction in the horizontal plane of the velocity vector. Not to be confused with the heading/pose of the device which 
 	 * can be different.
 	 */
-	private Double course;
+	private double course = Double.NaN;
 	
 	/**
 	 * The velocity (in 3D).
 	 */
-	private Double speed;
+	private double speed = Double.NaN;
 	
 	/**
 	 * The device pose heading where 0=north. This is different to course (eg the device could be traveling north but looking east at the same time).
 	 */
-	private Double heading;
-	private Double pitch;
-	private Double roll;
+	private double heading = Double.NaN;
+	private double pitch = Double.NaN;
+	private double roll = Double.NaN;
 	
 	//private String getIsoTimestamp () {
 		
@@ -82,22 +84,21 @@ public class PVT {
 		}
 		log.debug("fromGGA() isoDate={}",isoDate);
 		
-		String nmeaTime = gga.getNmeaTime();
-		
 		PVT pvt = new PVT();
 		//pvt.isoTimestamp = isoDate + "T" + gga.getIsoTime();
 		
-		int timeInDayMs = Util.parseNmeaTimestamp(nmeaTime);
+		int timeInDayMs = gga.getTimeInDay();
 		pvt.isoTimestamp = isoDate + "T" + Util.formatIsoUtcTime(timeInDayMs);
 
 		LocalDate date = LocalDate.parse(isoDate);
 		long dayStart = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
 		pvt.timestamp = dayStart + timeInDayMs;
 
-		pvt.latitude = gga.getLatitude();
-		pvt.longitude = gga.getLongitude();
-		pvt.altitude = gga.getAltitude();
-		pvt.fixType = gga.getFixType();
+		pvt.latitude = gga.getLatitudeDeg();
+		pvt.longitude = gga.getLongitudeDeg();
+		pvt.altitude = gga.getAltitudeM();
+		// Treat a missing or corrupt fix type as no fix
+		pvt.fixType = Math.max(0, gga.getFixTypeValue());
 		
 		return pvt;
 	}
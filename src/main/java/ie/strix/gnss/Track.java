@@ -9,7 +9,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.TimeZone;
 
-import ie.strix.gnss.nmea.Stream;
+import ie.strix.gnss.nmea.NmeaArchive;
+import ie.strix.gnss.nmea.ParallelNmeaReader;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -34,18 +35,45 @@ public class Track {
 		addAll(track);
 	}
 	
+	/**
+	 * Load a track from a NMEA log. Large uncompressed logs are read in parallel.
+	 * 
+	 * @param gnssNmeaFile
+	 */
 	public Track (File gnssNmeaFile) {
-		Stream nmeaStream;
 		try {
-			nmeaStream = new Stream(gnssNmeaFile);
-			addAll(nmeaStream.readAllPVT());
-			nmeaStream.close();
+			addAll(ParallelNmeaReader.readAllPVT(gnssNmeaFile));
 		} catch (IOException e) {
 			log.error("error creating Track",e);
 		}
 	}
 	
 	
+	/**
+	 * Load the part of a track in a time window. For a {@link NmeaArchive} only the blocks
+	 * covering the window are read, other logs are read in full and filtered.
+	 * 
+	 * @param file A NMEA log or archive.
+	 * @param from Start time (ms since epoch) inclusive.
+	 * @param to End time (ms since epoch) inclusive.
+	 * @return
+	 * @throws IOException
+	 */
+	public static Track load (File file, long from, long to) throws IOException {
+		if (NmeaArchive.isArchive(file)) {
+			try (NmeaArchive archive = new NmeaArchive(file)) {
+				return new Track(archive.readPVT(from, to));
+			}
+		}
+		List<PVT> window = new ArrayList<>();
+		for (PVT pvt : ParallelNmeaReader.readAllPVT(file)) {
+			if (pvt.getTimestamp() >= from && pvt.getTimestamp() <= to) {
+				window.add(pvt);
+			}
+		}
+		return new Track(window);
+	}
+	
 	/**
 	 * Given a timestamp interpolate between points in a track or return null if outside of track time range.
 	 * 
@@ -139,11 +167,11 @@ public class Track {
 			alt += (et/dt) * dalt;
 			
 			// Heading is optional
-			if (p2.getHeading() != null && p1.getHeading() != null) {
+			if ( ! Double.isNaN(p2.getHeading()) && ! Double.isNaN(p1.getHeading())) {
 				final double dhdg = p2.getHeading() - p1.getHeading();
 				hdg += (et/dt) * dhdg;
 			}
-			if (p2.getPitch() != null && p1.getPitch() != null) {
+			if ( ! Double.isNaN(p2.getPitch()) && ! Double.isNaN(p1.getPitch())) {
 				final double dpitch = p2.getPitch() - p1.getPitch();
 				pitch += (et/dt) * dpitch;
 			}
@@ -159,11 +187,11 @@ public class Track {
 			alt += (et/dt) * dalt;
 			
 			// Heading is optional
-			if (p1.getHeading() != null && p0.getHeading() != null) {
+			if ( ! Double.isNaN(p1.getHeading()) && ! Double.isNaN(p0.getHeading())) {
 				final double dhdg = p1.getHeading() - p0.getHeading();
 				hdg += (et/dt) * dhdg;
 			}
-			if (p1.getPitch() != null && p0.getPitch() != null) {
+			if ( ! Double.isNaN(p1.getPitch()) && ! Double.isNaN(p0.getPitch())) {
 				final double dpitch = p1.getPitch() - p0.getPitch();
 				pitch += (et/dt) * dpitch;
 			}
@@ -0,0 +1,94 @@
+package ie.strix.gnss.nmea;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Find NMEA delimiters and compute the XOR checksum over ranges of ASCII bytes. This is where
+ * framing spends its time when reprocessing archives, so there are several implementations:
+ *
+ * <ul>
+ * <li>{@link #scalar()}: one byte at a time.</li>
+ * <li>{@link #swar()}: eight bytes at a time in a long ("SIMD within a register"). The default
+ * on Java 11.</li>
+ * <li>On Java 21+ the multi-release JAR adds a {@code jdk.incubator.vector} implementation, used
+ * by {@link #getDefault()} when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}.</li>
+ * </ul>
+ *
+ * All give identical results. Index methods return the index of the first matching byte in
+ * [from, to), or to if there is none.
+ */
+public abstract class ByteScanner {
+
+	private static final ByteScanner DEFAULT = ByteScannerProvider.create();
+
+	ByteScanner () {
+	}
+
+	/**
+	 * @return The fastest scanner available on this JVM.
+	 */
+	public static ByteScanner getDefault () {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return Byte at a time scanner.
+	 */
+	public static ByteScanner scalar () {
+		return ScalarByteScanner.INSTANCE;
+	}
+
+	/**
+	 * @return Long word at a time scanner.
+	 */
+	public static ByteScanner swar () {
+		return SwarByteScanner.INSTANCE;
+	}
+
+	/**
+	 * @return Index of the first occurrence of value.
+	 */
+	public abstract int indexOf (byte[] buf, int from, int to, byte value);
+
+	/**
+	 * @return Index of the first '*', '$', '\r' or '\n': the end of the data covered by the
+	 * checksum of a sentence, or where a malformed sentence is cut short.
+	 */
+	public abstract int indexOfSentenceEnd (byte[] buf, int from, int to);
+
+	/**
+	 * @return Index of the first ',' or '*'.
+	 */
+	public abstract int indexOfFieldEnd (byte[] buf, int from, int to);
+
+	/**
+	 * @return XOR of the bytes in [from, to), 0 to 255.
+	 */
+	public abstract int xor (byte[] buf, int from, int to);
+
+	/**
+	 * As {@link #indexOf(byte[], int, int, byte)} for absolute positions in a ByteBuffer.
+	 */
+	public abstract int indexOf (ByteBuffer buf, int from, int to, byte value);
+
+	/**
+	 * As {@link #indexOfSentenceEnd(byte[], int, int)} for absolute positions in a ByteBuffer.
+	 */
+	public abstract int indexOfSentenceEnd (ByteBuffer buf, int from, int to);
+
+	/**
+	 * As {@link #xor(byte[], int, int)} for absolute positions in a ByteBuffer.
+	 */
+	public abstract int xor (ByteBuffer buf, int from, int to);
+
+	/**
+	 * @return Short name of the implementation, eg "swar".
+	 */
+	public abstract String getName ();
+
+	@Override
+	public String toString () {
+		return getName();
+	}
+}
@@ -0,0 +1,15 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * Chooses {@link ByteScanner#getDefault()}. Replaced by a version in META-INF/versions/21 of the
+ * multi-release JAR that can choose the Vector API implementation.
+ */
+final class ByteScannerProvider {
+
+	private ByteScannerProvider () {
+	}
+
+	static ByteScanner create () {
+		return SwarByteScanner.INSTANCE;
+	}
+}
@@ -0,0 +1,65 @@
+package ie.strix.gnss.nmea;
+
+import java.util.Arrays;
+
+/**
+ * A reusable CharSequence over a private char[]. Used to hold sentences supplied as char[] or
+ * byte[] so that the array can be refilled for the next sentence without creating a String.
+ */
+final class CharArraySequence implements CharSequence {
+
+	private char[] chars = new char[128];
+	private int length;
+
+	void set (char[] buf, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(buf, offset, chars, 0, length);
+		this.length = length;
+	}
+
+	void set (byte[] buf, int offset, int length) {
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char)(buf[offset + i] & 0xff);
+		}
+		this.length = length;
+	}
+
+	void set (CharSequence s) {
+		final int length = s.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			chars[i] = s.charAt(i);
+		}
+		this.length = length;
+	}
+
+	private void ensureCapacity (int length) {
+		if (chars.length < length) {
+			chars = Arrays.copyOf(chars, Math.max(length, chars.length * 2));
+		}
+	}
+
+	@Override
+	public int length () {
+		return length;
+	}
+
+	@Override
+	public char charAt (int index) {
+		if (index >= length) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return chars[index];
+	}
+
+	@Override
+	public CharSequence subSequence (int start, int end) {
+		return new String(chars, start, end - start);
+	}
+
+	@Override
+	public String toString () {
+		return new String(chars, 0, length);
+	}
+}
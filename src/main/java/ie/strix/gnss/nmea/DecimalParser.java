@@ -0,0 +1,214 @@
+package ie.strix.gnss.nmea;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Decode decimal numbers (eg "-12.345", "+0.0000000001", "5316.8975575512") from a range of a
+ * CharSequence, char[] or byte[] without creating any objects.
+ *
+ * Digits are accumulated into a long mantissa. When the mantissa (less trailing fraction zeros)
+ * is at most 2^53 and there are at most 22 fraction digits, both the mantissa and the power of
+ * ten are exact doubles and a single division gives the same correctly rounded result as
+ * {@link Double#parseDouble(String)}. This covers any NMEA field: receivers output at most
+ * 15 or so significant digits. Longer numbers fall back to Double.parseDouble().
+ *
+ * An empty range decodes to NaN, as an empty NMEA field has no value. Anything other than an
+ * optional sign, digits and at most one decimal point throws {@link NumberFormatException}.
+ */
+public final class DecimalParser {
+
+	/** Exactly representable powers of ten */
+	private static final double[] POW10 = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** Largest mantissa exactly representable in a double */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** Significant digits that fit in a long mantissa */
+	private static final int MAX_DIGITS = 18;
+
+	private DecimalParser () {
+	}
+
+	/**
+	 * @param s
+	 * @param startIndex Index of first character.
+	 * @param endIndex Index after the last character.
+	 * @return The value, or NaN if the range is empty.
+	 * @throws NumberFormatException if the range is not a decimal number.
+	 */
+	public static double parseDouble (final CharSequence s, final int startIndex, final int endIndex) {
+		return parseDouble(s, startIndex, endIndex, false);
+	}
+
+	/**
+	 * As {@link #parseDouble(CharSequence, int, int)} for a char[] range.
+	 */
+	public static double parseDouble (final char[] buf, final int startIndex, final int endIndex) {
+		return parseDouble(buf, startIndex, endIndex, false);
+	}
+
+	/**
+	 * As {@link #parseDouble(CharSequence, int, int)} for a range of ASCII bytes.
+	 */
+	public static double parseDouble (final byte[] buf, final int startIndex, final int endIndex) {
+		return parseDouble(buf, startIndex, endIndex, false);
+	}
+
+	/**
+	 * Decode the digits after a decimal point, eg "58729342" as 0.58729342.
+	 *
+	 * @return The value, or 0 if the range is empty.
+	 */
+	static double parseFraction (final char[] buf, final int startIndex, final int endIndex) {
+		return startIndex >= endIndex ? 0 : parseDouble(buf, startIndex, endIndex, true);
+	}
+
+	/**
+	 * @param text A CharSequence, char[] or byte[], read with {@link #charAt(Object, int)}.
+	 * @param fraction The range is the digits after a decimal point, with no sign.
+	 */
+	private static double parseDouble (final Object text, final int startIndex, final int endIndex, final boolean fraction) {
+		if (startIndex >= endIndex) {
+			return Double.NaN;
+		}
+		int i = startIndex;
+		final int first = charAt(text, i);
+		final boolean negative = ! fraction && first == '-';
+		if (negative || (! fraction && first == '+')) {
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int significant = 0;
+		int fractionDigits = fraction ? 0 : -1;
+		for (; i < endIndex; i++) {
+			final int d = charAt(text, i) - '0';
+			if (d >= 0 && d <= 9) {
+				mantissa = mantissa * 10 + d;
+				digits++;
+				if (mantissa != 0) {
+					significant++;
+				}
+				if (fractionDigits >= 0) {
+					fractionDigits++;
+				}
+			} else if (d == '.' - '0' && fractionDigits < 0) {
+				fractionDigits = 0;
+			} else {
+				throw invalid(toString(text, startIndex, endIndex));
+			}
+		}
+		if (digits == 0) {
+			throw invalid(toString(text, startIndex, endIndex));
+		}
+		final double value = exact(mantissa, significant, fractionDigits, negative);
+		if (value == value) {
+			return value;
+		}
+		return Double.parseDouble((fraction ? "." : "") + toString(text, startIndex, endIndex));
+	}
+
+	/**
+	 * @return The correctly rounded value of mantissa * 10^-fractionDigits, or NaN if it cannot be
+	 * computed exactly with one division.
+	 */
+	private static double exact (long mantissa, final int significant, int fractionDigits, final boolean negative) {
+		if (significant > MAX_DIGITS) {
+			return Double.NaN;
+		}
+		while (fractionDigits > 0 && mantissa % 10 == 0) {
+			mantissa /= 10;
+			fractionDigits--;
+		}
+		if (mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POW10.length) {
+			return Double.NaN;
+		}
+		double value = mantissa;
+		if (fractionDigits > 0) {
+			value /= POW10[fractionDigits];
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Decode a signed decimal integer, as {@link Integer#parseInt(CharSequence, int, int, int)}
+	 * with radix 10.
+	 *
+	 * @throws NumberFormatException if the range is empty, not an integer or out of int range.
+	 */
+	public static int parseInt (final CharSequence s, final int startIndex, final int endIndex) {
+		return parseInt((Object)s, startIndex, endIndex);
+	}
+
+	/**
+	 * As {@link #parseInt(CharSequence, int, int)} for a char[] range.
+	 */
+	public static int parseInt (final char[] buf, final int startIndex, final int endIndex) {
+		return parseInt((Object)buf, startIndex, endIndex);
+	}
+
+	/**
+	 * As {@link #parseInt(CharSequence, int, int)} for a range of ASCII bytes.
+	 */
+	public static int parseInt (final byte[] buf, final int startIndex, final int endIndex) {
+		return parseInt((Object)buf, startIndex, endIndex);
+	}
+
+	/**
+	 * @param text A CharSequence, char[] or byte[], read with {@link #charAt(Object, int)}.
+	 */
+	private static int parseInt (final Object text, final int startIndex, final int endIndex) {
+		if (startIndex >= endIndex) {
+			throw invalid("");
+		}
+		int i = startIndex;
+		final int first = charAt(text, i);
+		final boolean negative = first == '-';
+		if (negative || first == '+') {
+			if (++i == endIndex) {
+				throw invalid(toString(text, startIndex, endIndex));
+			}
+		}
+		// Accumulate negatively so that Integer.MIN_VALUE can be represented
+		final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int result = 0;
+		for (; i < endIndex; i++) {
+			final int d = charAt(text, i) - '0';
+			if (d < 0 || d > 9 || result < limit / 10 || result * 10 < limit + d) {
+				throw invalid(toString(text, startIndex, endIndex));
+			}
+			result = result * 10 - d;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * @return The character at index of a CharSequence, char[] or byte[]. The array checks are
+	 * exact class compares, so the shared loops cost no more than one per range type.
+	 */
+	private static int charAt (final Object text, final int index) {
+		if (text instanceof byte[]) {
+			return ((byte[])text)[index] & 0xff;
+		}
+		if (text instanceof char[]) {
+			return ((char[])text)[index];
+		}
+		return ((CharSequence)text).charAt(index);
+	}
+
+	private static String toString (final Object text, final int startIndex, final int endIndex) {
+		if (text instanceof byte[]) {
+			return new String((byte[])text, startIndex, endIndex - startIndex, ISO_8859_1);
+		}
+		if (text instanceof char[]) {
+			return new String((char[])text, startIndex, endIndex - startIndex);
+		}
+		return ((CharSequence)text).subSequence(startIndex, endIndex).toString();
+	}
+
+	private static NumberFormatException invalid (final CharSequence text) {
+		return new NumberFormatException("not a decimal number: \"" + text + "\"");
+	}
+}
@@ -0,0 +1,14 @@
+package ie.strix.gnss.nmea;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the {@link Stream} readXxx() methods when there are no more sentences. Distinguishes
+ * the normal end of input from an I/O error.
+ */
+public class EndOfStreamException extends IOException {
+
+	public EndOfStreamException() {
+		super("end of stream");
+	}
+}
@@ -0,0 +1,219 @@
+package ie.strix.gnss.nmea;
+
+import ie.strix.gnss.PVT;
+import lombok.Getter;
+
+/**
+ * Everything reported by the GGA, RMC, GSA, GSV, GST and VTG sentences of one epoch.
+ * Filled by {@link EpochAssembler}.
+ *
+ * The object is reused for every epoch: it is only valid during the callback it is passed to.
+ * Use {@link #copy()} or {@link #toPVT()} to keep it. Values are held as primitives. A value
+ * that was not reported in the epoch is NaN (or -1 for integers).
+ *
+ * The {@link SkyView} holds one entry for each satellite signal reported by GSV.
+ */
+@Getter
+public final class Epoch {
+
+	/** UTC date, eg "2024-11-03", or null if no RMC with a date has been seen */
+	private String isoDate;
+
+	/** Milliseconds since 1970-01-01T00:00Z, valid only if {@link #hasTimestamp()} */
+	private long timestamp;
+
+	/** UTC milliseconds since midnight or -1 */
+	private int timeInDay = -1;
+
+	// GGA (RMC if no GGA)
+	private double latitude = Double.NaN;
+	private double longitude = Double.NaN;
+	private double altitude = Double.NaN;
+	private int fixType = -1;
+	private int nSat = -1;
+
+	// GSA (GGA HDOP if no GSA)
+	private double pdop = Double.NaN;
+	private double hdop = Double.NaN;
+	private double vdop = Double.NaN;
+
+	/** Satellites used in the solution, summed over all GSA of the epoch */
+	private int satellitesUsed = -1;
+
+	// GST
+	private double rangeRms = Double.NaN;
+	private double stdMajor = Double.NaN;
+	private double stdMinor = Double.NaN;
+	private double orientation = Double.NaN;
+	private double stdLatitude = Double.NaN;
+	private double stdLongitude = Double.NaN;
+	private double stdAltitude = Double.NaN;
+
+	// VTG (RMC if no VTG)
+	private double course = Double.NaN;
+	private double speedKnots = Double.NaN;
+
+	/** Satellite signals from GSV */
+	private SkyView skyView;
+
+	Epoch (SkyView skyView) {
+		this.skyView = skyView;
+	}
+
+	/**
+	 * @return A new Epoch with the values and a copy of the sky view of this epoch, eg to pass
+	 * to another thread.
+	 */
+	public Epoch copy () {
+		final Epoch copy = new Epoch(skyView.copy());
+		copy.isoDate = isoDate;
+		copy.timestamp = timestamp;
+		copy.timeInDay = timeInDay;
+		copy.latitude = latitude;
+		copy.longitude = longitude;
+		copy.altitude = altitude;
+		copy.fixType = fixType;
+		copy.nSat = nSat;
+		copy.pdop = pdop;
+		copy.hdop = hdop;
+		copy.vdop = vdop;
+		copy.satellitesUsed = satellitesUsed;
+		copy.rangeRms = rangeRms;
+		copy.stdMajor = stdMajor;
+		copy.stdMinor = stdMinor;
+		copy.orientation = orientation;
+		copy.stdLatitude = stdLatitude;
+		copy.stdLongitude = stdLongitude;
+		copy.stdAltitude = stdAltitude;
+		copy.course = course;
+		copy.speedKnots = speedKnots;
+		return copy;
+	}
+
+	/**
+	 * Clear everything except the date, which carries over to following epochs.
+	 */
+	void reset () {
+		timeInDay = -1;
+		latitude = longitude = altitude = Double.NaN;
+		fixType = nSat = satellitesUsed = -1;
+		pdop = hdop = vdop = Double.NaN;
+		rangeRms = stdMajor = stdMinor = orientation = Double.NaN;
+		stdLatitude = stdLongitude = stdAltitude = Double.NaN;
+		course = speedKnots = Double.NaN;
+	}
+
+	/**
+	 * @return true if nothing has been set since the last {@link #reset()}.
+	 */
+	boolean isEmpty () {
+		return timeInDay < 0 && skyView.getSignalCount() == 0 && fixType < 0 && Double.isNaN(pdop) && Double.isNaN(course);
+	}
+
+	/**
+	 * @param isoDate The date or null if not known.
+	 * @param dayStart Start of the date in milliseconds since 1970-01-01T00:00Z.
+	 * @param timeInDay UTC milliseconds since midnight.
+	 */
+	void setTime (String isoDate, long dayStart, int timeInDay) {
+		this.isoDate = isoDate;
+		this.timeInDay = timeInDay;
+		this.timestamp = dayStart + timeInDay;
+	}
+
+	void setGGA (GGA gga) {
+		latitude = gga.getLatitudeDeg();
+		longitude = gga.getLongitudeDeg();
+		altitude = gga.getAltitudeM();
+		fixType = gga.getFixTypeValue();
+		nSat = gga.getNSatValue();
+		if (satellitesUsed < 0) {
+			hdop = gga.getHdopValue();
+		}
+	}
+
+	void setRMC (RMC rmc) {
+		if (fixType < 0) {
+			latitude = rmc.getLatitudeDeg();
+			longitude = rmc.getLongitudeDeg();
+		}
+		if (Double.isNaN(course)) {
+			course = rmc.getTrackAngleDeg();
+		}
+		if (Double.isNaN(speedKnots)) {
+			speedKnots = rmc.getSpeedOverGroundKtValue();
+		}
+	}
+
+	void addGSA (GSA gsa) {
+		pdop = gsa.getPdopValue();
+		hdop = gsa.getHdopValue();
+		vdop = gsa.getVdopValue();
+		satellitesUsed = Math.max(0, satellitesUsed) + gsa.getSatelliteCount();
+	}
+
+	void setGST (GST gst) {
+		rangeRms = gst.getRmsValue();
+		stdMajor = gst.getStdMajorM();
+		stdMinor = gst.getStdMinorM();
+		orientation = gst.getOrientationDeg();
+		stdLatitude = gst.getStdLatitudeM();
+		stdLongitude = gst.getStdLongitudeM();
+		stdAltitude = gst.getStdAltitudeM();
+	}
+
+	void setVTG (VTG vtg) {
+		final double courseTrue = vtg.getCourseTrueDeg();
+		if ( ! Double.isNaN(courseTrue)) {
+			course = courseTrue;
+		}
+		final double knots = vtg.getSpeedKnotsValue();
+		if ( ! Double.isNaN(knots)) {
+			speedKnots = knots;
+		}
+	}
+
+	/**
+	 * Switch to another sky view, eg to fill the next epoch while the last is still being read.
+	 */
+	void setSkyView (SkyView skyView) {
+		this.skyView = skyView;
+	}
+
+	/**
+	 * @return true if the date and time of the epoch are known.
+	 */
+	public boolean hasTimestamp () {
+		return isoDate != null && timeInDay >= 0;
+	}
+
+	/**
+	 * @return true if the epoch has a latitude and longitude.
+	 */
+	public boolean hasPosition () {
+		return ! Double.isNaN(latitude) && ! Double.isNaN(longitude);
+	}
+
+	/**
+	 * @return A new PVT with the position, course and speed of this epoch.
+	 * @throws IllegalStateException if the epoch has no timestamp.
+	 */
+	public PVT toPVT () {
+		if ( ! hasTimestamp()) {
+			throw new IllegalStateException("epoch has no date/time");
+		}
+		final PVT pvt = new PVT(timestamp, latitude, longitude, altitude);
+		pvt.setIsoTimestamp(isoDate + "T" + Util.formatIsoUtcTime(timeInDay));
+		pvt.setFixType(Math.max(0, fixType));
+		pvt.setCourse(course);
+		pvt.setSpeed(speedKnots * 1852.0 / 3600.0);
+		return pvt;
+	}
+
+	@Override
+	public String toString () {
+		return "Epoch " + isoDate + " " + Util.formatIsoUtcTime(Math.max(0, timeInDay))
+			+ " lat=" + latitude + " lon=" + longitude + " alt=" + altitude
+			+ " fix=" + fixType + " pdop=" + pdop + " signals=" + skyView.getSignalCount();
+	}
+}
@@ -0,0 +1,182 @@
+package ie.strix.gnss.nmea;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Group the sentences of one epoch (GGA, RMC, GSA, GSV, GST, VTG) into an {@link Epoch} and
+ * pass it to a listener when the epoch is complete.
+ *
+ * A new epoch starts when a GGA, RMC or GST has a different time to the current epoch.
+ * Sentences without a time (GSA, GSV, VTG) belong to the epoch of the last timed sentence,
+ * which is the output order of common receivers. The last epoch of a stream is only passed on
+ * by {@link #flush()}.
+ *
+ * The date comes from RMC and is carried forward, advancing by one day when the time of day
+ * wraps past midnight before the next RMC.
+ *
+ * One {@link Epoch} object is reused and no objects are created per epoch. The {@link SkyView}
+ * is double buffered: the next epoch is filled into a second SkyView, so the SkyView of an epoch
+ * remains valid after the callback until the following epoch is passed on. Not thread safe.
+ */
+public final class EpochAssembler {
+
+	private static final long MS_PER_DAY = 24 * 3600 * 1000L;
+
+	/** A time earlier than the previous by more than this is taken to be on the next day */
+	private static final int MIDNIGHT_WRAP_MS = 12 * 3600 * 1000;
+
+	private final Consumer<Epoch> listener;
+	private final SkyView[] skyViews;
+	private int skyViewIndex = 0;
+	private final Epoch epoch;
+
+	/** Last RMC date as ddmmyy or -1 */
+	private int dateValue = -1;
+	private String isoDate;
+	private long dayStart;
+	private int prevTimeInDay = -1;
+	private long epochCount = 0;
+
+	/**
+	 * @param listener Called with each complete epoch. The Epoch is reused after the call returns.
+	 */
+	public EpochAssembler (Consumer<Epoch> listener) {
+		this(listener, 256);
+	}
+
+	/**
+	 * @param listener Called with each complete epoch. The Epoch is reused after the call returns.
+	 * @param skyViewCapacity Initial number of signals each {@link SkyView} can hold. Use a small
+	 * value to save memory if GSV is not needed.
+	 */
+	public EpochAssembler (Consumer<Epoch> listener, int skyViewCapacity) {
+		this.listener = listener;
+		this.skyViews = new SkyView[] { new SkyView(skyViewCapacity), new SkyView(skyViewCapacity) };
+		this.epoch = new Epoch(skyViews[0]);
+	}
+
+	/**
+	 * Set the date in effect before the first RMC is read, eg when starting part way through a log.
+	 *
+	 * @param isoDate eg "2024-11-03"
+	 */
+	public void setIsoDate (String isoDate) {
+		this.isoDate = isoDate;
+		this.dayStart = isoDate == null ? 0 : LocalDate.parse(isoDate).toEpochDay() * MS_PER_DAY;
+		this.dateValue = -1;
+		updateEpochTime();
+	}
+
+	/**
+	 * Add a sentence to the current epoch. Other sentence types and null are ignored.
+	 *
+	 * @param sentence
+	 */
+	public void accept (Sentence sentence) {
+		if (sentence instanceof GGA) {
+			final GGA gga = (GGA)sentence;
+			if (gga.hasTime()) {
+				time(gga.getTimeInDay());
+			}
+			epoch.setGGA(gga);
+		} else if (sentence instanceof RMC) {
+			final RMC rmc = (RMC)sentence;
+			if (rmc.hasFix()) {
+				time(rmc.getTimeInDay());
+				date(rmc.getDateValue());
+				epoch.setRMC(rmc);
+			}
+		} else if (sentence instanceof GSV) {
+			epoch.getSkyView().add((GSV)sentence);
+		} else if (sentence instanceof GSA) {
+			epoch.addGSA((GSA)sentence);
+		} else if (sentence instanceof GST) {
+			final GST gst = (GST)sentence;
+			final int timeInDay = gst.getTimeInDayValue();
+			if (timeInDay >= 0) {
+				time(timeInDay);
+			}
+			epoch.setGST(gst);
+		} else if (sentence instanceof VTG) {
+			epoch.setVTG((VTG)sentence);
+		}
+	}
+
+	/**
+	 * Pass on the current epoch if it has a time, eg at end of stream.
+	 */
+	public void flush () {
+		if (epoch.getTimeInDay() >= 0) {
+			emit();
+		} else {
+			reset();
+		}
+	}
+
+	/**
+	 * @return Number of epochs passed to the listener.
+	 */
+	public long getEpochCount () {
+		return epochCount;
+	}
+
+	private void time (int timeInDay) {
+		final int epochTime = epoch.getTimeInDay();
+		if (timeInDay == epochTime) {
+			return;
+		}
+		if (epochTime >= 0) {
+			emit();
+		} else {
+			// Sentences seen before the first time belong to an epoch that started before the stream
+			reset();
+		}
+		if (isoDate != null && prevTimeInDay >= 0 && timeInDay < prevTimeInDay - MIDNIGHT_WRAP_MS) {
+			dayStart += MS_PER_DAY;
+			isoDate = LocalDate.ofEpochDay(dayStart / MS_PER_DAY).toString();
+		}
+		prevTimeInDay = timeInDay;
+		epoch.setTime(isoDate, dayStart, timeInDay);
+	}
+
+	private void date (int ddmmyy) {
+		if (ddmmyy < 0 || ddmmyy == dateValue) {
+			return;
+		}
+		int year = ddmmyy % 100;
+		year += year < 78 ? 2000 : 1900;
+		final LocalDate date;
+		try {
+			date = LocalDate.of(year, ddmmyy / 100 % 100, ddmmyy / 10000);
+		} catch (DateTimeException e) {
+			return;
+		}
+		dateValue = ddmmyy;
+		isoDate = date.toString();
+		dayStart = date.toEpochDay() * MS_PER_DAY;
+		updateEpochTime();
+	}
+
+	private void updateEpochTime () {
+		if (epoch.getTimeInDay() >= 0) {
+			epoch.setTime(isoDate, dayStart, epoch.getTimeInDay());
+		}
+	}
+
+	private void emit () {
+		epochCount++;
+		listener.accept(epoch);
+
+		// Fill the other buffer, leaving this sky view intact for one more epoch
+		skyViewIndex ^= 1;
+		epoch.setSkyView(skyViews[skyViewIndex]);
+		reset();
+	}
+
+	private void reset () {
+		epoch.reset();
+		epoch.getSkyView().clear();
+	}
+}
@@ -0,0 +1,163 @@
+package ie.strix.gnss.nmea;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import ie.strix.gnss.PVT;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A stage of a push pipeline: receives items from an upstream {@link Flow.Publisher}, transforms
+ * each into zero or more items and publishes those to its own subscribers. Items are processed
+ * on the executor passed to the constructor.
+ *
+ * Demand is bounded: one item is requested from upstream at a time, and publishing blocks while
+ * a subscriber's buffer (maxBufferCapacity items) is full. A slow subscriber therefore slows the
+ * whole pipeline back to the source instead of letting items queue without limit. As a blocked
+ * stage holds a thread, use a {@link java.util.concurrent.ForkJoinPool} (which adds threads to
+ * compensate for blocked publishers) or an executor with a thread for the source, each stage
+ * and each subscriber.
+ *
+ * Usage:
+ * <pre>
+ * NmeaPublisher source = new NmeaPublisher(stream, executor, 256);
+ * FlowStage&lt;Sentence, Epoch&gt; epochs = FlowStage.epochs(executor, 256);
+ * FlowStage&lt;Epoch, PVT&gt; pvts = FlowStage.pvt(executor, 256);
+ * source.subscribe(epochs);
+ * epochs.subscribe(pvts);
+ * pvts.subscribe(databaseWriter);
+ * source.start();
+ * </pre>
+ *
+ * @param <T> Type of item received.
+ * @param <R> Type of item published.
+ */
+@Slf4j
+public class FlowStage<T, R> extends SubmissionPublisher<R> implements Flow.Processor<T, R> {
+
+	private final BiConsumer<? super T, Consumer<R>> transform;
+	private final Consumer<R> publish = this::submit;
+	private Flow.Subscription subscription;
+
+	/**
+	 * @param executor Executor used to deliver items to subscribers.
+	 * @param maxBufferCapacity Maximum number of items buffered for each subscriber.
+	 * @param transform Called with each item and a consumer to publish results to.
+	 */
+	public FlowStage (Executor executor, int maxBufferCapacity, BiConsumer<? super T, Consumer<R>> transform) {
+		super(executor, maxBufferCapacity);
+		this.transform = transform;
+	}
+
+	/**
+	 * For subclasses that override {@link #process(Object)}.
+	 */
+	protected FlowStage (Executor executor, int maxBufferCapacity) {
+		this(executor, maxBufferCapacity, null);
+	}
+
+	/**
+	 * @return A stage that passes on only the items accepted by predicate.
+	 */
+	public static <T> FlowStage<T, T> filter (Executor executor, int maxBufferCapacity, Predicate<? super T> predicate) {
+		return new FlowStage<T, T>(executor, maxBufferCapacity, (item, out) -> {
+			if (predicate.test(item)) {
+				out.accept(item);
+			}
+		});
+	}
+
+	/**
+	 * @return A stage that groups sentences into epochs with an {@link EpochAssembler}. Each
+	 * epoch published is a copy that subscribers can keep.
+	 */
+	public static FlowStage<Sentence, Epoch> epochs (Executor executor, int maxBufferCapacity) {
+		return new EpochStage(executor, maxBufferCapacity);
+	}
+
+	/**
+	 * @return A stage that publishes a PVT for each epoch that has a date, time and position.
+	 */
+	public static FlowStage<Epoch, PVT> pvt (Executor executor, int maxBufferCapacity) {
+		return new FlowStage<Epoch, PVT>(executor, maxBufferCapacity, (epoch, out) -> {
+			if (epoch.hasTimestamp() && epoch.hasPosition()) {
+				out.accept(epoch.toPVT());
+			}
+		});
+	}
+
+	@Override
+	public void onSubscribe (Flow.Subscription subscription) {
+		if (this.subscription != null) {
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+		subscription.request(1);
+	}
+
+	/**
+	 * Transform one item, publishing any results with {@link #submit(Object)}.
+	 */
+	protected void process (T item) {
+		transform.accept(item, publish);
+	}
+
+	/**
+	 * Called when upstream completes, before this stage completes. Can publish final items.
+	 */
+	protected void complete () {
+	}
+
+	@Override
+	public void onNext (T item) {
+		try {
+			process(item);
+		} catch (RuntimeException e) {
+			log.error("pipeline stage failed", e);
+			subscription.cancel();
+			closeExceptionally(e);
+			return;
+		}
+		subscription.request(1);
+	}
+
+	@Override
+	public void onError (Throwable throwable) {
+		closeExceptionally(throwable);
+	}
+
+	@Override
+	public void onComplete () {
+		try {
+			complete();
+		} catch (RuntimeException e) {
+			closeExceptionally(e);
+			return;
+		}
+		close();
+	}
+
+	private static final class EpochStage extends FlowStage<Sentence, Epoch> {
+
+		private final EpochAssembler assembler = new EpochAssembler(epoch -> submit(epoch.copy()));
+
+		EpochStage (Executor executor, int maxBufferCapacity) {
+			super(executor, maxBufferCapacity);
+		}
+
+		@Override
+		protected void process (Sentence sentence) {
+			assembler.accept(sentence);
+		}
+
+		@Override
+		protected void complete () {
+			assembler.flush();
+		}
+	}
+}
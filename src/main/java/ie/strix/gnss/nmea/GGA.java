@@ -1,8 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
-
 /**
  * Parser for NMEA {@code GGA} (Global Positioning System Fix Data) sentences.
  * <p>
@@ -12,7 +9,7 @@ import lombok.extern.slf4j.Slf4j;
  * </p>
  * <p>
  * This class parses and exposes commonly used fields from the sentence. It also derives a coarse
- * horizontal accuracy estimate via {@link #accuracy} based on fix type (when available) or
+ * horizontal accuracy estimate via {@link #getAccuracy()} based on fix type (when available) or
  * fallback HDOP heuristics.
  * </p>
  * <p>
@@ -39,35 +36,127 @@ import lombok.extern.slf4j.Slf4j;
  * <li>{@code *47} - checksum.</li>
  * </ol>
  */
-@Slf4j
-@Getter
 public class GGA extends Sentence {
 
+	private static final int TIME = 1;
+	private static final int LATITUDE = 2;
+	private static final int LONGITUDE = 4;
+	private static final int FIX_TYPE = 6;
+	private static final int N_SAT = 7;
+	private static final int HDOP = 8;
+	private static final int ALTITUDE = 9;
+	private static final int DGNSS_AGE = 13;
+	private static final int STATION_ID = 14;
+
+	public GGA (String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	GGA (String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+	
 	/**
-	 * UTC time-of-fix expressed as milliseconds since midnight.
+	 * Empty GGA to be filled by {@link #parseInto(CharSequence, GGA)} or {@link Parser}.
 	 */
-	private int timeInDay;
+	public GGA () {
+	}
+
+	/**
+	 * Parse a sentence into an existing GGA, replacing its content, so that one object can be
+	 * reused for every GGA in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The GGA to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a GGA sentence.
+	 */
+	public static GGA parseInto (CharSequence sentence, GGA target) throws ChecksumFailException {
+		return parseInto(sentence, target, "GGA");
+	}
+
+	/**
+	 * As {@link #parseInto(CharSequence, GGA)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The GGA to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 */
+	public static GGA parseInto (byte[] buf, int offset, int length, GGA target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "GGA");
+	}
 	
 	/**
-	 * Raw NMEA UTC timestamp in {@code hhmmss.SS} format.
+	 * @return UTC time-of-fix expressed as milliseconds since midnight.
 	 */
-	private String time;
+	public int getTimeInDay () {
+		return getTimeField(TIME);
+	}
 
+	/**
+	 * @return true if the sentence has a time. {@link #getTimeInDay()} returns 0 otherwise.
+	 */
+	public boolean hasTime () {
+		return hasField(TIME);
+	}
+	
+	/**
+	 * @return Raw NMEA UTC timestamp in {@code hhmmss.SS} format.
+	 */
+	public String getTime () {
+		return getField(TIME);
+	}
+	
 	/**
 	 * Geodetic latitude in signed decimal degrees.
 	 * <p>
 	 * North is positive; South is negative.
 	 * </p>
+	 * 
+	 * @return Latitude or null if there is no position.
+	 */
+	public Double getLatitude () {
+		return hasPosition() ? getLatitudeField(LATITUDE) : null;
+	}
+	
+	/**
+	 * @return Latitude in signed decimal degrees or NaN if there is no position.
 	 */
-	private Double latitude;
+	public double getLatitudeDeg () {
+		return hasPosition() ? getLatitudeValue(LATITUDE) : Double.NaN;
+	}
+	
+	public boolean hasLatitude () {
+		return hasPosition();
+	}
 	
 	/**
 	 * Geodetic longitude in signed decimal degrees.
 	 * <p>
 	 * East is positive; West is negative.
 	 * </p>
+	 * 
+	 * @return Longitude or null if there is no position.
 	 */
-	private Double longitude;
+	public Double getLongitude () {
+		return hasPosition() ? getLongitudeField(LONGITUDE) : null;
+	}
+	
+	/**
+	 * @return Longitude in signed decimal degrees or NaN if there is no position.
+	 */
+	public double getLongitudeDeg () {
+		return hasPosition() ? getLongitudeValue(LONGITUDE) : Double.NaN;
+	}
+	
+	public boolean hasLongitude () {
+		return hasPosition();
+	}
 
 	/**
 	 * Fix quality/type code from GGA field 6.
@@ -76,32 +165,77 @@ public class GGA extends Sentence {
 	 * {@code 4}=RTK fixed, {@code 5}=RTK float.
 	 * </p>
 	 */
-	private Integer fixType;
+	public Integer getFixType () {
+		return getIntField(FIX_TYPE);
+	}
+	
+	/**
+	 * @return Fix quality/type code or -1 if empty or not valid.
+	 */
+	public int getFixTypeValue () {
+		return getIntField(FIX_TYPE, -1);
+	}
 
 	/**
-	 * Number of satellites used in the navigation solution.
+	 * @return Number of satellites used in the navigation solution.
+	 */
+	public Integer getNSat () {
+		return getIntField(N_SAT);
+	}
+	
+	/**
+	 * @return Number of satellites used or -1 if empty.
 	 */
-	private Integer nSat;
+	public int getNSatValue () {
+		return getIntField(N_SAT, -1);
+	}
 
 	/**
-	 * Horizontal dilution of precision (HDOP).
+	 * @return Horizontal dilution of precision (HDOP).
 	 */
-	private Double hdop;
+	public Double getHdop () {
+		return getDoubleField(HDOP);
+	}
+	
+	/**
+	 * @return HDOP or NaN if empty.
+	 */
+	public double getHdopValue () {
+		return getDoubleValue(HDOP);
+	}
 
 	/**
-	 * Antenna altitude above mean sea level, in meters.
+	 * @return Antenna altitude above mean sea level, in meters.
 	 */
-	private Double altitude;
+	public Double getAltitude () {
+		return hasAltitude() ? getDoubleValue(ALTITUDE) : null;
+	}
+	
+	/**
+	 * @return Altitude above mean sea level in meters or NaN if there is no position.
+	 */
+	public double getAltitudeM () {
+		return hasPosition() ? getDoubleValue(ALTITUDE) : Double.NaN;
+	}
+	
+	public boolean hasAltitude () {
+		return hasPosition() && hasField(ALTITUDE);
+	}
 
 	/**
-	 * Age of differential corrections (DGPS/RTCM), if reported.
+	 * @return Age of differential corrections (DGPS/RTCM), if reported.
 	 */
-	private Integer dgnssage;
+	public Integer getDgnssage () {
+		Double age = getDoubleField(DGNSS_AGE);
+		return age == null ? null : age.intValue();
+	}
 
 	/**
-	 * Differential reference station identifier, if reported.
+	 * @return Differential reference station identifier, if reported.
 	 */
-	private Integer stationId;
+	public Integer getStationId () {
+		return getIntField(STATION_ID);
+	}
 
 	/**
 	 * Estimated horizontal accuracy in meters.
@@ -110,92 +244,29 @@ public class GGA extends Sentence {
 	 * {@code HDOP * 5m} estimate is used.
 	 * </p>
 	 */
-	private Double accuracy;
-
-
-	public GGA (String sentence) throws ChecksumFailException {
-		super(sentence);
+	public Double getAccuracy () {
+		final double accuracy = getAccuracyM();
+		return Double.isNaN(accuracy) ? null : accuracy;
 	}
 	
-	@Override
-	protected void parse() {
-		this.time = parts[1];
-		String latStr = parts[2];
-		String latSign = parts[3];
-		String lngStr = parts[4];
-		String lngSign = parts[5];
-		String fixTypeStr = parts[6];
-		String nSatStr = parts[7];
-		String hdopStr = parts[8];
-		String mslAltStr = parts[9];
-
-		// If there is no time we have nothing, ignore
-		if (this.time.length() == 0) {
-			return;
-		}
-		
-		this.timeInDay = Util.parseNmeaTimestamp(this.time);
-		
-		try {
-			nSat = Integer.valueOf(nSatStr);
-		} catch (NumberFormatException e) {
-			// Likely just ""
-			nSat = null;
-		}
-
-		try {
-			hdop = Double.valueOf(hdopStr);
-		} catch (NumberFormatException e) {
-			// Likely just ""
-			hdop = null;
-		}
-
-		// TODO: is the *= -1 going to cause threading issues?
-		if (latStr.length() > 0 && lngStr.length() > 0) {
-
-			double latDeg = Double.valueOf(latStr.substring(0, 2));
-			double latMin = Double.valueOf(latStr.substring(2));
-			latitude = latDeg * 1.0 + latMin / 60.0;
-			if ("S".equals(latSign)) {
-				latitude *= -1;
-			}
-
-			double lngDeg = Double.valueOf(lngStr.substring(0, 3));
-			double lngMin = Double.valueOf(lngStr.substring(3));
-			longitude = lngDeg * 1.0 + lngMin / 60.0;
-			if ("W".equals(lngSign)) {
-				longitude *= -1;
-			}
-
-			if (mslAltStr.length() > 0) {
-				altitude = Double.valueOf(mslAltStr);
-			}
-
-		} else {
-			latitude = null;
-			longitude = null;
-			altitude = null;
-		}
-
-		try {
-			fixType = Integer.valueOf(fixTypeStr);
-		} catch (Exception e) {
-			log.info("fixType parse error GGA=" + sentence, e);
-			fixType = null;
-		}
-
-		if (fixType == 4) {
-			accuracy = 0.2;
-		} else if (fixType == 5) {
-			accuracy = 1.0;
-		} else if (fixType == 2) {
-			accuracy = 2.0;
-		} else {
-			// Estimate 'accuracy' in m using HDOP*5m. I don't have any reference for this.
-			Double hdop = Double.valueOf(hdopStr);
-			accuracy = hdop * 5.0;
+	/**
+	 * As {@link #getAccuracy()} but NaN if not available.
+	 */
+	public double getAccuracyM () {
+		switch (getIntField(FIX_TYPE, -1)) {
+		case 4: return 0.2;
+		case 5: return 1.0;
+		case 2: return 2.0;
 		}
-
+		// Estimate 'accuracy' in m using HDOP*5m. I don't have any reference for this.
+		return getDoubleValue(HDOP) * 5.0;
+	}
+	
+	/**
+	 * @return true if the sentence has time, latitude and longitude.
+	 */
+	public boolean hasPosition () {
+		return hasField(TIME) && hasField(LATITUDE) && hasField(LONGITUDE);
 	}
 	
 	/**
@@ -204,10 +275,10 @@ public class GGA extends Sentence {
 	 * @return timestamp formatted as {@code HH:mm:ss.SSSZ}
 	 */
 	public String getIsoTime () {
-		if (time == null || time.isEmpty()) {
+		if (isFieldEmpty(TIME)) {
 			return null;
 		}
-		return Util.formatIsoUtcTime(timeInDay);
+		return Util.formatIsoUtcTime(getTimeInDay());
 	}
 
 	/**
@@ -216,6 +287,6 @@ public class GGA extends Sentence {
 	 * @return timestamp in {@code hhmmss[.S[S[S]]]} format
 	 */
 	public String getNmeaTime() {
-		return time;
+		return getTime();
 	}
 }
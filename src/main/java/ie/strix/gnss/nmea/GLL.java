@@ -1,7 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-
 /**
  * Parser for NMEA {@code GLL} (Geographic Position - Latitude/Longitude)
  * sentences.
@@ -27,78 +25,115 @@ import lombok.Getter;
  * <li>{@code *5C} - checksum.</li>
  * </ol>
  */
-@Getter
 public class GLL extends Sentence {
 
+	private static final int LATITUDE = 1;
+	private static final int LONGITUDE = 3;
+	private static final int TIME = 5;
+	private static final int STATUS = 6;
+	private static final int MODE = 7;
+
+	public GLL(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	GLL(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
 	/**
-	 * UTC time-of-fix expressed as milliseconds since midnight.
+	 * Empty GLL to be filled by {@link #parseInto(CharSequence, GLL)}.
 	 */
-	private Integer timeInDay;
+	public GLL() {
+	}
 
 	/**
-	 * Geodetic latitude in signed decimal degrees (north positive).
+	 * Parse a sentence into an existing GLL, replacing its content, so that one object can be
+	 * reused for every GLL in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The GLL to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a GLL sentence.
 	 */
-	private Double latitude;
+	public static GLL parseInto (CharSequence sentence, GLL target) throws ChecksumFailException {
+		return parseInto(sentence, target, "GLL");
+	}
 
 	/**
-	 * Geodetic longitude in signed decimal degrees (east positive).
+	 * As {@link #parseInto(CharSequence, GLL)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The GLL to fill.
+	 * @return target
+	 * @throws ChecksumFailException
 	 */
-	private Double longitude;
+	public static GLL parseInto (byte[] buf, int offset, int length, GLL target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "GLL");
+	}
 
 	/**
-	 * Data status: typically {@code A} (valid) or {@code V} (invalid/void).
+	 * @return UTC time-of-fix expressed as milliseconds since midnight, or null if empty.
 	 */
-	private String status;
+	public Integer getTimeInDay() {
+		return isFieldEmpty(TIME) ? null : getTimeField(TIME);
+	}
 
 	/**
-	 * Optional NMEA mode indicator.
+	 * @return Geodetic latitude in signed decimal degrees (north positive).
 	 */
-	private String mode;
+	public Double getLatitude() {
+		return hasPosition() ? getLatitudeField(LATITUDE) : null;
+	}
 
-	public GLL(String sentence) throws ChecksumFailException {
-		super(sentence);
+	/**
+	 * @return Latitude in signed decimal degrees or NaN if there is no position.
+	 */
+	public double getLatitudeDeg() {
+		return hasPosition() ? getLatitudeValue(LATITUDE) : Double.NaN;
 	}
 
-	@Override
-	protected void parse() {
-		final String latStr = getPart(1);
-		final String latSign = getPart(2);
-		final String lonStr = getPart(3);
-		final String lonSign = getPart(4);
-		final String time = getPart(5);
-
-		status = emptyToNull(getPart(6));
-		mode = emptyToNull(getPart(7));
-
-		if (time.length() > 0) {
-			timeInDay = Util.parseNmeaTimestamp(time);
-		}
-
-		if (latStr.length() > 0 && lonStr.length() > 0) {
-			double latDeg = Double.valueOf(latStr.substring(0, 2));
-			double latMin = Double.valueOf(latStr.substring(2));
-			latitude = latDeg + latMin / 60.0;
-			if ("S".equals(latSign)) {
-				latitude *= -1;
-			}
-
-			double lonDeg = Double.valueOf(lonStr.substring(0, 3));
-			double lonMin = Double.valueOf(lonStr.substring(3));
-			longitude = lonDeg + lonMin / 60.0;
-			if ("W".equals(lonSign)) {
-				longitude *= -1;
-			}
-		}
+	public boolean hasLatitude() {
+		return hasPosition();
 	}
 
-	private String getPart(int index) {
-		return index < parts.length ? parts[index] : "";
+	/**
+	 * @return Geodetic longitude in signed decimal degrees (east positive).
+	 */
+	public Double getLongitude() {
+		return hasPosition() ? getLongitudeField(LONGITUDE) : null;
+	}
+
+	/**
+	 * @return Longitude in signed decimal degrees or NaN if there is no position.
+	 */
+	public double getLongitudeDeg() {
+		return hasPosition() ? getLongitudeValue(LONGITUDE) : Double.NaN;
+	}
+
+	public boolean hasLongitude() {
+		return hasPosition();
+	}
+
+	/**
+	 * @return Data status: typically {@code A} (valid) or {@code V} (invalid/void).
+	 */
+	public String getStatus() {
+		return getOptionalField(STATUS);
+	}
+
+	/**
+	 * @return Optional NMEA mode indicator.
+	 */
+	public String getMode() {
+		return getOptionalField(MODE);
 	}
 
-	private String emptyToNull(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		return value;
+	private boolean hasPosition() {
+		return ! isFieldEmpty(LATITUDE) && ! isFieldEmpty(LONGITUDE);
 	}
 }
@@ -1,7 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-
 /**
  * Parser for NMEA {@code GSA} (GNSS DOP and Active Satellites) sentences.
  * <p>
@@ -12,7 +10,7 @@ import lombok.Getter;
  * <p>
  * This implementation supports the common sentence form where up to 12 satellite
  * PRN slots are present. Empty satellite slots are represented as {@code null} in
- * {@link #satellitePrns}.
+ * {@link #getSatellitePrns()}.
  * </p>
  * <p>
  * Example sentence:
@@ -30,18 +28,76 @@ import lombok.Getter;
  * <li>{@code *33} - checksum.</li>
  * </ol>
  */
-@Getter
 public class GSA extends Sentence {
 
+	private static final int MODE = 1;
+	private static final int FIX_TYPE = 2;
+	private static final int FIRST_PRN = 3;
+	private static final int MAX_PRN = 12;
+
+	public GSA(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	GSA(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
 	/**
-	 * Selection mode, usually {@code M} (manual) or {@code A} (automatic).
+	 * Empty GSA to be filled by {@link #parseInto(CharSequence, GSA)}.
 	 */
-	private String mode;
+	public GSA() {
+	}
+
+	/**
+	 * Parse a sentence into an existing GSA, replacing its content, so that one object can be
+	 * reused for every GSA in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The GSA to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a GSA sentence.
+	 */
+	public static GSA parseInto (CharSequence sentence, GSA target) throws ChecksumFailException {
+		return parseInto(sentence, target, "GSA");
+	}
 
 	/**
-	 * Fix dimension: {@code 1}=no fix, {@code 2}=2D fix, {@code 3}=3D fix.
+	 * As {@link #parseInto(CharSequence, GSA)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The GSA to fill.
+	 * @return target
+	 * @throws ChecksumFailException
 	 */
-	private Integer fixType;
+	public static GSA parseInto (byte[] buf, int offset, int length, GSA target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "GSA");
+	}
+
+	/**
+	 * @return Selection mode, usually {@code M} (manual) or {@code A} (automatic).
+	 */
+	public String getMode() {
+		return getField(MODE);
+	}
+
+	/**
+	 * @return Fix dimension: {@code 1}=no fix, {@code 2}=2D fix, {@code 3}=3D fix.
+	 */
+	public Integer getFixType() {
+		return getIntField(FIX_TYPE);
+	}
+
+	/**
+	 * @return Fix dimension or -1 if empty.
+	 */
+	public int getFixTypeValue() {
+		return getIntField(FIX_TYPE, -1);
+	}
 
 	/**
 	 * Satellite PRNs used in the solution (12 slots).
@@ -49,68 +105,106 @@ public class GSA extends Sentence {
 	 * Empty slots are {@code null}.
 	 * </p>
 	 */
-	private Integer[] satellitePrns;
+	public Integer[] getSatellitePrns() {
+		Integer[] satellitePrns = new Integer[MAX_PRN];
+		final int dopStart = dopStart();
+		for (int i = 0; i < satellitePrns.length; i++) {
+			int field = FIRST_PRN + i;
+			satellitePrns[i] = field < dopStart ? getIntField(field) : null;
+		}
+		return satellitePrns;
+	}
 
 	/**
-	 * Position dilution of precision.
+	 * @param i Slot 0..11.
+	 * @return PRN in slot i or 0 if the slot is empty.
 	 */
-	private Double pdop;
+	public int getSatellitePrn(int i) {
+		final int field = FIRST_PRN + i;
+		return i >= 0 && i < MAX_PRN && field < dopStart() ? getIntField(field, 0) : 0;
+	}
 
 	/**
-	 * Horizontal dilution of precision.
+	 * Copy the PRNs of the non-empty slots to dst, without creating any objects.
+	 *
+	 * @param dst Array of at least 12 elements.
+	 * @return Number of PRNs copied.
 	 */
-	private Double hdop;
+	public int getSatellitePrns(int[] dst) {
+		final int end = Math.min(dopStart(), FIRST_PRN + MAX_PRN);
+		int n = 0;
+		for (int field = FIRST_PRN; field < end; field++) {
+			final int prn = getIntField(field, 0);
+			if (prn != 0) {
+				dst[n++] = prn;
+			}
+		}
+		return n;
+	}
 
 	/**
-	 * Vertical dilution of precision.
+	 * @return Number of non-empty PRN slots.
 	 */
-	private Double vdop;
-
-	public GSA(String sentence) throws ChecksumFailException {
-		super(sentence);
+	public int getSatelliteCount() {
+		final int end = Math.min(dopStart(), FIRST_PRN + MAX_PRN);
+		int n = 0;
+		for (int field = FIRST_PRN; field < end; field++) {
+			if (hasField(field)) {
+				n++;
+			}
+		}
+		return n;
 	}
 
-	@Override
-	protected void parse() {
-		mode = getPart(1);
-		fixType = parseOptionalInt(getPart(2));
+	/**
+	 * @return Position dilution of precision.
+	 */
+	public Double getPdop() {
+		return getDoubleField(dopStart());
+	}
 
-		int dopStart = Math.max(3, parts.length - 3);
+	/**
+	 * @return PDOP or NaN if empty.
+	 */
+	public double getPdopValue() {
+		return getDoubleValue(dopStart());
+	}
 
-		satellitePrns = new Integer[12];
-		for (int i = 0; i < satellitePrns.length; i++) {
-			int partIndex = 3 + i;
-			if (partIndex < dopStart) {
-				satellitePrns[i] = parseOptionalInt(getPart(partIndex));
-			} else {
-				satellitePrns[i] = null;
-			}
-		}
+	/**
+	 * @return Horizontal dilution of precision.
+	 */
+	public Double getHdop() {
+		return getDoubleField(dopStart() + 1);
+	}
 
-		pdop = parseOptionalDouble(getPart(dopStart));
-		hdop = parseOptionalDouble(getPart(dopStart + 1));
-		vdop = parseOptionalDouble(getPart(dopStart + 2));
+	/**
+	 * @return HDOP or NaN if empty.
+	 */
+	public double getHdopValue() {
+		return getDoubleValue(dopStart() + 1);
 	}
 
-	private String getPart(int index) {
-		return index < parts.length ? parts[index] : "";
+	/**
+	 * @return Vertical dilution of precision.
+	 */
+	public Double getVdop() {
+		return getDoubleField(dopStart() + 2);
 	}
 
-	private Integer parseOptionalInt(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		try {
-			return Integer.valueOf(value);
-		} catch (NumberFormatException e) {
-			return null;
-		}
+	/**
+	 * @return VDOP or NaN if empty.
+	 */
+	public double getVdopValue() {
+		return getDoubleValue(dopStart() + 2);
 	}
 
-	private Double parseOptionalDouble(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		return Double.valueOf(value);
+	/**
+	 * The DOP values are the last three fields (before the optional NMEA 4.10 system ID).
+	 * Some receivers omit unused PRN slots so the DOP position is found from the end.
+	 */
+	private int dopStart() {
+		final int fieldCount = getFieldCount();
+		final int dopStart = fieldCount == FIRST_PRN + MAX_PRN + 4 ? fieldCount - 4 : fieldCount - 3;
+		return Math.max(FIRST_PRN, dopStart);
 	}
 }
@@ -1,7 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-
 /**
  * Parser for NMEA {@code GST} (GNSS Pseudorange Error Statistics) sentences.
  * <p>
@@ -27,82 +25,176 @@ import lombok.Getter;
  * <li>{@code *5B} - checksum.</li>
  * </ol>
  */
-@Getter
 public class GST extends Sentence {
 
+	private static final int TIME = 1;
+	private static final int RMS = 2;
+	private static final int STD_MAJOR = 3;
+	private static final int STD_MINOR = 4;
+	private static final int ORIENTATION = 5;
+	private static final int STD_LATITUDE = 6;
+	private static final int STD_LONGITUDE = 7;
+	private static final int STD_ALTITUDE = 8;
+
+	public GST(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	GST(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
 	/**
-	 * UTC time-of-fix expressed as milliseconds since midnight.
+	 * Empty GST to be filled by {@link #parseInto(CharSequence, GST)}.
 	 */
-	private Integer timeInDay;
+	public GST() {
+	}
 
 	/**
-	 * Raw NMEA UTC timestamp in {@code hhmmss.SS} format.
+	 * Parse a sentence into an existing GST, replacing its content, so that one object can be
+	 * reused for every GST in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The GST to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a GST sentence.
 	 */
-	private String time;
+	public static GST parseInto (CharSequence sentence, GST target) throws ChecksumFailException {
+		return parseInto(sentence, target, "GST");
+	}
 
 	/**
-	 * RMS value of pseudorange residuals.
+	 * As {@link #parseInto(CharSequence, GST)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The GST to fill.
+	 * @return target
+	 * @throws ChecksumFailException
 	 */
-	private Double rms;
+	public static GST parseInto (byte[] buf, int offset, int length, GST target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "GST");
+	}
 
 	/**
-	 * Error ellipse semi-major axis one-sigma deviation (meters).
+	 * @return UTC time-of-fix expressed as milliseconds since midnight, or null if empty.
 	 */
-	private Double stdMajor;
+	public Integer getTimeInDay() {
+		return isFieldEmpty(TIME) ? null : getTimeField(TIME);
+	}
 
 	/**
-	 * Error ellipse semi-minor axis one-sigma deviation (meters).
+	 * As {@link #getTimeInDay()} but -1 if empty.
 	 */
-	private Double stdMinor;
+	public int getTimeInDayValue() {
+		return isFieldEmpty(TIME) ? -1 : getTimeField(TIME);
+	}
 
 	/**
-	 * Orientation of the error ellipse semi-major axis, in true degrees.
+	 * @return Raw NMEA UTC timestamp in {@code hhmmss.SS} format.
 	 */
-	private Double orientation;
+	public String getTime() {
+		return getField(TIME);
+	}
 
 	/**
-	 * One-sigma latitude error estimate (meters).
+	 * @return RMS value of pseudorange residuals.
 	 */
-	private Double stdLatitude;
+	public Double getRms() {
+		return getDoubleField(RMS);
+	}
 
 	/**
-	 * One-sigma longitude error estimate (meters).
+	 * @return RMS value of pseudorange residuals, or NaN if empty.
 	 */
-	private Double stdLongitude;
+	public double getRmsValue() {
+		return getDoubleValue(RMS);
+	}
 
 	/**
-	 * One-sigma altitude error estimate (meters).
+	 * @return Error ellipse semi-major axis one-sigma deviation (meters).
 	 */
-	private Double stdAltitude;
+	public Double getStdMajor() {
+		return getDoubleField(STD_MAJOR);
+	}
 
-	public GST(String sentence) throws ChecksumFailException {
-		super(sentence);
+	/**
+	 * @return Error ellipse semi-major axis one-sigma deviation (meters), or NaN if empty.
+	 */
+	public double getStdMajorM() {
+		return getDoubleValue(STD_MAJOR);
+	}
+
+	/**
+	 * @return Error ellipse semi-minor axis one-sigma deviation (meters).
+	 */
+	public Double getStdMinor() {
+		return getDoubleField(STD_MINOR);
+	}
+
+	/**
+	 * @return Error ellipse semi-minor axis one-sigma deviation (meters), or NaN if empty.
+	 */
+	public double getStdMinorM() {
+		return getDoubleValue(STD_MINOR);
 	}
 
-	@Override
-	protected void parse() {
-		time = getPart(1);
-		if (time.length() > 0) {
-			timeInDay = Util.parseNmeaTimestamp(time);
-		}
+	/**
+	 * @return Orientation of the error ellipse semi-major axis, in true degrees.
+	 */
+	public Double getOrientation() {
+		return getDoubleField(ORIENTATION);
+	}
+
+	/**
+	 * @return Orientation of the error ellipse semi-major axis, in true degrees, or NaN if empty.
+	 */
+	public double getOrientationDeg() {
+		return getDoubleValue(ORIENTATION);
+	}
 
-		rms = parseOptionalDouble(getPart(2));
-		stdMajor = parseOptionalDouble(getPart(3));
-		stdMinor = parseOptionalDouble(getPart(4));
-		orientation = parseOptionalDouble(getPart(5));
-		stdLatitude = parseOptionalDouble(getPart(6));
-		stdLongitude = parseOptionalDouble(getPart(7));
-		stdAltitude = parseOptionalDouble(getPart(8));
+	/**
+	 * @return One-sigma latitude error estimate (meters).
+	 */
+	public Double getStdLatitude() {
+		return getDoubleField(STD_LATITUDE);
 	}
 
-	private String getPart(int index) {
-		return index < parts.length ? parts[index] : "";
+	/**
+	 * @return One-sigma latitude error estimate (meters), or NaN if empty.
+	 */
+	public double getStdLatitudeM() {
+		return getDoubleValue(STD_LATITUDE);
 	}
 
-	private Double parseOptionalDouble(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		return Double.valueOf(value);
+	/**
+	 * @return One-sigma longitude error estimate (meters).
+	 */
+	public Double getStdLongitude() {
+		return getDoubleField(STD_LONGITUDE);
+	}
+
+	/**
+	 * @return One-sigma longitude error estimate (meters), or NaN if empty.
+	 */
+	public double getStdLongitudeM() {
+		return getDoubleValue(STD_LONGITUDE);
+	}
+
+	/**
+	 * @return One-sigma altitude error estimate (meters).
+	 */
+	public Double getStdAltitude() {
+		return getDoubleField(STD_ALTITUDE);
+	}
+
+	/**
+	 * @return One-sigma altitude error estimate (meters), or NaN if empty.
+	 */
+	public double getStdAltitudeM() {
+		return getDoubleValue(STD_ALTITUDE);
 	}
 }
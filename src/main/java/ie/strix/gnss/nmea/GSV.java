@@ -1,6 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -8,8 +7,8 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * A {@code GSV} report describes the set of satellites currently visible to the receiver,
  * including per-satellite geometry (elevation/azimuth) and signal strength (SNR). The full
- * report may span multiple sentences; {@link #numberOfMessages} gives the total sentence count
- * for a report and {@link #messageNumber} gives the index of this sentence within that sequence.
+ * report may span multiple sentences; {@link #getNumberOfMessages()} gives the total sentence count
+ * for a report and {@link #getMessageNumber()} gives the index of this sentence within that sequence.
  * </p>
  * <p>
  * This implementation also supports NMEA-0183 v4.10+ optional trailing fields containing
@@ -36,16 +35,66 @@ import lombok.extern.slf4j.Slf4j;
  * </ol>
  */
 @Slf4j
-@Getter
 public class GSV extends Sentence {
 
+	private static final int NUMBER_OF_MESSAGES = 1;
+	private static final int MESSAGE_NUMBER = 2;
+	private static final int N_SAT = 3;
+	private static final int FIRST_BLOCK = 4;
+
 	/**
-	 * One-based index of this sentence within the current multi-sentence GSV report.
-	 * <p>
-	 * Example: for a 3-part report, values are {@code 1}, {@code 2}, and {@code 3}.
-	 * </p>
+	 * Satellite/signal entries carried by this sentence fragment, created on first call to
+	 * {@link #getSignals()}.
+	 */
+	private SignalQuality[] signals;
+
+	public GSV(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	GSV(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
+	/**
+	 * Empty GSV to be filled by {@link #parseInto(CharSequence, GSV)} or {@link Parser}.
 	 */
-	private int messageNumber;
+	public GSV() {
+	}
+
+	/**
+	 * Parse a sentence into an existing GSV, replacing its content, so that one object can be
+	 * reused for every GSV in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The GSV to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a GSV sentence.
+	 */
+	public static GSV parseInto (CharSequence sentence, GSV target) throws ChecksumFailException {
+		return parseInto(sentence, target, "GSV");
+	}
+
+	/**
+	 * As {@link #parseInto(CharSequence, GSV)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The GSV to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 */
+	public static GSV parseInto (byte[] buf, int offset, int length, GSV target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "GSV");
+	}
+
+	@Override
+	protected void parse() {
+		signals = null;
+	}
 
 	/**
 	 * Total number of GSV sentences that make up the current report.
@@ -54,66 +103,140 @@ public class GSV extends Sentence {
 	 * typically greater than {@code 1} when many satellites are in view.
 	 * </p>
 	 */
-	private int numberOfMessages;
+	public int getNumberOfMessages() {
+		return getIntField(NUMBER_OF_MESSAGES, 0);
+	}
 
 	/**
-	 * Total number of satellites in view for the complete report.
+	 * One-based index of this sentence within the current multi-sentence GSV report.
 	 * <p>
-	 * This value is the report-wide satellite count, not just the number of satellites present in
-	 * {@link #signals} for this sentence fragment.
+	 * Example: for a 3-part report, values are {@code 1}, {@code 2}, and {@code 3}.
 	 * </p>
 	 */
-	private int nSat;
+	public int getMessageNumber() {
+		return getIntField(MESSAGE_NUMBER, 0);
+	}
 
 	/**
-	 * Satellite/signal entries carried by this sentence fragment.
+	 * Total number of satellites in view for the complete report.
 	 * <p>
-	 * Each {@link SignalQuality} contains PRN, elevation, azimuth, and SNR for one visible
-	 * satellite. NMEA GSV sentences carry up to four entries, so this array length is in the range
-	 * {@code 0..4}. For multi-sentence reports, aggregate entries from all fragments to obtain the
-	 * complete sky view.
+	 * This value is the report-wide satellite count, not just the number of satellites present in
+	 * this sentence fragment.
 	 * </p>
 	 */
-	private SignalQuality[] signals;
+	public int getNSat() {
+		return getIntField(N_SAT, 0);
+	}
 
-	public GSV(String sentence) throws ChecksumFailException {
-		super(sentence);
+	/**
+	 * @return Number of satellite blocks (0..4) in this sentence fragment.
+	 */
+	public int getSignalCount() {
+		return Math.max(0, (getFieldCount() - FIRST_BLOCK) / 4);
 	}
 
-	protected void parse() {
-		numberOfMessages = Integer.valueOf(parts[1]);
-		messageNumber = Integer.valueOf(parts[2]);
-		nSat = Integer.valueOf(parts[3]);
+	/**
+	 * @return NMEA 4.10+ signal ID or 0 if not present.
+	 */
+	public int getSignalId() {
+		final int tailIndex = FIRST_BLOCK + getSignalCount() * 4;
+		if (isFieldEmpty(tailIndex)) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(sentence, fieldStart(tailIndex), fieldEnd(tailIndex), 16);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
 
-		final int nSignal = (parts.length - 4) / 4;
-		assert nSignal <= 4;
+	/**
+	 * @return NMEA 4.10+ system ID or 0 if not present.
+	 */
+	public int getSystemId() {
+		return getIntField(FIRST_BLOCK + getSignalCount() * 4 + 1, 0);
+	}
 
-		final int nExtra = (parts.length - 4) % 4;
-		final int tailIndex = 4 + nSignal * 4;
+	/**
+	 * @return The signal reported by this sentence, or null if not reported or not known.
+	 */
+	public Signal getSignal() {
+		final int signalId = getSignalId();
+		if (signalId == 0) {
+			return null;
+		}
+		final int systemId = getSystemId();
+		final Constellation sentenceConstellation = resolveConstellation(systemId);
+		final Signal signal = Signal.getSignal(sentenceConstellation, signalId);
+		if (signal == null) {
+			getStatistics().countError(ParseStatistics.ParseError.FIELD, sentence);
+		}
+		return signal;
+	}
 
-		int signalId = nExtra > 0 ? Integer.valueOf(parts[tailIndex], 16) : 0;
-		int systemId = nExtra > 1 ? Integer.valueOf(parts[tailIndex + 1]) : 0;
-		Constellation sentenceConstellation = resolveConstellation(systemId);
+	/**
+	 * @return The constellation of the satellites in this sentence. For a GN talker this is
+	 * taken from the system ID if present.
+	 */
+	public Constellation getSatelliteConstellation() {
+		return resolveConstellation(getSystemId());
+	}
 
-		Signal signal = signalId > 0 ? Signal.getSignal(sentenceConstellation, signalId) : null;
-		if (signalId > 0 && signal == null) {
-			log.warn("signal not found for id={} constellation={} (systemId={})", signalId, sentenceConstellation, systemId);
-		}
+	/**
+	 * @param i Satellite block index (0..3).
+	 * @return PRN or 0 if empty.
+	 */
+	public int getPrn(int i) {
+		return getIntField(FIRST_BLOCK + i * 4, 0);
+	}
 
-		log.debug("nSignal={}, signalId={}, systemId={}, constellation={}", nSignal, signalId, systemId, sentenceConstellation);
+	/**
+	 * @param i Satellite block index (0..3).
+	 * @return Elevation in degrees or -1 if empty.
+	 */
+	public int getElevation(int i) {
+		return getIntField(FIRST_BLOCK + i * 4 + 1, -1);
+	}
 
-		signals = new SignalQuality[nSignal];
-		for (int i = 0; i < nSignal; i++) {
-			int prn = Integer.valueOf(parts[4 + i * 4]);
-			int ele = Integer.valueOf(parts[4 + i * 4 + 1]);
-			int azi = Integer.valueOf(parts[4 + i * 4 + 2]);
-			int snr = parseNullableInt(parts[4 + i * 4 + 3]);
-			signals[i] = new SignalQuality(signal, prn, ele, azi, snr, signalId);
-		}
+	/**
+	 * @param i Satellite block index (0..3).
+	 * @return Azimuth in degrees or -1 if empty.
+	 */
+	public int getAzimuth(int i) {
+		return getIntField(FIRST_BLOCK + i * 4 + 2, -1);
+	}
+
+	/**
+	 * @param i Satellite block index (0..3).
+	 * @return SNR in dB-Hz or -1 if empty (not tracking).
+	 */
+	public int getSnr(int i) {
+		return getIntField(FIRST_BLOCK + i * 4 + 3, -1);
 	}
 
-	private int parseNullableInt(String value) {
-		return value == null || value.isEmpty() ? -1 : Integer.valueOf(value);
+	/**
+	 * Satellite/signal entries carried by this sentence fragment.
+	 * <p>
+	 * Each {@link SignalQuality} contains PRN, elevation, azimuth, and SNR for one visible
+	 * satellite. NMEA GSV sentences carry up to four entries, so this array length is in the range
+	 * {@code 0..4}. For multi-sentence reports, aggregate entries from all fragments to obtain the
+	 * complete sky view. {@link SkyView#add(GSV)} does that without creating an object per signal.
+	 * </p>
+	 */
+	public SignalQuality[] getSignals() {
+		if (signals == null) {
+			final int nSignal = getSignalCount();
+			final int signalId = getSignalId();
+			final Signal signal = getSignal();
+			log.debug("nSignal={}, signalId={}, signal={}", nSignal, signalId, signal);
+
+			SignalQuality[] s = new SignalQuality[nSignal];
+			for (int i = 0; i < nSignal; i++) {
+				s[i] = new SignalQuality(signal, getPrn(i), getElevation(i), getAzimuth(i), getSnr(i), signalId);
+			}
+			signals = s;
+		}
+		return signals;
 	}
 
 	private Constellation resolveConstellation(int systemId) {
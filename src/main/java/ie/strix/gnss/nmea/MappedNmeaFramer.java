@@ -0,0 +1,222 @@
+package ie.strix.gnss.nmea;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Find NMEA-0183 sentences in a memory mapped file. Framing and checksum validation are done
+ * directly on the mapped bytes, so there is no read() copy into a heap buffer and no charset
+ * decoding. Only sentences that pass are copied out (to a small reused array) for parsing.
+ *
+ * The file is mapped in windows so files larger than 2GB can be read. A sentence that
+ * crosses the end of a window is found again in the next window, which starts at the '$'.
+ *
+ * Repeatedly processing the same file is served from the page cache.
+ */
+public class MappedNmeaFramer implements NmeaSource {
+
+	private static final long DEFAULT_WINDOW_SIZE = 1L << 28;
+
+	private static final ByteScanner SCANNER = ByteScanner.getDefault();
+
+	private final FileChannel channel;
+	private final boolean ownsChannel;
+	private final long windowSize;
+
+	/** End of the region to read (file offset) */
+	private final long end;
+
+	private MappedByteBuffer window;
+	/** File offset of window position 0 */
+	private long windowStart;
+	private int pos;
+	private int limit;
+
+	/** Current sentence is copied here */
+	private final byte[] sentence = new byte[NmeaFramer.MAX_SENTENCE_LENGTH + 3];
+	private int length;
+
+	private long sentenceCount = 0;
+	private long checksumFailCount = 0;
+	private long malformedCount = 0;
+	private long filteredCount = 0;
+
+	private SentenceTypeFilter filter;
+
+	public MappedNmeaFramer (File file) throws IOException {
+		this(FileChannel.open(file.toPath(), StandardOpenOption.READ), true, 0, -1, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Read a region of a file. The region should start at the beginning of a line. The channel
+	 * is not closed by {@link #close()}; it can be shared by framers on several threads.
+	 *
+	 * @param channel
+	 * @param start File offset of the start of the region.
+	 * @param end File offset of the end of the region (exclusive).
+	 * @throws IOException
+	 */
+	public MappedNmeaFramer (FileChannel channel, long start, long end) throws IOException {
+		this(channel, false, start, end, DEFAULT_WINDOW_SIZE);
+	}
+
+	MappedNmeaFramer (FileChannel channel, boolean ownsChannel, long start, long end, long windowSize) throws IOException {
+		if (windowSize < NmeaFramer.MAX_SENTENCE_LENGTH * 2 || windowSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("window size must be between " + NmeaFramer.MAX_SENTENCE_LENGTH * 2 + " and 2GB");
+		}
+		this.channel = channel;
+		this.ownsChannel = ownsChannel;
+		this.windowSize = windowSize;
+		this.end = end < 0 ? channel.size() : end;
+		map(start);
+	}
+
+	/**
+	 * Map a window starting at file offset start.
+	 */
+	private void map (long start) throws IOException {
+		final long size = Math.min(windowSize, end - start);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		windowStart = start;
+		pos = 0;
+		limit = (int)size;
+	}
+
+	@Override
+	public boolean next () throws IOException {
+		while (true) {
+
+			// Find start of sentence
+			pos = SCANNER.indexOf(window, pos, limit, (byte)'$');
+			if (pos == limit) {
+				if (windowStart + limit >= end) {
+					return false;
+				}
+				map(windowStart + limit);
+				continue;
+			}
+
+			// Make sure the longest possible sentence is in the window. As the window is at
+			// least twice the maximum sentence length this always makes progress.
+			if (pos + NmeaFramer.MAX_SENTENCE_LENGTH + 3 > limit && windowStart + limit < end) {
+				map(windowStart + pos);
+			}
+
+			if (filter != null) {
+				if (pos + 6 > limit) {
+					// Partial sentence at end of data
+					malformedCount++;
+					pos = limit;
+					return false;
+				}
+				if ( ! filter.accepts((char)(window.get(pos + 3) & 0xff), (char)(window.get(pos + 4) & 0xff), (char)(window.get(pos + 5) & 0xff))) {
+					filteredCount++;
+					pos++;
+					continue;
+				}
+			}
+
+			// Find the '*' and compute the checksum. The sentence is too long if the '*' is not
+			// found by lastIndex.
+			final int lastIndex = pos + NmeaFramer.MAX_SENTENCE_LENGTH + 1;
+			final int to = Math.min(limit, lastIndex + 1);
+			int i = SCANNER.indexOfSentenceEnd(window, pos + 1, to);
+			final int checksum = SCANNER.xor(window, pos + 1, i);
+			boolean malformed = false;
+			if (i < to) {
+				malformed = window.get(i) != '*';
+			} else if (to > lastIndex) {
+				i = lastIndex;
+				malformed = true;
+			} else {
+				// Partial sentence at end of data
+				malformedCount++;
+				pos = limit;
+				return false;
+			}
+			if (malformed) {
+				malformedCount++;
+				pos = window.get(i) == '$' ? i : i + 1;
+				continue;
+			}
+			if (i + 3 > limit) {
+				malformedCount++;
+				pos = limit;
+				return false;
+			}
+
+			final int hi = Util.hexDigit(window.get(i + 1));
+			final int lo = Util.hexDigit(window.get(i + 2));
+			if (hi < 0 || lo < 0) {
+				malformedCount++;
+				pos = i + 1;
+				continue;
+			}
+			if (((hi << 4) | lo) != checksum) {
+				checksumFailCount++;
+				pos = i + 1;
+				continue;
+			}
+
+			length = i + 3 - pos;
+			window.position(pos);
+			window.get(sentence, 0, length);
+			pos = i + 3;
+			sentenceCount++;
+			return true;
+		}
+	}
+
+	@Override
+	public byte[] getBuffer () {
+		return sentence;
+	}
+
+	@Override
+	public int getOffset () {
+		return 0;
+	}
+
+	@Override
+	public int getLength () {
+		return length;
+	}
+
+	@Override
+	public void setFilter (SentenceTypeFilter filter) {
+		this.filter = filter;
+	}
+
+	@Override
+	public long getSentenceCount () {
+		return sentenceCount;
+	}
+
+	@Override
+	public long getChecksumFailCount () {
+		return checksumFailCount;
+	}
+
+	@Override
+	public long getMalformedCount () {
+		return malformedCount;
+	}
+
+	@Override
+	public long getFilteredCount () {
+		return filteredCount;
+	}
+
+	/**
+	 * Close the file if it was opened by this framer.
+	 */
+	@Override
+	public void close () throws IOException {
+		if (ownsChannel) {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,365 @@
+package ie.strix.gnss.nmea;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+
+import ie.strix.gnss.PVT;
+
+/**
+ * Block compressed NMEA archive with a time index, so that a time window can be read without
+ * decompressing the whole log.
+ *
+ * Format:
+ * <ul>
+ * <li>Blocks: independent gzip members each holding complete sentences (CR LF terminated).</li>
+ * <li>Index: one entry per block (see {@link Block}).</li>
+ * <li>Trailer: index offset (8 bytes), block count (4), version (4), magic "NMEAIDX1".</li>
+ * </ul>
+ * All integers are big endian. As the blocks come first the archive is also a valid
+ * multi-member gzip file, so {@link Stream} (and zcat) can read it sequentially; the index
+ * after the last member is ignored as trailing data.
+ *
+ * Create with {@link NmeaArchiveWriter}.
+ */
+public class NmeaArchive implements Closeable {
+
+	static final byte[] MAGIC = { 'N', 'M', 'E', 'A', 'I', 'D', 'X', '1' };
+	static final int VERSION = 1;
+	static final int TRAILER_SIZE = 8 + 4 + 4 + 8;
+
+	/** Block time range when the block has no dated GGA or RMC */
+	static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private final FileChannel channel;
+	private final List<Block> blocks;
+
+	/**
+	 * Index entry for one block.
+	 */
+	static final class Block {
+		final long offset;
+		final int compressedLength;
+		final int length;
+		final int sentenceCount;
+		/** Date in effect at the start of the block (from an earlier RMC) or null */
+		final String isoDate;
+		/** Time range (ms since epoch) of dated GGA and RMC sentences, or NO_TIMESTAMP */
+		final long firstTimestamp;
+		final long lastTimestamp;
+
+		Block (long offset, int compressedLength, int length, int sentenceCount, String isoDate,
+				long firstTimestamp, long lastTimestamp) {
+			this.offset = offset;
+			this.compressedLength = compressedLength;
+			this.length = length;
+			this.sentenceCount = sentenceCount;
+			this.isoDate = isoDate;
+			this.firstTimestamp = firstTimestamp;
+			this.lastTimestamp = lastTimestamp;
+		}
+
+		static final int SIZE = 8 + 4 + 4 + 4 + 8 + 8 + 8;
+
+		void write (DataOutput out) throws IOException {
+			out.writeLong(offset);
+			out.writeInt(compressedLength);
+			out.writeInt(length);
+			out.writeInt(sentenceCount);
+			out.writeLong(isoDate == null ? Long.MIN_VALUE : LocalDate.parse(isoDate).toEpochDay());
+			out.writeLong(firstTimestamp);
+			out.writeLong(lastTimestamp);
+		}
+
+		static Block read (DataInput in) throws IOException {
+			final long offset = in.readLong();
+			final int compressedLength = in.readInt();
+			final int length = in.readInt();
+			final int sentenceCount = in.readInt();
+			final long epochDay = in.readLong();
+			final long firstTimestamp = in.readLong();
+			final long lastTimestamp = in.readLong();
+			return new Block(offset, compressedLength, length, sentenceCount,
+					epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay).toString(),
+					firstTimestamp, lastTimestamp);
+		}
+
+		boolean overlaps (long from, long to) {
+			return firstTimestamp != NO_TIMESTAMP && firstTimestamp <= to && lastTimestamp >= from;
+		}
+	}
+
+	/**
+	 * Open an archive and read its index.
+	 * 
+	 * @param file
+	 * @throws IOException if the file is not an archive.
+	 */
+	public NmeaArchive (File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			this.blocks = readIndex();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return true if the file ends with an archive trailer.
+	 */
+	public static boolean isArchive (File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return readTrailer(channel) != null;
+		}
+	}
+
+	private static ByteBuffer readTrailer (FileChannel channel) throws IOException {
+		final long size = channel.size();
+		if (size < TRAILER_SIZE) {
+			return null;
+		}
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+		readFully(channel, trailer, size - TRAILER_SIZE);
+		trailer.flip();
+		byte[] magic = new byte[MAGIC.length];
+		trailer.position(16);
+		trailer.get(magic);
+		trailer.rewind();
+		return Arrays.equals(magic, MAGIC) ? trailer : null;
+	}
+
+	private List<Block> readIndex () throws IOException {
+		ByteBuffer trailer = readTrailer(channel);
+		if (trailer == null) {
+			throw new IOException("not a NMEA archive");
+		}
+		final long indexOffset = trailer.getLong();
+		final int count = trailer.getInt();
+		final int version = trailer.getInt();
+		if (version != VERSION) {
+			throw new IOException("unsupported NMEA archive version " + version);
+		}
+		ByteBuffer index = ByteBuffer.allocate(count * Block.SIZE);
+		readFully(channel, index, indexOffset);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(index.array()));
+		List<Block> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(Block.read(in));
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	private static void readFully (FileChannel channel, ByteBuffer bb, long position) throws IOException {
+		while (bb.hasRemaining()) {
+			final int n = channel.read(bb, position);
+			if (n < 0) {
+				throw new IOException("unexpected end of file");
+			}
+			position += n;
+		}
+	}
+
+	public int getBlockCount () {
+		return blocks.size();
+	}
+
+	/**
+	 * @return Total number of sentences in the archive.
+	 */
+	public long getSentenceCount () {
+		long n = 0;
+		for (Block b : blocks) {
+			n += b.sentenceCount;
+		}
+		return n;
+	}
+
+	/**
+	 * @return Timestamp (ms since epoch) of the first dated sentence or null if none.
+	 */
+	public Long getFirstTimestamp () {
+		for (Block b : blocks) {
+			if (b.firstTimestamp != NO_TIMESTAMP) {
+				return b.firstTimestamp;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return Timestamp (ms since epoch) of the last dated sentence or null if none.
+	 */
+	public Long getLastTimestamp () {
+		for (int i = blocks.size() - 1; i >= 0; i--) {
+			if (blocks.get(i).lastTimestamp != NO_TIMESTAMP) {
+				return blocks.get(i).lastTimestamp;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Read the PVT in a time window using the common ForkJoin pool.
+	 * 
+	 * @param from Start time (ms since epoch) inclusive.
+	 * @param to End time (ms since epoch) inclusive.
+	 * @return
+	 * @throws IOException
+	 */
+	public List<PVT> readPVT (long from, long to) throws IOException {
+		return readPVT(from, to, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Read the PVT in a time window. Only blocks that overlap the window are decompressed,
+	 * in parallel on pool. The result is the same as filtering {@link Stream#readAllPVT()}
+	 * on the whole log.
+	 * 
+	 * @param from Start time (ms since epoch) inclusive.
+	 * @param to End time (ms since epoch) inclusive.
+	 * @param pool
+	 * @return
+	 * @throws IOException
+	 */
+	public List<PVT> readPVT (long from, long to, ForkJoinPool pool) throws IOException {
+		List<ForkJoinTask<ParallelNmeaReader.Chunk>> tasks = new ArrayList<>();
+		for (Block b : blocks) {
+			if (b.overlaps(from, to)) {
+				tasks.add(pool.submit(() -> ParallelNmeaReader.parseChunk(
+						new NmeaFramer(new ByteArrayInputStream(decompress(b))), b.isoDate)));
+			}
+		}
+		List<PVT> pvts = new ArrayList<>();
+		for (ForkJoinTask<ParallelNmeaReader.Chunk> task : tasks) {
+			final ParallelNmeaReader.Chunk chunk;
+			try {
+				chunk = task.join();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			for (PVT pvt : chunk.pvts) {
+				if (pvt.getTimestamp() >= from && pvt.getTimestamp() <= to) {
+					pvts.add(pvt);
+				}
+			}
+		}
+		return pvts;
+	}
+
+	/**
+	 * Open a Stream starting at the first block that overlaps the time window and ending after
+	 * the last. The stream starts with the date in effect at the first block, so all its PVT are
+	 * dated. Sentences outside the window at the start and end of the blocks are included.
+	 * The stream can only be read while this archive is open.
+	 * 
+	 * @param from Start time (ms since epoch) inclusive.
+	 * @param to End time (ms since epoch) inclusive.
+	 * @return
+	 */
+	public Stream openStream (long from, long to) {
+		int first = -1;
+		int last = -1;
+		for (int i = 0; i < blocks.size(); i++) {
+			if (blocks.get(i).overlaps(from, to)) {
+				if (first < 0) {
+					first = i;
+				}
+				last = i;
+			}
+		}
+		List<InputStream> parts = new ArrayList<>();
+		if (first >= 0) {
+			for (int i = first; i <= last; i++) {
+				final Block b = blocks.get(i);
+				parts.add(new LazyBlockInputStream(b));
+			}
+		}
+		Stream stream = new Stream(new NmeaFramer(new SequenceInputStream(Collections.enumeration(parts))));
+		if (first >= 0) {
+			stream.setIsoDate(blocks.get(first).isoDate);
+		}
+		return stream;
+	}
+
+	/**
+	 * Read and decompress a block.
+	 */
+	private byte[] decompress (Block b) {
+		try {
+			ByteBuffer compressed = ByteBuffer.allocate(b.compressedLength);
+			readFully(channel, compressed, b.offset);
+			byte[] data = new byte[b.length];
+			try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.array()), 8192)) {
+				int n = 0;
+				while (n < data.length) {
+					final int r = in.read(data, n, data.length - n);
+					if (r < 0) {
+						throw new IOException("block at " + b.offset + " is truncated");
+					}
+					n += r;
+				}
+			}
+			return data;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Decompresses its block when first read, so a stream over many blocks only holds one
+	 * block in memory at a time.
+	 */
+	private class LazyBlockInputStream extends InputStream {
+		private final Block block;
+		private InputStream in;
+
+		LazyBlockInputStream (Block block) {
+			this.block = block;
+		}
+
+		private InputStream in () throws IOException {
+			if (in == null) {
+				try {
+					in = new ByteArrayInputStream(decompress(block));
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+			}
+			return in;
+		}
+
+		@Override
+		public int read () throws IOException {
+			return in().read();
+		}
+
+		@Override
+		public int read (byte[] b, int off, int len) throws IOException {
+			return in().read(b, off, len);
+		}
+	}
+
+	@Override
+	public void close () throws IOException {
+		channel.close();
+	}
+}
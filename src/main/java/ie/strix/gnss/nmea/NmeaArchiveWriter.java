@@ -0,0 +1,197 @@
+package ie.strix.gnss.nmea;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write a block compressed NMEA archive (see {@link NmeaArchive} for the format). Sentences are
+ * collected into blocks of about {@value #DEFAULT_BLOCK_SIZE} bytes, each written as an
+ * independent gzip member. The time index is written as a footer by {@link #close()}.
+ *
+ * Usage, to convert an existing log:
+ * <pre>
+ * NmeaArchiveWriter.convert(new File("log.nmea.gz"), new File("log.nmea.bgz"));
+ * </pre>
+ */
+@Slf4j
+public class NmeaArchiveWriter implements Closeable {
+
+	static final int DEFAULT_BLOCK_SIZE = 65536;
+
+	private static final byte[] EOL = { '\r', '\n' };
+
+	private final OutputStream out;
+	private final int blockSize;
+
+	/** Uncompressed block being collected */
+	private final byte[] block;
+	private int blockLength;
+	private int blockSentenceCount;
+
+	private long offset = 0;
+	private final List<NmeaArchive.Block> index = new ArrayList<>();
+
+	/** Date from the last RMC, used to timestamp GGA and RMC sentences */
+	private String isoDate;
+	private long dayStart;
+	/** Date in effect at the start of the current block */
+	private String blockIsoDate;
+	private long blockFirstTimestamp = NmeaArchive.NO_TIMESTAMP;
+	private long blockLastTimestamp = NmeaArchive.NO_TIMESTAMP;
+
+	private final SentencePool pool = new SentencePool();
+	private final SentenceTypeFilter timeTypes = SentenceTypeFilter.of("GGA", "RMC");
+
+	public NmeaArchiveWriter (File file) throws IOException {
+		this(new FileOutputStream(file), DEFAULT_BLOCK_SIZE);
+	}
+
+	NmeaArchiveWriter (OutputStream out, int blockSize) {
+		if (blockSize < NmeaFramer.MAX_SENTENCE_LENGTH + EOL.length + 3) {
+			throw new IllegalArgumentException("block size too small");
+		}
+		this.out = out;
+		this.blockSize = blockSize;
+		this.block = new byte[blockSize];
+	}
+
+	/**
+	 * Convert a NMEA log (plain or .gz) to an archive. Only sentences with a valid checksum
+	 * are kept.
+	 * 
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void convert (File in, File out) throws IOException {
+		Stream stream = new Stream(in);
+		try (NmeaArchiveWriter writer = new NmeaArchiveWriter(out)) {
+			NmeaSource source = stream.getSource();
+			while (source.next()) {
+				writer.write(source.getBuffer(), source.getOffset(), source.getLength());
+			}
+		} finally {
+			stream.close();
+		}
+	}
+
+	public void write (String sentence) throws IOException {
+		byte[] bytes = sentence.trim().getBytes(StandardCharsets.ISO_8859_1);
+		write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Append a sentence, eg as framed by {@link NmeaFramer}. The line ending is added.
+	 * 
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence without line ending.
+	 * @throws IOException
+	 */
+	public void write (byte[] buf, int offset, int length) throws IOException {
+		if (length + EOL.length > blockSize) {
+			throw new IllegalArgumentException("sentence longer than block size");
+		}
+		if (blockLength + length + EOL.length > blockSize) {
+			flushBlock();
+		}
+		if (blockSentenceCount == 0) {
+			blockIsoDate = isoDate;
+		}
+		System.arraycopy(buf, offset, block, blockLength, length);
+		blockLength += length;
+		System.arraycopy(EOL, 0, block, blockLength, EOL.length);
+		blockLength += EOL.length;
+		blockSentenceCount++;
+
+		if (length >= 6 && timeTypes.accepts(buf, offset)) {
+			updateTime(buf, offset, length);
+		}
+	}
+
+	/**
+	 * Track the date (from RMC) and the time range of the block.
+	 */
+	private void updateTime (byte[] buf, int offset, int length) {
+		Sentence sentence = pool.parse(buf, offset, length);
+		long timestamp = NmeaArchive.NO_TIMESTAMP;
+		if (sentence instanceof RMC) {
+			RMC rmc = (RMC)sentence;
+			String rmcIsoDate = rmc.getDateIso();
+			if (rmcIsoDate != null) {
+				if ( ! rmcIsoDate.equals(isoDate)) {
+					isoDate = rmcIsoDate;
+					dayStart = LocalDate.parse(isoDate).toEpochDay() * 86400000L;
+				}
+				timestamp = dayStart + rmc.getTimeInDay();
+			}
+		} else if (sentence instanceof GGA && isoDate != null) {
+			GGA gga = (GGA)sentence;
+			if (gga.hasPosition()) {
+				timestamp = dayStart + gga.getTimeInDay();
+			}
+		}
+		if (timestamp != NmeaArchive.NO_TIMESTAMP) {
+			if (blockFirstTimestamp == NmeaArchive.NO_TIMESTAMP || timestamp < blockFirstTimestamp) {
+				blockFirstTimestamp = timestamp;
+			}
+			if (blockLastTimestamp == NmeaArchive.NO_TIMESTAMP || timestamp > blockLastTimestamp) {
+				blockLastTimestamp = timestamp;
+			}
+		}
+	}
+
+	private void flushBlock () throws IOException {
+		if (blockSentenceCount == 0) {
+			return;
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(blockLength / 4);
+		try (GZIPOutputStream gz = new GZIPOutputStream(compressed)) {
+			gz.write(block, 0, blockLength);
+		}
+		compressed.writeTo(out);
+
+		index.add(new NmeaArchive.Block(offset, compressed.size(), blockLength, blockSentenceCount,
+				blockIsoDate, blockFirstTimestamp, blockLastTimestamp));
+		offset += compressed.size();
+
+		blockLength = 0;
+		blockSentenceCount = 0;
+		blockFirstTimestamp = NmeaArchive.NO_TIMESTAMP;
+		blockLastTimestamp = NmeaArchive.NO_TIMESTAMP;
+	}
+
+	/**
+	 * Write the last block and the index.
+	 */
+	@Override
+	public void close () throws IOException {
+		try {
+			flushBlock();
+			DataOutputStream dos = new DataOutputStream(out);
+			for (NmeaArchive.Block b : index) {
+				b.write(dos);
+			}
+			dos.writeLong(offset);
+			dos.writeInt(index.size());
+			dos.writeInt(NmeaArchive.VERSION);
+			dos.write(NmeaArchive.MAGIC);
+			dos.flush();
+			log.debug("wrote {} blocks", index.size());
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package ie.strix.gnss.nmea;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Find NMEA-0183 sentences ({@code $...*hh}) in a byte stream without decoding to characters
+ * and without creating any objects per sentence. The XOR checksum is verified in place while
+ * scanning for the '*', several bytes at a time (see {@link ByteScanner}). Bytes between sentences (end of line, binary noise etc) are skipped.
+ *
+ * Usage:
+ * <pre>
+ * NmeaFramer framer = new NmeaFramer(in);
+ * while (framer.next()) {
+ *     process(framer.getBuffer(), framer.getOffset(), framer.getLength());
+ * }
+ * </pre>
+ *
+ * A {@link SentenceTypeFilter} can be set to skip sentences of types that are not needed
+ * immediately after the formatter, without calculating the checksum.
+ *
+ * The buffer returned by {@link #getBuffer()} is reused: the sentence view is only valid until
+ * the next call to {@link #next()}.
+ */
+public class NmeaFramer implements NmeaSource {
+
+	private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+	/**
+	 * Longest sentence accepted. The standard limits sentences to 82 characters, but some
+	 * proprietary sentences are much longer.
+	 */
+	static final int MAX_SENTENCE_LENGTH = 1024;
+
+	private static final ByteScanner SCANNER = ByteScanner.getDefault();
+
+	private final InputStream in;
+	private final byte[] buf;
+	private int pos = 0;
+	private int limit = 0;
+	private boolean eof = false;
+
+	private int offset;
+	private int length;
+
+	private long sentenceCount = 0;
+	private long checksumFailCount = 0;
+	private long malformedCount = 0;
+	private long filteredCount = 0;
+
+	/** If not null only sentences of these types are returned */
+	private SentenceTypeFilter filter;
+
+	public NmeaFramer (InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	public NmeaFramer (InputStream in, int bufferSize) {
+		if (bufferSize < MAX_SENTENCE_LENGTH * 2) {
+			throw new IllegalArgumentException("buffer size must be at least " + MAX_SENTENCE_LENGTH * 2);
+		}
+		this.in = in;
+		this.buf = new byte[bufferSize];
+	}
+
+	/**
+	 * Advance to the next sentence with a valid checksum.
+	 *
+	 * @return true if a sentence is available, false at end of stream.
+	 * @throws IOException
+	 */
+	@Override
+	public boolean next () throws IOException {
+		while (true) {
+
+			// Find start of sentence
+			pos = SCANNER.indexOf(buf, pos, limit, (byte)'$');
+			if (pos == limit) {
+				pos = limit = 0;
+				if ( ! fill()) {
+					return false;
+				}
+				continue;
+			}
+
+			if (filter != null) {
+				// Need the address field to test the formatter
+				if (pos + 6 > limit) {
+					compact();
+					if ( ! fill()) {
+						malformedCount++;
+						pos = limit;
+						return false;
+					}
+					continue;
+				}
+				if ( ! filter.accepts(buf, pos)) {
+					filteredCount++;
+					pos++;
+					continue;
+				}
+			}
+
+			// Scan to '*' computing checksum as we go. The sentence is too long if the '*' is
+			// not found by lastIndex.
+			int i = pos + 1;
+			int checksum = 0;
+			boolean malformed = false;
+			while (true) {
+				final int lastIndex = pos + MAX_SENTENCE_LENGTH + 1;
+				final int to = Math.min(limit, lastIndex + 1);
+				final int end = SCANNER.indexOfSentenceEnd(buf, i, to);
+				checksum ^= SCANNER.xor(buf, i, end);
+				i = end;
+				if (i < to) {
+					malformed = buf[i] != '*';
+					break;
+				}
+				if (to > lastIndex) {
+					i = lastIndex;
+					malformed = true;
+					break;
+				}
+				i -= compact();
+				if ( ! fill()) {
+					// Partial sentence at end of stream
+					malformedCount++;
+					pos = limit;
+					return false;
+				}
+			}
+			if (malformed) {
+				malformedCount++;
+				pos = buf[i] == '$' ? i : i + 1;
+				continue;
+			}
+
+			// Need two checksum digits after the '*'
+			while (i + 3 > limit) {
+				i -= compact();
+				if ( ! fill()) {
+					malformedCount++;
+					pos = limit;
+					return false;
+				}
+			}
+
+			final int hi = Util.hexDigit(buf[i + 1]);
+			final int lo = Util.hexDigit(buf[i + 2]);
+			if (hi < 0 || lo < 0) {
+				malformedCount++;
+				pos = i + 1;
+				continue;
+			}
+			if (((hi << 4) | lo) != checksum) {
+				checksumFailCount++;
+				pos = i + 1;
+				continue;
+			}
+
+			offset = pos;
+			length = i + 3 - pos;
+			pos = i + 3;
+			sentenceCount++;
+			return true;
+		}
+	}
+
+	/**
+	 * Move the partial sentence starting at pos to the start of the buffer.
+	 *
+	 * @return The number of bytes the data was moved by.
+	 */
+	private int compact () {
+		final int shift = pos;
+		if (shift > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= shift;
+			pos = 0;
+		}
+		return shift;
+	}
+
+	/**
+	 * Read more data into the buffer after limit.
+	 *
+	 * @return false if at end of stream.
+	 * @throws IOException
+	 */
+	private boolean fill () throws IOException {
+		if (eof) {
+			return false;
+		}
+		final int n = in.read(buf, limit, buf.length - limit);
+		if (n < 0) {
+			eof = true;
+			return false;
+		}
+		limit += n;
+		return true;
+	}
+
+	/**
+	 * @return The buffer holding the current sentence.
+	 */
+	@Override
+	public byte[] getBuffer () {
+		return buf;
+	}
+
+	/**
+	 * @return Index in {@link #getBuffer()} of the '$' of the current sentence.
+	 */
+	@Override
+	public int getOffset () {
+		return offset;
+	}
+
+	/**
+	 * @return Length of the current sentence from the '$' to the last checksum digit inclusive.
+	 */
+	@Override
+	public int getLength () {
+		return length;
+	}
+
+	@Override
+	public long getSentenceCount () {
+		return sentenceCount;
+	}
+
+	@Override
+	public long getChecksumFailCount () {
+		return checksumFailCount;
+	}
+
+	@Override
+	public long getMalformedCount () {
+		return malformedCount;
+	}
+
+	/**
+	 * @return Number of sentences skipped by the sentence type filter.
+	 */
+	@Override
+	public long getFilteredCount () {
+		return filteredCount;
+	}
+
+	/**
+	 * Only return sentences accepted by filter. Other sentences are skipped without
+	 * validating the checksum.
+	 *
+	 * @param filter The filter or null to return all sentences.
+	 */
+	@Override
+	public void setFilter (SentenceTypeFilter filter) {
+		this.filter = filter;
+	}
+
+	@Override
+	public void close () throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,72 @@
+package ie.strix.gnss.nmea;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SubmissionPublisher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Push the sentences of a {@link Stream} to {@link java.util.concurrent.Flow.Subscriber}s.
+ *
+ * After subscribers are added {@link #start()} reads the stream on the executor. Reading blocks
+ * while any subscriber has maxBufferCapacity sentences not yet consumed, so a slow subscriber
+ * applies backpressure to the source. At end of stream subscribers are completed normally; an
+ * I/O error or a failure of the source completes them exceptionally. See {@link FlowStage} for pipeline stages.
+ *
+ * Sentences are published as new objects (sentence reuse is turned off on the stream) as they
+ * are consumed on other threads.
+ */
+@Slf4j
+public class NmeaPublisher extends SubmissionPublisher<Sentence> {
+
+	private final Stream stream;
+
+	/**
+	 * @param stream Source of sentences. Closed at end of stream.
+	 * @param executor Executor used to read the stream and to deliver sentences to subscribers.
+	 * @param maxBufferCapacity Maximum number of sentences buffered for each subscriber.
+	 */
+	public NmeaPublisher (Stream stream, Executor executor, int maxBufferCapacity) {
+		super(executor, maxBufferCapacity);
+		this.stream = stream;
+		stream.setReuseSentences(false);
+	}
+
+	/**
+	 * Start reading the stream on the executor.
+	 *
+	 * @return Completes with the number of sentences published at end of stream, or exceptionally
+	 * on an I/O error or a failure of the source.
+	 */
+	public CompletableFuture<Long> start () {
+		return CompletableFuture.supplyAsync(this::run, getExecutor());
+	}
+
+	private long run () {
+		long n = 0;
+		try {
+			while ( ! isClosed()) {
+				final Sentence sentence = stream.readNextSentence();
+				if (sentence != null) {
+					submit(sentence);
+					n++;
+				}
+			}
+		} catch (EndOfStreamException e) {
+			log.debug("end of stream after {} sentences", n);
+			close();
+		} catch (IOException e) {
+			closeExceptionally(e);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			closeExceptionally(e);
+			throw e;
+		} finally {
+			stream.close();
+		}
+		return n;
+	}
+}
@@ -0,0 +1,446 @@
+package ie.strix.gnss.nmea;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accept NMEA-0183 streams from many receivers over TCP and pass the epochs of each receiver,
+ * tagged with the {@link Connection} it arrived on, to a shared {@link EpochSink}.
+ *
+ * Connections are served by a small number of selector threads rather than a thread per
+ * connection. Each connection holds only its partial sentence (at most
+ * {@link NmeaFramer#MAX_SENTENCE_LENGTH} bytes) and its {@link EpochAssembler}; data is read into
+ * a buffer shared by all connections of a selector thread and sentences are parsed into the
+ * {@link SentencePool} of that thread. GSV is dropped unless {@link #setSkyView(boolean)} is set,
+ * which keeps the sky view arrays of each connection small.
+ *
+ * A receiver can name itself by sending {@code SOURCE <name>} as the first line, as an NTRIP
+ * base station does to {@link ie.strix.gnss.ntrip.caster.NtripCaster}. Otherwise the connection
+ * is named after the remote address.
+ *
+ * The sink is called on the selector thread of the connection: it must not block, and must copy
+ * the {@link Epoch} (see {@link Epoch#copy()}) to keep it. If it throws, the connection the epoch
+ * came from is closed (see {@link #getErrorCount()}); other connections are not affected.
+ */
+@Slf4j
+public class NmeaServer implements Closeable {
+
+	private static final int READ_BUFFER_SIZE = 65536;
+
+	/** Sentences needed to assemble an epoch without, and with, the sky view */
+	private static final SentenceTypeFilter EPOCH_TYPES = SentenceTypeFilter.of("GGA", "RMC", "GSA", "GST", "VTG");
+	private static final SentenceTypeFilter SKY_VIEW_TYPES = EPOCH_TYPES.union(SentenceTypeFilter.of("GSV"));
+
+	/**
+	 * Receives the epochs of all connections.
+	 */
+	public interface EpochSink {
+
+		/**
+		 * @param connection The connection the epoch was received on.
+		 * @param epoch Reused after the call returns.
+		 */
+		void onEpoch (Connection connection, Epoch epoch);
+
+		default void onConnect (Connection connection) {
+		}
+
+		default void onDisconnect (Connection connection) {
+		}
+	}
+
+	/**
+	 * State of one receiver connection.
+	 */
+	public static final class Connection {
+
+		private final SocketChannel channel;
+		private final SocketAddress remoteAddress;
+		private String name;
+		private final EpochAssembler assembler;
+		private final SentenceTypeFilter filter;
+
+		/** Partial sentence carried over from the last read */
+		private final byte[] pending = new byte[NmeaFramer.MAX_SENTENCE_LENGTH + 3];
+		private int pendingLength = 0;
+		private boolean discarding = false;
+
+		private long bytesReceived = 0;
+		private long sentenceCount = 0;
+		private long invalidCount = 0;
+
+		private Connection (SocketChannel channel, SocketAddress remoteAddress, EpochSink sink, boolean skyView) {
+			this.channel = channel;
+			this.remoteAddress = remoteAddress;
+			this.name = String.valueOf(remoteAddress);
+			this.assembler = new EpochAssembler(epoch -> sink.onEpoch(this, epoch), skyView ? 64 : 8);
+			this.filter = skyView ? SKY_VIEW_TYPES : EPOCH_TYPES;
+		}
+
+		/**
+		 * @return The name sent by the receiver in a {@code SOURCE} line, otherwise the remote address.
+		 */
+		public String getName () {
+			return name;
+		}
+
+		public SocketAddress getRemoteAddress () {
+			return remoteAddress;
+		}
+
+		public long getBytesReceived () {
+			return bytesReceived;
+		}
+
+		public long getSentenceCount () {
+			return sentenceCount;
+		}
+
+		/**
+		 * @return Number of lines dropped because of a checksum failure, bad framing or excess length.
+		 */
+		public long getInvalidCount () {
+			return invalidCount;
+		}
+
+		public long getEpochCount () {
+			return assembler.getEpochCount();
+		}
+
+		@Override
+		public String toString () {
+			return name;
+		}
+	}
+
+	private final ServerSocketChannel serverChannel;
+	private final EpochSink sink;
+	private final Worker[] workers;
+	private final AtomicInteger connectionCount = new AtomicInteger();
+	private final LongAdder errorCount = new LongAdder();
+	private int nextWorker = 0;
+	private volatile boolean running = false;
+
+	private volatile boolean skyView = false;
+
+	/**
+	 * @param address Address to listen on. Use port 0 for any free port, see {@link #getPort()}.
+	 * @param sink
+	 * @param selectorThreads Number of threads serving connections.
+	 * @throws IOException
+	 */
+	public NmeaServer (InetSocketAddress address, EpochSink sink, int selectorThreads) throws IOException {
+		this.sink = sink;
+		this.serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(address, 1024);
+		serverChannel.configureBlocking(false);
+		this.workers = new Worker[Math.max(1, selectorThreads)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i);
+		}
+		serverChannel.register(workers[0].selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Include GSV sentences so that each {@link Epoch} has a full {@link SkyView}. This takes a
+	 * few KB more memory per connection. Applies to connections accepted after the call; each
+	 * connection keeps the setting it was accepted with.
+	 *
+	 * @param skyView
+	 */
+	public void setSkyView (boolean skyView) {
+		this.skyView = skyView;
+	}
+
+	public void start () {
+		running = true;
+		for (Worker worker : workers) {
+			final Thread thread = new Thread(worker, "nmea-server-" + worker.index);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		log.info("NMEA server listening on {}", getLocalAddress());
+	}
+
+	/**
+	 * @return The port listened on.
+	 */
+	public int getPort () {
+		return ((InetSocketAddress)getLocalAddress()).getPort();
+	}
+
+	private SocketAddress getLocalAddress () {
+		try {
+			return serverChannel.getLocalAddress();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Number of open receiver connections.
+	 */
+	public int getConnectionCount () {
+		return connectionCount.get();
+	}
+
+	/**
+	 * @return Number of exceptions thrown while processing the data of a connection, eg by the
+	 *         sink. The connection is closed.
+	 */
+	public long getErrorCount () {
+		return errorCount.sum();
+	}
+
+	/**
+	 * Stop accepting and close all connections. The selector threads pass the last epoch of each
+	 * connection to the sink as they close it.
+	 */
+	@Override
+	public void close () throws IOException {
+		running = false;
+		serverChannel.close();
+		for (Worker worker : workers) {
+			worker.selector.wakeup();
+		}
+	}
+
+	private final class Worker implements Runnable {
+
+		private final int index;
+		private final Selector selector;
+		private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		private final SentencePool pool = new SentencePool();
+
+		Worker (int index) throws IOException {
+			this.index = index;
+			this.selector = Selector.open();
+		}
+
+		@Override
+		public void run () {
+			try {
+				while (running) {
+					selector.select();
+					registerAccepted();
+					final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						final SelectionKey key = keys.next();
+						keys.remove();
+						if ( ! key.isValid()) {
+							continue;
+						}
+						if (key.isAcceptable()) {
+							accept();
+						} else if (key.isReadable()) {
+							read(key);
+						}
+					}
+				}
+			} catch (IOException | ClosedSelectorException e) {
+				log.error("selector failed", e);
+			} finally {
+				for (SelectionKey key : selector.keys()) {
+					if (key.attachment() instanceof Connection) {
+						disconnect(key, (Connection)key.attachment(), true);
+					}
+				}
+				try {
+					selector.close();
+				} catch (IOException ignored) {
+				}
+			}
+		}
+
+		private void accept () throws IOException {
+			SocketChannel channel;
+			while ((channel = serverChannel.accept()) != null) {
+				final Worker worker = workers[nextWorker];
+				nextWorker = (nextWorker + 1) % workers.length;
+				worker.accepted.add(channel);
+				if (worker != this) {
+					worker.selector.wakeup();
+				}
+			}
+			registerAccepted();
+		}
+
+		private void registerAccepted () {
+			SocketChannel channel;
+			while ((channel = accepted.poll()) != null) {
+				try {
+					channel.configureBlocking(false);
+					channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+					final Connection connection = new Connection(channel, channel.getRemoteAddress(), sink, skyView);
+					final SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+					connectionCount.incrementAndGet();
+					log.debug("receiver connected from {}", connection.remoteAddress);
+					try {
+						sink.onConnect(connection);
+					} catch (RuntimeException e) {
+						failed(key, connection, e);
+					}
+				} catch (IOException e) {
+					log.error("error registering connection", e);
+					closeQuietly(channel);
+				}
+			}
+		}
+
+		private void read (SelectionKey key) {
+			final Connection connection = (Connection)key.attachment();
+			int n;
+			try {
+				readBuffer.clear();
+				n = connection.channel.read(readBuffer);
+			} catch (IOException e) {
+				log.debug("read failed from {}: {}", connection, e.getMessage());
+				n = -1;
+			}
+			if (n < 0) {
+				disconnect(key, connection, true);
+				return;
+			}
+			connection.bytesReceived += n;
+			try {
+				scan(connection, readBuffer.array(), n);
+			} catch (RuntimeException e) {
+				failed(key, connection, e);
+			}
+		}
+
+		/**
+		 * Close a connection whose data could not be processed. Its partial epoch is dropped.
+		 */
+		private void failed (SelectionKey key, Connection connection, RuntimeException e) {
+			errorCount.increment();
+			log.warn("closing receiver {}: {}", connection, e.toString(), e);
+			disconnect(key, connection, false);
+		}
+
+		/**
+		 * Split the bytes read into lines. Complete lines are processed in place, a partial line
+		 * at the end is kept in the connection until the next read.
+		 */
+		private void scan (Connection c, byte[] buf, int length) {
+			final ByteScanner scanner = ByteScanner.getDefault();
+			int start = 0;
+			for (int i = scanner.indexOf(buf, 0, length, (byte)'\n'); i < length; i = scanner.indexOf(buf, i + 1, length, (byte)'\n')) {
+				if (c.pendingLength > 0 || c.discarding) {
+					if (append(c, buf, start, i - start)) {
+						line(c, c.pending, 0, c.pendingLength);
+					}
+					c.pendingLength = 0;
+					c.discarding = false;
+				} else {
+					line(c, buf, start, i - start);
+				}
+				start = i + 1;
+			}
+			if (start < length) {
+				append(c, buf, start, length - start);
+			}
+		}
+
+		/**
+		 * @return false if the line is too long and is being discarded.
+		 */
+		private boolean append (Connection c, byte[] buf, int offset, int length) {
+			if (c.discarding) {
+				return false;
+			}
+			if (c.pendingLength + length > c.pending.length) {
+				c.invalidCount++;
+				c.discarding = true;
+				c.pendingLength = 0;
+				return false;
+			}
+			System.arraycopy(buf, offset, c.pending, c.pendingLength, length);
+			c.pendingLength += length;
+			return true;
+		}
+
+		private void line (Connection c, byte[] buf, int offset, int length) {
+			int start = offset;
+			int end = offset + length;
+			while (end > start && (buf[end - 1] == '\r' || buf[end - 1] == ' ')) {
+				end--;
+			}
+			while (start < end && buf[start] != '$') {
+				start++;
+			}
+			if (start == end) {
+				if (c.sentenceCount == 0 && c.getEpochCount() == 0) {
+					header(c, new String(buf, offset, length, StandardCharsets.US_ASCII).trim());
+				}
+				return;
+			}
+			if (end - start < 6) {
+				c.invalidCount++;
+				return;
+			}
+			if ( ! c.filter.accepts(buf, start)) {
+				return;
+			}
+			final Sentence sentence = pool.parse(buf, start, end - start);
+			if (sentence == null) {
+				c.invalidCount++;
+				return;
+			}
+			c.sentenceCount++;
+			c.assembler.accept(sentence);
+		}
+
+		private void header (Connection c, String line) {
+			if (line.startsWith("SOURCE ")) {
+				final String[] parts = line.split("\\s+");
+				c.name = parts[1].startsWith("/") ? parts[1].substring(1) : parts[1];
+				log.debug("receiver {} is {}", c.remoteAddress, c.name);
+			}
+		}
+
+		/**
+		 * @param flush Pass the last epoch of the connection to the sink.
+		 */
+		private void disconnect (SelectionKey key, Connection connection, boolean flush) {
+			key.cancel();
+			closeQuietly(connection.channel);
+			connectionCount.decrementAndGet();
+			log.debug("receiver {} disconnected", connection);
+			try {
+				if (flush) {
+					connection.assembler.flush();
+				}
+				sink.onDisconnect(connection);
+			} catch (RuntimeException e) {
+				errorCount.increment();
+				log.warn("error closing receiver {}", connection, e);
+			}
+		}
+	}
+
+	private static void closeQuietly (SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package ie.strix.gnss.nmea;
+
+import java.io.IOException;
+
+/**
+ * A source of framed NMEA-0183 sentences with verified checksums, held as bytes. See
+ * {@link NmeaFramer} (any InputStream) and {@link MappedNmeaFramer} (memory mapped file).
+ *
+ * The sentence view is only valid until the next call to {@link #next()}.
+ */
+public interface NmeaSource {
+
+	/**
+	 * Advance to the next sentence with a valid checksum.
+	 *
+	 * @return true if a sentence is available, false at end of input.
+	 * @throws IOException
+	 */
+	boolean next () throws IOException;
+
+	/**
+	 * @return The buffer holding the current sentence.
+	 */
+	byte[] getBuffer ();
+
+	/**
+	 * @return Index in {@link #getBuffer()} of the '$' of the current sentence.
+	 */
+	int getOffset ();
+
+	/**
+	 * @return Length of the current sentence from the '$' to the last checksum digit inclusive.
+	 */
+	int getLength ();
+
+	/**
+	 * Only return sentences accepted by filter. Other sentences are skipped without
+	 * validating the checksum.
+	 *
+	 * @param filter The filter or null to return all sentences.
+	 */
+	void setFilter (SentenceTypeFilter filter);
+
+	long getSentenceCount ();
+
+	long getChecksumFailCount ();
+
+	long getMalformedCount ();
+
+	/**
+	 * @return Number of sentences skipped by the sentence type filter.
+	 */
+	long getFilteredCount ();
+
+	void close () throws IOException;
+}
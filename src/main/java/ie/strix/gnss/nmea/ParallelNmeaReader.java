@@ -0,0 +1,209 @@
+package ie.strix.gnss.nmea;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import ie.strix.gnss.PVT;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read all PVT from a large uncompressed NMEA log using several threads. The file is split
+ * at line boundaries into chunks which are parsed in parallel on a {@link ForkJoinPool}, each
+ * chunk being read through its own memory mapping ({@link MappedNmeaFramer}).
+ *
+ * The date of a PVT comes from the last RMC before its GGA. A chunk does not know the date
+ * until it reaches its first RMC, so GGA sentences before that are kept aside and dated in the
+ * merge step using the last RMC date of the preceding chunks. The result is identical to
+ * {@link Stream#readAllPVT()}.
+ *
+ * Compressed (.gz) files cannot be split and are read sequentially, except for
+ * {@link NmeaArchive} files whose blocks are decompressed in parallel.
+ */
+@Slf4j
+public class ParallelNmeaReader {
+
+	/** Smallest chunk worth handing to another thread */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/** Chunks per thread, so that threads that finish early can take more work */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private ParallelNmeaReader () {
+	}
+
+	/**
+	 * Read all PVT using the common ForkJoin pool.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<PVT> readAllPVT (File file) throws IOException {
+		return readAllPVT(file, ForkJoinPool.commonPool());
+	}
+
+	public static List<PVT> readAllPVT (File file, ForkJoinPool pool) throws IOException {
+		if (NmeaArchive.isArchive(file)) {
+			try (NmeaArchive archive = new NmeaArchive(file)) {
+				return archive.readPVT(Long.MIN_VALUE, Long.MAX_VALUE, pool);
+			}
+		}
+		if (file.getName().endsWith(".gz")) {
+			Stream stream = new Stream(file);
+			stream.setSentenceTypes("GGA");
+			try {
+				return stream.readAllPVT();
+			} finally {
+				stream.close();
+			}
+		}
+		final long chunkSize = Math.max(MIN_CHUNK_SIZE, file.length() / ((long)pool.getParallelism() * CHUNKS_PER_THREAD));
+		return readAllPVT(file, pool, chunkSize);
+	}
+
+	static List<PVT> readAllPVT (File file, ForkJoinPool pool, long chunkSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long[] bounds = chunkBounds(channel, chunkSize);
+			log.debug("reading {} in {} chunks", file, bounds.length - 1);
+
+			List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(bounds.length - 1);
+			for (int i = 0; i < bounds.length - 1; i++) {
+				final long start = bounds[i];
+				final long end = bounds[i + 1];
+				tasks.add(pool.submit(() -> parseChunk(channel, start, end)));
+			}
+
+			// Merge in file order, dating the GGA that preceded the first RMC of each chunk
+			List<PVT> pvts = new ArrayList<>();
+			String isoDate = null;
+			for (ForkJoinTask<Chunk> task : tasks) {
+				final Chunk chunk;
+				try {
+					chunk = task.join();
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+				if (isoDate != null) {
+					for (GGA gga : chunk.undated) {
+						pvts.add(PVT.fromGGA(isoDate, gga));
+					}
+				}
+				pvts.addAll(chunk.pvts);
+				if (chunk.lastIsoDate != null) {
+					isoDate = chunk.lastIsoDate;
+				}
+			}
+			return pvts;
+		}
+	}
+
+	/**
+	 * Split the file into chunks of about chunkSize bytes, each starting at the beginning of
+	 * a line.
+	 * 
+	 * @return Chunk start offsets followed by the file size.
+	 */
+	private static long[] chunkBounds (FileChannel channel, long chunkSize) throws IOException {
+		final long size = channel.size();
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+		final ByteBuffer bb = ByteBuffer.allocate(4096);
+		long pos = chunkSize;
+		while (pos < size) {
+			// Advance to the byte after the next '\n'
+			long next = -1;
+			long p = pos;
+			while (next < 0 && p < size) {
+				bb.clear();
+				final int n = channel.read(bb, p);
+				if (n <= 0) {
+					break;
+				}
+				for (int i = 0; i < n; i++) {
+					if (bb.get(i) == '\n') {
+						next = p + i + 1;
+						break;
+					}
+				}
+				p += n;
+			}
+			if (next < 0 || next >= size) {
+				break;
+			}
+			bounds.add(next);
+			pos = next + chunkSize;
+		}
+		bounds.add(size);
+
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	private static Chunk parseChunk (FileChannel channel, long start, long end) {
+		try {
+			return parseChunk(new MappedNmeaFramer(channel, start, end), null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Parse one chunk with the same logic as {@link Stream#readNextPVT()}.
+	 * 
+	 * @param framer
+	 * @param isoDate Date in effect at the start of the chunk, or null if not known.
+	 */
+	static Chunk parseChunk (NmeaSource framer, String isoDate) {
+		Chunk chunk = new Chunk();
+		SentencePool pool = new SentencePool();
+		try {
+			framer.setFilter(SentenceTypeFilter.of("GGA", "RMC"));
+			while (framer.next()) {
+				Sentence sentence = pool.parseVerified(framer.getBuffer(), framer.getOffset(), framer.getLength());
+				if (sentence instanceof RMC) {
+					String rmcIsoDate = ((RMC)sentence).getDateIso();
+					if (rmcIsoDate != null) {
+						isoDate = rmcIsoDate;
+					}
+				} else if (sentence instanceof GGA) {
+					GGA gga = (GGA)sentence;
+					if ( ! gga.hasLatitude()) {
+						continue;
+					}
+					if (isoDate != null) {
+						chunk.pvts.add(PVT.fromGGA(isoDate, gga));
+					} else {
+						// Pooled GGA is reused, keep a copy
+						chunk.undated.add(new GGA(gga.toString(), true));
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ChecksumFailException e) {
+			// Not possible: checksum is not checked again
+			throw new IllegalStateException(e);
+		}
+		chunk.lastIsoDate = isoDate;
+		return chunk;
+	}
+
+	static class Chunk {
+		/** GGA before the first RMC with a date in the chunk */
+		final List<GGA> undated = new ArrayList<>();
+		final List<PVT> pvts = new ArrayList<>();
+		/** Date of the last RMC in the chunk or null if none */
+		String lastIsoDate;
+	}
+}
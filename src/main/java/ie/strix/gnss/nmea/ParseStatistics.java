@@ -0,0 +1,410 @@
+package ie.strix.gnss.nmea;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts of sentences parsed, by type, and of lines rejected, by {@link ParseError} category. The
+ * counters are {@link LongAdder}s so many parsing threads can share one instance without
+ * contention; reading them ({@link #snapshot()}) is the slow side.
+ *
+ * Bad lines are not logged individually, as on a noisy link logging costs more than parsing.
+ * Instead one in every {@link #setLogSampleInterval(long) logSampleInterval} is logged (at WARN)
+ * with the number of errors seen, starting with the first.
+ *
+ * {@link #global()} is used by {@link Stream} and sentence field decoding unless another
+ * instance is set. It can be published to JMX with {@link #register(String)}.
+ */
+@Slf4j
+public final class ParseStatistics implements ParseStatisticsMBean {
+
+	/**
+	 * Why a line or field was rejected.
+	 */
+	public enum ParseError {
+		/** Checksum missing or not matching */
+		CHECKSUM,
+		/** Too short, cut off or too long */
+		TRUNCATED,
+		/** Valid sentence of a type with no registered factory */
+		UNKNOWN_TYPE,
+		/** Field that could not be decoded, eg a letter in a numeric field or unknown signal ID */
+		FIELD
+	}
+
+	private static final int N_FORMATTER = 26 * 26 * 26;
+
+	private static final long DEFAULT_LOG_SAMPLE_INTERVAL = 1000;
+
+	/** Interval in ns at which the reference counts for the rate getters are taken */
+	private static final long RATE_INTERVAL = 10_000_000_000L;
+
+	private static final ParseStatistics GLOBAL = new ParseStatistics();
+
+	/** Per formatter counters, created on first use */
+	private final AtomicReferenceArray<LongAdder> sentences = new AtomicReferenceArray<>(N_FORMATTER);
+	/** Proprietary and other sentences that have no formatter index */
+	private final LongAdder otherSentences = new LongAdder();
+	private final LongAdder[] errors = new LongAdder[ParseError.values().length];
+	private final AtomicLong errorsToLog = new AtomicLong();
+	private volatile long logSampleInterval = DEFAULT_LOG_SAMPLE_INTERVAL;
+
+	/**
+	 * Counts for the rate getters, taken every {@link #RATE_INTERVAL}. Rates are from older, so
+	 * over one to two intervals, and do not depend on how often or by how many they are read.
+	 */
+	private Counts olderCounts;
+	private Counts newerCounts;
+
+	public ParseStatistics () {
+		for (int i = 0; i < errors.length; i++) {
+			errors[i] = new LongAdder();
+		}
+		resetRates();
+	}
+
+	/**
+	 * @return Statistics shared by all streams that have not been given their own.
+	 */
+	public static ParseStatistics global () {
+		return GLOBAL;
+	}
+
+	/**
+	 * Count a sentence that was parsed.
+	 */
+	public void countSentence (Sentence sentence) {
+		final CharSequence s = sentence.sentence;
+		final int index = SentenceRegistry.formatterIndex(s.charAt(3), s.charAt(4), s.charAt(5));
+		if (index < 0) {
+			otherSentences.increment();
+			return;
+		}
+		LongAdder counter = sentences.get(index);
+		if (counter == null) {
+			sentences.compareAndSet(index, null, new LongAdder());
+			counter = sentences.get(index);
+		}
+		counter.increment();
+	}
+
+	/**
+	 * Count a rejected line or field, logging it if it is sampled.
+	 *
+	 * @param error
+	 * @param line The line or sentence, only converted to a String if logged.
+	 */
+	public void countError (ParseError error, CharSequence line) {
+		errors[error.ordinal()].increment();
+		final long interval = logSampleInterval;
+		if (interval > 0 && errorsToLog.getAndIncrement() % interval == 0) {
+			log.warn("{} error (1 in {} logged, {} errors so far): {}", error, interval, getErrorCount(), line);
+		}
+	}
+
+	/**
+	 * Count errors found by a framer that does not keep the rejected lines. These are not logged.
+	 */
+	void addErrors (ParseError error, long n) {
+		errors[error.ordinal()].add(n);
+	}
+
+	/**
+	 * Log one in every interval errors.
+	 *
+	 * @param interval 1 to log every error, 0 to log none.
+	 */
+	@Override
+	public void setLogSampleInterval (long interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("interval must not be negative");
+		}
+		this.logSampleInterval = interval;
+	}
+
+	@Override
+	public long getLogSampleInterval () {
+		return logSampleInterval;
+	}
+
+	/**
+	 * @param type Sentence formatter, eg "GGA".
+	 * @return
+	 */
+	@Override
+	public long getSentenceCount (String type) {
+		if (type.length() != 3) {
+			return 0;
+		}
+		final int index = SentenceRegistry.formatterIndex(type.charAt(0), type.charAt(1), type.charAt(2));
+		final LongAdder counter = index < 0 ? null : sentences.get(index);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	@Override
+	public long getSentenceCount () {
+		long n = otherSentences.sum();
+		for (int i = 0; i < N_FORMATTER; i++) {
+			final LongAdder counter = sentences.get(i);
+			if (counter != null) {
+				n += counter.sum();
+			}
+		}
+		return n;
+	}
+
+	public long getErrorCount (ParseError error) {
+		return errors[error.ordinal()].sum();
+	}
+
+	@Override
+	public long getErrorCount () {
+		long n = 0;
+		for (LongAdder counter : errors) {
+			n += counter.sum();
+		}
+		return n;
+	}
+
+	@Override
+	public long getChecksumErrorCount () {
+		return getErrorCount(ParseError.CHECKSUM);
+	}
+
+	@Override
+	public long getTruncatedCount () {
+		return getErrorCount(ParseError.TRUNCATED);
+	}
+
+	@Override
+	public long getUnknownTypeCount () {
+		return getErrorCount(ParseError.UNKNOWN_TYPE);
+	}
+
+	@Override
+	public long getFieldErrorCount () {
+		return getErrorCount(ParseError.FIELD);
+	}
+
+	/**
+	 * Sentences per second over the last 10 to 20 s (less just after creation or
+	 * {@link #reset()}). For rates over a chosen interval use {@link Snapshot#getSentenceRate(Snapshot)}.
+	 */
+	@Override
+	public double getSentenceRate () {
+		final Counts now = new Counts(this);
+		return now.rate(now.sentences - rateReference(now).sentences, rateReference(now));
+	}
+
+	/**
+	 * Errors of all categories per second, over the same interval as {@link #getSentenceRate()}.
+	 */
+	@Override
+	public double getErrorRate () {
+		final Counts now = new Counts(this);
+		final Counts reference = rateReference(now);
+		long delta = 0;
+		for (int i = 0; i < errors.length; i++) {
+			delta += now.errors[i] - reference.errors[i];
+		}
+		return now.rate(delta, reference);
+	}
+
+	/**
+	 * Errors of one category per second, over the same interval as {@link #getSentenceRate()}.
+	 */
+	public double getErrorRate (ParseError error) {
+		final Counts now = new Counts(this);
+		final Counts reference = rateReference(now);
+		return now.rate(now.errors[error.ordinal()] - reference.errors[error.ordinal()], reference);
+	}
+
+	/**
+	 * @param error A {@link ParseError} name, eg "CHECKSUM".
+	 * @throws IllegalArgumentException if error is not a ParseError.
+	 */
+	@Override
+	public double getErrorRate (String error) {
+		return getErrorRate(ParseError.valueOf(error));
+	}
+
+	/**
+	 * @return The counts to take rates from, first moving on to now if an interval has passed.
+	 */
+	private synchronized Counts rateReference (Counts now) {
+		if (now.time - newerCounts.time >= RATE_INTERVAL) {
+			olderCounts = newerCounts;
+			newerCounts = now;
+		}
+		return olderCounts;
+	}
+
+	private synchronized void resetRates () {
+		olderCounts = new Counts(this);
+		newerCounts = olderCounts;
+	}
+
+	/**
+	 * @return The counts now. Counts updated while the snapshot is taken may or may not be included.
+	 */
+	public Snapshot snapshot () {
+		final Map<String, Long> byType = new TreeMap<>();
+		long total = 0;
+		for (int i = 0; i < N_FORMATTER; i++) {
+			final LongAdder counter = sentences.get(i);
+			if (counter != null) {
+				final long n = counter.sum();
+				byType.put(formatter(i), n);
+				total += n;
+			}
+		}
+		total += otherSentences.sum();
+		final Map<ParseError, Long> byError = new EnumMap<>(ParseError.class);
+		for (ParseError error : ParseError.values()) {
+			byError.put(error, getErrorCount(error));
+		}
+		return new Snapshot(System.nanoTime(), total, byType, byError);
+	}
+
+	/**
+	 * Set all counts to zero.
+	 */
+	@Override
+	public void reset () {
+		for (int i = 0; i < N_FORMATTER; i++) {
+			final LongAdder counter = sentences.get(i);
+			if (counter != null) {
+				counter.reset();
+			}
+		}
+		otherSentences.reset();
+		for (LongAdder counter : errors) {
+			counter.reset();
+		}
+		errorsToLog.set(0);
+		resetRates();
+	}
+
+	/**
+	 * Publish to the platform MBean server as {@code ie.strix.gnss:type=ParseStatistics,name=<name>}.
+	 *
+	 * @param name
+	 * @return The name registered under.
+	 * @throws JMException if the name is invalid or already registered.
+	 */
+	public ObjectName register (String name) throws JMException {
+		final ObjectName objectName = new ObjectName("ie.strix.gnss:type=ParseStatistics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	private static String formatter (int index) {
+		return new String(new char[] { (char)('A' + index / (26 * 26)), (char)('A' + index / 26 % 26), (char)('A' + index % 26) });
+	}
+
+	/**
+	 * Totals for the rate getters, without the per type counts of a {@link Snapshot}.
+	 */
+	private static final class Counts {
+		final long time = System.nanoTime();
+		final long sentences;
+		final long[] errors;
+
+		Counts (ParseStatistics statistics) {
+			this.sentences = statistics.getSentenceCount();
+			this.errors = new long[statistics.errors.length];
+			for (int i = 0; i < errors.length; i++) {
+				errors[i] = statistics.errors[i].sum();
+			}
+		}
+
+		double rate (long delta, Counts earlier) {
+			final long nanos = time - earlier.time;
+			return nanos <= 0 ? 0 : delta * 1e9 / nanos;
+		}
+	}
+
+	/**
+	 * Counts at one point in time. Rates are calculated between two snapshots.
+	 */
+	@Getter
+	public static final class Snapshot {
+
+		/** {@link System#nanoTime()} when taken */
+		private final long time;
+		private final long sentenceCount;
+		/** Sentence count by formatter, eg "GGA", sorted */
+		private final Map<String, Long> sentenceCounts;
+		private final Map<ParseError, Long> errorCounts;
+
+		Snapshot (long time, long sentenceCount, Map<String, Long> sentenceCounts, Map<ParseError, Long> errorCounts) {
+			this.time = time;
+			this.sentenceCount = sentenceCount;
+			this.sentenceCounts = Collections.unmodifiableMap(sentenceCounts);
+			this.errorCounts = Collections.unmodifiableMap(errorCounts);
+		}
+
+		public long getSentenceCount (String type) {
+			return sentenceCounts.getOrDefault(type, 0L);
+		}
+
+		public long getErrorCount (ParseError error) {
+			return errorCounts.get(error);
+		}
+
+		public long getErrorCount () {
+			long n = 0;
+			for (long count : errorCounts.values()) {
+				n += count;
+			}
+			return n;
+		}
+
+		/**
+		 * @param earlier
+		 * @return Sentences per second between earlier and this snapshot.
+		 */
+		public double getSentenceRate (Snapshot earlier) {
+			return rate(sentenceCount - earlier.sentenceCount, earlier);
+		}
+
+		/**
+		 * @param earlier
+		 * @return Errors of all categories per second between earlier and this snapshot.
+		 */
+		public double getErrorRate (Snapshot earlier) {
+			return rate(getErrorCount() - earlier.getErrorCount(), earlier);
+		}
+
+		/**
+		 * @param error
+		 * @param earlier
+		 * @return Errors per second between earlier and this snapshot.
+		 */
+		public double getErrorRate (ParseError error, Snapshot earlier) {
+			return rate(getErrorCount(error) - earlier.getErrorCount(error), earlier);
+		}
+
+		private double rate (long delta, Snapshot earlier) {
+			final long nanos = time - earlier.time;
+			return nanos <= 0 ? 0 : delta * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString () {
+			return "sentences=" + sentenceCount + " " + sentenceCounts + " errors=" + errorCounts;
+		}
+	}
+}
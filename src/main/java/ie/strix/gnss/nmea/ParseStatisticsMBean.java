@@ -0,0 +1,33 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * JMX view of {@link ParseStatistics}.
+ */
+public interface ParseStatisticsMBean {
+
+	long getSentenceCount ();
+
+	long getSentenceCount (String type);
+
+	double getSentenceRate ();
+
+	long getErrorCount ();
+
+	double getErrorRate ();
+
+	double getErrorRate (String error);
+
+	long getChecksumErrorCount ();
+
+	long getTruncatedCount ();
+
+	long getUnknownTypeCount ();
+
+	long getFieldErrorCount ();
+
+	long getLogSampleInterval ();
+
+	void setLogSampleInterval (long interval);
+
+	void reset ();
+}
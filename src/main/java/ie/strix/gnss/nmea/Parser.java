@@ -5,12 +5,166 @@ package ie.strix.gnss.nmea;
  * Goal is a fast NMEA parser that does not create any intermediate objects.
  * Uses sentence examples to define breaks in sentences (assuming that all
  * similar sentences in a stream are formatted identially).
+ *
+ * Create using {@link ParserFactory}. Sentences that do not match the learned layout
+ * (eg a field is empty because there is no fix) are handed to {@link Sentence#valueOf(String)}
+ * by {@link #parse(String)}, and are rejected (return false) by the parseXxx() methods.
+ *
+ * Not thread safe: a scratch buffer is reused between calls.
  */
 public class Parser {
 
-	 
+	private static final int MAX_SENTENCE_LENGTH = 128;
 
-	public void parseGga (String sentence, GGA gga) {
-		Util.parseNmeaTimestamp(null);
+	private final SentenceTemplate ggaTemplate;
+	private final SentenceTemplate rmcTemplate;
+	private final SentenceTemplate gsvTemplate;
+
+	/** Sentences supplied as String or byte[] are copied here (no allocation) */
+	private final char[] scratch = new char[MAX_SENTENCE_LENGTH];
+
+	Parser (SentenceTemplate ggaTemplate, SentenceTemplate rmcTemplate, SentenceTemplate gsvTemplate) {
+		this.ggaTemplate = ggaTemplate;
+		this.rmcTemplate = rmcTemplate;
+		this.gsvTemplate = gsvTemplate;
+	}
+
+	/**
+	 * Parse a sentence, using the learned layout where possible and falling back to
+	 * {@link Sentence#valueOf(String)} otherwise.
+	 *
+	 * @param sentence
+	 * @return The sentence or null if the checksum is not valid.
+	 * @throws ChecksumFailException
+	 */
+	public Sentence parse (String sentence) throws ChecksumFailException {
+		final int length = trimEol(scratch, 0, toScratch(sentence));
+		if (length >= 6) {
+			if (ggaTemplate != null && ggaTemplate.isFormatter(scratch, 0)) {
+				if (ggaTemplate.matches(scratch, 0, length)) {
+					GGA gga = new GGA();
+					gga.index(sentence, ggaTemplate);
+					return gga;
+				}
+			} else if (rmcTemplate != null && rmcTemplate.isFormatter(scratch, 0)) {
+				if (rmcTemplate.matches(scratch, 0, length)) {
+					RMC rmc = new RMC();
+					rmc.index(sentence, rmcTemplate);
+					return rmc;
+				}
+			} else if (gsvTemplate != null && gsvTemplate.isFormatter(scratch, 0)) {
+				if (gsvTemplate.matches(scratch, 0, length)) {
+					GSV gsv = new GSV();
+					gsv.index(sentence, gsvTemplate);
+					return gsv;
+				}
+			}
+		}
+		return Sentence.valueOf(sentence);
+	}
+
+	public boolean parseGga (String sentence, GGA gga) {
+		return parse(ggaTemplate, sentence, gga);
+	}
+
+	public boolean parseGga (byte[] buf, int offset, int length, GGA gga) {
+		return parse(ggaTemplate, scratch, 0, toScratch(buf, offset, length), gga);
+	}
+
+	/**
+	 * Index a GGA sentence using the learned layout. Fields are decoded by the GGA getters.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of sentence. Trailing CR LF are ignored.
+	 * @param gga The GGA to fill.
+	 * @return true if the sentence matched the layout and gga was filled, otherwise false and gga is unchanged.
+	 */
+	public boolean parseGga (char[] buf, int offset, int length, GGA gga) {
+		return parse(ggaTemplate, buf, offset, length, gga);
+	}
+
+	public boolean parseRmc (String sentence, RMC rmc) {
+		return parse(rmcTemplate, sentence, rmc);
+	}
+
+	public boolean parseRmc (byte[] buf, int offset, int length, RMC rmc) {
+		return parse(rmcTemplate, scratch, 0, toScratch(buf, offset, length), rmc);
+	}
+
+	/**
+	 * Index a RMC sentence using the learned layout. Fields are decoded by the RMC getters.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of sentence. Trailing CR LF are ignored.
+	 * @param rmc The RMC to fill.
+	 * @return true if the sentence matched the layout and rmc was filled, otherwise false and rmc is unchanged.
+	 */
+	public boolean parseRmc (char[] buf, int offset, int length, RMC rmc) {
+		return parse(rmcTemplate, buf, offset, length, rmc);
+	}
+
+	public boolean parseGsv (String sentence, GSV gsv) {
+		return parse(gsvTemplate, sentence, gsv);
+	}
+
+	public boolean parseGsv (byte[] buf, int offset, int length, GSV gsv) {
+		return parse(gsvTemplate, scratch, 0, toScratch(buf, offset, length), gsv);
+	}
+
+	/**
+	 * Index a GSV sentence using the learned layout. Only GSV sentences with the same number
+	 * of satellite blocks as the example will match.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of sentence. Trailing CR LF are ignored.
+	 * @param gsv The GSV to fill.
+	 * @return true if the sentence matched the layout and gsv was filled, otherwise false and gsv is unchanged.
+	 */
+	public boolean parseGsv (char[] buf, int offset, int length, GSV gsv) {
+		return parse(gsvTemplate, buf, offset, length, gsv);
+	}
+
+	private boolean parse (SentenceTemplate t, String sentence, Sentence target) {
+		if (t == null || ! t.matches(scratch, 0, trimEol(scratch, 0, toScratch(sentence)))) {
+			return false;
+		}
+		target.index(sentence, t);
+		return true;
+	}
+
+	private static boolean parse (SentenceTemplate t, char[] buf, int offset, int length, Sentence target) {
+		length = trimEol(buf, offset, length);
+		if (t == null || ! t.matches(buf, offset, length)) {
+			return false;
+		}
+		target.index(buf, offset, length, t);
+		return true;
+	}
+
+	/**
+	 * Return length excluding any trailing CR, LF.
+	 */
+	private static int trimEol (char[] buf, int offset, int length) {
+		while (length > 0 && (buf[offset + length - 1] == '\n' || buf[offset + length - 1] == '\r')) {
+			length--;
+		}
+		return length;
+	}
+
+	private int toScratch (String sentence) {
+		final int length = Math.min(sentence.length(), MAX_SENTENCE_LENGTH);
+		sentence.getChars(0, length, scratch, 0);
+		return length;
+	}
+
+	private int toScratch (byte[] buf, int offset, int length) {
+		length = Math.min(length, MAX_SENTENCE_LENGTH);
+		for (int i = 0; i < length; i++) {
+			scratch[i] = (char)(buf[offset + i] & 0xff);
+		}
+		return length;
 	}
 }
@@ -1,5 +1,7 @@
 package ie.strix.gnss.nmea;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.Reader;
 
 import lombok.Builder;
@@ -8,11 +10,18 @@ import lombok.Builder;
  * Idea here is to create fastest possible NMEA-0183 parser. Allow for special
  * cases when we are dealing with one known device so we can make assumptions
  * about field widths.
- * 
- * Want:
- * ParserFactory.builder().withGaaExample(gga)...
- * 
- * 
+ *
+ * Usage:
+ * <pre>
+ * Parser parser = ParserFactory.builder()
+ *     .ggaExample("$GNGGA,...")
+ *     .rmcExample("$GNRMC,...")
+ *     .build()
+ *     .createParser();
+ * </pre>
+ *
+ * Examples that are not supplied result in that sentence type always using the
+ * regular {@link Sentence#valueOf(String)} path.
  */
 @Builder
 public class ParserFactory {
@@ -20,9 +29,52 @@ public class ParserFactory {
 	private String ggaExample;
 	private String rmcExample;
 	private String gsvExample;
-	
-	public Parser createParserByExample(Reader in) {
-		return null;
+
+	/**
+	 * Create a parser from the examples supplied to the builder.
+	 *
+	 * @return
+	 * @throws IllegalArgumentException if an example is not a valid sentence
+	 */
+	public Parser createParser() {
+		return new Parser(template(ggaExample), template(rmcExample), template(gsvExample));
+	}
+
+	/**
+	 * Create a parser taking the first GGA, RMC and GSV sentences from a stream as the
+	 * examples for any type that was not supplied to the builder. Sentences with an invalid
+	 * checksum are ignored. Reading stops once an example of every type is available or at end
+	 * of stream.
+	 *
+	 * @param in A sample of the receiver output.
+	 * @return
+	 * @throws IOException
+	 */
+	public Parser createParserByExample(Reader in) throws IOException {
+		BufferedReader br = new BufferedReader(in);
+		String gga = ggaExample;
+		String rmc = rmcExample;
+		String gsv = gsvExample;
+		String line;
+		while ( (gga == null || rmc == null || gsv == null) && (line = br.readLine()) != null) {
+			line = line.trim();
+			if (line.length() < 6 || ! Util.isChecksumValid(line)) {
+				continue;
+			}
+			String sentenceId = line.substring(3, 6);
+			if (gga == null && "GGA".equals(sentenceId)) {
+				gga = line;
+			} else if (rmc == null && "RMC".equals(sentenceId)) {
+				rmc = line;
+			} else if (gsv == null && "GSV".equals(sentenceId)) {
+				gsv = line;
+			}
+		}
+		return new Parser(template(gga), template(rmc), template(gsv));
 	}
-	
+
+	private static SentenceTemplate template(String example) {
+		return example == null ? null : SentenceTemplate.of(example);
+	}
+
 }
@@ -1,8 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
-
 /**
  * Parser for NMEA {@code RMC} (Recommended Minimum Specific GNSS Data) sentences.
  * <p>
@@ -30,14 +27,67 @@ import lombok.extern.slf4j.Slf4j;
  * <li>{@code *6A} - checksum.</li>
  * </ol>
  */
-@Slf4j
-@Getter
 public class RMC extends Sentence {
 
+	private static final int TIME = 1;
+	private static final int STATUS = 2;
+	private static final int LATITUDE = 3;
+	private static final int LONGITUDE = 5;
+	private static final int SPEED = 7;
+	private static final int TRACK_ANGLE = 8;
+	private static final int DATE = 9;
+	private static final int MAGNETIC_VARIATION = 10;
+	private static final int MAGNETIC_VARIATION_DIRECTION = 11;
+
+	public RMC(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	RMC(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
+	/**
+	 * Empty RMC to be filled by {@link #parseInto(CharSequence, RMC)} or {@link Parser}.
+	 */
+	public RMC() {
+	}
+
+	/**
+	 * Parse a sentence into an existing RMC, replacing its content, so that one object can be
+	 * reused for every RMC in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The RMC to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a RMC sentence.
+	 */
+	public static RMC parseInto (CharSequence sentence, RMC target) throws ChecksumFailException {
+		return parseInto(sentence, target, "RMC");
+	}
+
 	/**
-	 * UTC time-of-fix expressed as milliseconds since midnight.
+	 * As {@link #parseInto(CharSequence, RMC)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The RMC to fill.
+	 * @return target
+	 * @throws ChecksumFailException
 	 */
-	private int timeInDay;
+	public static RMC parseInto (byte[] buf, int offset, int length, RMC target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "RMC");
+	}
+
+	/**
+	 * @return UTC time-of-fix expressed as milliseconds since midnight.
+	 */
+	public int getTimeInDay() {
+		return hasFix() ? getTimeField(TIME) : 0;
+	}
 
 	/**
 	 * Geodetic latitude in signed decimal degrees.
@@ -45,111 +95,126 @@ public class RMC extends Sentence {
 	 * North is positive; South is negative.
 	 * </p>
 	 */
-	private Double latitude;
-	
+	public Double getLatitude() {
+		return hasFix() ? getLatitudeField(LATITUDE) : null;
+	}
+
+	/**
+	 * @return Latitude in signed decimal degrees or NaN if there is no fix.
+	 */
+	public double getLatitudeDeg() {
+		return hasFix() ? getLatitudeValue(LATITUDE) : Double.NaN;
+	}
+
+	public boolean hasLatitude() {
+		return hasFix();
+	}
+
 	/**
 	 * Geodetic longitude in signed decimal degrees.
 	 * <p>
 	 * East is positive; West is negative.
 	 * </p>
 	 */
-	private Double longitude;
+	public Double getLongitude() {
+		return hasFix() ? getLongitudeField(LONGITUDE) : null;
+	}
 
 	/**
-	 * Parsed NMEA date in ISO-like calendar form (for example {@code 2024-11-03}).
+	 * @return Longitude in signed decimal degrees or NaN if there is no fix.
 	 */
-	private String dateIso;
+	public double getLongitudeDeg() {
+		return hasFix() ? getLongitudeValue(LONGITUDE) : Double.NaN;
+	}
+
+	public boolean hasLongitude() {
+		return hasFix();
+	}
 
 	/**
-	 * Status reported in the sentence. {@code A} means valid/active data, {@code V} means void.
+	 * @return Parsed NMEA date in ISO-like calendar form (for example {@code 2024-11-03}).
 	 */
-	private String status;
+	public String getDateIso() {
+		if ( ! hasFix() || isFieldEmpty(DATE)) {
+			return null;
+		}
+		return Util.parseNmeaDate(getField(DATE));
+	}
 
 	/**
-	 * Speed over ground in knots.
+	 * As {@link #getDateIso()} but without creating a String, for detecting a change of date.
+	 *
+	 * @return The raw NMEA date as the integer {@code ddmmyy} or -1 if empty.
 	 */
-	private Double speedOverGroundKt;
+	public int getDateValue() {
+		if ( ! hasFix() || isFieldEmpty(DATE)) {
+			return -1;
+		}
+		return getIntField(DATE, -1);
+	}
 
 	/**
-	 * Course over ground in true degrees.
+	 * @return Status reported in the sentence. {@code A} means valid/active data, {@code V} means void.
 	 */
-	private Double trackAngle;
+	public String getStatus() {
+		switch (getCharField(STATUS)) {
+		case 0: return null;
+		case 'A': return "A";
+		case 'V': return "V";
+		default: return getField(STATUS);
+		}
+	}
 
 	/**
-	 * Magnetic variation in degrees. West values are represented with a negative sign.
+	 * @return Speed over ground in knots.
 	 */
-	private Double magneticVariation;
-
-	public RMC(String sentence) throws ChecksumFailException {
-		super(sentence);
+	public Double getSpeedOverGroundKt() {
+		return hasFix() ? getDoubleField(SPEED) : null;
 	}
 
-	protected void parse() {
-		final String timeStr = getPart(1);
-		final String statusStr = getPart(2);
-		final String latStr = getPart(3);
-		final String latSign = getPart(4);
-		final String lngStr = getPart(5);
-		final String lngSign = getPart(6);
-		
-		final String speedOverGroundKtStr = getPart(7);
-		final String trackAngleStr        = getPart(8);
-		final String dateStr              = getPart(9);
-		final String magvarStr            = getPart(10);
-		final String magvarDirection      = getPart(11);
-
-		status = statusStr.length() > 0 ? statusStr : null;
-
-		// If there is no time we have nothing, ignore
-		if (timeStr.length() == 0 || latStr.length() == 0 || lngStr.length() == 0) {
-			return;
-		}
+	/**
+	 * @return Speed over ground in knots or NaN if empty.
+	 */
+	public double getSpeedOverGroundKtValue() {
+		return hasFix() ? getDoubleValue(SPEED) : Double.NaN;
+	}
 
-		this.timeInDay = Util.parseNmeaTimestamp(timeStr);
-		
-		// TODO: is the *= -1 going to cause threading issues?
-		if (latStr.length() > 0 && lngStr.length() > 0) {
-
-			double latDeg = Double.valueOf(latStr.substring(0, 2));
-			double latMin = Double.valueOf(latStr.substring(2));
-			latitude = latDeg * 1.0 + latMin / 60.0;
-			if ("S".equals(latSign)) {
-				latitude *= -1;
-			}
-
-			double lngDeg = Double.valueOf(lngStr.substring(0, 3));
-			double lngMin = Double.valueOf(lngStr.substring(3));
-			longitude = lngDeg * 1.0 + lngMin / 60.0;
-			if ("W".equals(lngSign)) {
-				longitude *= -1;
-			}
-
-		} else {
-			latitude = null;
-			longitude = null;
-		}
+	/**
+	 * @return Course over ground in true degrees.
+	 */
+	public Double getTrackAngle() {
+		return hasFix() ? getDoubleField(TRACK_ANGLE) : null;
+	}
 
-		speedOverGroundKt = parseOptionalDouble(speedOverGroundKtStr);
-		trackAngle = parseOptionalDouble(trackAngleStr);
-		dateIso = dateStr.length() > 0 ? Util.parseNmeaDate(dateStr) : null;
+	/**
+	 * @return Course over ground in true degrees or NaN if empty.
+	 */
+	public double getTrackAngleDeg() {
+		return hasFix() ? getDoubleValue(TRACK_ANGLE) : Double.NaN;
+	}
 
-		magneticVariation = parseOptionalDouble(magvarStr);
-		if (magneticVariation != null && "W".equals(magvarDirection)) {
-			magneticVariation *= -1;
-		}
+	/**
+	 * @return Magnetic variation in degrees. West values are represented with a negative sign.
+	 */
+	public Double getMagneticVariation() {
+		final double magneticVariation = getMagneticVariationDeg();
+		return Double.isNaN(magneticVariation) ? null : magneticVariation;
 	}
 
-	private String getPart(int index) {
-		if (index < parts.length) {
-			return parts[index];
-		}
-		return "";
+	/**
+	 * As {@link #getMagneticVariation()} but NaN if empty.
+	 */
+	public double getMagneticVariationDeg() {
+		final double magneticVariation = hasFix() ? getDoubleValue(MAGNETIC_VARIATION) : Double.NaN;
+		return getCharField(MAGNETIC_VARIATION_DIRECTION) == 'W' ? -magneticVariation : magneticVariation;
 	}
 
-	private Double parseOptionalDouble(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		return Double.valueOf(value);
+	/**
+	 * If there is no time or position the other fields are ignored.
+	 * 
+	 * @return true if the sentence has time, latitude and longitude.
+	 */
+	public boolean hasFix() {
+		return hasField(TIME) && hasField(LATITUDE) && hasField(LONGITUDE);
 	}
 }
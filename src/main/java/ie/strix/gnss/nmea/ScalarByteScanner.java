@@ -0,0 +1,84 @@
+package ie.strix.gnss.nmea;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte at a time {@link ByteScanner}. The reference the other implementations are tested
+ * against, and used for the short tails they leave.
+ */
+class ScalarByteScanner extends ByteScanner {
+
+	static final ScalarByteScanner INSTANCE = new ScalarByteScanner();
+
+	static boolean isSentenceEnd (final int b) {
+		return b == '*' || b == '$' || b == '\r' || b == '\n';
+	}
+
+	@Override
+	public int indexOf (final byte[] buf, final int from, final int to, final byte value) {
+		int i = from;
+		while (i < to && buf[i] != value) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int indexOfSentenceEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		while (i < to && ! isSentenceEnd(buf[i])) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int indexOfFieldEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		while (i < to && buf[i] != ',' && buf[i] != '*') {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int xor (final byte[] buf, final int from, final int to) {
+		int checksum = 0;
+		for (int i = from; i < to; i++) {
+			checksum ^= buf[i];
+		}
+		return checksum & 0xff;
+	}
+
+	@Override
+	public int indexOf (final ByteBuffer buf, final int from, final int to, final byte value) {
+		int i = from;
+		while (i < to && buf.get(i) != value) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int indexOfSentenceEnd (final ByteBuffer buf, final int from, final int to) {
+		int i = from;
+		while (i < to && ! isSentenceEnd(buf.get(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int xor (final ByteBuffer buf, final int from, final int to) {
+		int checksum = 0;
+		for (int i = from; i < to; i++) {
+			checksum ^= buf.get(i);
+		}
+		return checksum & 0xff;
+	}
+
+	@Override
+	public String getName () {
+		return "scalar";
+	}
+}
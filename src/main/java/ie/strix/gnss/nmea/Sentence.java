@@ -1,8 +1,7 @@
 package ie.strix.gnss.nmea;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -15,82 +14,545 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Sentence {
 
-	@FunctionalInterface
-	private interface SentenceFactory {
-		Sentence create(String sentence) throws ChecksumFailException;
-	}
-
-	private static final Map<String, SentenceFactory> SENTENCE_FACTORIES = createSentenceFactories();
+	/** Initial capacity of the field index, enough for all the standard sentences */
+	private static final int INITIAL_FIELD_CAPACITY = 24;
 
-	protected String sentence;
+	/**
+	 * The sentence text. A String when created from a String, otherwise a private copy
+	 * of the characters (see {@link #index(char[], int, int, SentenceTemplate)}).
+	 */
+	protected CharSequence sentence;
 	private boolean checksumValid = false;
 	
+	/** Where invalid fields are counted: the statistics of the {@link Stream} that read this sentence */
+	private ParseStatistics statistics = ParseStatistics.global();
+	
 	private String talkerId;
-	protected String[] parts;
 	protected Constellation constellation;
 	
+	/**
+	 * Index of the end of each field (the ',' or '*' that follows it). Field 0 is the address
+	 * field (eg "$GPGGA"). Fields are only decoded when requested by a getter.
+	 */
+	private int[] fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+	private int fieldCount;
+	
+	/**
+	 * Bit n is set if field n is present and not empty (fields 0..63). Lets the getters
+	 * distinguish empty fields without decoding them.
+	 */
+	private long presentFields;
+	
+	/** Reused when indexing sentences from char[] */
+	private CharArraySequence chars;
+	
+	/**
+	 * Called after the sentence has been indexed. Subclasses that cache decoded values must
+	 * clear them here.
+	 */
 	protected void parse() {
 		
 	}
 	
+	/**
+	 * Used by the template parser ({@link Parser}) which indexes the sentence using a
+	 * learned layout.
+	 */
+	protected Sentence () {
+	}
+	
 	public Sentence (String sentence) throws ChecksumFailException {
-		this.sentence = sentence;
-				
-		if (Util.isChecksumValid(sentence)) {
-			checksumValid = true;
-			talkerId = Util.getTalkerId(sentence);
-			parts = sentence.split(",", -1);
-			
-			// Remove the checksum from the last part.
-			String lastPart = parts[parts.length-1];
-			parts[parts.length-1] = lastPart.substring(0,lastPart.indexOf('*'));
-			constellation = talkerIdToConstellation(talkerId);
-			
-		} else {
-			throw new ChecksumFailException(this.sentence + " fails checksum");
+		this(sentence, false);
+	}
+	
+	/**
+	 * @param sentence
+	 * @param checksumVerified If true the caller has already validated the checksum and it is
+	 * not checked again.
+	 * @throws ChecksumFailException
+	 */
+	protected Sentence (String sentence, boolean checksumVerified) throws ChecksumFailException {
+		index(sentence, checksumVerified);
+	}
+	
+	/**
+	 * Record the position of the field separators. No fields are decoded.
+	 * 
+	 * @param text
+	 * @param checksumVerified If true the caller has already validated the checksum.
+	 * @throws ChecksumFailException
+	 */
+	void index (CharSequence text, boolean checksumVerified) throws ChecksumFailException {
+		if ( ! checksumVerified && ! Util.isChecksumValid(text)) {
+			throw new ChecksumFailException(text + " fails checksum");
+		}
+		if (text.length() < 6) {
+			throw new IllegalArgumentException("sentence too short");
 		}
 		
-		
+		this.sentence = text;
+		int n = 0;
+		final int len = text.length();
+		for (int i = 1; i < len; i++) {
+			final char c = text.charAt(i);
+			if (c == ',' || c == '*') {
+				if (n == fieldEnds.length) {
+					fieldEnds = Arrays.copyOf(fieldEnds, n * 2);
+				}
+				fieldEnds[n++] = i;
+				if (c == '*') {
+					break;
+				}
+			}
+		}
+		if (n == 0 || text.charAt(fieldEnds[n - 1]) != '*') {
+			// Checksum was verified by caller but not present: last field runs to end of text
+			if (n == fieldEnds.length) {
+				fieldEnds = Arrays.copyOf(fieldEnds, n * 2);
+			}
+			fieldEnds[n++] = len;
+		}
+		this.fieldCount = n;
+		setHeader();
+	}
+	
+	/**
+	 * Index a sentence using the layout learned from an example. The sentence must already
+	 * have been matched against the template (which includes the checksum).
+	 */
+	void index (CharSequence text, SentenceTemplate template) {
+		this.sentence = text;
+		if (fieldEnds.length < template.getFieldCount()) {
+			fieldEnds = new int[template.getFieldCount()];
+		}
+		this.fieldCount = template.copyFieldEnds(fieldEnds);
+		setHeader();
+	}
+	
+	/**
+	 * Index a sentence held in a char[] using a learned layout. The characters are copied so
+	 * the caller is free to reuse buf.
+	 */
+	void index (char[] buf, int offset, int length, SentenceTemplate template) {
+		chars().set(buf, offset, length);
+		index(chars, template);
+	}
+	
+	private CharArraySequence chars () {
+		if (chars == null) {
+			chars = new CharArraySequence();
+		}
+		return chars;
+	}
+	
+	/**
+	 * Replace the content of an existing sentence object. Used by the parseInto() methods of
+	 * the subclasses so that a sentence object can be reused for every sentence of its type.
+	 * A String is referenced directly, any other CharSequence is copied to a buffer owned by
+	 * target so the caller is free to reuse it. Target is unchanged if an exception is thrown.
+	 * 
+	 * @param text
+	 * @param target
+	 * @param formatter Sentence formatter expected at position 3, eg "GGA". Not checked if null.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if the sentence is too short or not of the expected type.
+	 */
+	protected static <T extends Sentence> T parseInto (CharSequence text, T target, String formatter) throws ChecksumFailException {
+		return parseInto(text, target, formatter, false);
+	}
+	
+	/**
+	 * As {@link #parseInto(CharSequence, Sentence, String)} but for a sentence held in a byte[].
+	 * The bytes are always copied so the caller is free to reuse buf.
+	 */
+	protected static <T extends Sentence> T parseInto (byte[] buf, int offset, int length, T target, String formatter) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, formatter, false);
+	}
+	
+	static <T extends Sentence> T parseInto (CharSequence text, T target, String formatter, boolean checksumVerified) throws ChecksumFailException {
+		if (text.length() < 6) {
+			throw new IllegalArgumentException("sentence too short");
+		}
+		if (formatter != null && ! (text.charAt(3) == formatter.charAt(0) && text.charAt(4) == formatter.charAt(1) && text.charAt(5) == formatter.charAt(2))) {
+			throw new IllegalArgumentException("not a " + formatter + " sentence: " + text);
+		}
+		if ( ! checksumVerified && ! Util.isChecksumValid(text)) {
+			throw new ChecksumFailException(text + " fails checksum");
+		}
+		((Sentence)target).copyAndIndex(text);
+		return target;
+	}
+	
+	static <T extends Sentence> T parseInto (byte[] buf, int offset, int length, T target, String formatter, boolean checksumVerified) throws ChecksumFailException {
+		if (length < 6) {
+			throw new IllegalArgumentException("sentence too short");
+		}
+		if (formatter != null && ! (buf[offset + 3] == formatter.charAt(0) && buf[offset + 4] == formatter.charAt(1) && buf[offset + 5] == formatter.charAt(2))) {
+			throw new IllegalArgumentException("not a " + formatter + " sentence: " + new String(buf, offset, length, StandardCharsets.ISO_8859_1));
+		}
+		if ( ! checksumVerified && ! Util.isChecksumValid(buf, offset, length)) {
+			throw new ChecksumFailException(new String(buf, offset, length, StandardCharsets.ISO_8859_1) + " fails checksum");
+		}
+		((Sentence)target).copyAndIndex(buf, offset, length);
+		return target;
+	}
+	
+	private void copyAndIndex (CharSequence text) throws ChecksumFailException {
+		if (text instanceof String) {
+			index(text, true);
+		} else {
+			chars().set(text);
+			index(chars, true);
+		}
+	}
+	
+	/**
+	 * Index a sentence held in a byte[], finding the field separators in the bytes with
+	 * {@link ByteScanner}, and copy it to the reusable character buffer.
+	 */
+	private void copyAndIndex (byte[] buf, int offset, int length) {
+		final ByteScanner scanner = ByteScanner.getDefault();
+		final int end = offset + length;
+		int n = 0;
+		int i = scanner.indexOfFieldEnd(buf, offset + 1, end);
+		while (i < end) {
+			if (n == fieldEnds.length) {
+				fieldEnds = Arrays.copyOf(fieldEnds, n * 2);
+			}
+			fieldEnds[n++] = i - offset;
+			if (buf[i] == '*') {
+				break;
+			}
+			i = scanner.indexOfFieldEnd(buf, i + 1, end);
+		}
+		if (i == end) {
+			// Checksum was verified by caller but not present: last field runs to end of text
+			if (n == fieldEnds.length) {
+				fieldEnds = Arrays.copyOf(fieldEnds, n * 2);
+			}
+			fieldEnds[n++] = length;
+		}
+		this.fieldCount = n;
+		chars().set(buf, offset, length);
+		this.sentence = chars;
+		setHeader();
+	}
+	
+	private void setHeader () {
+		long present = 0;
+		final int n = Math.min(fieldCount, 64);
+		for (int i = 0; i < n; i++) {
+			if (fieldEnds[i] > fieldStart(i)) {
+				present |= 1L << i;
+			}
+		}
+		this.presentFields = present;
+		this.checksumValid = true;
+		this.talkerId = talkerId(sentence.charAt(1), sentence.charAt(2));
+		this.constellation = talkerIdToConstellation(talkerId);
 		parse();
 	}
 	
+	/**
+	 * Return the talker ID for the two given characters, without creating a new String for
+	 * the common GNSS talkers.
+	 */
+	static String talkerId (char c0, char c1) {
+		if (c0 == 'G') {
+			switch (c1) {
+			case 'P': return "GP";
+			case 'L': return "GL";
+			case 'A': return "GA";
+			case 'B': return "GB";
+			case 'I': return "GI";
+			case 'N': return "GN";
+			}
+		}
+		return new String(new char[] {c0, c1});
+	}
+	
+	/**
+	 * @return Number of fields including the address field.
+	 */
+	protected int getFieldCount () {
+		return fieldCount;
+	}
+	
+	protected int fieldStart (int field) {
+		return field == 0 ? 0 : fieldEnds[field - 1] + 1;
+	}
+	
+	protected int fieldEnd (int field) {
+		return fieldEnds[field];
+	}
+	
+	/**
+	 * @return true if the field is empty or not present in the sentence.
+	 */
+	protected boolean isFieldEmpty (int field) {
+		return ! hasField(field);
+	}
+	
+	/**
+	 * @return true if the field is present in the sentence and not empty.
+	 */
+	protected boolean hasField (int field) {
+		if (field < 64) {
+			return (presentFields & (1L << field)) != 0;
+		}
+		return field < fieldCount && fieldStart(field) != fieldEnd(field);
+	}
+	
+	/**
+	 * @return The field text, or "" if the field is not present.
+	 */
+	protected String getField (int field) {
+		if (field >= fieldCount) {
+			return "";
+		}
+		return sentence.subSequence(fieldStart(field), fieldEnd(field)).toString();
+	}
+	
+	/**
+	 * @return The field text or null if empty.
+	 */
+	protected String getOptionalField (int field) {
+		return isFieldEmpty(field) ? null : getField(field);
+	}
+	
+	/**
+	 * @return The first character of a field or 0 if empty.
+	 */
+	protected char getCharField (int field) {
+		return isFieldEmpty(field) ? 0 : sentence.charAt(fieldStart(field));
+	}
+	
+	/**
+	 * @return The integer value of a field or null if empty or not a valid integer. Invalid
+	 * fields are counted in the statistics of the {@link Stream} that read the sentence, or
+	 * {@link ParseStatistics#global()}.
+	 */
+	protected Integer getIntField (int field) {
+		if (isFieldEmpty(field)) {
+			return null;
+		}
+		try {
+			return DecimalParser.parseInt(sentence, fieldStart(field), fieldEnd(field));
+		} catch (NumberFormatException e) {
+			statistics.countError(ParseStatistics.ParseError.FIELD, sentence);
+			return null;
+		}
+	}
+	
+	/**
+	 * @return The integer value of a field or emptyValue if empty or not a valid integer.
+	 */
+	protected int getIntField (int field, int emptyValue) {
+		if (isFieldEmpty(field)) {
+			return emptyValue;
+		}
+		try {
+			return DecimalParser.parseInt(sentence, fieldStart(field), fieldEnd(field));
+		} catch (NumberFormatException e) {
+			statistics.countError(ParseStatistics.ParseError.FIELD, sentence);
+			return emptyValue;
+		}
+	}
+	
+	/**
+	 * @return The decimal value of a field or null if empty or not a valid number.
+	 */
+	protected Double getDoubleField (int field) {
+		return boxed(getDoubleValue(field));
+	}
+	
+	/**
+	 * @return The decimal value of a field or NaN if empty or not a valid number. Invalid
+	 * fields are counted as for {@link #getIntField(int)}.
+	 */
+	protected double getDoubleValue (int field) {
+		if (isFieldEmpty(field)) {
+			return Double.NaN;
+		}
+		try {
+			return DecimalParser.parseDouble(sentence, fieldStart(field), fieldEnd(field));
+		} catch (NumberFormatException e) {
+			statistics.countError(ParseStatistics.ParseError.FIELD, sentence);
+			return Double.NaN;
+		}
+	}
+	
+	/**
+	 * Decode a {@code ddmm.mmm} latitude field with the hemisphere in the following field.
+	 * 
+	 * @return Latitude in signed decimal degrees or null if empty or not valid.
+	 */
+	protected Double getLatitudeField (int field) {
+		return boxed(getLatitudeValue(field));
+	}
+	
+	/**
+	 * As {@link #getLatitudeField(int)} but NaN if empty or not valid.
+	 */
+	protected double getLatitudeValue (int field) {
+		if (isFieldEmpty(field)) {
+			return Double.NaN;
+		}
+		try {
+			return Util.parseNmeaLatitude(sentence, fieldStart(field), fieldStart(field + 1));
+		} catch (NumberFormatException e) {
+			statistics.countError(ParseStatistics.ParseError.FIELD, sentence);
+			return Double.NaN;
+		}
+	}
+	
+	/**
+	 * Decode a {@code dddmm.mmm} longitude field with the hemisphere in the following field.
+	 * 
+	 * @return Longitude in signed decimal degrees or null if empty or not valid.
+	 */
+	protected Double getLongitudeField (int field) {
+		return boxed(getLongitudeValue(field));
+	}
+	
+	/**
+	 * As {@link #getLongitudeField(int)} but NaN if empty or not valid.
+	 */
+	protected double getLongitudeValue (int field) {
+		if (isFieldEmpty(field)) {
+			return Double.NaN;
+		}
+		try {
+			return Util.parseNmeaLongitude(sentence, fieldStart(field), fieldStart(field + 1));
+		} catch (NumberFormatException e) {
+			statistics.countError(ParseStatistics.ParseError.FIELD, sentence);
+			return Double.NaN;
+		}
+	}
+	
+	private static Double boxed (double value) {
+		return Double.isNaN(value) ? null : value;
+	}
+	
+	/**
+	 * @return Time field as milliseconds since midnight, or 0 if empty.
+	 */
+	protected int getTimeField (int field) {
+		if (isFieldEmpty(field)) {
+			return 0;
+		}
+		return Util.parseNmeaTimestamp(sentence, fieldStart(field));
+	}
+	
+	public String getTalkerId () {
+		return talkerId;
+	}
+	
+	public Constellation getConstellation () {
+		return constellation;
+	}
+	
+	/**
+	 * @return The three character sentence formatter, eg "GGA".
+	 */
+	public String getSentenceId () {
+		return sentence.subSequence(3, 6).toString();
+	}
+	
+	@Override
+	public String toString () {
+		return sentence == null ? "" : sentence.toString();
+	}
+	
 	//public Talker getTalker () {
 	//}
 
 	
+	/**
+	 * Count invalid fields of this sentence in statistics instead of {@link ParseStatistics#global()}.
+	 */
+	void setStatistics (ParseStatistics statistics) {
+		this.statistics = statistics;
+	}
+	
+	ParseStatistics getStatistics () {
+		return statistics;
+	}
+	
 	public boolean isChecksumValid () {
 		return checksumValid;
 	}
 	
+	/**
+	 * @return The sentence or null if the checksum is not valid. Checksum failures are counted in
+	 * {@link ParseStatistics#global()}; a {@link Stream} checks and counts them itself.
+	 */
 	public static Sentence valueOf(String sentence) throws ChecksumFailException {
 		
 		if ( ! Util.isChecksumValid(sentence)) {
-			log.warn("valueOf() sentence invalid checksum: {}",sentence);
+			ParseStatistics.global().countError(ParseStatistics.ParseError.CHECKSUM, sentence);
 			return null;
 		}
 		
-		String sentenceId = sentence.substring(3,6);
-		log.debug("sentenceId={}", sentenceId);
-
-		SentenceFactory factory = SENTENCE_FACTORIES.get(sentenceId);
-		if (factory == null) {
-			log.info("unknown sentence {}, using UnknownSentence", sentenceId);
-			return new UnknownSentence(sentence);
+		return valueOfVerified(sentence);
+	}
+	
+	/**
+	 * As {@link #valueOfVerified(String)} for bytes that have already been checked by
+	 * {@link NmeaFramer}.
+	 * 
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence up to and including the checksum digits.
+	 * @return
+	 */
+	static Sentence valueOfVerified(byte[] buf, int offset, int length) {
+		return valueOfVerified(new String(buf, offset, length, StandardCharsets.ISO_8859_1));
+	}
+	
+	/**
+	 * Create a sentence where the checksum has already been validated by the caller.
+	 * Sentences of a type that is not known are counted (see {@link #getUnknownSentenceCount()})
+	 * and returned as {@link UnknownSentence}.
+	 */
+	static Sentence valueOfVerified(String sentence) {
+		if (sentence.length() < 6) {
+			throw new IllegalArgumentException("sentence too short");
+		}
+		try {
+			SentenceFactory factory = SentenceRegistry.lookup(sentence);
+			if (factory == null) {
+				SentenceRegistry.countUnknown();
+				return new UnknownSentence(sentence, true);
+			}
+	
+			return factory.create(sentence, true);
+		} catch (ChecksumFailException e) {
+			// Not possible: checksum is not checked again
+			throw new IllegalStateException(e);
 		}
-
-		return factory.create(sentence);
 	}
-
-	private static Map<String, SentenceFactory> createSentenceFactories() {
-		Map<String, SentenceFactory> factories = new HashMap<>();
-		factories.put("GGA", GGA::new);
-		factories.put("GSA", GSA::new);
-		factories.put("GST", GST::new);
-		factories.put("GSV", GSV::new);
-		factories.put("GLL", GLL::new);
-		factories.put("RMC", RMC::new);
-		factories.put("VTG", VTG::new);
-		return Collections.unmodifiableMap(factories);
+	
+	/**
+	 * Register a factory for a proprietary sentence so that {@link #valueOf(String)} creates
+	 * a sentence of that type. The address is matched in full (eg "PGRME") or, failing that,
+	 * on the manufacturer (eg "PGRM" matches all Garmin sentences). Registering the same
+	 * address again replaces the factory. Standard sentence dispatch is not affected.
+	 * 
+	 * @param address Address field without the '$', eg "PUBX".
+	 * @param factory
+	 * @throws IllegalArgumentException if the address does not start with 'P' or is longer than 8 characters.
+	 */
+	public static void registerProprietary(String address, SentenceFactory factory) {
+		SentenceRegistry.registerProprietary(address, factory);
+	}
+	
+	/**
+	 * @return Number of sentences of a type with no registered factory seen by {@link #valueOf(String)}.
+	 */
+	public static long getUnknownSentenceCount() {
+		return SentenceRegistry.getUnknownCount();
 	}
 	
 	private static Constellation talkerIdToConstellation( String talkerId) {
@@ -0,0 +1,18 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * Creates a sentence object of a particular type. Usually a constructor reference, eg
+ * {@code MySentence::new} where MySentence has a {@code (String, boolean)} constructor
+ * that passes both arguments to {@link Sentence#Sentence(String, boolean)}.
+ */
+@FunctionalInterface
+public interface SentenceFactory {
+
+	/**
+	 * @param sentence
+	 * @param checksumVerified If true the checksum has already been validated.
+	 * @return
+	 * @throws ChecksumFailException
+	 */
+	Sentence create(String sentence, boolean checksumVerified) throws ChecksumFailException;
+}
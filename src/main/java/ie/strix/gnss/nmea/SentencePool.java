@@ -0,0 +1,145 @@
+package ie.strix.gnss.nmea;
+
+import java.nio.charset.StandardCharsets;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One reusable object of each sentence type. For long running ingestion loops where creating
+ * a new sentence object for every line (see {@link Sentence#valueOf(String)}) causes constant
+ * garbage collection.
+ *
+ * The sentence returned by parse() is only valid until the next sentence of the same type is
+ * parsed by this pool: callers that need to keep a sentence must copy the values they need,
+ * or use {@link Sentence#valueOf(String)} instead.
+ *
+ * Sentences of other types, including registered proprietary sentences, are returned as
+ * {@link UnknownSentence}.
+ *
+ * Not thread safe. Use {@link #forCurrentThread()} to get a pool owned by the calling thread.
+ *
+ * Usage:
+ * <pre>
+ * SentencePool pool = SentencePool.forCurrentThread();
+ * Sentence s = pool.parse(line);
+ * if (s instanceof GGA) {
+ *     double lat = ((GGA)s).getLatitudeDeg(); // NaN if no fix
+ * }
+ * </pre>
+ */
+@Slf4j
+public final class SentencePool {
+
+	private static final ThreadLocal<SentencePool> POOLS = ThreadLocal.withInitial(SentencePool::new);
+
+	private final GGA gga = new GGA();
+	private final GLL gll = new GLL();
+	private final GSA gsa = new GSA();
+	private final GST gst = new GST();
+	private final GSV gsv = new GSV();
+	private final RMC rmc = new RMC();
+	private final VTG vtg = new VTG();
+	private final UnknownSentence unknown = new UnknownSentence();
+
+	public SentencePool () {
+	}
+
+	/**
+	 * @return The pool belonging to the calling thread.
+	 */
+	public static SentencePool forCurrentThread () {
+		return POOLS.get();
+	}
+
+	/**
+	 * Parse a sentence into the pooled object of its type.
+	 *
+	 * @param sentence
+	 * @return The pooled sentence object, or null if the checksum is not valid.
+	 */
+	public Sentence parse (CharSequence sentence) {
+		if (sentence.length() < 6 || ! Util.isChecksumValid(sentence)) {
+			log.debug("sentence invalid: {}", sentence);
+			return null;
+		}
+		return parseVerified(sentence);
+	}
+
+	/**
+	 * Parse a sentence held in a byte[] into the pooled object of its type. The bytes are copied
+	 * so the caller is free to reuse buf.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @return The pooled sentence object, or null if the checksum is not valid.
+	 */
+	public Sentence parse (byte[] buf, int offset, int length) {
+		if (length < 6 || ! Util.isChecksumValid(buf, offset, length)) {
+			if (log.isDebugEnabled()) {
+				log.debug("sentence invalid: {}", new String(buf, offset, length, StandardCharsets.ISO_8859_1));
+			}
+			return null;
+		}
+		return parseVerified(buf, offset, length);
+	}
+
+	/**
+	 * Parse a sentence where the checksum has already been validated by the caller.
+	 */
+	Sentence parseVerified (CharSequence sentence) {
+		try {
+			return Sentence.parseInto(sentence, select(sentence.charAt(3), sentence.charAt(4), sentence.charAt(5)), null, true);
+		} catch (ChecksumFailException e) {
+			// Not possible: checksum is not checked again
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Parse a sentence that has already been framed and checksum validated, eg by {@link NmeaFramer}.
+	 */
+	Sentence parseVerified (byte[] buf, int offset, int length) {
+		try {
+			return Sentence.parseInto(buf, offset, length, select((char)buf[offset + 3], (char)buf[offset + 4], (char)buf[offset + 5]), null, true);
+		} catch (ChecksumFailException e) {
+			// Not possible: checksum is not checked again
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Select the pooled object for a sentence formatter (eg 'G','G','A').
+	 */
+	private Sentence select (char c0, char c1, char c2) {
+		switch (c0) {
+		case 'G':
+			if (c1 == 'G' && c2 == 'A') {
+				return gga;
+			}
+			if (c1 == 'L' && c2 == 'L') {
+				return gll;
+			}
+			if (c1 == 'S') {
+				switch (c2) {
+				case 'A': return gsa;
+				case 'T': return gst;
+				case 'V': return gsv;
+				}
+			}
+			break;
+		case 'R':
+			if (c1 == 'M' && c2 == 'C') {
+				return rmc;
+			}
+			break;
+		case 'V':
+			if (c1 == 'T' && c2 == 'G') {
+				return vtg;
+			}
+			break;
+		}
+		SentenceRegistry.countUnknown();
+		return unknown;
+	}
+}
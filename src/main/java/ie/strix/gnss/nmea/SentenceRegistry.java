@@ -0,0 +1,153 @@
+package ie.strix.gnss.nmea;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maps sentences to the factory for their type without creating any objects.
+ *
+ * Standard sentences are dispatched on the three letter formatter (eg "GGA") which is packed
+ * into an index of a table with one slot for every possible formatter (26^3 slots). The talker
+ * is ignored, so $GPGGA and $GNGGA are both GGA.
+ *
+ * Proprietary sentences ({@code $P...}) are dispatched on their address field (eg "PUBX",
+ * "PGRME") packed into a long. These are registered at runtime and held in a sorted array
+ * that is replaced (copy on write) on registration, so lookups need no locking. The
+ * proprietary table is only searched for sentences that start with "$P".
+ */
+final class SentenceRegistry {
+
+	private static final int LETTERS = 26;
+
+	/** Longest proprietary address that can be registered (packed 8 bits per char into a long) */
+	static final int MAX_ADDRESS_LENGTH = 8;
+
+	private static final SentenceFactory[] STANDARD = new SentenceFactory[LETTERS * LETTERS * LETTERS];
+
+	private static volatile Proprietary proprietary = new Proprietary(new long[0], new SentenceFactory[0]);
+
+	private static final LongAdder unknownCount = new LongAdder();
+
+	static {
+		STANDARD[formatterIndex('G', 'G', 'A')] = GGA::new;
+		STANDARD[formatterIndex('G', 'S', 'A')] = GSA::new;
+		STANDARD[formatterIndex('G', 'S', 'T')] = GST::new;
+		STANDARD[formatterIndex('G', 'S', 'V')] = GSV::new;
+		STANDARD[formatterIndex('G', 'L', 'L')] = GLL::new;
+		STANDARD[formatterIndex('R', 'M', 'C')] = RMC::new;
+		STANDARD[formatterIndex('V', 'T', 'G')] = VTG::new;
+	}
+
+	/**
+	 * Immutable snapshot of the proprietary registrations, keys sorted ascending.
+	 */
+	private static final class Proprietary {
+		final long[] keys;
+		final SentenceFactory[] factories;
+
+		Proprietary (long[] keys, SentenceFactory[] factories) {
+			this.keys = keys;
+			this.factories = factories;
+		}
+	}
+
+	private SentenceRegistry () {
+	}
+
+	/**
+	 * @return Table index of a formatter or -1 if any char is not an upper case letter.
+	 */
+	static int formatterIndex (char c0, char c1, char c2) {
+		final int i0 = c0 - 'A';
+		final int i1 = c1 - 'A';
+		final int i2 = c2 - 'A';
+		if ((i0 | i1 | i2) < 0 || i0 >= LETTERS || i1 >= LETTERS || i2 >= LETTERS) {
+			return -1;
+		}
+		return (i0 * LETTERS + i1) * LETTERS + i2;
+	}
+
+	/**
+	 * Find the factory for a sentence.
+	 *
+	 * @param sentence Sentence starting with '$', at least 6 characters long.
+	 * @return The factory or null if the sentence type is not known.
+	 */
+	static SentenceFactory lookup (CharSequence sentence) {
+		if (sentence.charAt(1) == 'P') {
+			return lookupProprietary(sentence);
+		}
+		final int index = formatterIndex(sentence.charAt(3), sentence.charAt(4), sentence.charAt(5));
+		return index < 0 ? null : STANDARD[index];
+	}
+
+	/**
+	 * Match the full address first (eg "PGRME"), then the manufacturer (eg "PGRM") so that
+	 * one factory can handle all sentences of a manufacturer.
+	 */
+	private static SentenceFactory lookupProprietary (CharSequence sentence) {
+		final Proprietary p = proprietary;
+		if (p.keys.length == 0) {
+			return null;
+		}
+		long key = 0;
+		int len = 0;
+		final int n = sentence.length();
+		for (int i = 1; i < n && len < MAX_ADDRESS_LENGTH; i++) {
+			final char c = sentence.charAt(i);
+			if (c == ',' || c == '*') {
+				break;
+			}
+			key = (key << 8) | (c & 0xff);
+			len++;
+		}
+		int i = Arrays.binarySearch(p.keys, key);
+		if (i < 0 && len > 4) {
+			i = Arrays.binarySearch(p.keys, key >>> ((len - 4) * 8));
+		}
+		return i < 0 ? null : p.factories[i];
+	}
+
+	/**
+	 * Register (or replace) the factory for a proprietary sentence address.
+	 *
+	 * @param address Address field without the '$', eg "PUBX". Must start with 'P'.
+	 * @param factory
+	 */
+	static synchronized void registerProprietary (String address, SentenceFactory factory) {
+		if (address == null || address.length() < 2 || address.length() > MAX_ADDRESS_LENGTH || address.charAt(0) != 'P') {
+			throw new IllegalArgumentException("proprietary address must start with 'P' and be 2 to " + MAX_ADDRESS_LENGTH + " characters: " + address);
+		}
+		long key = 0;
+		for (int i = 0; i < address.length(); i++) {
+			key = (key << 8) | (address.charAt(i) & 0xff);
+		}
+
+		final Proprietary p = proprietary;
+		int i = Arrays.binarySearch(p.keys, key);
+		if (i >= 0) {
+			SentenceFactory[] factories = p.factories.clone();
+			factories[i] = factory;
+			proprietary = new Proprietary(p.keys, factories);
+			return;
+		}
+		i = -i - 1;
+		long[] keys = new long[p.keys.length + 1];
+		SentenceFactory[] factories = new SentenceFactory[keys.length];
+		System.arraycopy(p.keys, 0, keys, 0, i);
+		System.arraycopy(p.factories, 0, factories, 0, i);
+		keys[i] = key;
+		factories[i] = factory;
+		System.arraycopy(p.keys, i, keys, i + 1, p.keys.length - i);
+		System.arraycopy(p.factories, i, factories, i + 1, p.keys.length - i);
+		proprietary = new Proprietary(keys, factories);
+	}
+
+	static void countUnknown () {
+		unknownCount.increment();
+	}
+
+	static long getUnknownCount () {
+		return unknownCount.sum();
+	}
+}
@@ -0,0 +1,132 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * Layout of a sentence learned from an example. Receivers that use fixed width fields emit
+ * every sentence of a given type with the same length and with commas at the same positions,
+ * so once the layout is known fields can be located without scanning.
+ *
+ * All positions are relative to the leading '$'.
+ */
+final class SentenceTemplate {
+
+	/** Three character sentence formatter, eg "GGA" */
+	private final char[] formatter;
+
+	/** Length from the '$' up to and including the two checksum digits */
+	private final int length;
+
+	/** Position of each comma in the example */
+	private final int[] commas;
+
+	/** Position of the '*' that precedes the checksum */
+	private final int asterisk;
+
+	private SentenceTemplate(char[] formatter, int length, int[] commas, int asterisk) {
+		this.formatter = formatter;
+		this.length = length;
+		this.commas = commas;
+		this.asterisk = asterisk;
+	}
+
+	/**
+	 * Learn the layout of an example sentence.
+	 *
+	 * @param example A complete sentence including checksum, eg "$GNGGA,...*5C"
+	 * @return
+	 * @throws IllegalArgumentException if the example is not a valid sentence
+	 */
+	static SentenceTemplate of(String example) {
+		final String s = example.trim();
+		if ( ! Util.isChecksumValid(s)) {
+			throw new IllegalArgumentException("example sentence is not valid: " + example);
+		}
+		final int asterisk = s.indexOf('*');
+
+		int nComma = 0;
+		for (int i = 0; i < asterisk; i++) {
+			if (s.charAt(i) == ',') {
+				nComma++;
+			}
+		}
+		final int[] commas = new int[nComma];
+		for (int i = 0, j = 0; i < asterisk; i++) {
+			if (s.charAt(i) == ',') {
+				commas[j++] = i;
+			}
+		}
+		return new SentenceTemplate(s.substring(3, 6).toCharArray(), asterisk + 3, commas, asterisk);
+	}
+
+	/**
+	 * Test if the sentence in buf matches this layout and has a valid checksum.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence excluding any trailing end of line characters.
+	 * @return
+	 */
+	boolean matches(final char[] buf, final int offset, final int length) {
+		if (length != this.length || buf[offset] != '$') {
+			return false;
+		}
+		if (buf[offset + 3] != formatter[0] || buf[offset + 4] != formatter[1] || buf[offset + 5] != formatter[2]) {
+			return false;
+		}
+		for (int i = 0; i < commas.length; i++) {
+			if (buf[offset + commas[i]] != ',') {
+				return false;
+			}
+		}
+		if (buf[offset + asterisk] != '*') {
+			return false;
+		}
+		return Util.isChecksumValid(buf, offset, offset + asterisk);
+	}
+
+	/**
+	 * Test if the sentence formatter (eg "GGA") at offset+3 is the one of this template.
+	 */
+	boolean isFormatter(final char[] buf, final int offset) {
+		return buf[offset + 3] == formatter[0] && buf[offset + 4] == formatter[1] && buf[offset + 5] == formatter[2];
+	}
+
+	/**
+	 * Number of fields including the address field (field 0).
+	 */
+	int getFieldCount() {
+		return commas.length + 1;
+	}
+
+	/**
+	 * Copy the position of the end of each field (the ',' or '*' that follows it) to dst.
+	 *
+	 * @return The number of fields.
+	 */
+	int copyFieldEnds(int[] dst) {
+		System.arraycopy(commas, 0, dst, 0, commas.length);
+		dst[commas.length] = asterisk;
+		return commas.length + 1;
+	}
+
+	/**
+	 * Position of the first character of a field. Field 0 is the address field (eg "$GNGGA").
+	 */
+	int fieldStart(int field) {
+		return field == 0 ? 0 : commas[field - 1] + 1;
+	}
+
+	/**
+	 * Position after the last character of a field.
+	 */
+	int fieldEnd(int field) {
+		return field < commas.length ? commas[field] : asterisk;
+	}
+
+	/**
+	 * Test if a field is empty in the learned layout.
+	 */
+	boolean isEmpty(int field) {
+		return fieldStart(field) == fieldEnd(field);
+	}
+
+}
@@ -0,0 +1,76 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * Set of sentence formatters (eg "GGA", "RMC") to accept. Tested against the three formatter
+ * characters before any other work is done on a sentence, so sentences that are not needed
+ * cost no checksum calculation or object creation. The talker is ignored.
+ *
+ * Proprietary sentences ({@code $P...}) and formatters that are not three upper case letters
+ * are never accepted.
+ */
+public final class SentenceTypeFilter {
+
+	/** One bit per possible formatter, see {@link SentenceRegistry#formatterIndex(char, char, char)} */
+	private final long[] accepted = new long[(26 * 26 * 26 + 63) / 64];
+
+	private SentenceTypeFilter () {
+	}
+
+	/**
+	 * @param formatters Three letter sentence formatters, eg "GGA".
+	 * @return
+	 * @throws IllegalArgumentException if a formatter is not three upper case letters.
+	 */
+	public static SentenceTypeFilter of (String... formatters) {
+		SentenceTypeFilter filter = new SentenceTypeFilter();
+		for (String formatter : formatters) {
+			filter.add(formatter);
+		}
+		return filter;
+	}
+
+	/**
+	 * @return A filter accepting the formatters of this filter and of the other.
+	 */
+	public SentenceTypeFilter union (SentenceTypeFilter other) {
+		SentenceTypeFilter filter = new SentenceTypeFilter();
+		for (int i = 0; i < accepted.length; i++) {
+			filter.accepted[i] = accepted[i] | other.accepted[i];
+		}
+		return filter;
+	}
+
+	private void add (String formatter) {
+		final int index = formatter.length() == 3
+				? SentenceRegistry.formatterIndex(formatter.charAt(0), formatter.charAt(1), formatter.charAt(2))
+				: -1;
+		if (index < 0) {
+			throw new IllegalArgumentException("sentence formatter must be three upper case letters: " + formatter);
+		}
+		accepted[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Test the formatter characters of a sentence, ie the characters at offset 3, 4 and 5
+	 * after the '$'.
+	 */
+	public boolean accepts (char c0, char c1, char c2) {
+		final int index = SentenceRegistry.formatterIndex(c0, c1, c2);
+		return index >= 0 && (accepted[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param buf
+	 * @param offset Index of the '$'. There must be at least 6 bytes from offset.
+	 */
+	public boolean accepts (byte[] buf, int offset) {
+		return accepts((char)(buf[offset + 3] & 0xff), (char)(buf[offset + 4] & 0xff), (char)(buf[offset + 5] & 0xff));
+	}
+
+	/**
+	 * @param sentence Sentence starting with '$', at least 6 characters long.
+	 */
+	public boolean accepts (CharSequence sentence) {
+		return accepts(sentence.charAt(3), sentence.charAt(4), sentence.charAt(5));
+	}
+}
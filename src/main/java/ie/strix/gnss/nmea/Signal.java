@@ -55,14 +55,24 @@ public enum Signal {
 		this.name = name;
 	}
 	
+	/** Signal by constellation ordinal and NMEA signal ID (a single hex digit) */
+	private static final Signal[][] BY_ID = new Signal[Constellation.values().length][16];
+	static {
+		for (Signal signal : values()) {
+			BY_ID[signal.constellation.ordinal()][signal.nmeaSignalId] = signal;
+		}
+	}
+	
+	/**
+	 * @param constellation
+	 * @param nmeaSignalId NMEA 4.10+ signal ID as found in GSV.
+	 * @return The signal or null if not known.
+	 */
 	public static Signal getSignal(Constellation constellation, int nmeaSignalId) {
-		// TODO: replace with hash table.
-		for (Signal signal : Signal.values()) {
-			if ( (signal.getConstellation() == constellation) && (signal.getNmeaSignalId() == nmeaSignalId) ) {
-				return signal;
-			}
+		if (constellation == null || nmeaSignalId < 0 || nmeaSignalId >= 16) {
+			return null;
 		}
-		return null;
+		return BY_ID[constellation.ordinal()][nmeaSignalId];
 	}
 	
 }
@@ -2,8 +2,26 @@ package ie.strix.gnss.nmea;
 
 import lombok.Getter;
 
+/**
+ * Quality of one satellite signal as reported in GSV.
+ *
+ * A SignalQuality can also be packed into a long with {@link #pack(Signal, int, int, int, int, int)}
+ * and unpacked with the static accessors, eg to keep SNR histories in a long[] instead of a list
+ * of objects. Layout from the least significant bit:
+ * <pre>
+ * bits  0-15  PRN
+ * bits 16-23  elevation + 1 (0 = not reported)
+ * bits 24-33  azimuth + 1
+ * bits 34-41  SNR + 1
+ * bits 42-49  {@link Signal} ordinal + 1 (0 = null)
+ * bits 50-53  NMEA signal ID
+ * </pre>
+ */
 @Getter
 public final class SignalQuality {
+
+	private static final Signal[] SIGNALS = Signal.values();
+
 	private Signal signal;
 	private int prn;
 	private int elevation;
@@ -18,7 +36,73 @@ public final class SignalQuality {
 		this.snr = snr;
 		this.signalId = signalId;
 	}
+
+	/**
+	 * @return This signal quality packed into a long, see {@link #pack(Signal, int, int, int, int, int)}.
+	 */
+	public long toLong() {
+		return pack(signal, prn, elevation, azimuth, snr, signalId);
+	}
+
+	/**
+	 * @param packed A value created by {@link #pack(Signal, int, int, int, int, int)}.
+	 * @return A new SignalQuality.
+	 */
+	public static SignalQuality valueOf(long packed) {
+		return new SignalQuality(signal(packed), prn(packed), elevation(packed), azimuth(packed), snr(packed), signalId(packed));
+	}
+
+	/**
+	 * Pack signal quality into a long. Values out of range are stored as not reported (-1),
+	 * PRN is stored modulo 65536.
+	 *
+	 * @param signal The signal or null.
+	 * @param prn
+	 * @param elevation Degrees (-1..90) or -1 if not reported.
+	 * @param azimuth Degrees (0..359) or -1 if not reported.
+	 * @param snr dB-Hz (0..99) or -1 if not tracking.
+	 * @param signalId NMEA signal ID (0..15).
+	 * @return
+	 */
+	public static long pack(Signal signal, int prn, int elevation, int azimuth, int snr, int signalId) {
+		return (prn & 0xffffL)
+			| (long)field(elevation, 0xff) << 16
+			| (long)field(azimuth, 0x3ff) << 24
+			| (long)field(snr, 0xff) << 34
+			| (long)(signal == null ? 0 : signal.ordinal() + 1) << 42
+			| (long)(signalId & 0xf) << 50;
+	}
+
+	private static int field(int value, int mask) {
+		return value < -1 || value + 1 > mask ? 0 : value + 1;
+	}
+
+	public static int prn(long packed) {
+		return (int)(packed & 0xffff);
+	}
+
+	public static int elevation(long packed) {
+		return (int)((packed >>> 16) & 0xff) - 1;
+	}
+
+	public static int azimuth(long packed) {
+		return (int)((packed >>> 24) & 0x3ff) - 1;
+	}
+
+	public static int snr(long packed) {
+		return (int)((packed >>> 34) & 0xff) - 1;
+	}
+
+	public static Signal signal(long packed) {
+		final int ordinal = (int)((packed >>> 42) & 0xff);
+		return ordinal == 0 ? null : SIGNALS[ordinal - 1];
+	}
+
+	public static int signalId(long packed) {
+		return (int)((packed >>> 50) & 0xf);
+	}
+
 	public String toString() {
 		return "sig=" + this.signal + " prn=" + this.prn + " (" + this.elevation+","+this.azimuth + ") snr=" + snr;
 	}
-}
\ No newline at end of file
+}
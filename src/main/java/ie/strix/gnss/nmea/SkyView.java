@@ -0,0 +1,308 @@
+package ie.strix.gnss.nmea;
+
+import java.util.Arrays;
+
+/**
+ * The satellite signals reported by the GSV sentences of one epoch, held as parallel primitive
+ * arrays instead of one {@link SignalQuality} object per signal.
+ *
+ * Each entry is one satellite signal identified by constellation, NMEA signal ID and PRN, eg a GPS
+ * satellite tracked on L1 C/A and L5 has two entries. Entries are in the order first reported
+ * and are found by key through an open addressing hash table, so a signal reported again in the
+ * same epoch is updated in place. {@link #clear()} is constant time.
+ *
+ * Not thread safe. See {@link EpochAssembler} for how a SkyView is double buffered between epochs.
+ */
+public final class SkyView {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final Signal[] SIGNALS = Signal.values();
+	private static final Constellation[] CONSTELLATIONS = Constellation.values();
+
+	/** Number of NMEA signal IDs per constellation (a single hex digit) */
+	private static final int SIGNAL_IDS = 16;
+
+	// Entries
+	private int[] keys;
+	private byte[] signals;
+	private short[] elevations;
+	private short[] azimuths;
+	private short[] snrs;
+	private int count;
+
+	// Hash table from key to entry index. A bucket is in use only if its generation is current.
+	private int[] table;
+	private int[] tableGeneration;
+	private int generation = 1;
+
+	/** GSV reports (talker, signal ID) with message 1 seen, and with the last message seen */
+	private final long[] started = new long[(CONSTELLATIONS.length * SIGNAL_IDS + 63) / 64];
+	private final long[] completed = new long[started.length];
+
+	public SkyView () {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity Number of signals that can be held before the arrays are grown.
+	 */
+	public SkyView (int initialCapacity) {
+		final int capacity = Math.max(8, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1);
+		keys = new int[capacity];
+		signals = new byte[capacity];
+		elevations = new short[capacity];
+		azimuths = new short[capacity];
+		snrs = new short[capacity];
+		table = new int[capacity * 2];
+		tableGeneration = new int[capacity * 2];
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public void clear () {
+		count = 0;
+		Arrays.fill(started, 0);
+		Arrays.fill(completed, 0);
+		if (++generation == 0) {
+			// Wrapped: old buckets could look current
+			Arrays.fill(tableGeneration, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * @return A new SkyView with the same entries, eg to keep after the epoch.
+	 */
+	public SkyView copy () {
+		final SkyView copy = new SkyView(count);
+		for (int i = 0; i < count; i++) {
+			final int e = copy.entry(keys[i]);
+			copy.signals[e] = signals[i];
+			copy.elevations[e] = elevations[i];
+			copy.azimuths[e] = azimuths[i];
+			copy.snrs[e] = snrs[i];
+		}
+		System.arraycopy(started, 0, copy.started, 0, started.length);
+		System.arraycopy(completed, 0, copy.completed, 0, completed.length);
+		return copy;
+	}
+
+	/**
+	 * Add the satellites of one part of a (possibly multi-part) GSV report. A signal already
+	 * present is updated. Reports from talkers not mapped to a {@link Constellation} (eg GQ for
+	 * QZSS) are ignored.
+	 *
+	 * @param gsv
+	 */
+	public void add (GSV gsv) {
+		final Constellation talker = gsv.getConstellation();
+		final Constellation constellation = gsv.getSatelliteConstellation();
+		if (talker == null || constellation == null) {
+			return;
+		}
+		final int n = gsv.getSignalCount();
+		final int signalId = gsv.getSignalId();
+		// A report is identified by talker, which may be GN for several constellations
+		final int group = talker.ordinal() * SIGNAL_IDS + (signalId & 0xf);
+
+		final int messageNumber = gsv.getMessageNumber();
+		if (messageNumber == 1) {
+			started[group >>> 6] |= 1L << group;
+		}
+		if (messageNumber == gsv.getNumberOfMessages()) {
+			completed[group >>> 6] |= 1L << group;
+		}
+
+		if (n == 0) {
+			return;
+		}
+		final Signal signal = gsv.getSignal();
+		final byte signalOrdinal = (byte)(signal == null ? -1 : signal.ordinal());
+		for (int i = 0; i < n; i++) {
+			final int prn = gsv.getPrn(i);
+			if (prn <= 0) {
+				continue;
+			}
+			final int e = entry(key(constellation, signalId, prn));
+			signals[e] = signalOrdinal;
+			elevations[e] = (short)gsv.getElevation(i);
+			azimuths[e] = (short)gsv.getAzimuth(i);
+			snrs[e] = (short)gsv.getSnr(i);
+		}
+	}
+
+	/**
+	 * @return true if every GSV report started in this epoch has been received in full.
+	 */
+	public boolean isComplete () {
+		for (int i = 0; i < started.length; i++) {
+			if ((started[i] & ~completed[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Number of satellite signals.
+	 */
+	public int getSignalCount () {
+		return count;
+	}
+
+	/**
+	 * @param i Entry index (0 .. {@link #getSignalCount()}-1)
+	 * @return The signal or null if the GSV did not report one (NMEA before 4.10) or it is not known.
+	 */
+	public Signal getSignal (int i) {
+		final int ordinal = signals[i];
+		return ordinal < 0 ? null : SIGNALS[ordinal];
+	}
+
+	/**
+	 * @return NMEA signal ID or 0 if not reported.
+	 */
+	public int getSignalId (int i) {
+		return (keys[i] >>> 16) & 0xf;
+	}
+
+	public Constellation getConstellation (int i) {
+		return CONSTELLATIONS[keys[i] >>> 20];
+	}
+
+	public int getPrn (int i) {
+		return keys[i] & 0xffff;
+	}
+
+	/**
+	 * @return Elevation in degrees or -1 if not reported.
+	 */
+	public int getElevation (int i) {
+		return elevations[i];
+	}
+
+	/**
+	 * @return Azimuth in degrees or -1 if not reported.
+	 */
+	public int getAzimuth (int i) {
+		return azimuths[i];
+	}
+
+	/**
+	 * @return SNR in dB-Hz or -1 if not tracking.
+	 */
+	public int getSnr (int i) {
+		return snrs[i];
+	}
+
+	/**
+	 * Find one satellite signal.
+	 *
+	 * @return Entry index or -1 if not present.
+	 */
+	public int indexOf (Constellation constellation, int signalId, int prn) {
+		return find(key(constellation, signalId, prn));
+	}
+
+	/**
+	 * @return SNR in dB-Hz of one satellite signal or -1 if not present or not tracking.
+	 */
+	public int getSnr (Signal signal, int prn) {
+		final int i = indexOf(signal.getConstellation(), signal.getNmeaSignalId(), prn);
+		return i < 0 ? -1 : snrs[i];
+	}
+
+	/**
+	 * @return Entry i packed as by {@link SignalQuality#pack(Signal, int, int, int, int, int)}.
+	 */
+	public long getSignalQualityPacked (int i) {
+		return SignalQuality.pack(getSignal(i), getPrn(i), elevations[i], azimuths[i], snrs[i], getSignalId(i));
+	}
+
+	/**
+	 * @return A new SignalQuality for entry i.
+	 */
+	public SignalQuality getSignalQuality (int i) {
+		return new SignalQuality(getSignal(i), getPrn(i), getElevation(i), getAzimuth(i), getSnr(i), getSignalId(i));
+	}
+
+	private static int key (Constellation constellation, int signalId, int prn) {
+		return constellation.ordinal() << 20 | (signalId & 0xf) << 16 | (prn & 0xffff);
+	}
+
+	private static int hash (int key) {
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private int find (int key) {
+		final int mask = table.length - 1;
+		for (int b = hash(key) & mask; tableGeneration[b] == generation; b = (b + 1) & mask) {
+			if (keys[table[b]] == key) {
+				return table[b];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Index of the entry for key, added if not present.
+	 */
+	private int entry (int key) {
+		int mask = table.length - 1;
+		int b = hash(key) & mask;
+		for (; tableGeneration[b] == generation; b = (b + 1) & mask) {
+			if (keys[table[b]] == key) {
+				return table[b];
+			}
+		}
+		if (count == keys.length) {
+			grow();
+			mask = table.length - 1;
+			b = hash(key) & mask;
+			while (tableGeneration[b] == generation) {
+				b = (b + 1) & mask;
+			}
+		}
+		final int e = count++;
+		keys[e] = key;
+		table[b] = e;
+		tableGeneration[b] = generation;
+		return e;
+	}
+
+	private void grow () {
+		final int n = keys.length * 2;
+		keys = Arrays.copyOf(keys, n);
+		signals = Arrays.copyOf(signals, n);
+		elevations = Arrays.copyOf(elevations, n);
+		azimuths = Arrays.copyOf(azimuths, n);
+		snrs = Arrays.copyOf(snrs, n);
+
+		// Rehash, keeping the table no more than half full
+		table = new int[n * 2];
+		tableGeneration = new int[n * 2];
+		generation = 1;
+		final int mask = table.length - 1;
+		for (int e = 0; e < count; e++) {
+			int b = hash(keys[e]) & mask;
+			while (tableGeneration[b] == generation) {
+				b = (b + 1) & mask;
+			}
+			table[b] = e;
+			tableGeneration[b] = generation;
+		}
+	}
+
+	@Override
+	public String toString () {
+		final StringBuilder sb = new StringBuilder("SkyView");
+		for (int i = 0; i < count; i++) {
+			sb.append(' ').append(getConstellation(i)).append('/').append(getSignalId(i))
+				.append('/').append(getPrn(i)).append('=').append(getSnr(i));
+		}
+		return sb.toString();
+	}
+}
@@ -5,16 +5,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.InputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 
 import ie.strix.gnss.PVT;
@@ -30,21 +29,28 @@ public class Stream {
 
 	//private Reader reader;
 	private BufferedReader br;
-	private long startOfCurrentDay = 0;
-	private long timeInDay;
-	private long prevTimeInDay;
+	
+	/** Used instead of br when reading from a byte source */
+	private NmeaSource framer;
+	
+	/** If not null sentences are parsed into reused objects */
+	private SentencePool pool;
+	
+	/** Sentence types needed by Stream itself, see {@link #setSentenceTypes(String...)} */
+	private static final SentenceTypeFilter INTERNAL_TYPES = SentenceTypeFilter.of("RMC");
+	
+	/** If not null only these sentence types are parsed */
+	private SentenceTypeFilter filter;
 	private String isoDate;
 	private int linesRead = 0;
 	
-	private Double latitude;
-	private Double longitude;
-	private Double altitude;
-	
-	private int l1snr = 0;
-	private int l2snr = 0;
-	private int l5snr = 0;
+	/** If not null sentences are grouped into epochs, see {@link #setEpochListener(Consumer)} */
+	private EpochAssembler assembler;
 	
-	private List<SignalQuality> signals = new ArrayList<>();
+	private ParseStatistics statistics = ParseStatistics.global();
+	/** Framer counts already added to statistics */
+	private long framerChecksumFails = 0;
+	private long framerMalformed = 0;
 	
 	public Stream () {
 		
@@ -55,27 +61,194 @@ public class Stream {
 		this.br = new BufferedReader(reader);
 	}
 	
+	/**
+	 * Read sentences from a byte stream. Sentences are framed and checksum validated at the
+	 * byte level by {@link NmeaFramer} without decoding the stream to characters.
+	 * 
+	 * @param in
+	 */
+	public Stream (InputStream in) {
+		this.framer = new NmeaFramer(in);
+	}
+	
+	/**
+	 * Read sentences from a file. Uncompressed regular files are memory mapped (see
+	 * {@link MappedNmeaFramer}), .gz files and {@link NmeaArchive} files are decompressed
+	 * as they are read. Other files, eg a FIFO or a serial device, are read as a byte stream.
+	 * 
+	 * @param file
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
 	public Stream (File file) throws FileNotFoundException, IOException {
-		if (file.getName().endsWith(".gz")) {
-			Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)));
-			this.br = new BufferedReader(reader);
+		// A FIFO or device has no size and must be opened only once
+		final boolean regular = Files.isRegularFile(file.toPath());
+		if (file.getName().endsWith(".gz") || (regular && NmeaArchive.isArchive(file))) {
+			this.framer = new NmeaFramer(new GZIPInputStream(new FileInputStream(file), 65536));
+		} else if (regular) {
+			this.framer = new MappedNmeaFramer(file);
 		} else {
-			Reader reader = new FileReader(file);
-			this.br = new BufferedReader(reader);
+			this.framer = new NmeaFramer(new FileInputStream(file));
+		}
+	}
+	
+	/**
+	 * Read sentences from any framed source.
+	 * 
+	 * @param source
+	 */
+	public Stream (NmeaSource source) {
+		this.framer = source;
+	}
+	
+	/**
+	 * Reuse one sentence object per sentence type instead of creating a new object for every
+	 * sentence. A sentence returned by {@link #readNextSentence()} is then only valid until the
+	 * next sentence of the same type is read.
+	 * 
+	 * @param reuse
+	 */
+	public void setReuseSentences (boolean reuse) {
+		this.pool = reuse ? new SentencePool() : null;
+	}
+	
+	/**
+	 * Only parse the given sentence types. Other sentences are dropped after looking at the
+	 * sentence formatter, before checksum validation or object creation. RMC is always
+	 * included as it supplies the date. For example readNextPVT() needs only "GGA".
+	 * 
+	 * @param sentenceTypes Sentence formatters, eg "GGA". If none all sentences are parsed.
+	 */
+	public void setSentenceTypes (String... sentenceTypes) {
+		this.filter = sentenceTypes.length == 0 ? null : SentenceTypeFilter.of(sentenceTypes).union(INTERNAL_TYPES);
+		if (framer != null) {
+			framer.setFilter(filter);
+		}
+	}
+	
+	/**
+	 * Count sentences and errors, including invalid fields found later by the getters of the
+	 * sentences read, in statistics instead of {@link ParseStatistics#global()}.
+	 * 
+	 * @param statistics
+	 */
+	public void setStatistics (ParseStatistics statistics) {
+		this.statistics = statistics;
+	}
+	
+	public ParseStatistics getStatistics () {
+		return statistics;
+	}
+	
+	/**
+	 * @return The byte source or null if reading from a Reader.
+	 */
+	NmeaSource getSource () {
+		return framer;
+	}
+	
+	/**
+	 * Set the date in effect before the first RMC is read, eg when starting part way through a log.
+	 */
+	void setIsoDate (String isoDate) {
+		this.isoDate = isoDate;
+		if (assembler != null) {
+			assembler.setIsoDate(isoDate);
+		}
+	}
+	
+	/**
+	 * Group the sentences read into epochs. The listener is called with each complete epoch as
+	 * sentences are read by any of the readXxx() methods, and with the last epoch at end of stream.
+	 * The {@link Epoch} passed is reused for the next epoch.
+	 * 
+	 * @param listener The listener or null to stop assembling epochs.
+	 */
+	public void setEpochListener (Consumer<Epoch> listener) {
+		if (listener == null) {
+			this.assembler = null;
+			return;
+		}
+		this.assembler = new EpochAssembler(listener);
+		if (isoDate != null) {
+			assembler.setIsoDate(isoDate);
+		}
+	}
+	
+	/**
+	 * Read to end of stream passing each epoch to listener.
+	 * 
+	 * @param listener
+	 * @return The number of epochs read.
+	 * @throws UncheckedIOException on an I/O error.
+	 */
+	public long readAllEpochs (Consumer<Epoch> listener) {
+		setEpochListener(listener);
+		final EpochAssembler epochs = assembler;
+		while (true) {
+			try {
+				readNextSentence();
+			} catch (EndOfStreamException e) {
+				return epochs.getEpochCount();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
 		}
 	}
 	
+	/**
+	 * @return The next sentence, or null if it failed checksum validation.
+	 * @throws EndOfStreamException when there are no more sentences.
+	 * @throws IOException
+	 */
 	public Sentence readNextSentence () throws IOException {
+		if (framer != null) {
+			final boolean more = framer.next();
+			countFramerErrors();
+			if ( ! more) {
+				endOfStream();
+			}
+			linesRead++;
+			return processSentence(framer.getBuffer(), framer.getOffset(), framer.getLength());
+		}
+		
 		while (true) {
 			String sentenceStr = this.br.readLine();
 			if (sentenceStr == null) {
-				throw new IOException ("end of stream");
+				endOfStream();
 			}
 			linesRead++;
+			if (filter != null && (sentenceStr.length() < 6 || ! filter.accepts(sentenceStr))) {
+				continue;
+			}
 			return processSentence(sentenceStr);
 		}
 	}
 	
+	/**
+	 * Add lines dropped by the framer since the last call to statistics. The framer does not
+	 * keep the lines so they cannot be logged.
+	 */
+	private void countFramerErrors () {
+		final long checksumFails = framer.getChecksumFailCount();
+		final long malformed = framer.getMalformedCount();
+		if (checksumFails != framerChecksumFails) {
+			statistics.addErrors(ParseStatistics.ParseError.CHECKSUM, checksumFails - framerChecksumFails);
+			framerChecksumFails = checksumFails;
+		}
+		if (malformed != framerMalformed) {
+			statistics.addErrors(ParseStatistics.ParseError.TRUNCATED, malformed - framerMalformed);
+			framerMalformed = malformed;
+		}
+	}
+	
+	private void endOfStream () throws EndOfStreamException {
+		if (assembler != null) {
+			assembler.flush();
+		}
+		throw new EndOfStreamException();
+	}
+	
 	public GGA readNextGGA () throws IOException {
 		while (true) {
 			Sentence sentence = readNextSentence();
@@ -90,18 +263,26 @@ public class Stream {
 		GGA gga;
 		do {
 			gga = readNextGGA();
-		} while (isoDate == null || gga.getLatitude() == null);
+		} while (isoDate == null || ! gga.hasLatitude());
 		
 		return PVT.fromGGA(isoDate, gga);
 	}
 	
+	/**
+	 * Read PVTs to end of stream.
+	 * 
+	 * @return
+	 * @throws UncheckedIOException on an I/O error. End of stream is not an error.
+	 */
 	public List<PVT> readAllPVT() {
 		List<PVT> list = new ArrayList<>();
 		while (true) {
 			try {
 				list.add(readNextPVT());
-			} catch (IOException e) {
+			} catch (EndOfStreamException e) {
 				return list;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
 			}
 		}
 	}
@@ -109,62 +290,40 @@ public class Stream {
 	public Sentence processSentence(String sentenceStr) {
 		log.debug(sentenceStr);
 		
-		if ( ! Util.isChecksumValid(sentenceStr)) {
-			log.info("NMEA not valid {}", sentenceStr);
+		if (sentenceStr.length() < 6) {
+			statistics.countError(ParseStatistics.ParseError.TRUNCATED, sentenceStr);
 			return null;
 		}
-		
-		Sentence sentence;
-		try {
-			sentence = Sentence.valueOf(sentenceStr);
-		} catch (ChecksumFailException e) {
-			log.info("NMEA checksum fail: {}", sentenceStr);
+		if ( ! Util.isChecksumValid(sentenceStr)) {
+			statistics.countError(ParseStatistics.ParseError.CHECKSUM, sentenceStr);
 			return null;
 		}
 		
-		if (sentence == null) {
-			log.info("NMEA sentence is null");
-			return null;
-		}
+		return processSentence(pool != null ? pool.parseVerified(sentenceStr) : Sentence.valueOfVerified(sentenceStr));
+	}
+	
+	/**
+	 * Process a sentence that has already been framed and checksum validated by {@link NmeaFramer}.
+	 * 
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence up to and including the checksum digits.
+	 * @return
+	 */
+	Sentence processSentence(byte[] buf, int offset, int length) {
+		return processSentence(pool != null ? pool.parseVerified(buf, offset, length) : Sentence.valueOfVerified(buf, offset, length));
+	}
+	
+	private Sentence processSentence(Sentence sentence) {
 		
-		if (sentence == null || ! sentence.isChecksumValid()) {
-			log.info("NMEA not valid: invalid checksum");
-			return null;
+		sentence.setStatistics(statistics);
+		if (sentence instanceof UnknownSentence) {
+			statistics.countError(ParseStatistics.ParseError.UNKNOWN_TYPE, sentence.sentence);
+		} else {
+			statistics.countSentence(sentence);
 		}
-		
-		final int PRN = 14;
-		
-		//log.info("sss={}",sentence.getClass());
-		if (sentence instanceof GGA) {
-			GGA gga = (GGA)sentence;
-			this.latitude = gga.getLatitude();
-			this.longitude = gga.getLongitude();
-			this.altitude = gga.getAltitude();
-			
-			this.timeInDay = gga.getTimeInDay();
-			
-			if (this.timeInDay != prevTimeInDay) {
-				// process signals
-				//log.info("timeInDay={}",timeInDay);
-				for (SignalQuality sq : signals) {
-					//log.info("SQ=" + sq);
-					if ( sq.getSignal() == Signal.GPS_L1_CA && sq.getPrn() == PRN) {
-						l1snr = sq.getSnr();
-					}
-					
-					if ( sq.getSignal() == Signal.GPS_L2_PY &&  sq.getPrn() == PRN) {
-						l2snr = sq.getSnr();
-					}
-					if ( sq.getSignal() == Signal.GPS_L5_Q &&  sq.getPrn() == PRN ) {
-						l5snr = sq.getSnr();
-					}
-				}
-				//log.info("SIGQ {} {} {} {} {} {}",latitude,longitude,altitude,l1snr,l2snr,l5snr);
-				//System.out.println("" + latitude + " " + longitude + " " + altitude + " " + l1snr + " " + l2snr + " " + l5snr);
-
-				signals = new ArrayList<>();
-				prevTimeInDay = this.timeInDay;
-			}
+		if (assembler != null) {
+			assembler.accept(sentence);
 		}
 		
 		// RMC is useful for getting date in a NMEA stream
@@ -175,17 +334,11 @@ public class Stream {
 				if ( ! rmcIsoDate.equals(this.isoDate)) {
 					// new date
 					this.isoDate = rmcIsoDate;
-					log.info("setting new isoDate={} len={}", this.isoDate, this.isoDate.length());
+					log.debug("setting new isoDate={}", this.isoDate);
 				}	
 			}
 		}
 		
-		
-		if (sentence instanceof GSV) {
-			GSV gsv = (GSV)sentence;
-			signals.addAll(List.of(gsv.getSignals()));
-		}
-		
 		return sentence;
 	}
 	
@@ -205,7 +358,11 @@ public class Stream {
 	
 	public void close () {
 		try {
-			br.close();
+			if (framer != null) {
+				framer.close();
+			} else {
+				br.close();
+			}
 		} catch (IOException e) {
 			log.error("error on close()",e);
 		}
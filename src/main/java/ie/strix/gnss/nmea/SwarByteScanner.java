@@ -0,0 +1,148 @@
+package ie.strix.gnss.nmea;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link ByteScanner} that tests eight bytes at a time. Each long word is loaded little endian
+ * so that the lowest set byte of a match mask is the first match in memory.
+ *
+ * A byte equal to a pattern byte is found by XORing the word with the pattern repeated in every
+ * byte and finding the zero bytes. The zero byte test used is exact (no false positives from
+ * borrows), so the mask can be used directly for the index.
+ */
+class SwarByteScanner extends ScalarByteScanner {
+
+	static final SwarByteScanner INSTANCE = new SwarByteScanner();
+
+	private static final VarHandle ARRAY_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle BUFFER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final long LOW_7 = 0x7f7f7f7f7f7f7f7fL;
+
+	private static final long STAR = repeat('*');
+	private static final long DOLLAR = repeat('$');
+	private static final long CR = repeat('\r');
+	private static final long LF = repeat('\n');
+	private static final long COMMA = repeat(',');
+
+	static long repeat (final int b) {
+		return (b & 0xffL) * 0x0101010101010101L;
+	}
+
+	/**
+	 * @return Word with the high bit set in each byte of word equal to the matching byte of pattern.
+	 */
+	static long eq (final long word, final long pattern) {
+		final long x = word ^ pattern;
+		return ~(((x & LOW_7) + LOW_7) | x | LOW_7);
+	}
+
+	static long sentenceEnd (final long word) {
+		return eq(word, STAR) | eq(word, DOLLAR) | eq(word, CR) | eq(word, LF);
+	}
+
+	static int firstByte (final long mask) {
+		return Long.numberOfTrailingZeros(mask) >>> 3;
+	}
+
+	/**
+	 * @return XOR of the eight bytes of word.
+	 */
+	static int fold (long word) {
+		word ^= word >>> 32;
+		word ^= word >>> 16;
+		word ^= word >>> 8;
+		return (int)word & 0xff;
+	}
+
+	@Override
+	public int indexOf (final byte[] buf, final int from, final int to, final byte value) {
+		final long pattern = repeat(value);
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			final long mask = eq((long)ARRAY_LONG.get(buf, i), pattern);
+			if (mask != 0) {
+				return i + firstByte(mask);
+			}
+		}
+		return super.indexOf(buf, i, to, value);
+	}
+
+	@Override
+	public int indexOfSentenceEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			final long mask = sentenceEnd((long)ARRAY_LONG.get(buf, i));
+			if (mask != 0) {
+				return i + firstByte(mask);
+			}
+		}
+		return super.indexOfSentenceEnd(buf, i, to);
+	}
+
+	@Override
+	public int indexOfFieldEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			final long word = (long)ARRAY_LONG.get(buf, i);
+			final long mask = eq(word, COMMA) | eq(word, STAR);
+			if (mask != 0) {
+				return i + firstByte(mask);
+			}
+		}
+		return super.indexOfFieldEnd(buf, i, to);
+	}
+
+	@Override
+	public int xor (final byte[] buf, final int from, final int to) {
+		long acc = 0;
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			acc ^= (long)ARRAY_LONG.get(buf, i);
+		}
+		return fold(acc) ^ super.xor(buf, i, to);
+	}
+
+	@Override
+	public int indexOf (final ByteBuffer buf, final int from, final int to, final byte value) {
+		final long pattern = repeat(value);
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			final long mask = eq((long)BUFFER_LONG.get(buf, i), pattern);
+			if (mask != 0) {
+				return i + firstByte(mask);
+			}
+		}
+		return super.indexOf(buf, i, to, value);
+	}
+
+	@Override
+	public int indexOfSentenceEnd (final ByteBuffer buf, final int from, final int to) {
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			final long mask = sentenceEnd((long)BUFFER_LONG.get(buf, i));
+			if (mask != 0) {
+				return i + firstByte(mask);
+			}
+		}
+		return super.indexOfSentenceEnd(buf, i, to);
+	}
+
+	@Override
+	public int xor (final ByteBuffer buf, final int from, final int to) {
+		long acc = 0;
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			acc ^= (long)BUFFER_LONG.get(buf, i);
+		}
+		return fold(acc) ^ super.xor(buf, i, to);
+	}
+
+	@Override
+	public String getName () {
+		return "swar";
+	}
+}
@@ -1,17 +1,21 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-
 /**
  * Placeholder sentence type for valid-but-unsupported NMEA sentence IDs.
  */
-@Getter
 public class UnknownSentence extends Sentence {
 
-	private final String sentenceId;
-
 	public UnknownSentence(String sentence) throws ChecksumFailException {
-		super(sentence);
-		sentenceId = sentence.substring(3, 6);
+		this(sentence, false);
+	}
+
+	UnknownSentence(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
+	/**
+	 * Empty sentence to be filled by {@link SentencePool}.
+	 */
+	UnknownSentence() {
 	}
 }
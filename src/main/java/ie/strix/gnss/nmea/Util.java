@@ -83,6 +83,44 @@ public class Util {
 		return timeInDay;
 	}
 
+	/**
+	 * Return time from midnight UTC in milliseconds.
+	 * 
+	 * @param sentence
+	 * @param timeIndex Index of the first digit of the {@code hhmmss[.sss]} time.
+	 * @return
+	 */
+	public static int parseNmeaTimestamp (final CharSequence sentence, final int timeIndex) {
+		final int hh = parsePositiveTwoDigitInt(sentence, timeIndex);
+		final int mm = parsePositiveTwoDigitInt(sentence, timeIndex + 2);
+		final int ss = parsePositiveTwoDigitInt(sentence, timeIndex + 4);
+		int timeInDay = (hh * 3600 + mm * 60 + ss) * 1000;
+
+		final int radixIndex = timeIndex + 6;
+		if (radixIndex < sentence.length() && sentence.charAt(radixIndex) == '.') {
+			int fractionMs = 0;
+			int digitCount = 0;
+			for (int i = radixIndex + 1; i < sentence.length() && digitCount < 3; i++) {
+				final char c = sentence.charAt(i);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				fractionMs = fractionMs * 10 + (c - '0');
+				digitCount++;
+			}
+
+			if (digitCount == 1) {
+				timeInDay += fractionMs * 100;
+			} else if (digitCount == 2) {
+				timeInDay += fractionMs * 10;
+			} else if (digitCount == 3) {
+				timeInDay += fractionMs;
+			}
+		}
+
+		return timeInDay;
+	}
+
 	/**
 	 * Format milliseconds since midnight as an ISO UTC time fragment.
 	 *
@@ -109,17 +147,9 @@ public class Util {
 	 */
 	public final static double parseNmeaLongitude (final char[] sentence, final int startIndex, int signIndex) {
 		final int degrees = parsePositiveThreeDigitInt(sentence, startIndex);
-		final int wholeMinutes = parsePositiveTwoDigitInt(sentence, startIndex+3);
-		final double minutesFrac = parseFractionalPart(sentence,startIndex+6, signIndex-1);
-		
-		double minutes = degrees*60.0 + wholeMinutes + minutesFrac;
-		
-		if (sentence[signIndex] == 'W') {
-			minutes *= -1.0;
-		}
-		
-		// Final result expected in degrees
-		return minutes / 60.0;
+		final double minutes = DecimalParser.parseDouble(sentence, startIndex + 3, signIndex - 1);
+		final double value = degrees + minutes / 60.0;
+		return sentence[signIndex] == 'W' ? -value : value;
 	}
 	
 	/**
@@ -133,20 +163,49 @@ public class Util {
 	 */
 	public final static double parseNmeaLatitude (final char[] sentence, final int startIndex, final int signIndex) {
 		final int degrees = parsePositiveTwoDigitInt(sentence, startIndex);
-		final int wholeMinutes = parsePositiveTwoDigitInt(sentence, startIndex+2);
-		final double minutesFrac = parseFractionalPart(sentence,startIndex+5, signIndex-1);
-		
-		double minutes = degrees*60.0 + wholeMinutes + minutesFrac;
-		
-		if (sentence[signIndex] == 'S') {
-			minutes *= -1.0;
-		}
-		
-		// Final result expected in degrees
-		return minutes / 60.0;
+		final double minutes = DecimalParser.parseDouble(sentence, startIndex + 2, signIndex - 1);
+		final double value = degrees + minutes / 60.0;
+		return sentence[signIndex] == 'S' ? -value : value;
 	}
 	
 	
+	/**
+	 * Return decimal degrees given longitude in NMEA0183 {@code dddmm.mmm} format.
+	 * 
+	 * @param sentence
+	 * @param startIndex The position in the sentence where the longitude starts.
+	 * @param signIndex The position of the hemisphere (E,W), directly after the field separator.
+	 * @return
+	 */
+	public static double parseNmeaLongitude (final CharSequence sentence, final int startIndex, final int signIndex) {
+		final int degrees = parsePositiveThreeDigitInt(sentence, startIndex);
+		final double minutes = parseDouble(sentence, startIndex + 3, signIndex - 1);
+		final double value = degrees + minutes / 60.0;
+		return signIndex < sentence.length() && sentence.charAt(signIndex) == 'W' ? -value : value;
+	}
+	
+	/**
+	 * Return decimal degrees given latitude in NMEA0183 {@code ddmm.mmm} format.
+	 * 
+	 * @param sentence
+	 * @param startIndex The position in the sentence where the latitude starts.
+	 * @param signIndex The position of the hemisphere (N,S), directly after the field separator.
+	 * @return
+	 */
+	public static double parseNmeaLatitude (final CharSequence sentence, final int startIndex, final int signIndex) {
+		final int degrees = parsePositiveTwoDigitInt(sentence, startIndex);
+		final double minutes = parseDouble(sentence, startIndex + 2, signIndex - 1);
+		final double value = degrees + minutes / 60.0;
+		return signIndex < sentence.length() && sentence.charAt(signIndex) == 'S' ? -value : value;
+	}
+	
+	/**
+	 * Parse two digit positive integer at offset.
+	 */
+	public static final int parsePositiveTwoDigitInt(CharSequence s, int offset) {
+	    return (s.charAt(offset)-'0')*10 + (s.charAt(offset+1)-'0');
+	}
+	
 	/**
 	 * Parse two digit positive integer from char[] in a way that does not create any intermediate objects.
 	 * 
@@ -158,6 +217,13 @@ public class Util {
 	    return (buf[offset]-'0')*10 + (buf[offset+1]-'0');
 	}
 	
+	/**
+	 * Parse three digit positive integer at offset.
+	 */
+	public static final int parsePositiveThreeDigitInt(CharSequence s, int offset) {
+	    return (s.charAt(offset)-'0')*100 + (s.charAt(offset+1)-'0')*10 + s.charAt(offset+2)-'0';
+	}
+	
 	/**
 	 * Parse three digit positive integer form char[] in a way that does not create any intermediate objects.
 	 * 
@@ -173,52 +239,55 @@ public class Util {
 	 * Parse variable digit positive integer form char[] in a way that does not create any intermediate objects.
 	 * 
 	 * @param buf
-	 * @param offset
+	 * @param startIndex
+	 * @param endIndex Index of the last digit (inclusive).
 	 * @return
+	 * @throws NumberFormatException if not an integer or out of int range.
 	 */
 	public static final int parseVarDigitInt(final char[] buf, final int startIndex, final int endIndex) {
-		int sum = 0;
-		for (int i = startIndex; i <= endIndex; i++) {
-			sum *= 10;
-			sum += buf[i] - '0';
-		}
-		return sum;
+		return DecimalParser.parseInt(buf, startIndex, endIndex + 1);
 	}
 	
 	/**
-	 * Parse the fractional part (mantissa) of a floating point from char[] in a way that does not create any intermediate objects.
+	 * Parse the fractional part (the digits after the decimal point) of a floating point from char[] in a way
+	 * that does not create any intermediate objects. Any number of digits is decoded correctly.
 	 * 
 	 * @param buf
-	 * @param offset
+	 * @param startIndex Index of the first digit after the decimal point.
+	 * @param endIndex Index after the last digit.
 	 * @return
 	 */
 	public static final double parseFractionalPart(final char[] buf, final int startIndex, final int endIndex) {
-		int sum = 0;
-		int div = 1;
-		for (int i = startIndex; i < endIndex; i++) {
-			div *= 10;
-			sum *= 10;
-			sum += buf[i] - '0';
-		}
-		return (double)sum / (double)div;
+		return DecimalParser.parseFraction(buf, startIndex, endIndex);
+	}
+	
+	/**
+	 * Parse a signed decimal number (eg "-12.345") from char[]. See {@link DecimalParser}.
+	 * 
+	 * @param buf
+	 * @param startIndex Index of first character.
+	 * @param endIndex Index after the last character.
+	 * @return The value or NaN if the range is empty.
+	 */
+	public static final double parseDouble(final char[] buf, final int startIndex, final int endIndex) {
+		return DecimalParser.parseDouble(buf, startIndex, endIndex);
+	}
+	
+	/**
+	 * Parse a signed decimal number (eg "-12.345") from a CharSequence range. See {@link DecimalParser}.
+	 * 
+	 * @param s
+	 * @param startIndex Index of first character.
+	 * @param endIndex Index after the last character.
+	 * @return The value or NaN if the range is empty.
+	 * @throws NumberFormatException if the range is not a decimal number
+	 */
+	public static final double parseDouble(final CharSequence s, final int startIndex, final int endIndex) {
+		return DecimalParser.parseDouble(s, startIndex, endIndex);
 	}
 	
 	public static final int parseInt(char[] buf, int offset, int len) {
-	    int result = 0;
-	    boolean negative = false;
-
-	    int i = offset;
-	    if (len > 0 && buf[i] == '-') {
-	        negative = true;
-	        i++;
-	        len--;
-	    }
-
-	    for (int end = i + len; i < end; i++) {
-	        result = result * 10 + (buf[i] - '0');
-	    }
-
-	    return negative ? -result : result;
+		return DecimalParser.parseInt(buf, offset, offset + len);
 	}
 
 	
@@ -243,6 +312,55 @@ public class Util {
 
 	
 	
+	/**
+	 * Return ISO date given a NMEA date in {@code ddmmyy} format at the given offset.
+	 * 
+	 * @param buf
+	 * @param offset
+	 * @return
+	 */
+	public static String parseNmeaDate (final char[] buf, final int offset) {
+		int year = parsePositiveTwoDigitInt(buf, offset + 4);
+		year += year < 78 ? 2000 : 1900;
+		return year + "-" + buf[offset + 2] + buf[offset + 3] + "-" + buf[offset] + buf[offset + 1];
+	}
+	
+	/**
+	 * Validates the checksum of an NMEA-0183 sentence held in char[]. The sentence must
+	 * start with '$' at offset and the two hex checksum digits must immediately follow the '*'
+	 * at asteriskIndex.
+	 * 
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param asteriskIndex Index of the '*'.
+	 * @return true if the checksum is valid, false otherwise
+	 */
+	public static boolean isChecksumValid(final char[] buf, final int offset, final int asteriskIndex) {
+		int checksum = 0;
+		for (int i = offset + 1; i < asteriskIndex; i++) {
+			checksum ^= buf[i];
+		}
+		final int hi = hexDigit(buf[asteriskIndex + 1]);
+		final int lo = hexDigit(buf[asteriskIndex + 2]);
+		return hi >= 0 && lo >= 0 && ((hi << 4) | lo) == checksum;
+	}
+	
+	/**
+	 * Return value of a hex digit (either case) or -1 if not a hex digit.
+	 */
+	static int hexDigit (final int c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		return -1;
+	}
+	
 	/**
 	 * Validates the checksum of an NMEA-0183 sentence.
 	 *
@@ -250,27 +368,70 @@ public class Util {
 	 *                 "$GPGGA,123456.78,4916.45,N,12311.12,W,1,08,0.9,545.4,M,46.9,M,,*47"
 	 * @return true if the checksum is valid, false otherwise
 	 */
-	public static boolean isChecksumValid(String sentence) {
-		if (sentence == null || !sentence.startsWith("$") || !sentence.contains("*")) {
+	public static boolean isChecksumValid(CharSequence sentence) {
+		if (sentence == null || sentence.length() < 4 || sentence.charAt(0) != '$') {
+			return false;
+		}
+		int asteriskIndex = -1;
+		for (int i = 0; i < sentence.length(); i++) {
+			if (sentence.charAt(i) == '*') {
+				asteriskIndex = i;
+				break;
+			}
+		}
+		if (asteriskIndex < 0) {
 			return false;
 		}
-		// Extract the data and checksum
-		int asteriskIndex = sentence.indexOf('*');
-		String data = sentence.substring(1, asteriskIndex); // Exclude the $
-		String checksumStr = sentence.substring(asteriskIndex + 1).trim();
 
-		// Calculate the checksum
+		// Calculate the checksum over everything between '$' and '*'
 		int checksum = 0;
-		for (char c : data.toCharArray()) {
-			checksum ^= c;
+		for (int i = 1; i < asteriskIndex; i++) {
+			checksum ^= sentence.charAt(i);
 		}
 
-		// Convert to two-digit hex
-		String expectedChecksum = String.format("%02X", checksum);
-		return expectedChecksum.equalsIgnoreCase(checksumStr);
+		// Expecting exactly two hex digits after '*', ignoring trailing whitespace
+		int end = sentence.length();
+		while (end > asteriskIndex + 1 && sentence.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (end - asteriskIndex != 3) {
+			return false;
+		}
+		final int hi = hexDigit(sentence.charAt(asteriskIndex + 1));
+		final int lo = hexDigit(sentence.charAt(asteriskIndex + 2));
+		return hi >= 0 && lo >= 0 && ((hi << 4) | lo) == checksum;
+	}
 
+	/**
+	 * Validates the checksum of an NMEA-0183 sentence held in a byte[] (ASCII).
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence. Trailing whitespace (eg CR LF) is ignored.
+	 * @return true if the checksum is valid, false otherwise
+	 */
+	public static boolean isChecksumValid(final byte[] buf, final int offset, final int length) {
+		if (length < 4 || buf[offset] != '$') {
+			return false;
+		}
+		int end = offset + length;
+		while (end > offset && buf[end - 1] <= ' ' && buf[end - 1] >= 0) {
+			end--;
+		}
+		final int asteriskIndex = end - 3;
+		if (asteriskIndex <= offset || buf[asteriskIndex] != '*') {
+			return false;
+		}
+		final ByteScanner scanner = ByteScanner.getDefault();
+		if (scanner.indexOf(buf, offset + 1, asteriskIndex, (byte)'*') < asteriskIndex) {
+			return false;
+		}
+		final int checksum = scanner.xor(buf, offset + 1, asteriskIndex);
+		final int hi = hexDigit(buf[asteriskIndex + 1]);
+		final int lo = hexDigit(buf[asteriskIndex + 2]);
+		return hi >= 0 && lo >= 0 && ((hi << 4) | lo) == checksum;
 	}
-	
+
 	public static String getTalkerId (String sentence) {
 		if ( ! sentence.startsWith("$")) {
 			throw new IllegalArgumentException("NMEA-0183 stentences start with '$'");
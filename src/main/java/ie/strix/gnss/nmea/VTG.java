@@ -1,7 +1,5 @@
 package ie.strix.gnss.nmea;
 
-import lombok.Getter;
-
 /**
  * Parser for NMEA {@code VTG} (Course Over Ground and Ground Speed) sentences.
  * <p>
@@ -27,57 +25,117 @@ import lombok.Getter;
  * <li>{@code *23} - checksum.</li>
  * </ol>
  */
-@Getter
 public class VTG extends Sentence {
 
+	private static final int COURSE_TRUE = 1;
+	private static final int COURSE_MAGNETIC = 3;
+	private static final int SPEED_KNOTS = 5;
+	private static final int SPEED_KMH = 7;
+	private static final int MODE = 9;
+
+	public VTG(String sentence) throws ChecksumFailException {
+		super(sentence);
+	}
+
+	VTG(String sentence, boolean checksumVerified) throws ChecksumFailException {
+		super(sentence, checksumVerified);
+	}
+
 	/**
-	 * Track made good relative to true north, in degrees.
+	 * Empty VTG to be filled by {@link #parseInto(CharSequence, VTG)}.
 	 */
-	private Double courseTrue;
+	public VTG() {
+	}
 
 	/**
-	 * Track made good relative to magnetic north, in degrees.
+	 * Parse a sentence into an existing VTG, replacing its content, so that one object can be
+	 * reused for every VTG in a stream. Nothing is allocated if sentence is a String.
+	 *
+	 * @param sentence
+	 * @param target The VTG to fill.
+	 * @return target
+	 * @throws ChecksumFailException
+	 * @throws IllegalArgumentException if sentence is not a VTG sentence.
 	 */
-	private Double courseMagnetic;
+	public static VTG parseInto (CharSequence sentence, VTG target) throws ChecksumFailException {
+		return parseInto(sentence, target, "VTG");
+	}
 
 	/**
-	 * Speed over ground in knots.
+	 * As {@link #parseInto(CharSequence, VTG)} for a sentence held in a byte[]. The bytes are
+	 * copied to a buffer owned by target.
+	 *
+	 * @param buf
+	 * @param offset Index of the '$'.
+	 * @param length Length of the sentence.
+	 * @param target The VTG to fill.
+	 * @return target
+	 * @throws ChecksumFailException
 	 */
-	private Double speedKnots;
+	public static VTG parseInto (byte[] buf, int offset, int length, VTG target) throws ChecksumFailException {
+		return parseInto(buf, offset, length, target, "VTG");
+	}
 
 	/**
-	 * Speed over ground in kilometers per hour.
+	 * @return Track made good relative to true north, in degrees.
 	 */
-	private Double speedKmh;
+	public Double getCourseTrue() {
+		return getDoubleField(COURSE_TRUE);
+	}
 
 	/**
-	 * Optional NMEA mode indicator (for example {@code A}, {@code D}, {@code N}).
+	 * @return Track made good relative to true north, in degrees, or NaN if empty.
 	 */
-	private String mode;
+	public double getCourseTrueDeg() {
+		return getDoubleValue(COURSE_TRUE);
+	}
 
-	public VTG(String sentence) throws ChecksumFailException {
-		super(sentence);
+	/**
+	 * @return Track made good relative to magnetic north, in degrees.
+	 */
+	public Double getCourseMagnetic() {
+		return getDoubleField(COURSE_MAGNETIC);
 	}
 
-	@Override
-	protected void parse() {
-		courseTrue = parseOptionalDouble(getPart(1));
-		courseMagnetic = parseOptionalDouble(getPart(3));
-		speedKnots = parseOptionalDouble(getPart(5));
-		speedKmh = parseOptionalDouble(getPart(7));
+	/**
+	 * @return Track made good relative to magnetic north, in degrees, or NaN if empty.
+	 */
+	public double getCourseMagneticDeg() {
+		return getDoubleValue(COURSE_MAGNETIC);
+	}
 
-		String modePart = getPart(9);
-		mode = modePart.length() > 0 ? modePart : null;
+	/**
+	 * @return Speed over ground in knots.
+	 */
+	public Double getSpeedKnots() {
+		return getDoubleField(SPEED_KNOTS);
 	}
 
-	private String getPart(int index) {
-		return index < parts.length ? parts[index] : "";
+	/**
+	 * @return Speed over ground in knots, or NaN if empty.
+	 */
+	public double getSpeedKnotsValue() {
+		return getDoubleValue(SPEED_KNOTS);
 	}
 
-	private Double parseOptionalDouble(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		}
-		return Double.valueOf(value);
+	/**
+	 * @return Speed over ground in kilometers per hour.
+	 */
+	public Double getSpeedKmh() {
+		return getDoubleField(SPEED_KMH);
+	}
+
+	/**
+	 * @return Speed over ground in kilometers per hour, or NaN if empty.
+	 */
+	public double getSpeedKmhValue() {
+		return getDoubleValue(SPEED_KMH);
+	}
+
+	/**
+	 * @return Optional NMEA mode indicator (for example {@code A}, {@code D}, {@code N}).
+	 */
+	public String getMode() {
+		return getOptionalField(MODE);
 	}
 }
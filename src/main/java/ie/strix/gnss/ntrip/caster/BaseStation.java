@@ -12,6 +12,13 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 
 import ie.strix.gnss.ECEF;
+import ie.strix.gnss.nmea.Constellation;
+import ie.strix.gnss.rtcm.BitReader;
+import ie.strix.gnss.rtcm.EphemerisDecoder;
+import ie.strix.gnss.rtcm.MsmDecoder;
+import ie.strix.gnss.rtcm.MsmEpoch;
+import ie.strix.gnss.rtcm.Rtcm3Framer;
+import ie.strix.gnss.rtcm.Rtcm3Parser;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,6 +32,9 @@ public class BaseStation {
 	
 	/** Radius of the earh (approx) in m */
 	private final double R = 6378000;
+
+	/** Length of the antenna reference point in a 1005 or 1006, after the station ID */
+	static final int ANTENNA_POSITION_BITS = 6 + 4 + 38 + 2 + 38 + 2 + 38;
 	
 	/**
 	 * 
@@ -45,6 +55,20 @@ public class BaseStation {
 	private long bytesReceived = 0;
 	private long bytesBroadcast = 0;
 
+	/** Splits the stream into frames, carrying partial frames across reads */
+	private transient final Rtcm3Framer framer = new Rtcm3Framer(this::onFrame);
+	/** Frames completed by the current read, to send to the rovers */
+	private transient final byte[] out = new byte[4096 + Rtcm3Framer.MAX_FRAME_LENGTH];
+	private transient int outLength;
+	/** Header of the current frame, read in place */
+	private transient final Rtcm3Parser.FrameView view = new Rtcm3Parser.FrameView();
+	private transient final BitReader bitReader = new BitReader();
+	/** Assembles MSM observations into epochs to monitor their quality */
+	private transient final MsmDecoder msmDecoder = new MsmDecoder(this::onEpoch);
+	private volatile ObservationStatusDTO observationStatus;
+	/** 1005 and 1006 frames too short for the antenna position */
+	private volatile long malformedCount;
+
 	public BaseStation(NtripCaster ntripCaster, String mountpoint, Socket socket) throws IOException {
 		this.ntripCaster = ntripCaster;
 		this.mountpoint = mountpoint;
@@ -61,6 +85,8 @@ public class BaseStation {
 
 	/**
 	 * Continue to read from base station forwarding RTCM messages on to connected rovers.
+	 * Only complete frames with a valid CRC are forwarded, all of those completed by one read
+	 * in one write to each rover. The raw stream is logged as received.
 	 */
 	private void readLoop() {
 		log.info("readLoop()");
@@ -71,61 +97,23 @@ public class BaseStation {
 				
 				//log.info("read {} bytes from base station {}", len, mountpoint);
 				bytesReceived += len;
-				// We want to know where the base station is located. 
-				// Parse RTCM messages looking for type 1005  which holds 
-				// antenna location.
-
-				// scan buffer for RTCM messages
-				int pos = 0;
-				while (pos + 3 < len) {
-					if ((buf[pos] & 0xFF) == 0xD3) {
-						int length = ((buf[pos + 1] & 0x03) << 8) | (buf[pos + 2] & 0xFF);
-						if (pos + 3 + length + 3 <= len) { // include 3 parity bytes
-							// parse message
-							int payloadOffset = pos + 3;
-							// message type: first 12 bits
-							int msgType = ((buf[payloadOffset] & 0xFF) << 4)
-									| ((buf[payloadOffset + 1] & 0xF0) >> 4);
-							log.info("RTCM message on mountpoint {}: type={}, length={}", mountpoint, msgType, length);
-							if (msgType == 1005 || msgType == 1006) {
-								// parse antenna position from 1005
-								BitReader br = new BitReader(buf, payloadOffset * 8 + 12);
-								int stationID = (int) br.readBits(12);
-								long x = br.readBits(38);
-								long y = br.readBits(38);
-								long z = br.readBits(38);
-								double xm = x * 0.0001;
-								double ym = y * 0.0001;
-								double zm = z * 0.0001;
-								
-								// Approx lat/lng
-								// TODO this is not converting correctly
-								//double lng = Math.atan2(yM, xM) * 180 / Math.PI;
-								//double lat = Math.asin(zM/R) * 180 / Math.PI;
-								double[] latLngAlt = ECEF.ecefToLatLngAlt(xm,ym,zm);
-								log.info("{} stationID={}, ECEF X={}m, Y={}m, Z={}m lat={}, lng={}", mountpoint, stationID, xm, ym, zm, latLngAlt[0], latLngAlt[1]);
-								
-
-								
-							}
-							pos += 3 + length + 3;
-							continue;
-						} else {
-							break; // wait for more data
-						}
-					}
-					pos++;
-				}
+
 				// log raw stream
 				logOut.write(buf, 0, len);
 				logOut.flush();
+
+				outLength = 0;
+				framer.accept(buf, 0, len);
+				if (outLength == 0) {
+					continue;
+				}
 				
 				// Send message to all connected rovers
 				for (RoverConnection r : rovers) {
-					log.info("    sending to {}  bytesReceived={}, bytesBroadcast={}", r.toString(), bytesReceived, bytesBroadcast);
+					log.debug("    sending to {}  bytesReceived={}, bytesBroadcast={}", r.toString(), bytesReceived, bytesBroadcast);
 					try {
-						r.send(buf, len);
-						bytesBroadcast += len;
+						r.send(out, outLength);
+						bytesBroadcast += outLength;
 					} catch (IOException e) {
 						log.error("error sending to rover, removing rover from list",e);
 						rovers.remove(r);
@@ -140,6 +128,95 @@ public class BaseStation {
 		}
 	}
 
+	/**
+	 * Handle one RTCM frame: queue it for the rovers and note the antenna position from
+	 * 1005/1006.
+	 */
+	private void onFrame(byte[] frame, int offset, int length) {
+		System.arraycopy(frame, offset, out, outLength, length);
+		outLength += length;
+
+		int msgType = view.wrap(frame, offset, length).getMessageType();
+		log.debug("RTCM message on mountpoint {}: type={}, length={}", mountpoint, msgType, length - 6);
+		// We want to know where the base station is located. 
+		// Parse RTCM messages looking for type 1005 or 1006 which hold 
+		// antenna location.
+		if (MsmDecoder.isSupported(msgType)) {
+			msmDecoder.accept(view);
+		} else if (EphemerisDecoder.isSupported(msgType)) {
+			ntripCaster.ephemerides.accept(view);
+		} else if (msgType == 1005 || msgType == 1006) {
+			if (bitReader.reset(view).getRemainingBits() < 12 + 12 + ANTENNA_POSITION_BITS) {
+				malformedCount++;
+				log.warn("{} {} too short for the antenna position: {} bytes", mountpoint, msgType, length - 6);
+				return;
+			}
+			bitReader.skip(12);
+			int stationID = (int) bitReader.readUnsigned(12);
+			double[] xyz = readAntennaPosition(bitReader);
+			double[] latLngAlt = ECEF.ecefToLatLngAlt(xyz[0], xyz[1], xyz[2]);
+			log.info("{} stationID={}, ECEF X={}m, Y={}m, Z={}m lat={}, lng={}", mountpoint, stationID, xyz[0], xyz[1], xyz[2], latLngAlt[0], latLngAlt[1]);
+		}
+	}
+
+	/**
+	 * Summarise each complete epoch of observations.
+	 */
+	private void onEpoch(MsmEpoch epoch) {
+		Constellation[] constellations = { Constellation.GPS, Constellation.GLONASS, Constellation.GALILEO, Constellation.BEIDOU };
+		int[] satellites = new int[constellations.length];
+		double[] meanCnr = new double[constellations.length];
+		for (int i = 0; i < constellations.length; i++) {
+			satellites[i] = epoch.getSatelliteCount(constellations[i]);
+			double cnr = epoch.getMeanCnr(constellations[i]);
+			// Gson rejects NaN
+			meanCnr[i] = Double.isNaN(cnr) ? 0 : cnr;
+		}
+		observationStatus = new ObservationStatusDTO(System.currentTimeMillis(), epoch.getTimeOfDay(), epoch.getSize(), satellites, meanCnr);
+		log.debug("{} epoch {}: {} observations, satellites G/R/E/C={}", mountpoint, epoch.getTimeOfDay(), epoch.getSize(), satellites);
+	}
+
+	/**
+	 * Read the antenna reference point of a 1005 or 1006, from after the station ID. The
+	 * caller checks that {@link #ANTENNA_POSITION_BITS} remain.
+	 *
+	 * @return ECEF X, Y, Z in m.
+	 */
+	static double[] readAntennaPosition(BitReader br) {
+		// ITRF realization year (DF021), GPS, GLONASS, Galileo and reference station indicators
+		br.skip(6 + 4);
+		double x = br.readScaledSigned(38, 0.0001);
+		// Single receiver oscillator indicator, reserved
+		br.skip(2);
+		double y = br.readScaledSigned(38, 0.0001);
+		// Quarter cycle indicator
+		br.skip(2);
+		double z = br.readScaledSigned(38, 0.0001);
+		return new double[] { x, y, z };
+	}
+
+	/**
+	 * @return Frames dropped because of a bad CRC.
+	 */
+	public long getCrcFailCount() {
+		return framer.getCrcFailCount();
+	}
+
+	/**
+	 * @return 1005 and 1006 frames with a valid CRC but too short for the antenna position.
+	 * They are still forwarded to the rovers.
+	 */
+	public long getMalformedCount() {
+		return malformedCount;
+	}
+
+	/**
+	 * @return Summary of the last complete epoch of MSM observations, or null if none yet.
+	 */
+	public ObservationStatusDTO getObservationStatus() {
+		return observationStatus;
+	}
+
 	public BaseStationStatusDTO getStatus() {
 		if (statusUpdates.size() == 0) {
 			return null;
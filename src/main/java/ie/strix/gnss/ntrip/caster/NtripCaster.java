@@ -8,6 +8,8 @@ import java.util.concurrent.*;
 
 import com.sun.net.httpserver.*;
 
+import ie.strix.gnss.rtcm.EphemerisCache;
+
 /**
  * Simple NTRIP caster.
  * 
@@ -23,28 +25,63 @@ public class NtripCaster {
 	ServerSocket serverSocket;
 	final ExecutorService executor = Executors.newCachedThreadPool();
 	final Map<String, BaseStation> stations = new ConcurrentHashMap<>();
+	/** Ephemerides from all base stations, each decoded once */
+	final EphemerisCache ephemerides = new EphemerisCache();
 	private HttpServer apiServer;
 
 	public NtripCaster() throws IOException {
+		this(NTRIP_PORT, API_PORT);
+	}
+
+	/**
+	 * @param ntripPort Port for base stations and rovers, 0 for any free port (see {@link #getNtripPort()}).
+	 * @param apiPort Port for the HTTP API, 0 for any free port.
+	 * @throws IOException
+	 */
+	public NtripCaster(int ntripPort, int apiPort) throws IOException {
 		
 		// NTRIP protocol
-		serverSocket = new ServerSocket(NTRIP_PORT);
+		serverSocket = new ServerSocket(ntripPort);
 		
 		// HTTP API
-		apiServer = HttpServer.create(new InetSocketAddress(API_PORT), 0);
+		apiServer = HttpServer.create(new InetSocketAddress(apiPort), 0);
 		apiServer.createContext("/stations", new GetStationsHandler(this));
 		apiServer.createContext("/status", new PostStatusHandler(this));
 		apiServer.setExecutor(Executors.newSingleThreadExecutor());
 	}
 
 	public void start() {
-		log.info("Starting NTRIP caster on port {}", NTRIP_PORT);
+		log.info("Starting NTRIP caster on port {}", getNtripPort());
 		executor.submit(this::acceptLoop);
 
-		log.info("Starting API server started on port {}", API_PORT);
+		log.info("Starting API server started on port {}", apiServer.getAddress().getPort());
 		apiServer.start();
 	}
 
+	/**
+	 * @return The port base stations and rovers connect to.
+	 */
+	public int getNtripPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return Broadcast ephemerides received from any base station.
+	 */
+	public EphemerisCache getEphemerisCache() {
+		return ephemerides;
+	}
+
+	/**
+	 * Stop accepting connections and disconnect all base stations and rovers.
+	 */
+	public void stop() throws IOException {
+		serverSocket.close();
+		apiServer.stop(0);
+		stations.values().forEach(BaseStation::stop);
+		executor.shutdownNow();
+	}
+
 	private void acceptLoop() {
 		while (!serverSocket.isClosed()) {
 			try {
@@ -201,9 +238,7 @@ public class NtripCaster {
 		NtripCaster caster = new NtripCaster();
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
 			try {
-				caster.serverSocket.close();
-				caster.apiServer.stop(0);
-				caster.executor.shutdownNow();
+				caster.stop();
 				log.info("Shutdown complete");
 			} catch (IOException e) {
 				log.error("Error during shutdown", e);
@@ -0,0 +1,18 @@
+package ie.strix.gnss.ntrip.caster;
+
+import lombok.Value;
+
+/**
+ * Summary of one epoch of base station observations decoded from MSM messages. Arrays are in
+ * GPS, GLONASS, Galileo, BeiDou order.
+ */
+@Value
+public class ObservationStatusDTO {
+	private long timestamp;
+	/** GPS time of day of the epoch in ms */
+	private long epochTimeOfDay;
+	private int observations;
+	private int[] satellites;
+	/** Mean C/N0 in dBHz, 0 for a constellation with no observations */
+	private double[] meanCnr;
+}
@@ -24,10 +24,11 @@ public class RoverConnection implements Runnable {
 	private long bytesReceived = 0;
 	private long bytesSent = 0;
 	
-	public RoverConnection (String mountpoint, Socket roverSocket) {
+	public RoverConnection (String mountpoint, Socket roverSocket) throws IOException {
 		this.mountpoint = mountpoint;
 		this.roverSocket = roverSocket;
-
+		// Set here rather than in run() as the base station may send before run() starts
+		this.out = roverSocket.getOutputStream();
 	}
 	
 	@Override
@@ -47,7 +48,6 @@ public class RoverConnection implements Runnable {
 		this.open = true;
 		
 		this.in = roverSocket.getInputStream();
-		this.out = roverSocket.getOutputStream();
 		
 		// We may receive GxGGA sententences from rover. Ignore them.
 		BufferedReader br = new BufferedReader( new InputStreamReader(in));
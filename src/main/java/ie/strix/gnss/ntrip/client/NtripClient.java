@@ -7,12 +7,14 @@ import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.Flow;
 import java.util.concurrent.SubmissionPublisher;
 
 import ie.strix.gnss.ntrip.NtripUri;
+import ie.strix.gnss.rtcm.Rtcm3Framer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -42,6 +44,9 @@ public class NtripClient {
 	
 	private final SubmissionPublisher<byte[]> publisher = new SubmissionPublisher<>();
 	
+	/** Publishes each complete, CRC checked frame */
+	private final Rtcm3Framer framer = new Rtcm3Framer(this::publishFrame);
+	
 	public NtripClient (NtripUri ntripUri) {
 		this.host = ntripUri.getHost();
 		this.port = ntripUri.getPort();
@@ -142,19 +147,13 @@ public class NtripClient {
 				break;
 			}
 			
-			// There is no guarantee that the RTCM packet will correspond to one read() call
-			byte[] packet = new byte[nbytes];
-			System.arraycopy(buf, 0, packet, 0, nbytes);
-			//int checksum = checksum(packet);
-			//log.info("read packet {} bytes checksum={}",nbytes,String.format("%02X", checksum));
-			log.info("read packet {} bytes",nbytes);
-
-			log.debug(byteArrayToHex(packet));
-			
-			int s = publisher.submit(packet);
-			if (s > 10) {
-				log.warn("message build up s={}",s);
+			// There is no guarantee that the RTCM packet will correspond to one read() call:
+			// the framer publishes each frame once it is complete
+			log.debug("read packet {} bytes",nbytes);
+			if (log.isTraceEnabled()) {
+				log.trace(byteArrayToHex(buf, 0, nbytes));
 			}
+			framer.accept(buf, 0, nbytes);
 			
 			for (NtripClientListener listener : listeners) {
 				listener.onRtcmReceived(bytesReceived);
@@ -168,6 +167,13 @@ public class NtripClient {
 		}
 	}
 	
+	private void publishFrame (byte[] buf, int offset, int length) {
+		int s = publisher.submit(Arrays.copyOfRange(buf, offset, offset + length));
+		if (s > 10) {
+			log.warn("message build up s={}",s);
+		}
+	}
+	
 	public void sendGGA (String gga) throws IOException {
 		long now = System.currentTimeMillis();
 		
@@ -204,7 +210,8 @@ public class NtripClient {
 	
 	
 	/**
-	 * Allows callers to subscribe to RTCM message stream. 
+	 * Allows callers to subscribe to RTCM message stream. Each item is one complete RTCM3
+	 * frame with a valid CRC, from the preamble to the CRC inclusive.
 	 */
 	public void subscribe(Flow.Subscriber<? super byte[]> subscriber) {
 		publisher.subscribe(subscriber);
@@ -235,7 +242,4 @@ public class NtripClient {
 		}
 		return s.toString();
 	}
-	private static String byteArrayToHex (byte[] buf) {
-		return byteArrayToHex(buf,0,buf.length);
-	}
 }
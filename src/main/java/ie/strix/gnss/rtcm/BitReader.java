@@ -0,0 +1,221 @@
+package ie.strix.gnss.rtcm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Read the big endian bit fields of an RTCM3 payload, most significant bit first.
+ *
+ * The next bits are held left aligned in a long window, refilled eight bytes at a time with a
+ * single big endian load while there are eight bytes left, so a field of up to 56 bits costs a
+ * compare and a few shifts. Fields up to 64 bits are supported.
+ *
+ * Usage, for the start of a 1005:
+ * <pre>
+ * BitReader br = new BitReader(payload, 0, payload.length);
+ * int messageType = (int)br.readUnsigned(12);
+ * int stationId = (int)br.readUnsigned(12);
+ * br.skip(6 + 4);
+ * double x = br.readScaledSigned(38, 0.0001);
+ * </pre>
+ *
+ * One reader can be reused for any number of payloads with the reset methods. Not thread safe.
+ */
+public final class BitReader {
+
+	private static final VarHandle ARRAY_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+	private static final VarHandle BUFFER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private byte[] array;
+	private ByteBuffer buffer;
+	/** Index of the first byte */
+	private int start;
+	/** Index after the last byte */
+	private int end;
+	/** Index of the next byte to load into the window */
+	private int next;
+
+	/** Next bits, left aligned. Bits after windowBits are zero or the bits that follow. */
+	private long window;
+	private int windowBits;
+
+	public BitReader() {
+	}
+
+	public BitReader(byte[] data, int offset, int length) {
+		reset(data, offset, length);
+	}
+
+	/**
+	 * Read part of an array, bit 0 being the top bit of data[offset].
+	 */
+	public BitReader reset(byte[] data, int offset, int length) {
+		this.array = data;
+		this.buffer = null;
+		return reset(offset, length);
+	}
+
+	/**
+	 * Read part of a buffer using absolute indices, so the buffer position is not changed.
+	 * Direct buffers are read in place.
+	 */
+	public BitReader reset(ByteBuffer data, int offset, int length) {
+		this.array = null;
+		this.buffer = data;
+		return reset(offset, length);
+	}
+
+	/**
+	 * Read the payload of a frame, in place.
+	 */
+	public BitReader reset(Rtcm3Parser.FrameView frame) {
+		if (frame.getArray() != null) {
+			return reset(frame.getArray(), frame.getPayloadOffset(), frame.getPayloadLength());
+		}
+		return reset(frame.getBuffer(), frame.getPayloadOffset(), frame.getPayloadLength());
+	}
+
+	private BitReader reset(int offset, int length) {
+		this.start = offset;
+		this.end = offset + length;
+		this.next = offset;
+		this.window = 0;
+		this.windowBits = 0;
+		return this;
+	}
+
+	/**
+	 * @return Number of bits read or skipped.
+	 */
+	public int getBitPosition() {
+		return (next - start) * 8 - windowBits;
+	}
+
+	/**
+	 * Move to a bit from the start of the data.
+	 */
+	public void setBitPosition(int bitPosition) {
+		if (bitPosition < 0 || bitPosition > (end - start) * 8) {
+			throw new IndexOutOfBoundsException("bit " + bitPosition + " of " + (end - start) * 8);
+		}
+		next = start + (bitPosition >>> 3);
+		window = 0;
+		windowBits = 0;
+		readUnsigned(bitPosition & 7);
+	}
+
+	/**
+	 * @return Number of bits left.
+	 */
+	public int getRemainingBits() {
+		return (end - next) * 8 + windowBits;
+	}
+
+	public void skip(int n) {
+		if (n <= windowBits) {
+			consume(n);
+		} else {
+			setBitPosition(getBitPosition() + n);
+		}
+	}
+
+	/**
+	 * @param n 0 to 64.
+	 */
+	public long readUnsigned(int n) {
+		if (n > 56) {
+			final long high = readUnsigned(n - 32);
+			return (high << 32) | readUnsigned(32);
+		}
+		if (windowBits < n) {
+			refill();
+			if (windowBits < n) {
+				throw new IndexOutOfBoundsException("bit " + getBitPosition() + " + " + n + " of " + (end - start) * 8);
+			}
+		}
+		if (n == 0) {
+			return 0;
+		}
+		final long value = window >>> (64 - n);
+		consume(n);
+		return value;
+	}
+
+	/**
+	 * Read a two's complement field (RTCM int).
+	 *
+	 * @param n 1 to 64.
+	 */
+	public long readSigned(int n) {
+		return readUnsigned(n) << (64 - n) >> (64 - n);
+	}
+
+	/**
+	 * Read a sign-magnitude field (RTCM intS): a sign bit, 1 for negative, then n - 1 bits of
+	 * magnitude.
+	 *
+	 * @param n 2 to 64.
+	 */
+	public long readSignMagnitude(int n) {
+		final long value = readUnsigned(n);
+		final long magnitude = value & (-1L >>> (65 - n));
+		return (value >>> (n - 1)) != 0 ? -magnitude : magnitude;
+	}
+
+	public boolean readBoolean() {
+		return readUnsigned(1) != 0;
+	}
+
+	/**
+	 * @return The unsigned field times scale, eg 2^-31 for a DF with that resolution.
+	 */
+	public double readScaledUnsigned(int n, double scale) {
+		return readUnsigned(n) * scale;
+	}
+
+	/**
+	 * @return The two's complement field times scale.
+	 */
+	public double readScaledSigned(int n, double scale) {
+		return readSigned(n) * scale;
+	}
+
+	/**
+	 * @return The sign-magnitude field times scale.
+	 */
+	public double readScaledSignMagnitude(int n, double scale) {
+		return readSignMagnitude(n) * scale;
+	}
+
+	/**
+	 * @param n Less than 64.
+	 */
+	private void consume(int n) {
+		window <<= n;
+		windowBits -= n;
+	}
+
+	/**
+	 * Top up the window to at least 57 bits, or to the end of the data.
+	 */
+	private void refill() {
+		if (end - next >= 8) {
+			final long word = array != null ? (long)ARRAY_LONG.get(array, next) : (long)BUFFER_LONG.get(buffer, next);
+			// Only whole bytes are counted. The bits of a partial byte that land at the end of
+			// the window are the ones that follow, so loading that byte again ORs in the same bits.
+			window |= word >>> windowBits;
+			final int bytes = (64 - windowBits) >>> 3;
+			next += bytes;
+			windowBits += bytes * 8;
+		} else {
+			while (windowBits <= 56 && next < end) {
+				final long b = (array != null ? array[next] : buffer.get(next)) & 0xFF;
+				window |= b << (56 - windowBits);
+				windowBits += 8;
+				next++;
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package ie.strix.gnss.rtcm;
+
+import ie.strix.gnss.nmea.Constellation;
+
+/**
+ * Broadcast orbit of one satellite, as decoded by {@link EphemerisDecoder}.
+ */
+public interface Ephemeris {
+
+	/** GPS time zero, 1980-01-06T00:00:00Z, ms since the Unix epoch */
+	long GPS_EPOCH = 315_964_800_000L;
+	/** GPS - UTC */
+	long LEAP_SECONDS_MS = 18_000;
+
+	Constellation getConstellation ();
+
+	/**
+	 * @return PRN, or slot number for GLONASS.
+	 */
+	int getPrn ();
+
+	/**
+	 * @return Issue of data: IODE for GPS, IODnav for Galileo, AODE for BeiDou and tb for
+	 *         GLONASS. With the constellation and PRN it identifies the ephemeris.
+	 */
+	int getIode ();
+
+	/**
+	 * Compute the satellite position.
+	 *
+	 * @param time ms since the Unix epoch (UTC).
+	 * @param xyz Set to ECEF X, Y, Z in m.
+	 */
+	void position (long time, double[] xyz);
+}
@@ -0,0 +1,194 @@
+package ie.strix.gnss.rtcm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.nmea.Constellation;
+
+/**
+ * Broadcast ephemerides keyed by constellation, PRN and issue of data, shared by any number of
+ * streams. Every base station sends the same ephemerides, so a frame whose key is already in
+ * the cache is recognised from a few header bits and not decoded again; it only marks the
+ * entry as still broadcast. Entries not broadcast for {@link #getMaxAge()} ms are evicted.
+ *
+ * Thread safe: {@link #accept(Rtcm3Parser.FrameView)} may be called from every stream's thread.
+ */
+public class EphemerisCache {
+
+	/** Longer than the fit interval of any of the supported systems */
+	public static final long DEFAULT_MAX_AGE = 4 * 3_600_000L;
+
+	private static final long EVICTION_INTERVAL = 60_000;
+
+	private static final class Entry {
+		final Ephemeris ephemeris;
+		volatile long receivedAt;
+
+		Entry (Ephemeris ephemeris, long receivedAt) {
+			this.ephemeris = ephemeris;
+			this.receivedAt = receivedAt;
+		}
+	}
+
+	private final long maxAge;
+	private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+	/** The last ephemeris received for each satellite */
+	private final Map<Integer, Entry> latest = new ConcurrentHashMap<>();
+	private volatile long lastEviction = Long.MIN_VALUE;
+
+	private final LongAdder decodeCount = new LongAdder();
+	private final LongAdder duplicateCount = new LongAdder();
+
+	public EphemerisCache () {
+		this(DEFAULT_MAX_AGE);
+	}
+
+	/**
+	 * @param maxAge ms after an ephemeris was last received that it is evicted.
+	 */
+	public EphemerisCache (long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @return The cache key: constellation, PRN and issue of data packed in a long.
+	 */
+	public static long key (Constellation c, int prn, int iode) {
+		return ((long)c.ordinal() << 32) | ((long)prn << 16) | iode;
+	}
+
+	private static int satellite (Constellation c, int prn) {
+		return c.ordinal() << 8 | prn;
+	}
+
+	/**
+	 * Add the ephemeris in a frame, received now.
+	 *
+	 * @return True if the frame was an ephemeris not already cached, and was decoded.
+	 */
+	public boolean accept (Rtcm3Parser.FrameView frame) {
+		return accept(frame, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param receivedAt ms since epoch.
+	 * @see #accept(Rtcm3Parser.FrameView)
+	 */
+	public boolean accept (Rtcm3Parser.FrameView frame, long receivedAt) {
+		if (!EphemerisDecoder.isSupported(frame.getMessageType())) {
+			return false;
+		}
+		final BitReader br = new BitReader().reset(frame);
+		final long key = EphemerisDecoder.key(br);
+		if (key < 0) {
+			return false;
+		}
+		evictIfDue(receivedAt);
+
+		final Entry existing = entries.get(key);
+		if (existing != null) {
+			existing.receivedAt = receivedAt;
+			duplicateCount.increment();
+			return false;
+		}
+		br.setBitPosition(0);
+		final Ephemeris ephemeris = EphemerisDecoder.decode(br);
+		final Entry entry = new Entry(ephemeris, receivedAt);
+		if (entries.putIfAbsent(key, entry) != null) {
+			// Decoded at the same time from another stream
+			duplicateCount.increment();
+			return false;
+		}
+		decodeCount.increment();
+		latest.put(satellite(ephemeris.getConstellation(), ephemeris.getPrn()), entry);
+		return true;
+	}
+
+	/**
+	 * @return The ephemeris with this issue of data, or null.
+	 */
+	public Ephemeris get (Constellation c, int prn, int iode) {
+		final Entry entry = entries.get(key(c, prn, iode));
+		return entry == null ? null : entry.ephemeris;
+	}
+
+	/**
+	 * @return The last ephemeris received for a satellite, or null.
+	 */
+	public Ephemeris getLatest (Constellation c, int prn) {
+		final Entry entry = latest.get(satellite(c, prn));
+		return entry == null ? null : entry.ephemeris;
+	}
+
+	/**
+	 * Compute a satellite position from its latest ephemeris.
+	 *
+	 * @param time ms since epoch.
+	 * @param xyz Set to ECEF X, Y, Z in m.
+	 * @return False if there is no ephemeris for the satellite.
+	 */
+	public boolean position (Constellation c, int prn, long time, double[] xyz) {
+		final Ephemeris ephemeris = getLatest(c, prn);
+		if (ephemeris == null) {
+			return false;
+		}
+		ephemeris.position(time, xyz);
+		return true;
+	}
+
+	/**
+	 * @param receiver ECEF X, Y, Z in m, eg of a base station antenna.
+	 * @return Elevation in degrees of a satellite seen from receiver, or NaN if there is no
+	 *         ephemeris for the satellite.
+	 */
+	public double elevation (Constellation c, int prn, long time, double[] receiver) {
+		final double[] xyz = new double[3];
+		if (!position(c, prn, time, xyz)) {
+			return Double.NaN;
+		}
+		return ECEF.elevation(receiver, xyz);
+	}
+
+	private void evictIfDue (long now) {
+		if (now - lastEviction >= EVICTION_INTERVAL) {
+			lastEviction = now;
+			evict(now);
+		}
+	}
+
+	/**
+	 * Remove the ephemerides last received more than {@link #getMaxAge()} ms before now.
+	 *
+	 * @return Number removed.
+	 */
+	public int evict (long now) {
+		final int before = entries.size();
+		entries.values().removeIf(entry -> now - entry.receivedAt > maxAge);
+		latest.values().removeIf(entry -> now - entry.receivedAt > maxAge);
+		return before - entries.size();
+	}
+
+	public long getMaxAge () {
+		return maxAge;
+	}
+
+	public int size () {
+		return entries.size();
+	}
+
+	/**
+	 * @return Number of ephemerides decoded.
+	 */
+	public long getDecodeCount () {
+		return decodeCount.sum();
+	}
+
+	/**
+	 * @return Number of ephemeris frames already in the cache, and so not decoded.
+	 */
+	public long getDuplicateCount () {
+		return duplicateCount.sum();
+	}
+}
@@ -0,0 +1,239 @@
+package ie.strix.gnss.rtcm;
+
+import ie.strix.gnss.nmea.Constellation;
+
+/**
+ * Decode RTCM3 broadcast ephemeris messages: 1019 (GPS), 1020 (GLONASS), 1042 (BeiDou) and
+ * 1046 (Galileo I/NAV).
+ *
+ * Angles sent in semicircles are converted to radians, and every field is scaled to SI units.
+ */
+public final class EphemerisDecoder {
+
+	public static final int GPS = 1019;
+	public static final int GLONASS = 1020;
+	public static final int BEIDOU = 1042;
+	public static final int GALILEO = 1046;
+
+	/** Value of pi used by the GNSS interface documents for semicircles */
+	private static final double SC2RAD = 3.1415926535898;
+
+	private EphemerisDecoder () {
+	}
+
+	public static boolean isSupported (int messageType) {
+		return messageType == GPS || messageType == GLONASS || messageType == BEIDOU || messageType == GALILEO;
+	}
+
+	/**
+	 * Identify an ephemeris without decoding it, from the satellite ID and issue of data.
+	 *
+	 * @param br At the start of the payload. Left at an undefined position.
+	 * @return {@link EphemerisCache#key(Constellation, int, int)}, or -1 if not a supported
+	 *         ephemeris or too short.
+	 */
+	public static long key (BitReader br) {
+		final int messageType = (int)br.readUnsigned(12);
+		final int prn = (int)br.readUnsigned(6);
+		final int iodePosition;
+		final int iodeBits;
+		final int length;
+		final Constellation c;
+		switch (messageType) {
+		case GPS:
+			c = Constellation.GPS;
+			iodePosition = 48;
+			iodeBits = 8;
+			length = 488;
+			break;
+		case GLONASS:
+			// tb
+			c = Constellation.GLONASS;
+			iodePosition = 41;
+			iodeBits = 7;
+			length = 360;
+			break;
+		case BEIDOU:
+			// AODE
+			c = Constellation.BEIDOU;
+			iodePosition = 49;
+			iodeBits = 5;
+			length = 511;
+			break;
+		case GALILEO:
+			// IODnav
+			c = Constellation.GALILEO;
+			iodePosition = 30;
+			iodeBits = 10;
+			length = 504;
+			break;
+		default:
+			return -1;
+		}
+		if (br.getBitPosition() + br.getRemainingBits() < length) {
+			return -1;
+		}
+		br.setBitPosition(iodePosition);
+		return EphemerisCache.key(c, prn, (int)br.readUnsigned(iodeBits));
+	}
+
+	/**
+	 * @param br At the start of the payload.
+	 * @return The ephemeris, or null if not a supported ephemeris or too short.
+	 */
+	public static Ephemeris decode (BitReader br) {
+		final int start = br.getBitPosition();
+		if (key(br) < 0) {
+			return null;
+		}
+		br.setBitPosition(start);
+		final int messageType = (int)br.readUnsigned(12);
+		switch (messageType) {
+		case GPS:
+			return decodeGps(br);
+		case GLONASS:
+			return decodeGlonass(br);
+		case BEIDOU:
+			return decodeBeidou(br);
+		default:
+			return decodeGalileo(br);
+		}
+	}
+
+	/**
+	 * 1019, after the message number.
+	 */
+	private static KeplerEphemeris decodeGps (BitReader br) {
+		final KeplerEphemeris.KeplerEphemerisBuilder eph = KeplerEphemeris.builder().constellation(Constellation.GPS);
+		eph.prn((int)br.readUnsigned(6)); // DF009
+		eph.week((int)br.readUnsigned(10)); // DF076
+		br.skip(4 + 2); // DF077 SV accuracy, DF078 code on L2
+		eph.iDot(br.readScaledSigned(14, 0x1p-43 * SC2RAD)); // DF079
+		eph.iode((int)br.readUnsigned(8)); // DF071
+		eph.toc(br.readUnsigned(16) * 16.0); // DF081
+		eph.af2(br.readScaledSigned(8, 0x1p-55)); // DF082
+		eph.af1(br.readScaledSigned(16, 0x1p-43)); // DF083
+		eph.af0(br.readScaledSigned(22, 0x1p-31)); // DF084
+		br.skip(10); // DF085 IODC
+		eph.crs(br.readScaledSigned(16, 0x1p-5)); // DF086
+		eph.deltaN(br.readScaledSigned(16, 0x1p-43 * SC2RAD)); // DF087
+		eph.m0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF088
+		eph.cuc(br.readScaledSigned(16, 0x1p-29)); // DF089
+		eph.e(br.readScaledUnsigned(32, 0x1p-33)); // DF090
+		eph.cus(br.readScaledSigned(16, 0x1p-29)); // DF091
+		eph.sqrtA(br.readScaledUnsigned(32, 0x1p-19)); // DF092
+		eph.toe(br.readUnsigned(16) * 16.0); // DF093
+		eph.cic(br.readScaledSigned(16, 0x1p-29)); // DF094
+		eph.omega0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF095
+		eph.cis(br.readScaledSigned(16, 0x1p-29)); // DF096
+		eph.i0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF097
+		eph.crc(br.readScaledSigned(16, 0x1p-5)); // DF098
+		eph.omega(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF099
+		eph.omegaDot(br.readScaledSigned(24, 0x1p-43 * SC2RAD)); // DF100
+		eph.tgd(br.readScaledSigned(8, 0x1p-31)); // DF101
+		eph.health((int)br.readUnsigned(6)); // DF102
+		return eph.build();
+	}
+
+	/**
+	 * 1046, after the message number.
+	 */
+	private static KeplerEphemeris decodeGalileo (BitReader br) {
+		final KeplerEphemeris.KeplerEphemerisBuilder eph = KeplerEphemeris.builder().constellation(Constellation.GALILEO);
+		eph.prn((int)br.readUnsigned(6)); // DF252
+		eph.week((int)br.readUnsigned(12)); // DF289
+		eph.iode((int)br.readUnsigned(10)); // DF290 IODnav
+		br.skip(8); // DF286 SISA
+		eph.iDot(br.readScaledSigned(14, 0x1p-43 * SC2RAD)); // DF292
+		eph.toc(br.readUnsigned(14) * 60.0); // DF293
+		eph.af2(br.readScaledSigned(6, 0x1p-59)); // DF294
+		eph.af1(br.readScaledSigned(21, 0x1p-46)); // DF295
+		eph.af0(br.readScaledSigned(31, 0x1p-34)); // DF296
+		eph.crs(br.readScaledSigned(16, 0x1p-5)); // DF297
+		eph.deltaN(br.readScaledSigned(16, 0x1p-43 * SC2RAD)); // DF298
+		eph.m0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF299
+		eph.cuc(br.readScaledSigned(16, 0x1p-29)); // DF300
+		eph.e(br.readScaledUnsigned(32, 0x1p-33)); // DF301
+		eph.cus(br.readScaledSigned(16, 0x1p-29)); // DF302
+		eph.sqrtA(br.readScaledUnsigned(32, 0x1p-19)); // DF303
+		eph.toe(br.readUnsigned(14) * 60.0); // DF304
+		eph.cic(br.readScaledSigned(16, 0x1p-29)); // DF305
+		eph.omega0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF306
+		eph.cis(br.readScaledSigned(16, 0x1p-29)); // DF307
+		eph.i0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF308
+		eph.crc(br.readScaledSigned(16, 0x1p-5)); // DF309
+		eph.omega(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF310
+		eph.omegaDot(br.readScaledSigned(24, 0x1p-43 * SC2RAD)); // DF311
+		eph.tgd(br.readScaledSigned(10, 0x1p-32)); // DF312 BGD E5a/E1
+		br.skip(10); // DF313 BGD E5b/E1
+		final int e5bHealth = (int)br.readUnsigned(2); // DF316
+		br.skip(1); // DF317 E5b data validity
+		final int e1bHealth = (int)br.readUnsigned(2); // DF287
+		eph.health(e5bHealth << 2 | e1bHealth);
+		return eph.build();
+	}
+
+	/**
+	 * 1042, after the message number.
+	 */
+	private static KeplerEphemeris decodeBeidou (BitReader br) {
+		final KeplerEphemeris.KeplerEphemerisBuilder eph = KeplerEphemeris.builder().constellation(Constellation.BEIDOU);
+		eph.prn((int)br.readUnsigned(6)); // DF488
+		eph.week((int)br.readUnsigned(13)); // DF489
+		br.skip(4); // DF490 URAI
+		eph.iDot(br.readScaledSigned(14, 0x1p-43 * SC2RAD)); // DF491
+		eph.iode((int)br.readUnsigned(5)); // DF492 AODE
+		eph.toc(br.readUnsigned(17) * 8.0); // DF493
+		eph.af2(br.readScaledSigned(11, 0x1p-66)); // DF494
+		eph.af1(br.readScaledSigned(22, 0x1p-50)); // DF495
+		eph.af0(br.readScaledSigned(24, 0x1p-33)); // DF496
+		br.skip(5); // DF497 AODC
+		eph.crs(br.readScaledSigned(18, 0x1p-6)); // DF498
+		eph.deltaN(br.readScaledSigned(16, 0x1p-43 * SC2RAD)); // DF499
+		eph.m0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF500
+		eph.cuc(br.readScaledSigned(18, 0x1p-31)); // DF501
+		eph.e(br.readScaledUnsigned(32, 0x1p-33)); // DF502
+		eph.cus(br.readScaledSigned(18, 0x1p-31)); // DF503
+		eph.sqrtA(br.readScaledUnsigned(32, 0x1p-19)); // DF504
+		eph.toe(br.readUnsigned(17) * 8.0); // DF505
+		eph.cic(br.readScaledSigned(18, 0x1p-31)); // DF506
+		eph.omega0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF507
+		eph.cis(br.readScaledSigned(18, 0x1p-31)); // DF508
+		eph.i0(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF509
+		eph.crc(br.readScaledSigned(18, 0x1p-6)); // DF510
+		eph.omega(br.readScaledSigned(32, 0x1p-31 * SC2RAD)); // DF511
+		eph.omegaDot(br.readScaledSigned(24, 0x1p-43 * SC2RAD)); // DF512
+		eph.tgd(br.readScaledSigned(10, 1e-10)); // DF513 TGD1
+		br.skip(10); // DF514 TGD2
+		eph.health((int)br.readUnsigned(1)); // DF515
+		return eph.build();
+	}
+
+	/**
+	 * 1020, after the message number.
+	 */
+	private static GlonassEphemeris decodeGlonass (BitReader br) {
+		final GlonassEphemeris.GlonassEphemerisBuilder eph = GlonassEphemeris.builder();
+		eph.prn((int)br.readUnsigned(6)); // DF038
+		eph.frequencyChannel((int)br.readUnsigned(5) - 7); // DF040
+		br.skip(1 + 1 + 2 + 12); // DF104, DF105 almanac health, DF106 P1, DF107 tk
+		eph.health((int)br.readUnsigned(1)); // DF108 Bn
+		br.skip(1); // DF109 P2
+		eph.tb((int)br.readUnsigned(7)); // DF110
+		// DF111 to DF119: km/s 2^-20, km 2^-11, km/s^2 2^-30
+		eph.vx(br.readScaledSignMagnitude(24, 0x1p-20 * 1000));
+		eph.x(br.readScaledSignMagnitude(27, 0x1p-11 * 1000));
+		eph.ax(br.readScaledSignMagnitude(5, 0x1p-30 * 1000));
+		eph.vy(br.readScaledSignMagnitude(24, 0x1p-20 * 1000));
+		eph.y(br.readScaledSignMagnitude(27, 0x1p-11 * 1000));
+		eph.ay(br.readScaledSignMagnitude(5, 0x1p-30 * 1000));
+		eph.vz(br.readScaledSignMagnitude(24, 0x1p-20 * 1000));
+		eph.z(br.readScaledSignMagnitude(27, 0x1p-11 * 1000));
+		eph.az(br.readScaledSignMagnitude(5, 0x1p-30 * 1000));
+		br.skip(1); // DF120 P3
+		eph.gamma(br.readScaledSignMagnitude(11, 0x1p-40)); // DF121
+		br.skip(2 + 1); // DF122 P, DF123 ln
+		eph.tau(br.readScaledSignMagnitude(22, 0x1p-30)); // DF124
+		return eph.build();
+	}
+}
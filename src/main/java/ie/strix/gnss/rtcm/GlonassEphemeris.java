@@ -0,0 +1,128 @@
+package ie.strix.gnss.rtcm;
+
+import ie.strix.gnss.nmea.Constellation;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * GLONASS ephemeris: position, velocity and lunisolar acceleration in PZ-90 at tb.
+ *
+ * Positions are found by integrating the equations of motion of the GLONASS ICD (central
+ * gravity, J2 and the rotation of the frame) from tb with fourth order Runge-Kutta in steps of
+ * at most 60 s.
+ */
+@Getter
+@Builder
+public class GlonassEphemeris implements Ephemeris {
+
+	private static final double MU = 3.9860044e14;
+	private static final double AE = 6_378_136;
+	private static final double J2 = 1.0826257e-3;
+	private static final double OMEGA_E = 7.292115e-5;
+
+	private static final double DAY_S = 86_400;
+	private static final long MOSCOW_OFFSET_MS = 3 * 3_600_000L;
+	private static final double STEP_S = 60;
+
+	private final int prn;
+	/** Frequency channel, -7..6 */
+	private final int frequencyChannel;
+	/** Index of the 15 minute interval of the day (Moscow time) that tb is the middle of */
+	private final int tb;
+	/** Bn: health, 0 for healthy */
+	private final int health;
+
+	/** m at tb */
+	private final double x;
+	private final double y;
+	private final double z;
+	/** m/s at tb */
+	private final double vx;
+	private final double vy;
+	private final double vz;
+	/** Lunisolar acceleration m/s^2 */
+	private final double ax;
+	private final double ay;
+	private final double az;
+
+	/** Clock: relative frequency offset and bias in s */
+	private final double gamma;
+	private final double tau;
+
+	@Override
+	public Constellation getConstellation () {
+		return Constellation.GLONASS;
+	}
+
+	@Override
+	public int getIode () {
+		return tb;
+	}
+
+	/**
+	 * @return Moscow time of day in s.
+	 */
+	static double timeOfDay (long time) {
+		return Math.floorMod(time + MOSCOW_OFFSET_MS, 86_400_000L) / 1000.0;
+	}
+
+	@Override
+	public void position (long time, double[] xyz) {
+		double tk = timeOfDay(time) - tb * 900.0;
+		if (tk > DAY_S / 2) {
+			tk -= DAY_S;
+		} else if (tk < -DAY_S / 2) {
+			tk += DAY_S;
+		}
+
+		final double[] state = { x, y, z, vx, vy, vz };
+		final double[] k1 = new double[6];
+		final double[] k2 = new double[6];
+		final double[] k3 = new double[6];
+		final double[] k4 = new double[6];
+		final double[] tmp = new double[6];
+		final double step = tk < 0 ? -STEP_S : STEP_S;
+		double remaining = tk;
+		while (remaining != 0) {
+			final double h = Math.abs(remaining) < STEP_S ? remaining : step;
+			derivatives(state, k1);
+			for (int i = 0; i < 6; i++) {
+				tmp[i] = state[i] + k1[i] * h / 2;
+			}
+			derivatives(tmp, k2);
+			for (int i = 0; i < 6; i++) {
+				tmp[i] = state[i] + k2[i] * h / 2;
+			}
+			derivatives(tmp, k3);
+			for (int i = 0; i < 6; i++) {
+				tmp[i] = state[i] + k3[i] * h;
+			}
+			derivatives(tmp, k4);
+			for (int i = 0; i < 6; i++) {
+				state[i] += (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i]) * h / 6;
+			}
+			remaining -= h;
+		}
+		xyz[0] = state[0];
+		xyz[1] = state[1];
+		xyz[2] = state[2];
+	}
+
+	/**
+	 * Equations of motion in the rotating frame.
+	 */
+	private void derivatives (double[] s, double[] d) {
+		final double r2 = s[0] * s[0] + s[1] * s[1] + s[2] * s[2];
+		final double r3 = r2 * Math.sqrt(r2);
+		final double a = 1.5 * J2 * MU * AE * AE / (r2 * r3);
+		final double b = 5 * s[2] * s[2] / r2;
+		final double c = -MU / r3 - a * (1 - b);
+		final double w2 = OMEGA_E * OMEGA_E;
+		d[0] = s[3];
+		d[1] = s[4];
+		d[2] = s[5];
+		d[3] = (c + w2) * s[0] + 2 * OMEGA_E * s[4] + ax;
+		d[4] = (c + w2) * s[1] - 2 * OMEGA_E * s[3] + ay;
+		d[5] = (c - 2 * a) * s[2] + az;
+	}
+}
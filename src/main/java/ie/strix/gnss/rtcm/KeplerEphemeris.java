@@ -0,0 +1,143 @@
+package ie.strix.gnss.rtcm;
+
+import ie.strix.gnss.nmea.Constellation;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * GPS, Galileo or BeiDou ephemeris: Keplerian elements at toe with harmonic corrections.
+ * Angles are in radians, times in seconds of the constellation's week.
+ *
+ * Positions follow IS-GPS-200 with each system's gravitational constant and earth rotation
+ * rate. BeiDou GEO satellites (PRN 1 to 5 and 59 to 63) have their elements in a frame
+ * inclined by 5 degrees, which is rotated back to ECEF.
+ */
+@Getter
+@Builder
+public class KeplerEphemeris implements Ephemeris {
+
+	private static final double MU_GPS = 3.986005e14;
+	private static final double MU_GAL_BDS = 3.986004418e14;
+	private static final double OMEGA_E_GPS_GAL = 7.2921151467e-5;
+	private static final double OMEGA_E_BDS = 7.292115e-5;
+
+	private static final double WEEK_S = 604_800;
+	private static final double HALF_WEEK_S = WEEK_S / 2;
+	private static final double BDS_OFFSET_S = 14;
+	private static final double SIN_5 = Math.sin(Math.toRadians(-5));
+	private static final double COS_5 = Math.cos(Math.toRadians(-5));
+
+	private final Constellation constellation;
+	private final int prn;
+	private final int iode;
+	/** Week number as broadcast, modulo 1024 for GPS */
+	private final int week;
+	private final int health;
+
+	/** Reference time of ephemeris */
+	private final double toe;
+	/** Reference time of clock */
+	private final double toc;
+	/** Clock bias s, drift s/s and drift rate s/s^2 */
+	private final double af0;
+	private final double af1;
+	private final double af2;
+	/** Group delay s: TGD for GPS, BGD E5a/E1 for Galileo, TGD1 for BeiDou */
+	private final double tgd;
+
+	private final double sqrtA;
+	private final double e;
+	private final double m0;
+	private final double deltaN;
+	private final double omega0;
+	private final double omegaDot;
+	private final double i0;
+	private final double iDot;
+	/** Argument of perigee */
+	private final double omega;
+	private final double cuc;
+	private final double cus;
+	private final double crc;
+	private final double crs;
+	private final double cic;
+	private final double cis;
+
+	/**
+	 * @return True for a BeiDou GEO satellite.
+	 */
+	public boolean isGeo () {
+		return constellation == Constellation.BEIDOU && (prn <= 5 || prn >= 59);
+	}
+
+	/**
+	 * @return Time of week in s in the constellation's time scale.
+	 */
+	double timeOfWeek (long time) {
+		double t = (time - GPS_EPOCH + LEAP_SECONDS_MS) / 1000.0;
+		if (constellation == Constellation.BEIDOU) {
+			t -= BDS_OFFSET_S;
+		}
+		return t - Math.floor(t / WEEK_S) * WEEK_S;
+	}
+
+	@Override
+	public void position (long time, double[] xyz) {
+		final boolean gps = constellation == Constellation.GPS;
+		final double mu = gps ? MU_GPS : MU_GAL_BDS;
+		final double omegaE = constellation == Constellation.BEIDOU ? OMEGA_E_BDS : OMEGA_E_GPS_GAL;
+
+		double tk = timeOfWeek(time) - toe;
+		if (tk > HALF_WEEK_S) {
+			tk -= WEEK_S;
+		} else if (tk < -HALF_WEEK_S) {
+			tk += WEEK_S;
+		}
+
+		final double a = sqrtA * sqrtA;
+		final double n = Math.sqrt(mu / (a * a * a)) + deltaN;
+		final double m = m0 + n * tk;
+		// Eccentric anomaly by Newton's method
+		double ea = m;
+		for (int iter = 0; iter < 30; iter++) {
+			final double delta = (ea - e * Math.sin(ea) - m) / (1 - e * Math.cos(ea));
+			ea -= delta;
+			if (Math.abs(delta) < 1e-14) {
+				break;
+			}
+		}
+		final double sinE = Math.sin(ea);
+		final double cosE = Math.cos(ea);
+		final double nu = Math.atan2(Math.sqrt(1 - e * e) * sinE, cosE - e);
+		final double phi = nu + omega;
+		final double sin2phi = Math.sin(2 * phi);
+		final double cos2phi = Math.cos(2 * phi);
+
+		final double u = phi + cus * sin2phi + cuc * cos2phi;
+		final double r = a * (1 - e * cosE) + crs * sin2phi + crc * cos2phi;
+		final double i = i0 + iDot * tk + cis * sin2phi + cic * cos2phi;
+		final double x = r * Math.cos(u);
+		final double y = r * Math.sin(u);
+		final double cosi = Math.cos(i);
+
+		if (isGeo()) {
+			final double om = omega0 + omegaDot * tk - omegaE * toe;
+			final double sinO = Math.sin(om);
+			final double cosO = Math.cos(om);
+			final double xg = x * cosO - y * cosi * sinO;
+			final double yg = x * sinO + y * cosi * cosO;
+			final double zg = y * Math.sin(i);
+			final double sino = Math.sin(omegaE * tk);
+			final double coso = Math.cos(omegaE * tk);
+			xyz[0] = xg * coso + yg * sino * COS_5 + zg * sino * SIN_5;
+			xyz[1] = -xg * sino + yg * coso * COS_5 + zg * coso * SIN_5;
+			xyz[2] = -yg * SIN_5 + zg * COS_5;
+		} else {
+			final double om = omega0 + (omegaDot - omegaE) * tk - omegaE * toe;
+			final double sinO = Math.sin(om);
+			final double cosO = Math.cos(om);
+			xyz[0] = x * cosO - y * cosi * sinO;
+			xyz[1] = x * sinO + y * cosi * cosO;
+			xyz[2] = y * Math.sin(i);
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package ie.strix.gnss.rtcm;
+
+import java.nio.ByteBuffer;
+
+import ie.strix.gnss.nmea.Constellation;
+import lombok.Getter;
+
+/**
+ * Decode RTCM3 Multiple Signal Messages MSM4 to MSM7 for GPS (1074-1077), GLONASS (1084-1087),
+ * Galileo (1094-1097) and BeiDou (1124-1127) into an {@link MsmEpoch}.
+ *
+ * A station sends one or more MSM per epoch, all but the last with the multiple message bit
+ * set. Cells are added to the current epoch until a message without the bit arrives, when the
+ * epoch is passed to the handler. If a message for a different epoch or station arrives first
+ * (the last message of an epoch was lost) the incomplete epoch is dropped and counted.
+ *
+ * Usage:
+ * <pre>
+ * MsmDecoder decoder = new MsmDecoder(epoch -&gt; monitor(epoch));
+ * FrameView frame = new FrameView().reset(data, 0, data.length);
+ * while (frame.next()) {
+ *     decoder.accept(frame);
+ * }
+ * </pre>
+ *
+ * Nothing is allocated per message or epoch, apart from growing the epoch arrays the first
+ * time an epoch has more cells than any before. Not thread safe: one decoder per stream.
+ */
+public class MsmDecoder {
+
+	/** Speed of light, m/ms */
+	private static final double LIGHT_MS = 299_792.458;
+
+	private static final long DAY_MS = 86_400_000L;
+	private static final long GLONASS_OFFSET_MS = 3 * 3_600_000L - 18_000;
+	private static final long BDS_OFFSET_MS = 14_000;
+
+	/** MSM1 message number - 1 in {@link Constellation} order */
+	private static final int[] MSM_BASE = { 1070, 1080, 1090, 1120 };
+	/** Constellation.values() allocates a copy on every call */
+	private static final Constellation[] CONSTELLATIONS = Constellation.values();
+
+	/** Invalid markers: the most negative value of the field */
+	private static final int INVALID_ROUGH_MS = 255;
+	private static final long INVALID_ROUGH_RATE = -(1L << 13);
+	private static final long INVALID_FINE_RATE = -(1L << 14);
+
+	/**
+	 * Receives each complete epoch.
+	 */
+	@FunctionalInterface
+	public interface EpochHandler {
+
+		/**
+		 * @param epoch Reused for the next epoch: copy anything to keep.
+		 */
+		void onEpoch (MsmEpoch epoch);
+	}
+
+	private final EpochHandler handler;
+	private final MsmEpoch epoch = new MsmEpoch(256);
+	private final BitReader br = new BitReader();
+	private boolean pending = false;
+
+	/** Per message scratch, indexed by satellite or cell within the message */
+	private final int[] satIds = new int[64];
+	private final int[] sigIds = new int[32];
+	private final double[] roughRange = new double[64];
+	private final double[] roughRate = new double[64];
+	private final int[] extended = new int[64];
+	private final int[] cellSat = new int[64];
+
+	@Getter
+	private long messageCount = 0;
+	@Getter
+	private long epochCount = 0;
+	/** Epochs dropped because the message without the multiple message bit never arrived */
+	@Getter
+	private long incompleteEpochCount = 0;
+	/** MSM messages too short for their masks */
+	@Getter
+	private long malformedCount = 0;
+
+	public MsmDecoder (EpochHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return The constellation of an MSM4 to MSM7 message number, or null for any other
+	 *         message.
+	 */
+	public static Constellation getConstellation (int messageType) {
+		final int msm = messageType % 10;
+		if (msm < 4 || msm > 7) {
+			return null;
+		}
+		for (int i = 0; i < MSM_BASE.length; i++) {
+			if (messageType - msm == MSM_BASE[i]) {
+				return CONSTELLATIONS[i];
+			}
+		}
+		return null;
+	}
+
+	public static boolean isSupported (int messageType) {
+		return getConstellation(messageType) != null;
+	}
+
+	/**
+	 * Decode a frame if it is a supported MSM, reading the payload in place.
+	 *
+	 * @return True if the frame was an MSM4 to MSM7 and was decoded.
+	 */
+	public boolean accept (Rtcm3Parser.FrameView frame) {
+		if (!isSupported(frame.getMessageType())) {
+			return false;
+		}
+		br.reset(frame);
+		return decode();
+	}
+
+	/**
+	 * @see #accept(Rtcm3Parser.FrameView)
+	 */
+	public boolean accept (byte[] payload, int offset, int length) {
+		br.reset(payload, offset, length);
+		return decode();
+	}
+
+	/**
+	 * @see #accept(Rtcm3Parser.FrameView)
+	 */
+	public boolean accept (ByteBuffer payload, int offset, int length) {
+		br.reset(payload, offset, length);
+		return decode();
+	}
+
+	/**
+	 * Drop any partly assembled epoch, eg when the connection is reestablished.
+	 */
+	public void reset () {
+		pending = false;
+		epoch.clear();
+	}
+
+	private boolean decode () {
+		if (br.getRemainingBits() < 24) {
+			return false;
+		}
+		final int messageType = (int)br.readUnsigned(12);
+		final Constellation c = getConstellation(messageType);
+		if (c == null) {
+			return false;
+		}
+		final int msm = messageType % 10;
+		final boolean extendedData = msm == 5 || msm == 7;
+		final boolean high = msm >= 6;
+
+		final int stationId = (int)br.readUnsigned(12);
+		if (br.getRemainingBits() < 30 + 1 + 3 + 7 + 2 + 2 + 1 + 3 + 64 + 32) {
+			malformedCount++;
+			return false;
+		}
+		final long time = br.readUnsigned(30);
+		final boolean more = br.readBoolean();
+		// IODS, reserved, clock steering, external clock, smoothing and smoothing interval
+		br.skip(3 + 7 + 2 + 2 + 1 + 3);
+
+		final int nSat = ids(br.readUnsigned(64), 64, satIds);
+		final int nSig = ids(br.readUnsigned(32), 32, sigIds);
+		final int maskBits = nSat * nSig;
+		if (maskBits > 64 || br.getRemainingBits() < maskBits) {
+			malformedCount++;
+			return false;
+		}
+		final long cellMask = br.readUnsigned(maskBits);
+		final int nCell = Long.bitCount(cellMask);
+		final int satBits = extendedData ? 8 + 4 + 10 + 14 : 8 + 10;
+		final int cellBits = (high ? 20 + 24 + 10 + 1 + 10 : 15 + 22 + 4 + 1 + 6) + (extendedData ? 15 : 0);
+		if (br.getRemainingBits() < nSat * satBits + nCell * cellBits) {
+			malformedCount++;
+			return false;
+		}
+
+		final long timeOfDay = timeOfDay(c, time);
+		if (pending && (stationId != epoch.getStationId() || timeOfDay != epoch.getTimeOfDay())) {
+			incompleteEpochCount++;
+			pending = false;
+		}
+		if (!pending) {
+			epoch.start(stationId, timeOfDay);
+			pending = true;
+		}
+		final int base = epoch.getSize();
+		epoch.ensureCapacity(base + nCell);
+
+		// Cells in satellite then signal order
+		final Constellation[] constellation = epoch.getConstellation();
+		final int[] satellite = epoch.getSatellite();
+		final int[] signal = epoch.getSignal();
+		int cell = 0;
+		for (int bit = 0; bit < maskBits; bit++) {
+			if (((cellMask >>> (maskBits - 1 - bit)) & 1) != 0) {
+				final int sat = bit / nSig;
+				cellSat[cell] = sat;
+				constellation[base + cell] = c;
+				satellite[base + cell] = satIds[sat];
+				signal[base + cell] = sigIds[bit % nSig];
+				cell++;
+			}
+		}
+
+		readSatelliteData(nSat, extendedData);
+		readSignalData(base, nCell, extendedData, high);
+
+		epoch.addMessage(c, time, nCell);
+		messageCount++;
+		if (!more) {
+			pending = false;
+			epochCount++;
+			handler.onEpoch(epoch);
+		}
+		return true;
+	}
+
+	/**
+	 * Rough range (DF397, DF398), extended information and rough rate (DF399).
+	 */
+	private void readSatelliteData (int nSat, boolean extendedData) {
+		for (int i = 0; i < nSat; i++) {
+			final long ms = br.readUnsigned(8);
+			roughRange[i] = ms == INVALID_ROUGH_MS ? Double.NaN : ms;
+		}
+		for (int i = 0; i < nSat; i++) {
+			extended[i] = extendedData ? (int)br.readUnsigned(4) : -1;
+		}
+		for (int i = 0; i < nSat; i++) {
+			roughRange[i] += br.readUnsigned(10) * 0x1p-10;
+		}
+		for (int i = 0; i < nSat; i++) {
+			if (extendedData) {
+				final long rate = br.readSigned(14);
+				roughRate[i] = rate == INVALID_ROUGH_RATE ? Double.NaN : rate;
+			} else {
+				roughRate[i] = Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * Fine pseudorange, phase range, lock time, half cycle, C/N0 and fine rate, each for every
+	 * cell.
+	 */
+	private void readSignalData (int base, int nCell, boolean extendedData, boolean high) {
+		final int prBits = high ? 20 : 15;
+		final double prScale = high ? 0x1p-29 : 0x1p-24;
+		final int cpBits = high ? 24 : 22;
+		final double cpScale = high ? 0x1p-31 : 0x1p-29;
+
+		final double[] pseudorange = epoch.getPseudorange();
+		final double[] phaseRange = epoch.getPhaseRange();
+		final double[] phaseRangeRate = epoch.getPhaseRangeRate();
+		final double[] cnr = epoch.getCnr();
+		final int[] lockTime = epoch.getLockTime();
+		final boolean[] halfCycle = epoch.getHalfCycle();
+		final int[] extendedInfo = epoch.getExtendedInfo();
+
+		for (int i = 0; i < nCell; i++) {
+			final long fine = br.readSigned(prBits);
+			pseudorange[base + i] = fine == -(1L << (prBits - 1)) ? Double.NaN
+					: (roughRange[cellSat[i]] + fine * prScale) * LIGHT_MS;
+			extendedInfo[base + i] = extended[cellSat[i]];
+		}
+		for (int i = 0; i < nCell; i++) {
+			final long fine = br.readSigned(cpBits);
+			phaseRange[base + i] = fine == -(1L << (cpBits - 1)) ? Double.NaN
+					: (roughRange[cellSat[i]] + fine * cpScale) * LIGHT_MS;
+		}
+		for (int i = 0; i < nCell; i++) {
+			lockTime[base + i] = high ? extendedLockTime((int)br.readUnsigned(10)) : lockTime((int)br.readUnsigned(4));
+		}
+		for (int i = 0; i < nCell; i++) {
+			halfCycle[base + i] = br.readBoolean();
+		}
+		for (int i = 0; i < nCell; i++) {
+			final long value = br.readUnsigned(high ? 10 : 6);
+			cnr[base + i] = value == 0 ? Double.NaN : high ? value * 0x1p-4 : value;
+		}
+		for (int i = 0; i < nCell; i++) {
+			if (extendedData) {
+				final long fine = br.readSigned(15);
+				phaseRangeRate[base + i] = fine == INVALID_FINE_RATE ? Double.NaN : roughRate[cellSat[i]] + fine * 0.0001;
+			} else {
+				phaseRangeRate[base + i] = Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * Fill ids with the 1 based positions of the set bits of an n bit mask, most significant
+	 * first.
+	 *
+	 * @return Number of bits set.
+	 */
+	private static int ids (long mask, int n, int[] ids) {
+		mask <<= 64 - n;
+		int count = 0;
+		while (mask != 0) {
+			final int zeros = Long.numberOfLeadingZeros(mask);
+			ids[count++] = zeros + 1;
+			mask &= ~(Long.MIN_VALUE >>> zeros);
+		}
+		return count;
+	}
+
+	/**
+	 * @return The epoch time as GPS time of day in ms, so that the messages of one epoch
+	 *         compare equal whatever their constellation.
+	 */
+	static long timeOfDay (Constellation c, long time) {
+		switch (c) {
+		case GLONASS:
+			// Moscow time of day in the low 27 bits
+			return Math.floorMod((time & ((1L << 27) - 1)) - GLONASS_OFFSET_MS, DAY_MS);
+		case BEIDOU:
+			return (time + BDS_OFFSET_MS) % DAY_MS;
+		default:
+			return time % DAY_MS;
+		}
+	}
+
+	/**
+	 * @param indicator DF402, 0..15.
+	 * @return Minimum lock time in ms.
+	 */
+	static int lockTime (int indicator) {
+		return indicator == 0 ? 0 : 1 << (indicator + 4);
+	}
+
+	/**
+	 * @param indicator DF407, 0..704. Steps of 1ms to 64ms, then the step doubles every 32
+	 *        values.
+	 * @return Minimum lock time in ms.
+	 */
+	static int extendedLockTime (int indicator) {
+		if (indicator < 64) {
+			return indicator;
+		}
+		final int k = Math.min((indicator - 64) >> 5, 20);
+		return (64 << k) + (indicator - 64 - (k << 5)) * (2 << k);
+	}
+}
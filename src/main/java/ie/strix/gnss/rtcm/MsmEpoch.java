@@ -0,0 +1,169 @@
+package ie.strix.gnss.rtcm;
+
+import java.util.Arrays;
+
+import ie.strix.gnss.nmea.Constellation;
+import lombok.Getter;
+
+/**
+ * The observations of one epoch, assembled by {@link MsmDecoder} from the MSM messages of a
+ * station that share an epoch time. There is one entry per cell (a satellite on a signal), in
+ * the order the cells were received.
+ *
+ * The arrays are reused from epoch to epoch: entries are valid below {@link #getSize()}, and
+ * only until the decoder starts the next epoch. Copy anything to keep. Values that the station
+ * marked invalid, or that the message type does not carry (eg rates in MSM4), are NaN.
+ */
+public class MsmEpoch {
+
+	private static final int N_CONSTELLATION = 4;
+
+	@Getter
+	private int stationId;
+
+	/** Number of cells */
+	@Getter
+	private int size;
+
+	/** Number of MSM messages in the epoch */
+	@Getter
+	private int messageCount;
+
+	/** Epoch time as GPS time of day in ms, comparable across constellations */
+	@Getter
+	private long timeOfDay;
+
+	/** The epoch time field of each constellation's message, -1 if none received */
+	private final long[] epochTime = new long[N_CONSTELLATION];
+
+	@Getter
+	private Constellation[] constellation;
+
+	/** RTCM satellite ID, 1..64 */
+	@Getter
+	private int[] satellite;
+
+	/** RTCM signal ID, 1..32 */
+	@Getter
+	private int[] signal;
+
+	/** Extended satellite information (GLONASS frequency channel + 7) for MSM5/7, otherwise -1 */
+	@Getter
+	private int[] extendedInfo;
+
+	/** m */
+	@Getter
+	private double[] pseudorange;
+
+	/** Carrier phase range, m: divide by the signal's wavelength for cycles */
+	@Getter
+	private double[] phaseRange;
+
+	/** m/s, MSM5/7 only */
+	@Getter
+	private double[] phaseRangeRate;
+
+	/** C/N0, dBHz */
+	@Getter
+	private double[] cnr;
+
+	/** Minimum time the phase has been tracked without a cycle slip, ms */
+	@Getter
+	private int[] lockTime;
+
+	@Getter
+	private boolean[] halfCycle;
+
+	MsmEpoch (int capacity) {
+		allocate(capacity);
+		clear();
+	}
+
+	private void allocate (int capacity) {
+		constellation = new Constellation[capacity];
+		satellite = new int[capacity];
+		signal = new int[capacity];
+		extendedInfo = new int[capacity];
+		pseudorange = new double[capacity];
+		phaseRange = new double[capacity];
+		phaseRangeRate = new double[capacity];
+		cnr = new double[capacity];
+		lockTime = new int[capacity];
+		halfCycle = new boolean[capacity];
+	}
+
+	/**
+	 * Make room for n cells, growing the arrays only when an epoch larger than any before
+	 * arrives.
+	 */
+	void ensureCapacity (int n) {
+		if (n > satellite.length) {
+			final int capacity = Math.max(n, satellite.length * 2);
+			constellation = Arrays.copyOf(constellation, capacity);
+			satellite = Arrays.copyOf(satellite, capacity);
+			signal = Arrays.copyOf(signal, capacity);
+			extendedInfo = Arrays.copyOf(extendedInfo, capacity);
+			pseudorange = Arrays.copyOf(pseudorange, capacity);
+			phaseRange = Arrays.copyOf(phaseRange, capacity);
+			phaseRangeRate = Arrays.copyOf(phaseRangeRate, capacity);
+			cnr = Arrays.copyOf(cnr, capacity);
+			lockTime = Arrays.copyOf(lockTime, capacity);
+			halfCycle = Arrays.copyOf(halfCycle, capacity);
+		}
+	}
+
+	void clear () {
+		size = 0;
+		messageCount = 0;
+		Arrays.fill(epochTime, -1);
+	}
+
+	void start (int stationId, long timeOfDay) {
+		clear();
+		this.stationId = stationId;
+		this.timeOfDay = timeOfDay;
+	}
+
+	void addMessage (Constellation c, long time, int cells) {
+		epochTime[c.ordinal()] = time;
+		size += cells;
+		messageCount++;
+	}
+
+	/**
+	 * @return The epoch time field of the constellation's MSM: time of week in ms for GPS,
+	 *         Galileo and BeiDou, day of week and time of day for GLONASS. -1 if the epoch has
+	 *         no message for the constellation.
+	 */
+	public long getEpochTime (Constellation c) {
+		return c.ordinal() < N_CONSTELLATION ? epochTime[c.ordinal()] : -1;
+	}
+
+	/**
+	 * @return Number of satellites of a constellation with at least one cell.
+	 */
+	public int getSatelliteCount (Constellation c) {
+		long seen = 0;
+		for (int i = 0; i < size; i++) {
+			if (constellation[i] == c) {
+				seen |= 1L << (satellite[i] - 1);
+			}
+		}
+		return Long.bitCount(seen);
+	}
+
+	/**
+	 * @return Mean C/N0 in dBHz of a constellation's cells, NaN if none.
+	 */
+	public double getMeanCnr (Constellation c) {
+		double sum = 0;
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			if (constellation[i] == c && !Double.isNaN(cnr[i])) {
+				sum += cnr[i];
+				n++;
+			}
+		}
+		return n == 0 ? Double.NaN : sum / n;
+	}
+}
@@ -1,5 +1,7 @@
 package ie.strix.gnss.rtcm;
 
+import java.nio.ByteBuffer;
+
 /**
  * Related to RTCM v3 messages.
  * 
@@ -39,9 +41,22 @@ public class RTCM3 {
 	 * @return 24-bit CRC as an int
 	 */
 	public static int computeCRC24Q(byte[] data, int length) {
+		return computeCRC24Q(data, 0, length);
+	}
+
+	/**
+	 * Compute the CRC-24Q over part of a byte array, eg a frame in a stream buffer.
+	 *
+	 * @param data   Byte array containing the message
+	 * @param offset Index of the preamble 0xD3
+	 * @param length Number of bytes to include in the CRC (everything except final
+	 *               3-byte CRC)
+	 * @return 24-bit CRC as an int
+	 */
+	public static int computeCRC24Q(byte[] data, int offset, int length) {
 		int crc = 0;
 
-		for (int i = 0; i < length; i++) {
+		for (int i = offset; i < offset + length; i++) {
 			int b = data[i] & 0xFF;
 			int index = ((crc >> 16) ^ b) & 0xFF;
 			crc = ((crc << 8) ^ CRC24Q_TABLE[index]) & 0xFFFFFF;
@@ -49,4 +64,29 @@ public class RTCM3 {
 
 		return crc;
 	}
+
+	/**
+	 * Compute the CRC-24Q over part of a buffer using absolute indices, so the buffer position
+	 * is not changed. Works on direct buffers without copying.
+	 *
+	 * @param data   Buffer containing the message
+	 * @param offset Index of the preamble 0xD3
+	 * @param length Number of bytes to include in the CRC (everything except final
+	 *               3-byte CRC)
+	 * @return 24-bit CRC as an int
+	 */
+	public static int computeCRC24Q(ByteBuffer data, int offset, int length) {
+		if (data.hasArray()) {
+			return computeCRC24Q(data.array(), data.arrayOffset() + offset, length);
+		}
+		int crc = 0;
+
+		for (int i = offset; i < offset + length; i++) {
+			int b = data.get(i) & 0xFF;
+			int index = ((crc >> 16) ^ b) & 0xFF;
+			crc = ((crc << 8) ^ CRC24Q_TABLE[index]) & 0xFFFFFF;
+		}
+
+		return crc;
+	}
 }
@@ -0,0 +1,175 @@
+package ie.strix.gnss.rtcm;
+
+import ie.strix.gnss.nmea.ByteScanner;
+
+/**
+ * Find complete, CRC checked RTCM3 frames in a byte stream that arrives in arbitrary pieces,
+ * eg from successive {@code read()} calls on a socket. A frame split across reads is held until
+ * the rest arrives. On a bad CRC or an impossible length the framer resyncs at the next 0xD3.
+ *
+ * Usage:
+ * <pre>
+ * Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -&gt; process(buf, offset, length));
+ * while ((n = in.read(chunk)) != -1) {
+ *     framer.accept(chunk, 0, n);
+ * }
+ * </pre>
+ *
+ * Data is appended to a buffer that is compacted after each scan (as {@link ie.strix.gnss.nmea.NmeaFramer}
+ * does) rather than a ring, so that every frame passed to the handler is contiguous. At most one
+ * partial frame (under {@link #MAX_FRAME_LENGTH} bytes) is carried from one call to the next.
+ *
+ * Not thread safe: one framer per stream.
+ */
+public class Rtcm3Framer {
+
+	/** Preamble, 2 length bytes, up to 1023 payload bytes and 3 CRC bytes */
+	public static final int MAX_FRAME_LENGTH = 3 + 1023 + 3;
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final byte PREAMBLE = (byte)0xD3;
+	private static final ByteScanner SCANNER = ByteScanner.getDefault();
+
+	/**
+	 * Receives each complete frame.
+	 */
+	@FunctionalInterface
+	public interface FrameHandler {
+
+		/**
+		 * @param buf Holds the frame, from the preamble to the last CRC byte. Reused after the
+		 *        call returns: copy the frame to keep it.
+		 * @param offset Index of the preamble.
+		 * @param length Frame length, payload length + 6.
+		 */
+		void onFrame (byte[] buf, int offset, int length);
+	}
+
+	private final FrameHandler handler;
+	private final byte[] buf;
+	private int pos = 0;
+	private int limit = 0;
+
+	private long frameCount = 0;
+	private long crcFailCount = 0;
+	private long skippedBytes = 0;
+
+	public Rtcm3Framer (FrameHandler handler) {
+		this(handler, DEFAULT_BUFFER_SIZE);
+	}
+
+	public Rtcm3Framer (FrameHandler handler, int bufferSize) {
+		if (bufferSize < MAX_FRAME_LENGTH * 2) {
+			throw new IllegalArgumentException("buffer size must be at least " + MAX_FRAME_LENGTH * 2);
+		}
+		this.handler = handler;
+		this.buf = new byte[bufferSize];
+	}
+
+	/**
+	 * Add data to the stream, passing each frame completed to the handler.
+	 *
+	 * @return The number of frames completed.
+	 */
+	public int accept (byte[] data, int offset, int length) {
+		int frames = 0;
+		while (length > 0) {
+			final int n = Math.min(length, buf.length - limit);
+			System.arraycopy(data, offset, buf, limit, n);
+			limit += n;
+			offset += n;
+			length -= n;
+			frames += scan();
+			compact();
+		}
+		return frames;
+	}
+
+	/**
+	 * Pass every complete frame in the buffer to the handler, leaving pos at the start of a
+	 * partial frame (or at limit).
+	 */
+	private int scan () {
+		int frames = 0;
+		while (true) {
+			final int start = SCANNER.indexOf(buf, pos, limit, PREAMBLE);
+			skippedBytes += start - pos;
+			pos = start;
+			if (limit - pos < 3) {
+				return frames;
+			}
+			// 6 reserved bits before the 10 bit length are zero
+			if ((buf[pos + 1] & 0xfc) != 0) {
+				pos++;
+				skippedBytes++;
+				continue;
+			}
+			final int frameLength = (((buf[pos + 1] & 0x03) << 8) | (buf[pos + 2] & 0xff)) + 6;
+			if (limit - pos < frameLength) {
+				return frames;
+			}
+			final int crc = ((buf[pos + frameLength - 3] & 0xff) << 16) | ((buf[pos + frameLength - 2] & 0xff) << 8)
+					| (buf[pos + frameLength - 1] & 0xff);
+			if (crc != RTCM3.computeCRC24Q(buf, pos, frameLength - 3)) {
+				// Not a frame, or a damaged one: look for the next preamble after this one
+				crcFailCount++;
+				pos++;
+				skippedBytes++;
+				continue;
+			}
+			handler.onFrame(buf, pos, frameLength);
+			frameCount++;
+			frames++;
+			pos += frameLength;
+		}
+	}
+
+	/**
+	 * Move the partial frame starting at pos to the start of the buffer.
+	 */
+	private void compact () {
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+	}
+
+	/**
+	 * Discard any partial frame, eg when the connection is reestablished.
+	 */
+	public void reset () {
+		skippedBytes += limit - pos;
+		pos = limit = 0;
+	}
+
+	/**
+	 * @return Number of bytes held waiting for the rest of a frame.
+	 */
+	public int getPendingBytes () {
+		return limit - pos;
+	}
+
+	/**
+	 * @return Number of frames passed to the handler.
+	 */
+	public long getFrameCount () {
+		return frameCount;
+	}
+
+	/**
+	 * @return Number of times a preamble with a complete length was found but the CRC did not
+	 *         match. Random 0xD3 bytes inside frames are not counted as they are skipped with
+	 *         the frame.
+	 */
+	public long getCrcFailCount () {
+		return crcFailCount;
+	}
+
+	/**
+	 * @return Number of bytes discarded outside valid frames.
+	 */
+	public long getSkippedBytes () {
+		return skippedBytes;
+	}
+}
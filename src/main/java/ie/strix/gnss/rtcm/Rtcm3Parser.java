@@ -1,8 +1,11 @@
 package ie.strix.gnss.rtcm;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import ie.strix.gnss.nmea.ByteScanner;
+
 /**
  * 
  * TODO: validate
@@ -11,10 +14,15 @@ import java.util.List;
  * - Validates CRC-24Q (poly 0x1864CFB, init 0, no refin/out, no xorout) -
  * Parses message number (first 12 bits of payload) and station ID (next 12
  * bits)
+ *
+ * {@link #parseAll(byte[])} copies each frame into a {@link Frame}. To look at the headers of
+ * a lot of frames without copying or allocating per frame use a {@link FrameView} as a cursor,
+ * or {@link #forEachFrame(byte[], int, int, FrameVisitor)} with a {@link FrameVisitor}.
  */
 public final class Rtcm3Parser {
 
 	public static final int PREAMBLE = 0xD3;
+	private static final ByteScanner SCANNER = ByteScanner.getDefault();
 	private static final int CRC24Q_POLY = 0x01864CFB;
 	private static final int[] CRC24Q_TABLE = new int[256];
 
@@ -38,7 +46,7 @@ public final class Rtcm3Parser {
 		public final int lengthField; // 10-bit length value (payload size in bytes)
 		public final byte[] payload; // L bytes
 		public final int crcTx; // 24-bit transmitted CRC (big-endian)
-		public final int crcCalc; // 24-bit calculated CRC over [len bytes + payload]
+		public final int crcCalc; // 24-bit calculated CRC over [preamble + len bytes + payload]
 		public final boolean crcOk; // whether calc == tx
 
 		// Convenience fields decoded from payload where available
@@ -78,51 +86,303 @@ public final class Rtcm3Parser {
 	}
 
 	/**
-	 * Scan the given byte array for RTCM3 frames. Returns a list of frames in
-	 * order; malformed/partial frames are skipped safely.
+	 * A frame in the caller's buffer, read in place. Only the payload accessors copy, and only
+	 * when asked. Valid until the next call to {@link #next()} or until the buffer is changed.
+	 *
+	 * Also a cursor over the frames in a buffer. One view can be reused for any number of
+	 * buffers:
+	 * <pre>
+	 * FrameView frame = new FrameView().reset(data, 0, data.length);
+	 * while (frame.next()) {
+	 *     if (frame.getMessageType() == 1005) {
+	 *         decode(frame.getArray(), frame.getPayloadOffset(), frame.getPayloadLength());
+	 *     }
+	 * }
+	 * </pre>
+	 *
+	 * Not thread safe.
 	 */
-	public static List<Frame> parseAll(byte[] data) {
-		List<Frame> out = new ArrayList<>();
-		int i = 0;
-		while (i + 6 <= data.length) { // minimal frame size
-			if ((data[i] & 0xFF) != PREAMBLE) {
-				i++;
-				continue;
+	public static final class FrameView {
+		private byte[] array;
+		private ByteBuffer buffer;
+		private int pos;
+		private int limit;
+		private boolean verifyCrc = true;
+		private long crcFailCount;
+
+		private int offset;
+		private int length;
+
+		/**
+		 * Scan part of an array.
+		 */
+		public FrameView reset(byte[] data, int offset, int length) {
+			this.array = data;
+			this.buffer = null;
+			this.pos = offset;
+			this.limit = offset + length;
+			this.offset = this.length = 0;
+			return this;
+		}
+
+		/**
+		 * Scan a buffer from its position to its limit, using absolute indices so the position
+		 * is not changed. Direct buffers are read in place.
+		 */
+		public FrameView reset(ByteBuffer data) {
+			this.array = null;
+			this.buffer = data;
+			this.pos = data.position();
+			this.limit = data.limit();
+			this.offset = this.length = 0;
+			return this;
+		}
+
+		/**
+		 * View a single frame found elsewhere, eg by {@link Rtcm3Framer}, without checking it
+		 * again.
+		 *
+		 * @param offset Index of the preamble.
+		 * @param length Frame length, payload length + 6.
+		 */
+		public FrameView wrap(byte[] frame, int offset, int length) {
+			reset(frame, offset + length, 0);
+			this.offset = offset;
+			this.length = length;
+			return this;
+		}
+
+		/**
+		 * @param verifyCrc If false {@link #next()} trusts the preamble and length, as
+		 *        {@link Rtcm3Parser#parseAll(byte[])} does, and the payload is not read at
+		 *        all. Only for data already checked, eg a log of framed data. Default true.
+		 */
+		public FrameView setVerifyCrc(boolean verifyCrc) {
+			this.verifyCrc = verifyCrc;
+			return this;
+		}
+
+		/**
+		 * Move to the next frame. With CRC checking a preamble with non-zero reserved bits or
+		 * a bad CRC is skipped and the scan resumes at the following byte.
+		 *
+		 * @return False at the end of the data, leaving {@link #getPosition()} at the start of
+		 *         any partial frame.
+		 */
+		public boolean next() {
+			while (true) {
+				pos = indexOfPreamble(pos);
+				if (limit - pos < 6) {
+					return false;
+				}
+				final int b1 = get(pos + 1);
+				if (verifyCrc && (b1 & 0xfc) != 0) {
+					pos++;
+					continue;
+				}
+				final int frameLength = (((b1 & 0x03) << 8) | get(pos + 2)) + 6;
+				if (limit - pos < frameLength) {
+					return false;
+				}
+				offset = pos;
+				length = frameLength;
+				if (verifyCrc && getTransmittedCrc() != computeCrc()) {
+					crcFailCount++;
+					pos++;
+					continue;
+				}
+				pos += frameLength;
+				return true;
+			}
+		}
+
+		private int indexOfPreamble(int from) {
+			return array != null ? SCANNER.indexOf(array, from, limit, (byte)PREAMBLE)
+					: SCANNER.indexOf(buffer, from, limit, (byte)PREAMBLE);
+		}
+
+		private int get(int i) {
+			return (array != null ? array[i] : buffer.get(i)) & 0xFF;
+		}
+
+		/**
+		 * @return Index after the last frame returned by {@link #next()}, or of the start of a
+		 *         partial frame once it has returned false: where to resume when more data
+		 *         arrives.
+		 */
+		public int getPosition() {
+			return pos;
+		}
+
+		/**
+		 * @return Number of candidate frames skipped for a bad CRC.
+		 */
+		public long getCrcFailCount() {
+			return crcFailCount;
+		}
+
+		/**
+		 * @return The array being scanned, or null for a ByteBuffer.
+		 */
+		public byte[] getArray() {
+			return array;
+		}
+
+		/**
+		 * @return The buffer being scanned, or null for an array.
+		 */
+		public ByteBuffer getBuffer() {
+			return buffer;
+		}
+
+		/**
+		 * @return Index of the preamble in the array or buffer.
+		 */
+		public int getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return Frame length, payload length + 6.
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * @return Index of the first payload byte in the array or buffer.
+		 */
+		public int getPayloadOffset() {
+			return offset + 3;
+		}
+
+		public int getPayloadLength() {
+			return length - 6;
+		}
+
+		/**
+		 * @return First 12 bits of the payload, or -1 if the payload is too short.
+		 */
+		public int getMessageType() {
+			if (length < 6 + 2) {
+				return -1;
 			}
+			return (get(offset + 3) << 4) | (get(offset + 4) >>> 4);
+		}
 
-			if (i + 3 > data.length)
-				break; // need 2 length bytes
-			int b1 = data[i + 1] & 0xFF;
-			int b2 = data[i + 2] & 0xFF;
+		/**
+		 * @return Next 12 bits of the payload, the reference station ID in most messages, or
+		 *         -1 if the payload is too short.
+		 */
+		public int getStationId() {
+			if (length < 6 + 3) {
+				return -1;
+			}
+			return ((get(offset + 4) & 0x0F) << 8) | get(offset + 5);
+		}
+
+		/**
+		 * @return 24-bit CRC sent at the end of the frame.
+		 */
+		public int getTransmittedCrc() {
+			final int end = offset + length;
+			return (get(end - 3) << 16) | (get(end - 2) << 8) | get(end - 1);
+		}
+
+		/**
+		 * @return 24-bit CRC of the preamble, length and payload.
+		 */
+		public int computeCrc() {
+			return array != null ? RTCM3.computeCRC24Q(array, offset, length - 3)
+					: RTCM3.computeCRC24Q(buffer, offset, length - 3);
+		}
 
-			// Extract 10-bit length
-			int L = ((b1 & 0x03) << 8) | b2; // keep only low 2 bits of b1
-			int frameLen = 1 + 2 + L + 3; // preamble + len + payload + crc
+		/**
+		 * @return A copy of the payload.
+		 */
+		public byte[] getPayload() {
+			final byte[] payload = new byte[getPayloadLength()];
+			getPayload(payload, 0);
+			return payload;
+		}
 
-			if (L > 1023) { // not possible per spec, resync
-				i++;
-				continue;
+		/**
+		 * Copy the payload into dst.
+		 */
+		public void getPayload(byte[] dst, int dstOffset) {
+			if (array != null) {
+				System.arraycopy(array, getPayloadOffset(), dst, dstOffset, getPayloadLength());
+			} else {
+				buffer.duplicate().position(getPayloadOffset()).get(dst, dstOffset, getPayloadLength());
 			}
-			if (i + frameLen > data.length) {
-				// partial frame at end; stop scanning
-				break;
+		}
+
+		/**
+		 * @return A buffer over the payload sharing the data, with position 0.
+		 */
+		public ByteBuffer getPayloadBuffer() {
+			if (array != null) {
+				return ByteBuffer.wrap(array, getPayloadOffset(), getPayloadLength()).slice();
 			}
+			return buffer.duplicate().limit(getPayloadOffset() + getPayloadLength()).position(getPayloadOffset()).slice();
+		}
 
-			// Slice payload
-			byte[] payload = new byte[L];
-			System.arraycopy(data, i + 3, payload, 0, L);
+		@Override
+		public String toString() {
+			return "RTCM3 Frame@" + offset + " len=" + getPayloadLength() + " msg=" + getMessageType() + " stn="
+					+ getStationId();
+		}
+	}
 
-			// Transmitted CRC (big-endian) is last 3 bytes
-			int c0 = data[i + 3 + L] & 0xFF;
-			int c1 = data[i + 3 + L + 1] & 0xFF;
-			int c2 = data[i + 3 + L + 2] & 0xFF;
-			int crcTx = (c0 << 16) | (c1 << 8) | c2;
+	/** Receives each frame found by forEachFrame. */
+	@FunctionalInterface
+	public interface FrameVisitor {
 
-			// Calculate CRC over b1,b2,payload
-			int crcCalc = crc24q(data, i + 1, 2 + L);
+		/**
+		 * @param frame Reused for the next frame: copy anything to keep.
+		 */
+		void visit(FrameView frame);
+	}
+
+	/**
+	 * Pass each frame with a good CRC in part of an array to the visitor, in place.
+	 *
+	 * @return Number of frames visited.
+	 */
+	public static int forEachFrame(byte[] data, int offset, int length, FrameVisitor visitor) {
+		return forEach(new FrameView().reset(data, offset, length), visitor);
+	}
+
+	/**
+	 * Pass each frame with a good CRC between the position and limit of a buffer to the
+	 * visitor, in place. The buffer position is not changed.
+	 *
+	 * @return Number of frames visited.
+	 */
+	public static int forEachFrame(ByteBuffer data, FrameVisitor visitor) {
+		return forEach(new FrameView().reset(data), visitor);
+	}
 
-			out.add(new Frame(i, L, payload, crcTx, crcCalc));
-			i += frameLen; // advance to next possible frame
+	private static int forEach(FrameView view, FrameVisitor visitor) {
+		int n = 0;
+		while (view.next()) {
+			visitor.visit(view);
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Scan the given byte array for RTCM3 frames. Returns a list of frames in
+	 * order, each with a copy of its payload and whether its CRC matched;
+	 * partial frames at the end are skipped safely.
+	 */
+	public static List<Frame> parseAll(byte[] data) {
+		List<Frame> out = new ArrayList<>();
+		FrameView view = new FrameView().setVerifyCrc(false).reset(data, 0, data.length);
+		while (view.next()) {
+			out.add(new Frame(view.getOffset(), view.getPayloadLength(), view.getPayload(), view.getTransmittedCrc(),
+					view.computeCrc()));
 		}
 		return out;
 	}
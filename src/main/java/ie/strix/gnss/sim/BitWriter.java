@@ -0,0 +1,37 @@
+package ie.strix.gnss.sim;
+
+/**
+ * Write big-endian bit fields into a byte array, as RTCM3 lays them out. The array must be
+ * zeroed beyond the write position.
+ */
+final class BitWriter {
+
+	private final byte[] data;
+	private int bitPos;
+
+	BitWriter (byte[] data, int bitPos) {
+		this.data = data;
+		this.bitPos = bitPos;
+	}
+
+	/**
+	 * Write the low n bits of value, most significant first. Two's complement for signed fields.
+	 */
+	BitWriter write (long value, int n) {
+		for (int i = n - 1; i >= 0; i--) {
+			if (((value >>> i) & 1) != 0) {
+				data[bitPos >>> 3] |= 0x80 >>> (bitPos & 7);
+			}
+			bitPos++;
+		}
+		return this;
+	}
+
+	BitWriter write (boolean value) {
+		return write(value ? 1 : 0, 1);
+	}
+
+	int getBitPosition () {
+		return bitPos;
+	}
+}
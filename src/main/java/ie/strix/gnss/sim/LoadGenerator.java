@@ -0,0 +1,95 @@
+package ie.strix.gnss.sim;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Many simulated receivers or base stations sending to one server at once, eg an
+ * {@link ie.strix.gnss.nmea.NmeaServer} or an NTRIP caster, to soak test it without hardware.
+ * Each receiver has its own {@link SyntheticSource}, socket and thread.
+ *
+ * <pre>
+ * LoadGenerator load = new LoadGenerator(100, i -&gt; new NmeaGenerator(
+ *         Trajectory.circle(53.28 + i * 0.001, -8.99, 20, 100, 60), start, 100, i));
+ * load.setHeader(i -&gt; "SOURCE rover" + i + "\r\n");
+ * load.run(new InetSocketAddress("localhost", 2101), 600, true);
+ * </pre>
+ */
+@Slf4j
+public class LoadGenerator {
+
+	private final int receivers;
+	private final IntFunction<SyntheticSource> sourceFactory;
+	private IntFunction<String> header = i -> null;
+
+	/**
+	 * @param receivers Number of simulated receivers.
+	 * @param sourceFactory Creates the source for receiver 0..receivers-1.
+	 */
+	public LoadGenerator (int receivers, IntFunction<SyntheticSource> sourceFactory) {
+		if (receivers <= 0) {
+			throw new IllegalArgumentException("receivers must be positive: " + receivers);
+		}
+		this.receivers = receivers;
+		this.sourceFactory = sourceFactory;
+	}
+
+	/**
+	 * @param header The first line(s) each receiver sends, by receiver index, eg
+	 *        {@code i -> "SOURCE /MOUNT" + i + "\r\n\r\n"}. Null for none.
+	 */
+	public void setHeader (IntFunction<String> header) {
+		this.header = header;
+	}
+
+	/**
+	 * Connect every receiver, send nEpoch epochs from each and close the connections.
+	 *
+	 * @param realTime Pace each receiver at its epoch interval, otherwise send as fast as the
+	 *        server reads.
+	 * @return Total bytes sent, excluding headers.
+	 * @throws IOException If any receiver fails to connect or send. The others are stopped.
+	 */
+	public long run (InetSocketAddress address, int nEpoch, boolean realTime) throws IOException, InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(receivers, r -> {
+			final Thread thread = new Thread(r, "load-generator");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			final List<Future<Long>> results = new ArrayList<>();
+			for (int i = 0; i < receivers; i++) {
+				final int index = i;
+				results.add(executor.submit(() -> {
+					final SyntheticSource source = sourceFactory.apply(index);
+					try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+						return source.sendTo(socket, header.apply(index), nEpoch, realTime);
+					}
+				}));
+			}
+			long bytes = 0;
+			for (Future<Long> result : results) {
+				bytes += result.get();
+			}
+			log.info("{} receivers sent {} epochs, {} bytes", receivers, nEpoch, bytes);
+			return bytes;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
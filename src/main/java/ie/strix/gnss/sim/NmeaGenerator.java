@@ -0,0 +1,423 @@
+package ie.strix.gnss.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.nmea.Constellation;
+import lombok.Getter;
+
+/**
+ * A simulated multi-constellation receiver following a {@link Trajectory}. Each epoch is
+ * RMC, GGA, GST and VTG from the GN talker, a GSA per constellation and, when the sky view is
+ * on (see {@link #setSkyViewInterval(int)}), a multi-part GSV per constellation and signal with NMEA 4.10 system and signal IDs.
+ * GLL can be added after GGA with {@link #setGll(boolean)}.
+ *
+ * Position noise is white with the configured standard deviation (vertical twice horizontal)
+ * and is reported in GST. With corruption set, a sentence is either truncated or has one
+ * character changed so that its checksum fails.
+ *
+ * <pre>
+ * NmeaGenerator gen = new NmeaGenerator(Trajectory.circle(53.28, -8.99, 20, 100, 60), start, 100, 1);
+ * gen.setCorruption(0.001);
+ * Stream stream = new Stream(gen.openStream(36_000));
+ * </pre>
+ */
+public class NmeaGenerator extends SyntheticSource {
+
+	/** Constellations with a talker, a NMEA system ID and signals modelled */
+	private static final Set<Constellation> SUPPORTED = EnumSet.of(Constellation.GPS, Constellation.GLONASS,
+			Constellation.GALILEO, Constellation.BEIDOU);
+
+	/** GSV talker in {@link Constellation} order */
+	private static final String[] TALKER = { "GP", "GL", "GA", "GB" };
+	/** NMEA 4.10 system ID in {@link Constellation} order */
+	private static final int[] SYSTEM_ID = { 1, 2, 3, 4 };
+	/** NMEA 4.10 signal IDs reported in GSV, in {@link Constellation} order: L1 C/A + L5 Q, G1 + G2 C/A, E1 + E5a, B1I + B2a */
+	private static final int[][] SIGNAL_ID = { { 1, 8 }, { 1, 3 }, { 7, 1 }, { 1, 5 } };
+	/** Loss in dB of the second signal relative to the first */
+	private static final double SECOND_SIGNAL_LOSS = 3;
+
+	private static final double KNOTS_PER_MS = 3600.0 / 1852;
+	private static final int MAX_USED = 12;
+
+	private final Trajectory trajectory;
+
+	private Constellation[] constellations = SUPPORTED.toArray(new Constellation[0]);
+
+	/** Horizontal position noise standard deviation in m */
+	@Getter
+	private double noise = 0.02;
+
+	/** GGA fix quality */
+	@Getter
+	private int fixType = 4;
+
+	/** Epochs between sky views, 0 for none */
+	@Getter
+	private int skyViewInterval = 1;
+
+	/** Whether GLL is sent each epoch */
+	@Getter
+	private boolean gll;
+
+	private final int[] ids = new int[64];
+	private final int[] used = new int[64];
+	private final StringBuilder epoch = new StringBuilder(4096);
+	private final StringBuilder line = new StringBuilder(128);
+
+	/**
+	 * @param trajectory
+	 * @param start Time of the first epoch, ms since epoch.
+	 * @param interval ms between epochs, eg 100 for 10Hz.
+	 * @param seed For the noise and corruption.
+	 */
+	public NmeaGenerator (Trajectory trajectory, long start, long interval, long seed) {
+		super(start, interval, seed);
+		this.trajectory = trajectory;
+	}
+
+	/**
+	 * @param constellations Subset of GPS, GLONASS, GALILEO and BEIDOU. Default all four.
+	 */
+	public void setConstellations (Constellation... constellations) {
+		for (Constellation c : constellations) {
+			if (!SUPPORTED.contains(c)) {
+				throw new IllegalArgumentException("not supported: " + c);
+			}
+		}
+		this.constellations = constellations.clone();
+	}
+
+	/**
+	 * @param noise Horizontal position noise standard deviation in m, default 0.02 (RTK).
+	 */
+	public void setNoise (double noise) {
+		if (noise < 0) {
+			throw new IllegalArgumentException("noise must not be negative: " + noise);
+		}
+		this.noise = noise;
+	}
+
+	/**
+	 * @param fixType GGA fix quality, default 4 (RTK fixed). 0 gives no position.
+	 */
+	public void setFixType (int fixType) {
+		this.fixType = fixType;
+	}
+
+	/**
+	 * @param skyViewInterval Epochs between GSV reports, default 1 (every epoch). Receivers
+	 *        often report the sky view at 1Hz when the position rate is higher. 0 for no GSV.
+	 */
+	public void setSkyViewInterval (int skyViewInterval) {
+		if (skyViewInterval < 0) {
+			throw new IllegalArgumentException("skyViewInterval must not be negative: " + skyViewInterval);
+		}
+		this.skyViewInterval = skyViewInterval;
+	}
+
+	/**
+	 * @param gll Send GLL after GGA each epoch, default false.
+	 */
+	public void setGll (boolean gll) {
+		this.gll = gll;
+	}
+
+	@Override
+	protected void writeEpoch (ByteArrayOutputStream out, long time, long epochIndex) {
+		final PVT truth = trajectory.at(time);
+		final ZonedDateTime utc = Instant.ofEpochMilli(time).atZone(ZoneOffset.UTC);
+		final boolean fix = fixType != 0 && truth != null;
+		epoch.setLength(0);
+
+		int nUsed = 0;
+		for (Constellation c : constellations) {
+			nUsed += Math.min(usedSatellites(c, time), MAX_USED);
+		}
+		final double hdop = nUsed < 4 ? 99.9 : 0.5 + 4.0 / nUsed;
+
+		double lat = Double.NaN, lng = Double.NaN, alt = Double.NaN;
+		if (fix) {
+			lat = truth.getLatitude() + random.nextGaussian() * noise / Trajectory.M_PER_DEG;
+			lng = truth.getLongitude() + random.nextGaussian() * noise / (Trajectory.M_PER_DEG * Math.cos(Math.toRadians(truth.getLatitude())));
+			alt = truth.getAltitude() + random.nextGaussian() * noise * 2;
+		}
+		final double speed = fix ? truth.getSpeed() : Double.NaN;
+		final double course = fix ? truth.getCourse() : Double.NaN;
+
+		// RMC
+		begin("GNRMC,");
+		appendTime(utc);
+		line.append(fix ? ",A," : ",V,");
+		appendPosition(lat, lng);
+		line.append(',');
+		appendDecimal(speed * KNOTS_PER_MS, 1, 3);
+		line.append(',');
+		appendDecimal(course, 1, 2);
+		line.append(',');
+		append2(utc.getDayOfMonth());
+		append2(utc.getMonthValue());
+		append2(utc.getYear() % 100);
+		line.append(",,,").append(modeIndicator());
+		end();
+
+		// GGA
+		begin("GNGGA,");
+		appendTime(utc);
+		line.append(',');
+		appendPosition(lat, lng);
+		line.append(',').append(fix ? fixType : 0).append(',');
+		append2(Math.min(nUsed, 99));
+		line.append(',');
+		appendDecimal(fix ? hdop : Double.NaN, 1, 1);
+		line.append(',');
+		appendDecimal(alt, 1, 3);
+		line.append(",M,0.0,M,");
+		if (fix && (fixType == 2 || fixType == 4 || fixType == 5)) {
+			line.append("1.0,0000");
+		} else {
+			line.append(',');
+		}
+		end();
+
+		if (gll) {
+			begin("GNGLL,");
+			appendPosition(lat, lng);
+			line.append(',');
+			appendTime(utc);
+			line.append(fix ? ",A," : ",V,").append(modeIndicator());
+			end();
+		}
+
+		// GSA per constellation
+		for (Constellation c : constellations) {
+			final int n = usedSatellites(c, time);
+			begin("GNGSA,A,").append(fix ? '3' : '1');
+			for (int i = 0; i < MAX_USED; i++) {
+				line.append(',');
+				if (i < n) {
+					append2(Sky.nmeaId(c, used[i]));
+				}
+			}
+			line.append(',');
+			appendDecimal(fix ? hdop * 1.8 : Double.NaN, 1, 1);
+			line.append(',');
+			appendDecimal(fix ? hdop : Double.NaN, 1, 1);
+			line.append(',');
+			appendDecimal(fix ? hdop * 1.5 : Double.NaN, 1, 1);
+			line.append(',').append(SYSTEM_ID[c.ordinal()]);
+			end();
+		}
+
+		// GST
+		begin("GNGST,");
+		appendTime(utc);
+		line.append(',');
+		appendDecimal(fix ? noise * 3 : Double.NaN, 1, 3);
+		line.append(',');
+		appendDecimal(fix ? noise * 1.2 : Double.NaN, 1, 3);
+		line.append(',');
+		appendDecimal(fix ? noise * 0.8 : Double.NaN, 1, 3);
+		line.append(',');
+		appendDecimal(fix ? 45.0 : Double.NaN, 1, 1);
+		line.append(',');
+		appendDecimal(fix ? noise : Double.NaN, 1, 3);
+		line.append(',');
+		appendDecimal(fix ? noise : Double.NaN, 1, 3);
+		line.append(',');
+		appendDecimal(fix ? noise * 2 : Double.NaN, 1, 3);
+		end();
+
+		// VTG
+		begin("GNVTG,");
+		appendDecimal(course, 1, 2);
+		line.append(",T,,M,");
+		appendDecimal(speed * KNOTS_PER_MS, 1, 3);
+		line.append(",N,");
+		appendDecimal(speed * 3.6, 1, 3);
+		line.append(",K,").append(modeIndicator());
+		end();
+
+		if (skyViewInterval > 0 && epochIndex % skyViewInterval == 0) {
+			for (Constellation c : constellations) {
+				appendGsv(c, time);
+			}
+		}
+
+		for (int i = 0; i < epoch.length(); i++) {
+			out.write(epoch.charAt(i));
+		}
+	}
+
+	/**
+	 * GSV for each signal of a constellation, 4 satellites per sentence.
+	 */
+	private void appendGsv (Constellation c, long time) {
+		final int n = Sky.visible(c, time, ids);
+		final int nMessages = Math.max(1, (n + 3) / 4);
+		for (int s = 0; s < SIGNAL_ID[c.ordinal()].length; s++) {
+			final double loss = s == 0 ? 0 : SECOND_SIGNAL_LOSS;
+			for (int m = 0; m < nMessages; m++) {
+				begin(TALKER[c.ordinal()]).append("GSV,").append(nMessages).append(',').append(m + 1).append(',');
+				append2(n);
+				for (int i = m * 4; i < Math.min(n, m * 4 + 4); i++) {
+					final double el = Sky.elevation(c, ids[i], time);
+					line.append(',');
+					append2(Sky.nmeaId(c, ids[i]));
+					line.append(',');
+					append2((int)Math.round(el));
+					line.append(',');
+					append3((int)Sky.azimuth(c, ids[i], time));
+					line.append(',');
+					append2((int)Math.round(Sky.cn0(el) - loss + random.nextGaussian()));
+				}
+				line.append(',').append(Character.toUpperCase(Character.forDigit(SIGNAL_ID[c.ordinal()][s], 16)));
+				end();
+			}
+		}
+	}
+
+	/**
+	 * Fill used with the satellites of a constellation used in the fix: visible and above 10
+	 * degrees, at most 12.
+	 *
+	 * @return Number used.
+	 */
+	private int usedSatellites (Constellation c, long time) {
+		final int n = Sky.visible(c, time, ids);
+		int nUsed = 0;
+		for (int i = 0; i < n && nUsed < MAX_USED; i++) {
+			if (Sky.elevation(c, ids[i], time) > 10) {
+				used[nUsed++] = ids[i];
+			}
+		}
+		return nUsed;
+	}
+
+	private char modeIndicator () {
+		switch (fixType) {
+		case 0: return 'N';
+		case 2: return 'D';
+		case 4: return 'R';
+		case 5: return 'F';
+		case 6: return 'E';
+		default: return 'A';
+		}
+	}
+
+	private StringBuilder begin (String start) {
+		line.setLength(0);
+		line.append('$').append(start);
+		return line;
+	}
+
+	/**
+	 * Add the checksum and CRLF and append the line to the epoch, corrupting it if chosen.
+	 */
+	private void end () {
+		int checksum = 0;
+		for (int i = 1; i < line.length(); i++) {
+			checksum ^= line.charAt(i);
+		}
+		line.append('*').append(Character.toUpperCase(Character.forDigit(checksum >> 4, 16)))
+				.append(Character.toUpperCase(Character.forDigit(checksum & 0xf, 16)));
+		if (corrupt()) {
+			if (random.nextBoolean()) {
+				// Bytes lost: the rest of the sentence is missing
+				line.setLength(1 + random.nextInt(line.length() - 1));
+			} else {
+				// A changed character between the talker and the checksum
+				final int i = 6 + random.nextInt(line.length() - 9);
+				line.setCharAt(i, line.charAt(i) == '0' ? '1' : '0');
+			}
+		}
+		epoch.append(line).append("\r\n");
+	}
+
+	private void appendTime (ZonedDateTime utc) {
+		append2(utc.getHour());
+		append2(utc.getMinute());
+		append2(utc.getSecond());
+		line.append('.');
+		append2(utc.getNano() / 10_000_000);
+	}
+
+	/**
+	 * Latitude and longitude in ddmm.mmmmmmm form with hemisphere, or empty fields if NaN.
+	 */
+	private void appendPosition (double lat, double lng) {
+		if (Double.isNaN(lat)) {
+			line.append(",,,");
+			return;
+		}
+		appendDegreesMinutes(Math.abs(lat), 2);
+		line.append(lat < 0 ? ",S," : ",N,");
+		appendDegreesMinutes(Math.abs(lng), 3);
+		line.append(lng < 0 ? ",W" : ",E");
+	}
+
+	private void appendDegreesMinutes (double value, int degreeDigits) {
+		final long scaled = Math.round(value * 60e7);
+		final long degrees = scaled / 600_000_000L;
+		appendDecimal((scaled - degrees * 600_000_000L) / 1e7, 2, 7, degrees, degreeDigits);
+	}
+
+	private void appendDecimal (double value, int intDigits, int decimals) {
+		appendDecimal(value, intDigits, decimals, -1, 0);
+	}
+
+	/**
+	 * Append a fixed point number with at least intDigits before the point. Nothing is
+	 * appended for NaN.
+	 *
+	 * @param prefix If not negative, a number appended first zero padded to prefixDigits.
+	 */
+	private void appendDecimal (double value, int intDigits, int decimals, long prefix, int prefixDigits) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		long scale = 1;
+		for (int i = 0; i < decimals; i++) {
+			scale *= 10;
+		}
+		long scaled = Math.round(value * scale);
+		if (scaled < 0) {
+			line.append('-');
+			scaled = -scaled;
+		}
+		if (prefix >= 0) {
+			pad(prefix, prefixDigits);
+		}
+		pad(scaled / scale, intDigits);
+		if (decimals > 0) {
+			line.append('.');
+			pad(scaled % scale, decimals);
+		}
+	}
+
+	private void pad (long value, int digits) {
+		long limit = 10;
+		for (int i = 1; i < digits; i++, limit *= 10) {
+			if (value < limit) {
+				for (int j = i; j < digits; j++) {
+					line.append('0');
+				}
+				break;
+			}
+		}
+		line.append(value);
+	}
+
+	private void append2 (int value) {
+		pad(value, 2);
+	}
+
+	private void append3 (int value) {
+		pad(value, 3);
+	}
+}
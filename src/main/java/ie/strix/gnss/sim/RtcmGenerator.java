@@ -0,0 +1,350 @@
+package ie.strix.gnss.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.nmea.Constellation;
+import ie.strix.gnss.rtcm.RTCM3;
+import lombok.Getter;
+
+/**
+ * A simulated RTCM3 base station. Each epoch is one MSM message per constellation (MSM4 to MSM7,
+ * default MSM7) with every visible satellite on two signals, preceded every
+ * {@link #getReferenceInterval()} epochs by the antenna reference point as 1005, or 1006 when
+ * an antenna height is set.
+ *
+ * Every field is filled in: the station position is the given one, and MSM ranges, phases,
+ * rates and C/N0 are consistent with the simulated sky (with a little noise), so that frames
+ * decode to plausible values as well as being the size of real ones. Frames carry a valid
+ * CRC-24Q ({@link RTCM3#computeCRC24Q(byte[], int)}). With corruption set a frame either has
+ * one byte changed or loses its tail.
+ */
+public class RtcmGenerator extends SyntheticSource {
+
+	/** Speed of light m/s */
+	public static final double C = 299_792_458.0;
+
+	/** GPS time zero, 1980-01-06T00:00:00Z, ms since the Unix epoch */
+	private static final long GPS_EPOCH = 315_964_800_000L;
+	private static final long LEAP_SECONDS_MS = 18_000;
+	private static final long BDS_OFFSET_MS = 14_000;
+	private static final long WEEK_MS = 7 * 86_400_000L;
+
+	private static final Set<Constellation> SUPPORTED = EnumSet.of(Constellation.GPS, Constellation.GLONASS,
+			Constellation.GALILEO, Constellation.BEIDOU);
+
+	/** MSM message number base (MSM1 = base + 1) in {@link Constellation} order */
+	private static final int[] MSM_BASE = { 1070, 1080, 1090, 1120 };
+	/**
+	 * RTCM MSM signal IDs in {@link Constellation} order: GPS 1C + 5Q, GLONASS 1C + 2C, Galileo
+	 * 1C + 5Q, BeiDou 2I + 5P.
+	 */
+	private static final int[][] SIGNAL_ID = { { 2, 23 }, { 2, 8 }, { 2, 23 }, { 2, 23 } };
+
+	private static final int MAX_PAYLOAD = 1023;
+
+	@Getter
+	private final int stationId;
+	private final double[] ecef;
+
+	private Constellation[] constellations = SUPPORTED.toArray(new Constellation[0]);
+
+	/** MSM type 4..7 */
+	@Getter
+	private int msm = 7;
+
+	/** Epochs between reference station messages */
+	@Getter
+	private int referenceInterval = 10;
+
+	/** Antenna height in m for 1006, or NaN to send 1005 */
+	@Getter
+	private double antennaHeight = Double.NaN;
+
+	private final int[] ids = new int[64];
+	private final byte[] buf = new byte[MAX_PAYLOAD + 6];
+
+	/**
+	 * @param stationId 0..4095
+	 * @param lat Antenna reference point latitude in degrees.
+	 * @param lng Antenna reference point longitude in degrees.
+	 * @param alt Antenna reference point height above the ellipsoid in m.
+	 * @param start Time of the first epoch, ms since epoch.
+	 * @param interval ms between epochs, eg 1000 for 1Hz.
+	 * @param seed For the noise and corruption.
+	 */
+	public RtcmGenerator (int stationId, double lat, double lng, double alt, long start, long interval, long seed) {
+		super(start, interval, seed);
+		if (stationId < 0 || stationId > 4095) {
+			throw new IllegalArgumentException("stationId must be 0..4095: " + stationId);
+		}
+		this.stationId = stationId;
+		this.ecef = ECEF.latLngAltToEcef(lat, lng, alt);
+	}
+
+	/**
+	 * @param constellations Subset of GPS, GLONASS, GALILEO and BEIDOU. Default all four.
+	 */
+	public void setConstellations (Constellation... constellations) {
+		for (Constellation c : constellations) {
+			if (!SUPPORTED.contains(c)) {
+				throw new IllegalArgumentException("not supported: " + c);
+			}
+		}
+		this.constellations = constellations.clone();
+	}
+
+	/**
+	 * @param msm 4, 5, 6 or 7.
+	 */
+	public void setMsm (int msm) {
+		if (msm < 4 || msm > 7) {
+			throw new IllegalArgumentException("msm must be 4..7: " + msm);
+		}
+		this.msm = msm;
+	}
+
+	/**
+	 * @param referenceInterval Epochs between 1005/1006 messages, 0 for none.
+	 */
+	public void setReferenceInterval (int referenceInterval) {
+		this.referenceInterval = referenceInterval;
+	}
+
+	/**
+	 * @param antennaHeight m above the reference point, sent in 1006. NaN (the default) sends 1005.
+	 */
+	public void setAntennaHeight (double antennaHeight) {
+		this.antennaHeight = antennaHeight;
+	}
+
+	/**
+	 * @return ECEF X, Y, Z in m of the antenna reference point.
+	 */
+	public double[] getEcef () {
+		return ecef.clone();
+	}
+
+	@Override
+	protected void writeEpoch (ByteArrayOutputStream out, long time, long epochIndex) {
+		if (referenceInterval > 0 && epochIndex % referenceInterval == 0) {
+			writeFrame(out, referenceStation());
+		}
+		for (int i = 0; i < constellations.length; i++) {
+			writeFrame(out, msm(constellations[i], time, i == constellations.length - 1));
+		}
+	}
+
+	/**
+	 * Wrap a payload in an RTCM3 frame: preamble, 10 bit length and CRC-24Q.
+	 *
+	 * @param payload
+	 * @param length Payload length, at most 1023.
+	 * @return The frame, length + 6 bytes.
+	 */
+	public static byte[] frame (byte[] payload, int length) {
+		final byte[] frame = new byte[length + 6];
+		System.arraycopy(payload, 0, frame, 3, length);
+		seal(frame, length);
+		return frame;
+	}
+
+	/**
+	 * Fill in the preamble, length and CRC of a frame whose payload is in place at offset 3.
+	 */
+	private static void seal (byte[] frame, int length) {
+		if (length > MAX_PAYLOAD) {
+			throw new IllegalArgumentException("payload too long: " + length);
+		}
+		frame[0] = (byte)0xD3;
+		frame[1] = (byte)(length >> 8);
+		frame[2] = (byte)length;
+		final int crc = RTCM3.computeCRC24Q(frame, length + 3);
+		frame[length + 3] = (byte)(crc >> 16);
+		frame[length + 4] = (byte)(crc >> 8);
+		frame[length + 5] = (byte)crc;
+	}
+
+	/**
+	 * Seal the frame in {@link #buf} and write it, corrupting it if chosen.
+	 */
+	private void writeFrame (ByteArrayOutputStream out, int payloadLength) {
+		seal(buf, payloadLength);
+		int length = payloadLength + 6;
+		if (corrupt()) {
+			if (random.nextBoolean()) {
+				// Bytes lost: the rest of the frame is missing
+				length = 1 + random.nextInt(length - 1);
+			} else {
+				buf[1 + random.nextInt(length - 1)] ^= 1 << random.nextInt(8);
+			}
+		}
+		out.write(buf, 0, length);
+	}
+
+	/**
+	 * @return A BitWriter at the start of the payload of a cleared {@link #buf}.
+	 */
+	private BitWriter payload () {
+		Arrays.fill(buf, (byte)0);
+		return new BitWriter(buf, 24);
+	}
+
+	private static int payloadLength (BitWriter bw) {
+		return (bw.getBitPosition() - 24 + 7) / 8;
+	}
+
+	/**
+	 * Write 1005 or 1006 into {@link #buf}.
+	 *
+	 * @return Payload length.
+	 */
+	private int referenceStation () {
+		final boolean height = !Double.isNaN(antennaHeight);
+		final BitWriter bw = payload();
+		bw.write(height ? 1006 : 1005, 12); // DF002
+		bw.write(stationId, 12); // DF003
+		bw.write(0, 6); // DF021 ITRF realization year
+		bw.write(true).write(true).write(true); // DF022-DF024 GPS, GLONASS, Galileo
+		bw.write(false); // DF141 physical reference station
+		bw.write(Math.round(ecef[0] * 10_000), 38); // DF025
+		bw.write(false); // DF142 single receiver oscillator
+		bw.write(false); // DF001 reserved
+		bw.write(Math.round(ecef[1] * 10_000), 38); // DF026
+		bw.write(0, 2); // DF364 quarter cycle indicator
+		bw.write(Math.round(ecef[2] * 10_000), 38); // DF027
+		if (height) {
+			bw.write(Math.round(antennaHeight * 10_000), 16); // DF028
+		}
+		return payloadLength(bw);
+	}
+
+	/**
+	 * Write an MSM message into {@link #buf}.
+	 *
+	 * @param last False to set the multiple message bit: more MSM follow for this epoch.
+	 * @return Payload length.
+	 */
+	private int msm (Constellation c, long time, boolean last) {
+		final int[] signals = SIGNAL_ID[c.ordinal()];
+		final int nSig = signals.length;
+		// The cell mask is at most 64 bits
+		final int nSat = Math.min(Sky.visible(c, time, ids), 64 / nSig);
+
+		final BitWriter bw = payload();
+		bw.write(MSM_BASE[c.ordinal()] + msm, 12); // DF002
+		bw.write(stationId, 12); // DF003
+		bw.write(epochTime(c, time), 30);
+		bw.write(!last); // DF393 multiple message bit
+		bw.write(0, 3); // DF409 IODS
+		bw.write(0, 7); // DF001 reserved
+		bw.write(0, 2); // DF411 clock steering
+		bw.write(0, 2); // DF412 external clock
+		bw.write(false); // DF417 divergence free smoothing
+		bw.write(0, 3); // DF418 smoothing interval
+
+		long satMask = 0;
+		for (int i = 0; i < nSat; i++) {
+			satMask |= 1L << (64 - ids[i]);
+		}
+		bw.write(satMask, 64);
+		long sigMask = 0;
+		for (int s : signals) {
+			sigMask |= 1L << (32 - s);
+		}
+		bw.write(sigMask, 32);
+		// Every satellite tracked on every signal
+		for (int i = 0; i < nSat * nSig; i++) {
+			bw.write(true);
+		}
+
+		// Range in units of 2^-10 ms and rate in m/s per satellite
+		final long[] rough = new long[nSat];
+		final double[] fine = new double[nSat];
+		final double[] rate = new double[nSat];
+		final double[] cn0 = new double[nSat];
+		for (int i = 0; i < nSat; i++) {
+			final double el = Sky.elevation(c, ids[i], time);
+			final double range = Sky.range(c, el);
+			final double rangeMs = range / C * 1000;
+			rough[i] = Math.round(rangeMs * 1024);
+			fine[i] = rangeMs - rough[i] / 1024.0;
+			rate[i] = Sky.range(c, Sky.elevation(c, ids[i], time + 1000)) - range;
+			cn0[i] = Sky.cn0(el);
+		}
+
+		// Satellite data
+		for (int i = 0; i < nSat; i++) {
+			bw.write(rough[i] >> 10, 8); // DF397 integer ms
+		}
+		if (msm == 5 || msm == 7) {
+			for (int i = 0; i < nSat; i++) {
+				// GLONASS frequency channel number + 7
+				bw.write(c == Constellation.GLONASS ? ids[i] % 14 : 0, 4);
+			}
+		}
+		for (int i = 0; i < nSat; i++) {
+			bw.write(rough[i] & 0x3ff, 10); // DF398 fraction of ms in 2^-10 ms
+		}
+		if (msm == 5 || msm == 7) {
+			for (int i = 0; i < nSat; i++) {
+				bw.write(Math.round(rate[i]), 14); // DF399 m/s
+			}
+		}
+
+		// Signal data, cells in satellite then signal order
+		final int nCell = nSat * nSig;
+		final boolean high = msm >= 6;
+		for (int cell = 0; cell < nCell; cell++) {
+			final double pr = fine[cell / nSig] + random.nextGaussian() * 0.3 / C * 1000;
+			// DF405 2^-29 ms, or DF400 2^-24 ms
+			bw.write(Math.round(pr * (high ? 0x1p29 : 0x1p24)), high ? 20 : 15);
+		}
+		for (int cell = 0; cell < nCell; cell++) {
+			final double cp = fine[cell / nSig] + random.nextGaussian() * 0.002 / C * 1000;
+			// DF406 2^-31 ms, or DF401 2^-29 ms
+			bw.write(Math.round(cp * (high ? 0x1p31 : 0x1p29)), high ? 24 : 22);
+		}
+		for (int cell = 0; cell < nCell; cell++) {
+			// DF407 or DF402 lock time indicator: locked throughout
+			bw.write(high ? 704 : 15, high ? 10 : 4);
+		}
+		for (int cell = 0; cell < nCell; cell++) {
+			bw.write(false); // DF420 half cycle ambiguity
+		}
+		for (int cell = 0; cell < nCell; cell++) {
+			final double snr = cn0[cell / nSig] - (cell % nSig) * 3 + random.nextGaussian();
+			// DF408 2^-4 dBHz, or DF403 dBHz
+			bw.write(Math.max(0, Math.round(high ? snr * 16 : snr)), high ? 10 : 6);
+		}
+		if (msm == 5 || msm == 7) {
+			for (int cell = 0; cell < nCell; cell++) {
+				final int sat = cell / nSig;
+				final double fineRate = rate[sat] - Math.round(rate[sat]) + random.nextGaussian() * 0.01;
+				bw.write(Math.round(fineRate * 10_000), 15); // DF404 0.0001 m/s
+			}
+		}
+		return payloadLength(bw);
+	}
+
+	/**
+	 * @return MSM epoch time field: GPS/Galileo time of week in ms, BeiDou time of week in ms,
+	 *         or for GLONASS day of week (3 bits) and Moscow time of day in ms (27 bits).
+	 */
+	static long epochTime (Constellation c, long time) {
+		switch (c) {
+		case GLONASS:
+			final long moscow = time + 3 * 3_600_000L;
+			final long day = Math.floorDiv(moscow, 86_400_000L);
+			// The Unix epoch was a Thursday; GLONASS counts days from Sunday
+			return (Math.floorMod(day + 4, 7) << 27) | Math.floorMod(moscow, 86_400_000L);
+		case BEIDOU:
+			return Math.floorMod(time - GPS_EPOCH + LEAP_SECONDS_MS - BDS_OFFSET_MS, WEEK_MS);
+		default:
+			return Math.floorMod(time - GPS_EPOCH + LEAP_SECONDS_MS, WEEK_MS);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package ie.strix.gnss.sim;
+
+import ie.strix.gnss.nmea.Constellation;
+
+/**
+ * A made up but plausible sky: each satellite rises and sets once per orbital period, with
+ * azimuth turning slowly, so that roughly half of each constellation is above the horizon at
+ * any time and the set changes over minutes. Deterministic in time, so every generator sharing
+ * a start time sees the same satellites.
+ */
+final class Sky {
+
+	/** Elevation mask in degrees */
+	static final double MASK = 5;
+
+	/** Satellites modelled per constellation, in {@link Constellation} order */
+	private static final int[] N_SAT = { 32, 24, 30, 40 };
+	/** Orbital period in seconds, in {@link Constellation} order */
+	private static final double[] PERIOD = { 43_082, 40_544, 50_680, 46_380 };
+	/** Orbit altitude in m, in {@link Constellation} order */
+	private static final double[] ALTITUDE = { 20_180_000, 19_130_000, 23_222_000, 21_528_000 };
+
+	private static final double EARTH_RADIUS = 6_371_000;
+	private static final double GOLDEN = 0.6180339887498949;
+
+	private Sky () {
+	}
+
+	static boolean isSupported (Constellation constellation) {
+		return constellation.ordinal() < N_SAT.length;
+	}
+
+	/**
+	 * @return Number of satellites modelled, numbered 1..n (the RTCM satellite ID).
+	 */
+	static int satelliteCount (Constellation constellation) {
+		return N_SAT[constellation.ordinal()];
+	}
+
+	/**
+	 * @param id 1..{@link #satelliteCount(Constellation)}
+	 * @return NMEA satellite ID: 65.. for GLONASS, otherwise the PRN.
+	 */
+	static int nmeaId (Constellation constellation, int id) {
+		return constellation == Constellation.GLONASS ? id + 64 : id;
+	}
+
+	/**
+	 * @param time ms since epoch.
+	 * @return Elevation in degrees, negative below the horizon.
+	 */
+	static double elevation (Constellation constellation, int id, long time) {
+		final double phase = (id * GOLDEN + constellation.ordinal() * 0.25) % 1.0;
+		// Triangle wave: elevation changes at a steady rate and is spread evenly over -90..90
+		return Math.toDegrees(Math.asin(Math.sin(2 * Math.PI * (time / 1000.0 / PERIOD[constellation.ordinal()] + phase))));
+	}
+
+	/**
+	 * @return Azimuth in degrees 0..360.
+	 */
+	static double azimuth (Constellation constellation, int id, long time) {
+		final double phase = (id * GOLDEN * 7 + constellation.ordinal() * 0.1) % 1.0;
+		return 360 * ((time / 1000.0 / PERIOD[constellation.ordinal()] + phase) % 1.0);
+	}
+
+	/**
+	 * @return Geometric range in m to a satellite at the given elevation.
+	 */
+	static double range (Constellation constellation, double elevation) {
+		final double r = EARTH_RADIUS + ALTITUDE[constellation.ordinal()];
+		final double sinEl = Math.sin(Math.toRadians(elevation));
+		final double cosEl = Math.cos(Math.toRadians(elevation));
+		return Math.sqrt(r * r - EARTH_RADIUS * EARTH_RADIUS * cosEl * cosEl) - EARTH_RADIUS * sinEl;
+	}
+
+	/**
+	 * @return C/N0 in dBHz for a satellite at the given elevation, before noise.
+	 */
+	static double cn0 (double elevation) {
+		return 28 + 22 * Math.sin(Math.toRadians(Math.max(elevation, 0)));
+	}
+
+	/**
+	 * Fill ids with the satellites of a constellation above the mask at time.
+	 *
+	 * @param ids At least {@link #satelliteCount(Constellation)} long.
+	 * @return Number of satellites visible, in increasing ID order.
+	 */
+	static int visible (Constellation constellation, long time, int[] ids) {
+		int n = 0;
+		for (int id = 1; id <= N_SAT[constellation.ordinal()]; id++) {
+			if (elevation(constellation, id, time) > MASK) {
+				ids[n++] = id;
+			}
+		}
+		return n;
+	}
+}
@@ -0,0 +1,248 @@
+package ie.strix.gnss.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import lombok.Getter;
+
+/**
+ * A simulated receiver or base station producing one epoch of data at a time at a fixed rate.
+ * The same source can be written to a file, read as an {@link InputStream} or {@link Reader},
+ * or sent to a socket in real time. Output is deterministic for a given seed.
+ *
+ * Not thread safe: each source is one receiver and is used by one thread.
+ */
+public abstract class SyntheticSource {
+
+	protected final Random random;
+
+	/** Time of the next epoch, ms since epoch */
+	@Getter
+	private long time;
+
+	/** ms between epochs */
+	@Getter
+	private final long interval;
+
+	/** Number of epochs generated so far */
+	@Getter
+	private long epochCount;
+
+	/**
+	 * Probability that each sentence or frame is corrupted.
+	 */
+	@Getter
+	private double corruption;
+
+	private final ByteArrayOutputStream epochBuffer = new ByteArrayOutputStream(8192);
+
+	/**
+	 * @param start Time of the first epoch, ms since epoch.
+	 * @param interval ms between epochs.
+	 * @param seed For the noise and corruption.
+	 */
+	protected SyntheticSource (long start, long interval, long seed) {
+		if (interval <= 0) {
+			throw new IllegalArgumentException("interval must be positive: " + interval);
+		}
+		this.time = start;
+		this.interval = interval;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @param corruption Probability 0..1 that each sentence or frame is corrupted. What
+	 *        corruption means is up to the source, eg a flipped byte or lost bytes.
+	 */
+	public void setCorruption (double corruption) {
+		if (corruption < 0 || corruption > 1) {
+			throw new IllegalArgumentException("corruption must be 0..1: " + corruption);
+		}
+		this.corruption = corruption;
+	}
+
+	/**
+	 * Write one epoch.
+	 *
+	 * @param out
+	 * @param time Time of the epoch, ms since epoch.
+	 * @param epochIndex 0 for the first epoch.
+	 */
+	protected abstract void writeEpoch (ByteArrayOutputStream out, long time, long epochIndex);
+
+	/**
+	 * @return True (with probability {@link #getCorruption()}) if the next sentence or frame
+	 *         should be corrupted.
+	 */
+	protected boolean corrupt () {
+		return corruption > 0 && random.nextDouble() < corruption;
+	}
+
+	/**
+	 * Append the next epoch to out and advance time.
+	 */
+	public void nextEpoch (ByteArrayOutputStream out) {
+		writeEpoch(out, time, epochCount);
+		time += interval;
+		epochCount++;
+	}
+
+	/**
+	 * @return The next epoch. Time is advanced.
+	 */
+	public byte[] nextEpoch () {
+		epochBuffer.reset();
+		nextEpoch(epochBuffer);
+		return epochBuffer.toByteArray();
+	}
+
+	/**
+	 * @return The next nEpoch epochs in one array.
+	 */
+	public byte[] generate (int nEpoch) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(nEpoch * 1024);
+		for (int i = 0; i < nEpoch; i++) {
+			nextEpoch(out);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write the next nEpoch epochs as fast as possible.
+	 *
+	 * @return Number of bytes written.
+	 */
+	public long writeTo (OutputStream out, int nEpoch) throws IOException {
+		return send(out, nEpoch, false);
+	}
+
+	/**
+	 * Write the next nEpoch epochs to a file, replacing it.
+	 *
+	 * @return Number of bytes written.
+	 */
+	public long writeTo (File file, int nEpoch) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			return writeTo(out, nEpoch);
+		}
+	}
+
+	/**
+	 * Send the next nEpoch epochs to a socket, eg a {@link ie.strix.gnss.nmea.NmeaServer} or an
+	 * NTRIP caster. The socket is not closed.
+	 *
+	 * @param header Sent first if not null, eg {@code "SOURCE /MOUNT\r\n\r\n"}.
+	 * @param realTime Send each epoch {@link #getInterval()} after the one before, as a real
+	 *        receiver would, otherwise as fast as the socket allows.
+	 * @return Number of bytes written, excluding the header.
+	 */
+	public long sendTo (Socket socket, String header, int nEpoch, boolean realTime) throws IOException, InterruptedException {
+		final OutputStream out = socket.getOutputStream();
+		if (header != null) {
+			out.write(header.getBytes(StandardCharsets.US_ASCII));
+		}
+		try {
+			return send(out, nEpoch, realTime);
+		} catch (InterruptedIOException e) {
+			throw new InterruptedException();
+		}
+	}
+
+	private long send (OutputStream out, int nEpoch, boolean realTime) throws IOException {
+		final long t0 = System.nanoTime();
+		long bytes = 0;
+		for (int i = 0; i < nEpoch; i++) {
+			if (realTime) {
+				pace(t0, i);
+			}
+			epochBuffer.reset();
+			nextEpoch(epochBuffer);
+			epochBuffer.writeTo(out);
+			bytes += epochBuffer.size();
+			if (realTime) {
+				out.flush();
+			}
+		}
+		out.flush();
+		return bytes;
+	}
+
+	/**
+	 * Sleep until epoch i is due.
+	 */
+	private void pace (long t0, int i) throws InterruptedIOException {
+		final long due = t0 + i * interval * 1_000_000L;
+		long wait;
+		while ((wait = due - System.nanoTime()) > 0) {
+			try {
+				Thread.sleep(wait / 1_000_000L, (int)(wait % 1_000_000L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted");
+			}
+		}
+	}
+
+	/**
+	 * @param nEpoch Number of epochs, or -1 for an endless stream.
+	 * @return The next epochs, generated as they are read.
+	 */
+	public InputStream openStream (long nEpoch) {
+		return new InputStream() {
+			private byte[] epoch = new byte[0];
+			private int pos;
+			private long remaining = nEpoch;
+
+			private boolean fill () {
+				while (pos == epoch.length) {
+					if (remaining == 0) {
+						return false;
+					}
+					if (remaining > 0) {
+						remaining--;
+					}
+					epoch = nextEpoch();
+					pos = 0;
+				}
+				return true;
+			}
+
+			@Override
+			public int read () {
+				return fill() ? epoch[pos++] & 0xff : -1;
+			}
+
+			@Override
+			public int read (byte[] b, int off, int len) {
+				if (len == 0) {
+					return 0;
+				}
+				if (!fill()) {
+					return -1;
+				}
+				final int n = Math.min(len, epoch.length - pos);
+				System.arraycopy(epoch, pos, b, off, n);
+				pos += n;
+				return n;
+			}
+		};
+	}
+
+	/**
+	 * @param nEpoch Number of epochs, or -1 for an endless stream.
+	 * @return The next epochs as ASCII text, generated as they are read.
+	 */
+	public Reader openReader (long nEpoch) {
+		return new InputStreamReader(openStream(nEpoch), StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,98 @@
+package ie.strix.gnss.sim;
+
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.Track;
+
+/**
+ * The true path of a simulated receiver: position, course and speed at any time. Generators add
+ * noise to this.
+ */
+@FunctionalInterface
+public interface Trajectory {
+
+	/** Meters per degree of latitude (spherical approximation, fine over a few km) */
+	double M_PER_DEG = 6378137.0 * Math.PI / 180;
+
+	/**
+	 * @param timestamp ms since epoch.
+	 * @return Position at timestamp, with course (degrees true) and speed (m/s) set.
+	 */
+	PVT at (long timestamp);
+
+	/**
+	 * A receiver that does not move, eg a base station.
+	 */
+	static Trajectory stationary (double lat, double lng, double alt) {
+		return timestamp -> {
+			final PVT pvt = new PVT(timestamp, lat, lng, alt);
+			pvt.setCourse(0);
+			pvt.setSpeed(0);
+			return pvt;
+		};
+	}
+
+	/**
+	 * A straight line at constant speed.
+	 *
+	 * @param start Time (ms since epoch) at which the receiver is at lat, lng.
+	 * @param course Degrees true.
+	 * @param speed m/s
+	 */
+	static Trajectory line (long start, double lat, double lng, double alt, double course, double speed) {
+		final double north = Math.cos(Math.toRadians(course)) * speed / M_PER_DEG;
+		final double east = Math.sin(Math.toRadians(course)) * speed / (M_PER_DEG * Math.cos(Math.toRadians(lat)));
+		return timestamp -> {
+			final double t = (timestamp - start) / 1000.0;
+			final PVT pvt = new PVT(timestamp, lat + north * t, lng + east * t, alt);
+			pvt.setCourse(course);
+			pvt.setSpeed(speed);
+			return pvt;
+		};
+	}
+
+	/**
+	 * Clockwise laps of a circle, eg a survey vehicle on a test track.
+	 *
+	 * @param lat Center latitude.
+	 * @param lng Center longitude.
+	 * @param radius m
+	 * @param period Seconds per lap.
+	 */
+	static Trajectory circle (double lat, double lng, double alt, double radius, double period) {
+		final double mPerDegLng = M_PER_DEG * Math.cos(Math.toRadians(lat));
+		final double speed = 2 * Math.PI * radius / period;
+		return timestamp -> {
+			// Bearing from the center, clockwise from north
+			final double bearing = 2 * Math.PI * ((timestamp / 1000.0 / period) % 1.0);
+			final PVT pvt = new PVT(timestamp, lat + radius * Math.cos(bearing) / M_PER_DEG,
+					lng + radius * Math.sin(bearing) / mPerDegLng, alt);
+			pvt.setCourse((Math.toDegrees(bearing) + 90) % 360);
+			pvt.setSpeed(speed);
+			return pvt;
+		};
+	}
+
+	/**
+	 * Replay a recorded track. Course and speed are from the position one second later, and
+	 * are not set in the last second of the track. After the end of the track this returns null.
+	 */
+	static Trajectory of (Track track) {
+		return timestamp -> {
+			final PVT p = track.interpolate(timestamp);
+			final PVT next = track.interpolate(timestamp + 1000);
+			if (p == null) {
+				return null;
+			}
+			// Before the start of the track interpolate returns the first fix itself
+			final PVT pvt = new PVT(timestamp, p.getLatitude(), p.getLongitude(), p.getAltitude());
+			if (next == null) {
+				return pvt;
+			}
+			final double dNorth = (next.getLatitude() - pvt.getLatitude()) * M_PER_DEG;
+			final double dEast = (next.getLongitude() - pvt.getLongitude()) * M_PER_DEG * Math.cos(Math.toRadians(pvt.getLatitude()));
+			pvt.setCourse((Math.toDegrees(Math.atan2(dEast, dNorth)) + 360) % 360);
+			pvt.setSpeed(Math.hypot(dNorth, dEast));
+			return pvt;
+		};
+	}
+}
@@ -0,0 +1,28 @@
+package ie.strix.gnss.nmea;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chooses {@link ByteScanner#getDefault()} on Java 21+. The Vector API is an incubator module
+ * that is only resolved when the JVM is started with {@code --add-modules jdk.incubator.vector};
+ * without it the SWAR scanner is used.
+ */
+@Slf4j
+final class ByteScannerProvider {
+
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	private ByteScannerProvider () {
+	}
+
+	static ByteScanner create () {
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			try {
+				return new VectorByteScanner();
+			} catch (LinkageError e) {
+				log.warn("cannot use {}: {}", VECTOR_MODULE, e.toString());
+			}
+		}
+		return SwarByteScanner.INSTANCE;
+	}
+}
@@ -0,0 +1,69 @@
+package ie.strix.gnss.nmea;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ByteScanner} that tests a full vector register of bytes at a time (16 to 64 bytes
+ * depending on the CPU). Tails shorter than a vector, and ByteBuffers, are left to the SWAR
+ * implementation.
+ */
+final class VectorByteScanner extends SwarByteScanner {
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+	@Override
+	public int indexOf (final byte[] buf, final int from, final int to, final byte value) {
+		int i = from;
+		for (final int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			final VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, buf, i).eq(value);
+			if (mask.anyTrue()) {
+				return i + mask.firstTrue();
+			}
+		}
+		return super.indexOf(buf, i, to, value);
+	}
+
+	@Override
+	public int indexOfSentenceEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		for (final int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			final ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+			final VectorMask<Byte> mask = v.eq((byte)'*').or(v.eq((byte)'$')).or(v.eq((byte)'\r')).or(v.eq((byte)'\n'));
+			if (mask.anyTrue()) {
+				return i + mask.firstTrue();
+			}
+		}
+		return super.indexOfSentenceEnd(buf, i, to);
+	}
+
+	@Override
+	public int indexOfFieldEnd (final byte[] buf, final int from, final int to) {
+		int i = from;
+		for (final int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			final ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+			final VectorMask<Byte> mask = v.eq((byte)',').or(v.eq((byte)'*'));
+			if (mask.anyTrue()) {
+				return i + mask.firstTrue();
+			}
+		}
+		return super.indexOfFieldEnd(buf, i, to);
+	}
+
+	@Override
+	public int xor (final byte[] buf, final int from, final int to) {
+		ByteVector acc = ByteVector.zero(SPECIES);
+		int i = from;
+		for (final int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			acc = acc.lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, buf, i));
+		}
+		return (acc.reduceLanes(VectorOperators.XOR) & 0xff) ^ super.xor(buf, i, to);
+	}
+
+	@Override
+	public String getName () {
+		return "vector";
+	}
+}
@@ -0,0 +1,39 @@
+package ie.strix.gnss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestECEF {
+
+	@DisplayName("WGS84 reference point at 45N 0E on the ellipsoid")
+	@Test
+	public void testReferencePoint() {
+		double[] xyz = ECEF.latLngAltToEcef(45, 0, 0);
+		assertEquals(4517590.879, xyz[0], 1e-3);
+		assertEquals(0, xyz[1], 1e-3);
+		assertEquals(4487348.409, xyz[2], 1e-3);
+
+		double[] lla = ECEF.ecefToLatLngAlt(4517590.879, 0, 4487348.409);
+		assertEquals(45, lla[0], 1e-8);
+		assertEquals(0, lla[1], 1e-8);
+		assertEquals(0, lla[2], 1e-3);
+	}
+
+	@DisplayName("Geodetic to ECEF and back is exact to well under a mm")
+	@Test
+	public void testRoundTrip() {
+		for (double lat = -89.5; lat < 90; lat += 1) {
+			for (double lng : new double[] { -179.9, -70.65, 0, 8.99, 151.2 }) {
+				for (double alt : new double[] { -100, 0, 1000, 20000 }) {
+					double[] xyz = ECEF.latLngAltToEcef(lat, lng, alt);
+					double[] lla = ECEF.ecefToLatLngAlt(xyz[0], xyz[1], xyz[2]);
+					assertEquals(lat, lla[0], 1e-9, "lat " + lat + " alt " + alt);
+					assertEquals(lng, lla[1], 1e-9);
+					assertEquals(alt, lla[2], 1e-4);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package ie.strix.gnss.nmea;
+
+/**
+ * Sentences and logs for tests.
+ */
+final class NmeaTestData {
+
+	private NmeaTestData() {
+	}
+
+	/**
+	 * @param payload Sentence without '$' and checksum, eg "GPGGA,...".
+	 * @return The sentence with '$' and a valid checksum.
+	 */
+	static String withChecksum(String payload) {
+		int checksum = 0;
+		for (char c : payload.toCharArray()) {
+			checksum ^= c;
+		}
+		return "$" + payload + "*" + String.format("%02X", checksum);
+	}
+
+	/**
+	 * @param time hhmmss.ss
+	 * @param lat ddmm.mmm north
+	 */
+	static String gga(String time, String lat) {
+		return withChecksum("GPGGA," + time + "," + lat + ",N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,");
+	}
+
+	/**
+	 * @param time hhmmss.ss
+	 * @param lat ddmm.mmm north
+	 * @param date ddmmyy
+	 */
+	static String rmc(String time, String lat, String date) {
+		return withChecksum("GPRMC," + time + ",A," + lat + ",N,01131.000,E,022.4,084.4," + date + ",003.1,W");
+	}
+
+	/**
+	 * @param time hhmmss, also used to vary the latitude.
+	 */
+	static String gga(int time) {
+		return gga(String.format("%06d.00", time), String.format("4807.%03d", time % 1000));
+	}
+
+	static String rmc(int time, String date) {
+		return rmc(String.format("%06d.00", time), "4807.038", date);
+	}
+
+	/**
+	 * A log of one GGA and GSV per second from 00:00:00 on 2024-01-01, going back to 00:00:00 on
+	 * 2024-01-02 after epochsPerDay epochs. RMC, which gives the date, is only sent every
+	 * rmcInterval epochs.
+	 */
+	static String log(int epochs, int epochsPerDay, int rmcInterval) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < epochs; i++) {
+			final int second = i % epochsPerDay;
+			final String date = i < epochsPerDay ? "010124" : "020124";
+			final int time = (second / 60 % 60) * 100 + second % 60;
+			if (i % rmcInterval == 0) {
+				sb.append(rmc(time, date)).append("\r\n");
+			}
+			sb.append(gga(time)).append("\r\n");
+			sb.append(withChecksum("GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00")).append("\r\n");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,56 @@
+package ie.strix.gnss.nmea;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestByteScanner {
+
+	private static final byte[] DELIMITERS = "$,*\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	@DisplayName("Word at a time and default scanners agree with the scalar scanner")
+	@Test
+	public void testAgainstScalar() {
+		ByteScanner scalar = ByteScanner.scalar();
+		Random random = new Random(17);
+		for (ByteScanner scanner : new ByteScanner[] { ByteScanner.swar(), ByteScanner.getDefault() }) {
+			for (int n = 0; n < 20_000; n++) {
+				byte[] buf = new byte[random.nextInt(160)];
+				for (int i = 0; i < buf.length; i++) {
+					// Mostly ASCII, some delimiters and some bytes with the high bit set
+					buf[i] = random.nextInt(30) == 0 ? DELIMITERS[random.nextInt(DELIMITERS.length)] : (byte)random.nextInt(random.nextInt(8) == 0 ? 256 : 128);
+				}
+				int from = buf.length == 0 ? 0 : random.nextInt(buf.length);
+				int to = from + random.nextInt(buf.length - from + 1);
+				String name = scanner + " " + n;
+				assertEquals(scalar.indexOf(buf, from, to, (byte)'$'), scanner.indexOf(buf, from, to, (byte)'$'), name);
+				assertEquals(scalar.indexOfSentenceEnd(buf, from, to), scanner.indexOfSentenceEnd(buf, from, to), name);
+				assertEquals(scalar.indexOfFieldEnd(buf, from, to), scanner.indexOfFieldEnd(buf, from, to), name);
+				assertEquals(scalar.xor(buf, from, to), scanner.xor(buf, from, to), name);
+				ByteBuffer bb = ByteBuffer.wrap(buf);
+				assertEquals(scalar.indexOf(bb, from, to, (byte)'$'), scanner.indexOf(bb, from, to, (byte)'$'), name);
+				assertEquals(scalar.indexOfSentenceEnd(bb, from, to), scanner.indexOfSentenceEnd(bb, from, to), name);
+				assertEquals(scalar.xor(bb, from, to), scanner.xor(bb, from, to), name);
+			}
+		}
+	}
+
+	@DisplayName("Checksum and delimiters of a real sentence")
+	@Test
+	public void testSentence() {
+		String sentence = "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*47\r\n";
+		byte[] buf = sentence.getBytes(StandardCharsets.US_ASCII);
+		for (ByteScanner scanner : new ByteScanner[] { ByteScanner.scalar(), ByteScanner.swar(), ByteScanner.getDefault() }) {
+			int star = scanner.indexOfSentenceEnd(buf, 1, buf.length);
+			assertEquals(sentence.indexOf('*'), star);
+			assertEquals(0x47, scanner.xor(buf, 1, star));
+			assertEquals(sentence.indexOf(','), scanner.indexOfFieldEnd(buf, 1, buf.length));
+			assertEquals(sentence.indexOf('\n'), scanner.indexOf(buf, 0, buf.length, (byte)'\n'));
+		}
+	}
+}
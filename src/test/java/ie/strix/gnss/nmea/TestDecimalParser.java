@@ -0,0 +1,108 @@
+package ie.strix.gnss.nmea;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestDecimalParser {
+
+	private static final int N_SAMPLE = 200_000;
+
+	@DisplayName("Random decimals decode exactly as Double.parseDouble for all range types")
+	@Test
+	public void testAgainstParseDouble() {
+		Random random = new Random(20261017L);
+		StringBuilder sb = new StringBuilder();
+		for (int n = 0; n < N_SAMPLE; n++) {
+			sb.setLength(0);
+			sb.append(",");
+			int sign = random.nextInt(3);
+			if (sign == 1) {
+				sb.append('-');
+			} else if (sign == 2) {
+				sb.append('+');
+			}
+			int wholeDigits = random.nextInt(6);
+			int fractionDigits = random.nextInt(wholeDigits == 0 ? 16 : 17);
+			for (int i = 0; i < wholeDigits; i++) {
+				sb.append((char)('0' + random.nextInt(10)));
+			}
+			if (fractionDigits > 0 || wholeDigits == 0) {
+				sb.append('.');
+				for (int i = 0; i < Math.max(1, fractionDigits); i++) {
+					sb.append((char)('0' + random.nextInt(10)));
+				}
+			}
+			sb.append(",");
+			assertDecodes(sb.toString());
+		}
+	}
+
+	@DisplayName("Long, tiny and edge case numbers are correctly rounded")
+	@Test
+	public void testEdgeCases() {
+		for (String s : new String[] {
+				"0", "-0", "+0", "0.", ".5", "-.5", "1.0000000000", "5316.8975575512", "00859.5872934200",
+				"9007199254740993", "9007199254740992.5", "123456789012345678901234567890.123",
+				"0.0000000000000000000000001", "0.1000000000000000055511151231257827",
+				"2.2250738585072012", "179769313486231570000000000000000000000" }) {
+			assertDecodes("," + s + ",");
+		}
+	}
+
+	@DisplayName("Empty fields decode to NaN and malformed fields are rejected")
+	@Test
+	public void testEmptyAndInvalid() {
+		assertTrue(Double.isNaN(DecimalParser.parseDouble("a,,b", 2, 2)));
+		assertTrue(Double.isNaN(DecimalParser.parseDouble(new byte[4], 2, 2)));
+		assertTrue(Double.isNaN(DecimalParser.parseDouble(new char[4], 2, 2)));
+		for (String s : new String[] { "-", "+", ".", "1.2.3", "12a", " 1", "1e5", "--1" }) {
+			assertThrows(NumberFormatException.class, () -> DecimalParser.parseDouble(s, 0, s.length()), s);
+			assertThrows(NumberFormatException.class, () -> DecimalParser.parseDouble(s.toCharArray(), 0, s.length()), s);
+			assertThrows(NumberFormatException.class, () -> DecimalParser.parseDouble(s.getBytes(StandardCharsets.US_ASCII), 0, s.length()), s);
+		}
+	}
+
+	@DisplayName("Integers decode with sign and overflow is detected")
+	@Test
+	public void testParseInt() {
+		Random random = new Random(5);
+		for (int n = 0; n < 10_000; n++) {
+			int value = random.nextInt();
+			String s = "," + value + ",";
+			assertEquals(value, DecimalParser.parseInt(s, 1, s.length() - 1));
+			assertEquals(value, DecimalParser.parseInt(s.toCharArray(), 1, s.length() - 1));
+			assertEquals(value, DecimalParser.parseInt(s.getBytes(StandardCharsets.US_ASCII), 1, s.length() - 1));
+		}
+		assertEquals(Integer.MIN_VALUE, DecimalParser.parseInt("-2147483648", 0, 11));
+		assertEquals(Integer.MAX_VALUE, DecimalParser.parseInt("+2147483647", 0, 11));
+		for (String s : new String[] { "", "-", "2147483648", "-2147483649", "99999999999", "1.5" }) {
+			assertThrows(NumberFormatException.class, () -> DecimalParser.parseInt(s, 0, s.length()), s);
+		}
+	}
+
+	@DisplayName("Fraction digits beyond int range no longer overflow")
+	@Test
+	public void testFractionalPart() {
+		char[] buf = "5316.897555123456,N".toCharArray();
+		assertEquals(0.897555123456, Util.parseFractionalPart(buf, 5, 17));
+		assertEquals(53 + 16.897555123456 / 60.0, Util.parseNmeaLatitude(buf, 0, 18));
+		assertEquals(1234567890123L, (long)Util.parseDouble("1234567890123".toCharArray(), 0, 13));
+		assertThrows(NumberFormatException.class, () -> Util.parseVarDigitInt("12345678901".toCharArray(), 0, 10));
+	}
+
+	private static void assertDecodes(String field) {
+		int end = field.length() - 1;
+		String number = field.substring(1, end);
+		double expected = Double.parseDouble(number);
+		assertEquals(expected, DecimalParser.parseDouble(field, 1, end), number);
+		assertEquals(expected, DecimalParser.parseDouble(field.toCharArray(), 1, end), number);
+		assertEquals(expected, DecimalParser.parseDouble(field.getBytes(StandardCharsets.US_ASCII), 1, end), number);
+	}
+}
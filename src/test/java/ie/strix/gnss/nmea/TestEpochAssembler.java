@@ -0,0 +1,144 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestEpochAssembler {
+
+	/** One epoch in u-blox output order */
+	private static String[] epoch(String time, String date) {
+		return new String[] {
+			withChecksum("GNRMC," + time + ",A,5316.89755,N,00859.58729,W,0.5,90.0," + date + ",,,A"),
+			withChecksum("GNVTG,91.0,T,,M,0.6,N,1.1,K,A"),
+			withChecksum("GNGGA," + time + ",5316.89755,N,00859.58729,W,4,12,0.9,27.7,M,57.9,M,1.6,0295"),
+			withChecksum("GNGSA,A,3,04,05,09,12,,,,,,,,,1.8,1.0,1.5,1"),
+			withChecksum("GNGSA,A,3,65,66,,,,,,,,,,,1.8,1.0,1.5,2"),
+			withChecksum("GPGSV,2,1,05,04,40,083,42,05,17,308,30,09,05,172,20,12,63,120,45,1"),
+			withChecksum("GPGSV,2,2,05,14,45,123,38,1"),
+			withChecksum("GPGSV,1,1,02,04,40,083,35,14,45,123,31,8"),
+			withChecksum("GLGSV,1,1,02,65,45,123,38,66,30,300,35,1"),
+			withChecksum("GNGST," + time + ",1.8,0.9,1.2,45.0,0.7,0.8,1.5"),
+		};
+	}
+
+	@DisplayName("Sentences of one epoch are grouped and the date advances at midnight")
+	@Test
+	public void testAssemble() throws ChecksumFailException {
+		List<String> summaries = new ArrayList<>();
+		List<Epoch> instances = new ArrayList<>();
+		List<SkyView> skyViews = new ArrayList<>();
+		EpochAssembler assembler = new EpochAssembler(e -> {
+			instances.add(e);
+			skyViews.add(e.getSkyView());
+			summaries.add(e.getIsoDate() + " " + e.getTimeInDay() + " " + e.getSkyView().getSignalCount());
+
+			assertTrue(e.hasTimestamp());
+			assertTrue(e.hasPosition());
+			assertEquals(53.2816259, e.getLatitude(), 1e-6);
+			assertEquals(27.7, e.getAltitude(), 1e-9);
+			assertEquals(4, e.getFixType());
+			assertEquals(12, e.getNSat());
+			assertEquals(1.8, e.getPdop(), 1e-9);
+			assertEquals(1.0, e.getHdop(), 1e-9);
+			assertEquals(6, e.getSatellitesUsed());
+			assertEquals(0.7, e.getStdLatitude(), 1e-9);
+			assertEquals(1.5, e.getStdAltitude(), 1e-9);
+			// VTG takes precedence over RMC
+			assertEquals(91.0, e.getCourse(), 1e-9);
+			assertEquals(0.6, e.getSpeedKnots(), 1e-9);
+
+			assertEquals(9, e.getSkyView().getSignalCount());
+			assertEquals(42, e.getSkyView().getSnr(Signal.GPS_L1_CA, 4));
+			assertEquals(35, e.getSkyView().getSnr(Signal.GPS_L5_Q, 4));
+			assertEquals(31, e.getSkyView().getSnr(Signal.GPS_L5_Q, 14));
+			assertEquals(-1, e.getSkyView().getSnr(Signal.GPS_L5_Q, 5));
+			assertEquals(Constellation.GLONASS, e.getSkyView().getConstellation(8));
+			assertEquals(66, e.getSkyView().getPrn(8));
+			assertEquals(300, e.getSkyView().getAzimuth(8));
+		});
+
+		SentencePool pool = new SentencePool();
+		for (String time : new String[] { "235959.00", "000000.00", "000001.00" }) {
+			for (String s : epoch(time, "031124")) {
+				assembler.accept(pool.parse(s));
+			}
+		}
+		assertEquals(2, summaries.size());
+		assembler.flush();
+		assertEquals(3, assembler.getEpochCount());
+
+		// RMC of second epoch still has the old date: midnight wrap detected from time of day
+		assertEquals("2024-11-03 86399000 9", summaries.get(0));
+		assertEquals("2024-11-04 0 9", summaries.get(1));
+		assertEquals("2024-11-04 1000 9", summaries.get(2));
+		assertSame(instances.get(0), instances.get(2));
+		// Sky view is double buffered
+		assertNotSame(skyViews.get(0), skyViews.get(1));
+		assertSame(skyViews.get(0), skyViews.get(2));
+		assertTrue(skyViews.get(2).isComplete());
+	}
+
+	@DisplayName("Sentences before the first time of day are dropped")
+	@Test
+	public void testPartialFirstEpoch() throws ChecksumFailException {
+		List<Long> timestamps = new ArrayList<>();
+		EpochAssembler assembler = new EpochAssembler(e -> timestamps.add(e.getTimestamp()));
+		String[] first = epoch("120000.00", "031124");
+		// Stream starts part way through an epoch
+		for (int i = 3; i < first.length; i++) {
+			assembler.accept(Sentence.valueOf(first[i]));
+		}
+		for (String s : epoch("120001.00", "031124")) {
+			assembler.accept(Sentence.valueOf(s));
+		}
+		assembler.flush();
+		assertEquals(2, timestamps.size());
+		assertEquals(Instant.parse("2024-11-03T12:00:01Z").toEpochMilli(), timestamps.get(1));
+	}
+
+	@DisplayName("Stream passes epochs to listener including the last at end of stream")
+	@Test
+	public void testStream() {
+		StringBuilder sb = new StringBuilder();
+		for (String time : new String[] { "100000.00", "100000.50", "100001.00" }) {
+			for (String s : epoch(time, "150625")) {
+				sb.append(s).append("\r\n");
+			}
+		}
+		Stream stream = new Stream(new StringReader(sb.toString()));
+		List<String> pvts = new ArrayList<>();
+		long n = stream.readAllEpochs(e -> pvts.add(e.toPVT().getIsoTimestamp()));
+		assertEquals(3, n);
+		assertEquals("2025-06-15T10:00:00.500Z", pvts.get(1));
+		assertFalse(pvts.get(2).isEmpty());
+	}
+
+	@DisplayName("GSV from talkers without a constellation does not stop the stream")
+	@Test
+	public void testUnmappedTalker() {
+		StringBuilder sb = new StringBuilder();
+		for (String time : new String[] { "100000.00", "100001.00" }) {
+			for (String s : epoch(time, "150625")) {
+				sb.append(s).append("\r\n");
+			}
+			sb.append(withChecksum("GQGSV,1,1,01,193,40,083,42")).append("\r\n");
+		}
+		List<Integer> signals = new ArrayList<>();
+		long n = new Stream(new StringReader(sb.toString())).readAllEpochs(e -> signals.add(e.getSkyView().getSignalCount()));
+		assertEquals(2, n);
+		assertEquals(9, signals.get(0));
+		assertEquals(9, signals.get(1));
+	}
+}
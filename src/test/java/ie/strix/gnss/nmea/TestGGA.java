@@ -1,6 +1,9 @@
 package ie.strix.gnss.nmea;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,35 @@ public class TestGGA {
         }
     }
 
+    @DisplayName("GGA primitive getters use NaN / -1 for empty fields")
+    @Test
+    public void testGGAPrimitives() throws ChecksumFailException {
+        GGA gga = new GGA(buildGga("160041.60"));
+        assertTrue(gga.hasLatitude());
+        assertTrue(gga.hasAltitude());
+        assertEquals(53.281625938, gga.getLatitudeDeg(), 1e-8);
+        assertEquals(-8.993121592, gga.getLongitudeDeg(), 1e-8);
+        assertEquals(27.7125, gga.getAltitudeM(), 1e-4);
+        assertEquals(4, gga.getFixTypeValue());
+        assertEquals(23, gga.getNSatValue());
+        assertEquals(0.7, gga.getHdopValue(), 1e-9);
+        assertEquals(0.2, gga.getAccuracyM(), 1e-9);
+
+        String payload = "GNGGA,160041.60,,,,,0,00,,,M,,M,,";
+        GGA noFix = new GGA("$" + payload + "*" + checksum(payload));
+        assertFalse(noFix.hasLatitude());
+        assertFalse(noFix.hasAltitude());
+        assertNull(noFix.getLatitude());
+        assertTrue(Double.isNaN(noFix.getLatitudeDeg()));
+        assertTrue(Double.isNaN(noFix.getLongitudeDeg()));
+        assertTrue(Double.isNaN(noFix.getAltitudeM()));
+        assertTrue(Double.isNaN(noFix.getHdopValue()));
+        assertTrue(Double.isNaN(noFix.getAccuracyM()));
+        assertNull(noFix.getAccuracy());
+        assertEquals(0, noFix.getFixTypeValue());
+        assertEquals(0, noFix.getNSatValue());
+    }
+
     private static String buildGga(String time) {
         String payload = "GNGGA," + time
                 + ",5316.89755629,N,00859.58729552,W,4,23,0.7,27.7125,M,57.9942,M,1.6,295";
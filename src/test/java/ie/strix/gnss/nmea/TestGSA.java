@@ -23,6 +23,24 @@ public class TestGSA {
         assertEquals(1.0, gsa.getHdop(), 1e-9);
         assertEquals(1.5, gsa.getVdop(), 1e-9);
     }
+
+    @DisplayName("GSA primitive PRN and DOP getters")
+    @Test
+    public void testGSAPrimitives() throws ChecksumFailException {
+        GSA gsa = new GSA("$GPGSA,A,3,04,05,09,12,24,25,29,31,,,,1.8,1.0,1.5*11");
+
+        assertEquals(3, gsa.getFixTypeValue());
+        assertEquals(8, gsa.getSatelliteCount());
+        assertEquals(4, gsa.getSatellitePrn(0));
+        assertEquals(0, gsa.getSatellitePrn(8));
+        int[] prns = new int[12];
+        assertEquals(8, gsa.getSatellitePrns(prns));
+        assertEquals(31, prns[7]);
+        assertEquals(1.8, gsa.getPdopValue(), 1e-9);
+        assertEquals(1.0, gsa.getHdopValue(), 1e-9);
+        assertEquals(1.5, gsa.getVdopValue(), 1e-9);
+    }
+
     @DisplayName("GSA tolerates missing final satellite slots before DOP fields")
     @Test
     public void testGSAMissingSatelliteSlots() throws ChecksumFailException {
@@ -38,4 +56,21 @@ public class TestGSA {
         assertEquals(1.5, gsa.getVdop(), 1e-9);
     }
 
+    @DisplayName("GSA with NMEA 4.10 system ID after the DOP fields")
+    @Test
+    public void testGSASystemId() throws ChecksumFailException {
+        String payload = "GNGSA,A,3,04,05,09,12,24,25,29,31,,,,,1.8,1.0,1.5,1";
+        int checksum = 0;
+        for (char c : payload.toCharArray()) {
+            checksum ^= c;
+        }
+        GSA gsa = new GSA("$" + payload + "*" + String.format("%02X", checksum));
+
+        assertEquals(31, gsa.getSatellitePrns()[7]);
+        assertNull(gsa.getSatellitePrns()[11]);
+        assertEquals(1.8, gsa.getPdop(), 1e-9);
+        assertEquals(1.0, gsa.getHdop(), 1e-9);
+        assertEquals(1.5, gsa.getVdop(), 1e-9);
+    }
+
 }
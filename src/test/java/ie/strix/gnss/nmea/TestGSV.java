@@ -40,6 +40,23 @@ public class TestGSV {
         }
     }
 
+    @DisplayName("GSV decodes satellite blocks on demand and tolerates empty fields")
+    @Test
+    public void testGSVBlockAccessors() throws ChecksumFailException {
+        GSV gsv = new GSV("$GPGSV,3,3,11,18,,,24,30,13,069,,1*55");
+        assertEquals(2, gsv.getSignalCount());
+        assertEquals(1, gsv.getSignalId());
+        assertEquals(Signal.GPS_L1_CA, gsv.getSignal());
+        assertEquals(18, gsv.getPrn(0));
+        assertEquals(-1, gsv.getElevation(0));
+        assertEquals(-1, gsv.getAzimuth(0));
+        assertEquals(24, gsv.getSnr(0));
+        assertEquals(30, gsv.getPrn(1));
+        assertEquals(69, gsv.getAzimuth(1));
+        assertEquals(-1, gsv.getSnr(1));
+        assertEquals(2, gsv.getSignals().length);
+    }
+
     @DisplayName("GSV parses mixed constellation samples")
     @Test
     public void testGSV() throws ChecksumFailException {
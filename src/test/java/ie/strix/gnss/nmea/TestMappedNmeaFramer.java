@@ -0,0 +1,121 @@
+package ie.strix.gnss.nmea;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestMappedNmeaFramer {
+
+	private static final String GLL = "$GPGLL,4916.45,N,12311.12,W,225444,A,A*5C";
+	private static final String GSA = "$GPGSA,A,3,04,05,09,12,24,25,29,31,,,,1.8,1.0,1.5*11";
+
+	@TempDir
+	File tempDir;
+
+	@DisplayName("Mapped framer finds the same sentences as NmeaFramer across window boundaries")
+	@Test
+	public void testWindows() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append(i % 3 == 0 ? GLL : GSA).append("\r\n");
+			if (i % 17 == 0) {
+				sb.append("noise$GPGLL,4916.45,N*00\r\n");
+			}
+			if (i % 29 == 0) {
+				sb.append("$GPGSA,A,3,04,05\r\n");
+			}
+		}
+		sb.append(GLL, 0, 20);
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+		File file = new File(tempDir, "log.nmea");
+		Files.write(file.toPath(), bytes);
+
+		for (SentenceTypeFilter filter : new SentenceTypeFilter[] { null, SentenceTypeFilter.of("GLL") }) {
+			NmeaFramer expected = new NmeaFramer(new ByteArrayInputStream(bytes));
+			expected.setFilter(filter);
+			List<String> sentences = read(expected);
+			for (long windowSize : new long[] { 2048, 2049, 5000, 1 << 20 }) {
+				try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+					MappedNmeaFramer framer = new MappedNmeaFramer(channel, false, 0, -1, windowSize);
+					framer.setFilter(filter);
+					assertEquals(sentences, read(framer));
+					assertEquals(expected.getChecksumFailCount(), framer.getChecksumFailCount());
+					assertEquals(expected.getMalformedCount(), framer.getMalformedCount());
+					assertEquals(expected.getFilteredCount(), framer.getFilteredCount());
+				}
+			}
+		}
+	}
+
+	@DisplayName("Stream reads a mapped file")
+	@Test
+	public void testStream() throws IOException {
+		File file = new File(tempDir, "log.nmea");
+		Files.write(file.toPath(), (GLL + "\r\n" + GSA + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		Stream stream = new Stream(file);
+		assertTrue(stream.getSource() instanceof MappedNmeaFramer);
+		assertTrue(stream.readNextSentence() instanceof GLL);
+		assertTrue(stream.readNextSentence() instanceof GSA);
+		stream.close();
+	}
+
+	@DisplayName("Stream reads a FIFO as a byte stream instead of mapping it")
+	@Test
+	@Timeout(10)
+	public void testFifo() throws Exception {
+		File fifo = new File(tempDir, "receiver");
+		Process mkfifo = new ProcessBuilder("mkfifo", fifo.getPath()).start();
+		assumeTrue(mkfifo.waitFor() == 0, "mkfifo not available");
+
+		Thread writer = new Thread(() -> {
+			try (OutputStream out = new FileOutputStream(fifo)) {
+				for (int i = 0; i < 500; i++) {
+					out.write((GLL + "\r\n" + GSA + "\r\n").getBytes(StandardCharsets.US_ASCII));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		writer.setDaemon(true);
+		writer.start();
+		Stream stream = new Stream(fifo);
+		assertFalse(stream.getSource() instanceof MappedNmeaFramer);
+		int n = 0;
+		try {
+			while (stream.readNextSentence() != null) {
+				n++;
+			}
+		} catch (EndOfStreamException e) {
+		}
+		stream.close();
+		writer.join();
+		assertEquals(1000, n);
+	}
+
+	private static List<String> read(NmeaSource source) throws IOException {
+		List<String> sentences = new ArrayList<>();
+		while (source.next()) {
+			sentences.add(new String(source.getBuffer(), source.getOffset(), source.getLength(), StandardCharsets.US_ASCII));
+		}
+		return sentences;
+	}
+}
@@ -0,0 +1,86 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.log;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.Track;
+
+public class TestNmeaArchive {
+
+	@TempDir
+	File tempDir;
+
+	@DisplayName("Archive time window matches filtering the whole log")
+	@Test
+	public void testTimeWindow() throws IOException {
+		File log = new File(tempDir, "log.nmea");
+		try (PrintWriter w = new PrintWriter(log, StandardCharsets.US_ASCII)) {
+			w.print(log(3000, 1500, 50));
+		}
+		Stream stream = new Stream(log);
+		List<PVT> all = stream.readAllPVT();
+		stream.close();
+
+		File archiveFile = new File(tempDir, "log.bgz");
+		Stream in = new Stream(log);
+		try (NmeaArchiveWriter writer = new NmeaArchiveWriter(new FileOutputStream(archiveFile), 4096)) {
+			NmeaSource source = in.getSource();
+			while (source.next()) {
+				writer.write(source.getBuffer(), source.getOffset(), source.getLength());
+			}
+		}
+		in.close();
+
+		assertTrue(NmeaArchive.isArchive(archiveFile));
+		assertFalse(NmeaArchive.isArchive(log));
+
+		// Sequential gzip read ignores the index
+		Stream sequential = new Stream(archiveFile);
+		assertEquals(all, sequential.readAllPVT());
+		sequential.close();
+
+		try (NmeaArchive archive = new NmeaArchive(archiveFile)) {
+			assertTrue(archive.getBlockCount() > 10);
+			assertEquals(all.get(0).getTimestamp(), archive.getFirstTimestamp());
+			assertEquals(all.get(all.size() - 1).getTimestamp(), archive.getLastTimestamp());
+			assertEquals(all, archive.readPVT(Long.MIN_VALUE, Long.MAX_VALUE));
+
+			// Window across the day change
+			final long from = all.get(1400).getTimestamp();
+			final long to = all.get(1700).getTimestamp();
+			List<PVT> expected = new ArrayList<>();
+			for (PVT pvt : all) {
+				if (pvt.getTimestamp() >= from && pvt.getTimestamp() <= to) {
+					expected.add(pvt);
+				}
+			}
+			assertEquals(expected, archive.readPVT(from, to));
+			Track track = Track.load(archiveFile, from, to);
+			assertEquals(expected.get(0).getLatitude(), track.interpolate(from).getLatitude());
+			assertNull(track.interpolate(to + 1));
+
+			// Stream starts with the date of its first block
+			Stream window = archive.openStream(from, to);
+			PVT first = window.readNextPVT();
+			assertTrue(first.getTimestamp() <= from);
+			assertTrue(all.contains(first));
+			window.close();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package ie.strix.gnss.nmea;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.PVT;
+
+public class TestNmeaFramer {
+
+	private static final String GLL = "$GPGLL,4916.45,N,12311.12,W,225444,A,A*5C";
+	private static final String GSA = "$GPGSA,A,3,04,05,09,12,24,25,29,31,,,,1.8,1.0,1.5*11";
+
+	@DisplayName("Framer skips noise, bad checksums and truncated sentences")
+	@Test
+	public void testFraming() throws IOException {
+		String data = "noise\r\n" + GLL + "\r\n"
+				+ "$GPGLL,4916.45,N,12311.12,W,225444,A,A*00\r\n"
+				+ "$GPGLL,4916.45,N,12311\r\n"
+				+ GSA + "\n"
+				+ GLL.substring(0, 20);
+		NmeaFramer framer = new NmeaFramer(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)));
+
+		assertTrue(framer.next());
+		assertEquals(GLL, text(framer));
+		assertTrue(framer.next());
+		assertEquals(GSA, text(framer));
+		assertFalse(framer.next());
+
+		assertEquals(2, framer.getSentenceCount());
+		assertEquals(1, framer.getChecksumFailCount());
+		assertEquals(2, framer.getMalformedCount());
+	}
+
+	@DisplayName("Framer reassembles sentences split across reads and buffer refills")
+	@Test
+	public void testSplitReads() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			sb.append(i % 2 == 0 ? GLL : GSA).append("\r\n");
+		}
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+		// Deliver at most 7 bytes per read()
+		InputStream in = new ByteArrayInputStream(bytes) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 7));
+			}
+		};
+
+		NmeaFramer framer = new NmeaFramer(in, 2048);
+		List<String> sentences = new ArrayList<>();
+		while (framer.next()) {
+			sentences.add(text(framer));
+		}
+		assertEquals(500, sentences.size());
+		for (int i = 0; i < sentences.size(); i++) {
+			assertEquals(i % 2 == 0 ? GLL : GSA, sentences.get(i));
+		}
+	}
+
+	@DisplayName("Stream reads sentences from a byte source")
+	@Test
+	public void testStream() throws IOException {
+		String data = GLL + "\r\n" + GSA + "\r\n";
+		Stream stream = new Stream(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(stream.readNextSentence() instanceof GLL);
+		assertTrue(stream.readNextSentence() instanceof GSA);
+		stream.close();
+	}
+
+	@DisplayName("Framer skips filtered sentence types without checksum validation")
+	@Test
+	public void testFilter() throws IOException {
+		// Second GSA has a bad checksum but is filtered before it is checked
+		String data = GSA + "\r\n" + GLL + "\r\n"
+				+ "$GPGSA,A,3,04,05,09,12,24,25,29,31,,,,1.8,1.0,1.5*00\r\n"
+				+ GLL + "\r\n" + "$PUBX,00*33\r\n" + "$GP";
+		NmeaFramer framer = new NmeaFramer(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)), 2048);
+		framer.setFilter(SentenceTypeFilter.of("GLL"));
+
+		assertTrue(framer.next());
+		assertEquals(GLL, text(framer));
+		assertTrue(framer.next());
+		assertEquals(GLL, text(framer));
+		assertFalse(framer.next());
+
+		assertEquals(3, framer.getFilteredCount());
+		assertEquals(0, framer.getChecksumFailCount());
+		assertEquals(1, framer.getMalformedCount());
+	}
+
+	@DisplayName("Stream with sentence types yields the same PVTs from byte and character sources")
+	@Test
+	public void testStreamSentenceTypes() throws IOException {
+		String rmc = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+		String gga = "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*47";
+		String data = GSA + "\r\n" + rmc + "\r\n" + GLL + "\r\n" + gga + "\r\n" + GSA + "\r\n" + gga + "\r\n";
+
+		Stream all = new Stream(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)));
+		List<PVT> expected = all.readAllPVT();
+		assertEquals(2, expected.size());
+
+		Stream bytes = new Stream(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)));
+		bytes.setSentenceTypes("GGA");
+		assertEquals(expected, bytes.readAllPVT());
+
+		Stream chars = new Stream(new StringReader(data));
+		chars.setSentenceTypes("GGA");
+		assertTrue(chars.readNextSentence() instanceof RMC);
+		assertTrue(chars.readNextSentence() instanceof GGA);
+		assertTrue(chars.readNextSentence() instanceof GGA);
+	}
+
+	private static String text(NmeaFramer framer) {
+		return new String(framer.getBuffer(), framer.getOffset(), framer.getLength(), StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,168 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.gga;
+import static ie.strix.gnss.nmea.NmeaTestData.rmc;
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.PVT;
+
+public class TestNmeaPublisher {
+
+	private static final int N_EPOCH = 500;
+
+	private static String data() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < N_EPOCH; i++) {
+			String time = String.format("12%02d%02d.00", i / 60, i % 60);
+			sb.append(rmc(time, "4807.038", "230394")).append("\r\n");
+			sb.append(gga(time, "4807.038")).append("\r\n");
+			sb.append(withChecksum("GPGSV,1,1,02,04,40,083,42,05,17,308,30")).append("\r\n");
+		}
+		return sb.toString();
+	}
+
+	/** Collects items slowly, requesting one at a time */
+	private static class SlowSubscriber<T> implements Flow.Subscriber<T> {
+		final List<T> items = new ArrayList<>();
+		final CompletableFuture<List<T>> done = new CompletableFuture<>();
+		Flow.Subscription subscription;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(T item) {
+			items.add(item);
+			if (items.size() % 100 == 0) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			done.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			done.complete(items);
+		}
+	}
+
+	@DisplayName("Pipeline delivers every PVT to a slow sink and completes normally at end of stream")
+	@Test
+	public void testPipeline() throws Exception {
+		ExecutorService executor = new ForkJoinPool(2);
+		try {
+			NmeaPublisher source = new NmeaPublisher(new Stream(new StringReader(data())), executor, 4);
+			FlowStage<Sentence, Sentence> filter = FlowStage.filter(executor, 4, s -> ! (s instanceof GSV));
+			FlowStage<Sentence, Epoch> epochs = FlowStage.epochs(executor, 4);
+			FlowStage<Epoch, PVT> pvts = FlowStage.pvt(executor, 4);
+			SlowSubscriber<PVT> sink = new SlowSubscriber<>();
+			source.subscribe(filter);
+			filter.subscribe(epochs);
+			epochs.subscribe(pvts);
+			pvts.subscribe(sink);
+
+			assertEquals(3L * N_EPOCH, source.start().get(10, TimeUnit.SECONDS));
+			List<PVT> result = sink.done.get(10, TimeUnit.SECONDS);
+			assertEquals(N_EPOCH, result.size());
+			for (int i = 1; i < N_EPOCH; i++) {
+				assertEquals(1000, result.get(i).getTimestamp() - result.get(i - 1).getTimestamp());
+			}
+			assertEquals("1994-03-23T12:00:00.000Z", result.get(0).getIsoTimestamp());
+			assertEquals(48.1173, result.get(0).getLatitude(), 1e-9);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@DisplayName("I/O errors are not mistaken for end of stream")
+	@Test
+	public void testError() throws Exception {
+		String data = data().substring(0, 500);
+		assertThrows(UncheckedIOException.class, () -> new Stream(failingReader(data)).readAllPVT());
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			NmeaPublisher source = new NmeaPublisher(new Stream(failingReader(data)), executor, 4);
+			SlowSubscriber<Sentence> sink = new SlowSubscriber<>();
+			source.subscribe(sink);
+			source.start();
+			ExecutionException e = assertThrows(ExecutionException.class, () -> sink.done.get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IOException);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@DisplayName("A source that throws completes subscribers exceptionally")
+	@Test
+	public void testSourceFails() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Reader reader = new StringReader(data().substring(0, 500)) {
+				@Override
+				public int read(char[] cbuf, int off, int len) throws IOException {
+					int n = super.read(cbuf, off, len);
+					if (n < 0) {
+						throw new IllegalStateException("source failed");
+					}
+					return n;
+				}
+			};
+			NmeaPublisher source = new NmeaPublisher(new Stream(reader), executor, 4);
+			SlowSubscriber<Sentence> sink = new SlowSubscriber<>();
+			source.subscribe(sink);
+			CompletableFuture<Long> published = source.start();
+			ExecutionException e = assertThrows(ExecutionException.class, () -> sink.done.get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			e = assertThrows(ExecutionException.class, () -> published.get(10, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Throws an IOException instead of returning end of input */
+	private static Reader failingReader(String data) {
+		return new StringReader(data) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				int n = super.read(cbuf, off, len);
+				if (n < 0) {
+					throw new IOException("connection reset");
+				}
+				return n;
+			}
+		};
+	}
+}
@@ -0,0 +1,154 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.gga;
+import static ie.strix.gnss.nmea.NmeaTestData.rmc;
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestNmeaServer {
+
+	private static final int N_RECEIVER = 40;
+	private static final int N_EPOCH = 20;
+
+	@DisplayName("Epochs from many receivers are assembled per connection and tagged")
+	@Test
+	public void testReceivers() throws Exception {
+		Map<String, List<Long>> timestamps = new ConcurrentHashMap<>();
+		CountDownLatch disconnected = new CountDownLatch(N_RECEIVER);
+		NmeaServer.EpochSink sink = new NmeaServer.EpochSink() {
+			@Override
+			public void onEpoch(NmeaServer.Connection connection, Epoch epoch) {
+				timestamps.computeIfAbsent(connection.getName(), k -> new CopyOnWriteArrayList<>()).add(epoch.getTimestamp());
+			}
+
+			@Override
+			public void onDisconnect(NmeaServer.Connection connection) {
+				disconnected.countDown();
+			}
+		};
+
+		try (NmeaServer server = new NmeaServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), sink, 3)) {
+			server.start();
+			Socket[] sockets = new Socket[N_RECEIVER];
+			for (int r = 0; r < N_RECEIVER; r++) {
+				sockets[r] = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				sockets[r].getOutputStream().write(("SOURCE /rx" + r + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			}
+			// Interleave receivers, splitting sentences across writes
+			for (int e = 0; e < N_EPOCH; e++) {
+				for (int r = 0; r < N_RECEIVER; r++) {
+					byte[] epoch = epoch(e, r).getBytes(StandardCharsets.US_ASCII);
+					OutputStream out = sockets[r].getOutputStream();
+					int split = (e * 7 + r) % epoch.length;
+					out.write(epoch, 0, split);
+					out.flush();
+					out.write(epoch, split, epoch.length - split);
+				}
+			}
+			for (Socket socket : sockets) {
+				socket.close();
+			}
+			assertTrue(disconnected.await(10, TimeUnit.SECONDS));
+			assertEquals(0, server.getConnectionCount());
+		}
+
+		assertEquals(N_RECEIVER, timestamps.size());
+		for (int r = 0; r < N_RECEIVER; r++) {
+			List<Long> list = timestamps.get("rx" + r);
+			assertEquals(N_EPOCH, list.size());
+			for (int e = 1; e < N_EPOCH; e++) {
+				assertEquals(100, list.get(e) - list.get(e - 1));
+			}
+		}
+	}
+
+	@DisplayName("A connection whose sink throws is closed and the others are still served")
+	@Test
+	public void testSinkThrows() throws Exception {
+		Map<String, List<Integer>> signals = new ConcurrentHashMap<>();
+		CountDownLatch connected = new CountDownLatch(1);
+		CountDownLatch badClosed = new CountDownLatch(1);
+		CountDownLatch goodClosed = new CountDownLatch(2);
+		NmeaServer.EpochSink sink = new NmeaServer.EpochSink() {
+			@Override
+			public void onEpoch(NmeaServer.Connection connection, Epoch epoch) {
+				if (connection.getName().equals("bad")) {
+					throw new IllegalStateException("sink failed");
+				}
+				signals.computeIfAbsent(connection.getName(), k -> new CopyOnWriteArrayList<>()).add(epoch.getSkyView().getSignalCount());
+			}
+
+			@Override
+			public void onConnect(NmeaServer.Connection connection) {
+				connected.countDown();
+			}
+
+			@Override
+			public void onDisconnect(NmeaServer.Connection connection) {
+				(connection.getName().equals("bad") ? badClosed : goodClosed).countDown();
+			}
+		};
+
+		try (NmeaServer server = new NmeaServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), sink, 1)) {
+			server.start();
+			// Accepted before sky view is set: keeps dropping GSV
+			Socket before = connect(server, "before");
+			assertTrue(connected.await(10, TimeUnit.SECONDS));
+			server.setSkyView(true);
+			try (Socket bad = connect(server, "bad")) {
+				bad.getOutputStream().write(withChecksum("GQGSV,1,1,01,193,40,083,42\r\n").getBytes(StandardCharsets.US_ASCII));
+				for (int e = 0; e < 3; e++) {
+					bad.getOutputStream().write(epoch(e, 0).getBytes(StandardCharsets.US_ASCII));
+				}
+				assertTrue(badClosed.await(10, TimeUnit.SECONDS));
+			}
+			Socket after = connect(server, "after");
+			String gsv = withChecksum("GPGSV,1,1,01,04,40,083,42") + "\r\n";
+			for (int e = 0; e < N_EPOCH; e++) {
+				before.getOutputStream().write((epoch(e, 1) + gsv).getBytes(StandardCharsets.US_ASCII));
+				after.getOutputStream().write((epoch(e, 2) + gsv).getBytes(StandardCharsets.US_ASCII));
+			}
+			before.close();
+			after.close();
+			assertTrue(goodClosed.await(10, TimeUnit.SECONDS));
+			assertEquals(0, server.getConnectionCount());
+			assertEquals(1, server.getErrorCount());
+		}
+
+		assertEquals(N_EPOCH, signals.get("before").size());
+		assertEquals(N_EPOCH, signals.get("after").size());
+		assertEquals(0, signals.get("before").get(0));
+		assertEquals(1, signals.get("after").get(0));
+	}
+
+	private static Socket connect(NmeaServer server, String name) throws Exception {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		socket.getOutputStream().write(("SOURCE " + name + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		return socket;
+	}
+
+	private static String epoch(int e, int r) {
+		String time = String.format("1200%02d.%02d", e / 10, (e % 10) * 10);
+		String lat = String.format("48%02d.038", r % 60);
+		return "$GPGSV,1,1,01,04,40,083,42*46\r\n"
+			+ rmc(time, lat, "230394") + "\r\n"
+			+ gga(time, lat) + "\r\n"
+			+ "garbage\r\n";
+	}
+}
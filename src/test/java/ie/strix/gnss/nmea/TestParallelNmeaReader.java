@@ -0,0 +1,50 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.gga;
+import static ie.strix.gnss.nmea.NmeaTestData.log;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ie.strix.gnss.PVT;
+
+public class TestParallelNmeaReader {
+
+	@TempDir
+	File tempDir;
+
+	@DisplayName("Parallel reader output is identical to Stream.readAllPVT()")
+	@Test
+	public void testIdenticalToSequential() throws IOException {
+		File file = new File(tempDir, "log.nmea");
+		try (PrintWriter w = new PrintWriter(file, StandardCharsets.US_ASCII)) {
+			// GGA before any RMC are dropped, the day changes after 2000 epochs
+			w.print(gga(235958) + "\r\n");
+			w.print(log(4000, 2000, 37));
+		}
+
+		Stream stream = new Stream(file);
+		List<PVT> expected = stream.readAllPVT();
+		stream.close();
+		assertEquals(4000, expected.size());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (long chunkSize : new long[] { 1000, 4096, 65536, Long.MAX_VALUE / 2 }) {
+				assertEquals(expected, ParallelNmeaReader.readAllPVT(file, pool, chunkSize));
+			}
+			assertEquals(expected, ParallelNmeaReader.readAllPVT(file, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
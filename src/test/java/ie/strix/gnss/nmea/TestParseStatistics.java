@@ -0,0 +1,186 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.gga;
+import static ie.strix.gnss.nmea.NmeaTestData.rmc;
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.PVT;
+
+public class TestParseStatistics {
+
+	private static final String GGA = gga("123519", "4807.038");
+	private static final String RMC = rmc("123519", "4807.038", "230394");
+	private static final String BAD_FIX = withChecksum("GPGGA,123520,4807.038,N,01131.000,E,X,08,0.9,545.4,M,46.9,M,,");
+
+	private static String data() {
+		return GGA + "\r\n"
+			+ RMC + "\r\n"
+			+ GGA.substring(0, GGA.length() - 2) + "00\r\n"
+			+ "$GP\r\n"
+			+ withChecksum("GPZZZ,1,2,3") + "\r\n"
+			+ BAD_FIX + "\r\n"
+			+ GGA + "\r\n";
+	}
+
+	@DisplayName("Sentences and errors are counted by type and category")
+	@Test
+	public void testCounts() throws Exception {
+		ParseStatistics statistics = new ParseStatistics();
+		statistics.setLogSampleInterval(0);
+		long globalErrors = ParseStatistics.global().getErrorCount();
+		ParseStatistics.Snapshot start = statistics.snapshot();
+
+		Stream stream = new Stream(new StringReader(data()));
+		stream.setStatistics(statistics);
+		long nullCount = 0;
+		while (true) {
+			try {
+				Sentence sentence = stream.readNextSentence();
+				if (sentence == null) {
+					nullCount++;
+				} else if (sentence instanceof GGA && ((GGA)sentence).getFixTypeValue() < 0) {
+					assertNull(((GGA)sentence).getFixType());
+				}
+			} catch (EndOfStreamException e) {
+				break;
+			}
+		}
+
+		assertEquals(2, nullCount);
+		assertEquals(4, statistics.getSentenceCount());
+		assertEquals(3, statistics.getSentenceCount("GGA"));
+		assertEquals(1, statistics.getSentenceCount("RMC"));
+		assertEquals(1, statistics.getChecksumErrorCount());
+		assertEquals(1, statistics.getTruncatedCount());
+		assertEquals(1, statistics.getUnknownTypeCount());
+		// Counted by both the fix type getters
+		assertEquals(2, statistics.getFieldErrorCount());
+		assertEquals(globalErrors, ParseStatistics.global().getErrorCount());
+
+		ParseStatistics.Snapshot end = statistics.snapshot();
+		assertEquals(3, end.getSentenceCount("GGA"));
+		assertEquals(5, end.getErrorCount());
+		assertTrue(end.getSentenceRate(start) > 0);
+		assertTrue(end.getErrorRate(start) > 0);
+		assertEquals(0, end.getSentenceRate(end));
+
+		// Reading the rates does not move the interval they are over
+		double rate = statistics.getSentenceRate();
+		assertTrue(rate > 0);
+		assertTrue(statistics.getErrorRate(ParseStatistics.ParseError.CHECKSUM) > 0);
+		assertTrue(statistics.getSentenceRate() > 0);
+		assertTrue(statistics.getSentenceRate() <= rate);
+
+		statistics.reset();
+		assertEquals(0, statistics.getSentenceCount());
+		assertEquals(0, statistics.getErrorCount());
+	}
+
+	@DisplayName("Lines dropped by the byte framer are counted")
+	@Test
+	public void testFramerErrors() {
+		ParseStatistics statistics = new ParseStatistics();
+		Stream stream = new Stream(new ByteArrayInputStream(data().getBytes(StandardCharsets.US_ASCII)));
+		stream.setStatistics(statistics);
+		stream.readAllPVT();
+		assertEquals(1, statistics.getChecksumErrorCount());
+		assertEquals(1, statistics.getTruncatedCount());
+		assertEquals(4, statistics.getSentenceCount("GGA") + statistics.getSentenceCount("RMC"));
+	}
+
+	/**
+	 * @return The sentences of data, read with statistics.
+	 */
+	private static List<Sentence> read(String data, ParseStatistics statistics) throws IOException {
+		Stream stream = new Stream(new StringReader(data));
+		stream.setStatistics(statistics);
+		List<Sentence> sentences = new ArrayList<>();
+		while (true) {
+			try {
+				sentences.add(stream.readNextSentence());
+			} catch (EndOfStreamException e) {
+				return sentences;
+			}
+		}
+	}
+
+	@DisplayName("An invalid decimal field is counted and read as null or NaN")
+	@Test
+	public void testInvalidDecimal() throws Exception {
+		ParseStatistics statistics = new ParseStatistics();
+		statistics.setLogSampleInterval(0);
+		GGA gga = (GGA)read(withChecksum("GPGGA,123519,4807.038,N,01131.000,E,1,08,0.x9,545.4,M,46.9,M,,") + "\r\n", statistics).get(0);
+		assertNull(gga.getHdop());
+		assertTrue(Double.isNaN(gga.getHdopValue()));
+		assertEquals(2, statistics.getFieldErrorCount());
+		assertEquals(545.4, gga.getAltitudeM(), 0);
+	}
+
+	@DisplayName("An invalid latitude is counted and does not stop the stream")
+	@Test
+	public void testInvalidLatitude() throws Exception {
+		ParseStatistics statistics = new ParseStatistics();
+		statistics.setLogSampleInterval(0);
+		Stream stream = new Stream(new StringReader(RMC + "\r\n" + gga("123519", "48x7.038") + "\r\n" + GGA + "\r\n"));
+		stream.setStatistics(statistics);
+		List<PVT> pvts = stream.readAllPVT();
+		assertTrue(statistics.getFieldErrorCount() > 0);
+		assertEquals(2, pvts.size());
+		assertTrue(Double.isNaN(pvts.get(0).getLatitude()));
+		assertEquals(48 + 7.038 / 60, pvts.get(1).getLatitude(), 1e-9);
+
+		GGA gga = (GGA)read(gga("123519", "48x7.038") + "\r\n", statistics).get(0);
+		long fieldErrors = statistics.getFieldErrorCount();
+		assertNull(gga.getLatitude());
+		assertTrue(Double.isNaN(gga.getLatitudeDeg()));
+		assertEquals(fieldErrors + 2, statistics.getFieldErrorCount());
+	}
+
+	@DisplayName("An invalid longitude is counted and read as null or NaN")
+	@Test
+	public void testInvalidLongitude() throws Exception {
+		ParseStatistics statistics = new ParseStatistics();
+		statistics.setLogSampleInterval(0);
+		GGA gga = (GGA)read(withChecksum("GPGGA,123519,4807.038,N,01131.0x0,E,1,08,0.9,545.4,M,46.9,M,,") + "\r\n", statistics).get(0);
+		assertNull(gga.getLongitude());
+		assertTrue(Double.isNaN(gga.getLongitudeDeg()));
+		assertEquals(2, statistics.getFieldErrorCount());
+		assertEquals(48 + 7.038 / 60, gga.getLatitudeDeg(), 1e-9);
+	}
+
+	@DisplayName("Statistics are readable through JMX")
+	@Test
+	public void testMBean() throws Exception {
+		ParseStatistics statistics = new ParseStatistics();
+		ObjectName name = statistics.register("test");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			statistics.countError(ParseStatistics.ParseError.CHECKSUM, "$GPGGA*00");
+			assertEquals(1L, server.getAttribute(name, "ChecksumErrorCount"));
+			assertEquals(1L, server.getAttribute(name, "ErrorCount"));
+			assertTrue((Double)server.getAttribute(name, "ErrorRate") > 0);
+			assertTrue((Double)server.invoke(name, "getErrorRate", new Object[] { "CHECKSUM" }, new String[] { String.class.getName() }) > 0);
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, server.getAttribute(name, "ErrorCount"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+}
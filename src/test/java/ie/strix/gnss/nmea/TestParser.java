@@ -0,0 +1,93 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestParser {
+
+	private static final String GGA_EXAMPLE = withChecksum("GNGGA,160041.60,5316.89755629,N,00859.58729552,W,4,23,0.7,27.7125,M,57.9942,M,1.6,0295");
+	private static final String GGA_OTHER = withChecksum("GNGGA,160041.80,5316.89755001,N,00859.58729999,W,4,22,0.8,-2.7125,M,57.9942,M,1.8,0295");
+	private static final String RMC_EXAMPLE = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+	private static final String GSV_EXAMPLE = "$GNGSV,2,1,08,01,40,083,42,03,17,308,30,12,05,172,20,19,63,120,45,1,1*66";
+
+	@DisplayName("Template parser decodes GGA identically to Sentence.valueOf")
+	@Test
+	public void testGga() throws ChecksumFailException {
+		Parser parser = ParserFactory.builder().ggaExample(GGA_EXAMPLE).build().createParser();
+
+		for (String s : new String[] { GGA_EXAMPLE, GGA_OTHER }) {
+			GGA expected = (GGA) Sentence.valueOf(s);
+			GGA gga = (GGA) parser.parse(s);
+			assertEquals(expected.getTimeInDay(), gga.getTimeInDay());
+			assertEquals(expected.getNmeaTime(), gga.getNmeaTime());
+			assertEquals(expected.getLatitude(), gga.getLatitude(), 1e-9);
+			assertEquals(expected.getLongitude(), gga.getLongitude(), 1e-9);
+			assertEquals(expected.getAltitude(), gga.getAltitude(), 1e-9);
+			assertEquals(expected.getHdop(), gga.getHdop(), 1e-9);
+			assertEquals(expected.getFixType(), gga.getFixType());
+			assertEquals(expected.getNSat(), gga.getNSat());
+			assertEquals(expected.getAccuracy(), gga.getAccuracy());
+			assertEquals(Constellation.GENERIC, gga.constellation);
+		}
+
+		GGA gga = new GGA();
+		byte[] bytes = (GGA_OTHER + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		assertTrue(parser.parseGga(bytes, 0, bytes.length, gga));
+		assertEquals(22, gga.getNSat());
+	}
+
+	@DisplayName("Template parser falls back to Sentence.valueOf when layout differs")
+	@Test
+	public void testFallback() throws ChecksumFailException {
+		Parser parser = ParserFactory.builder().ggaExample(GGA_EXAMPLE).build().createParser();
+
+		String noFix = withChecksum("GNGGA,160041.60,,,,,0,00,,,M,,M,,");
+		assertFalse(parser.parseGga(noFix, new GGA()));
+		Sentence sentence = parser.parse(noFix);
+		assertInstanceOf(GGA.class, sentence);
+		assertEquals(0, ((GGA) sentence).getFixType());
+
+		String badChecksum = GGA_OTHER.substring(0, GGA_OTHER.length() - 2) + "00";
+		assertFalse(parser.parseGga(badChecksum, new GGA()));
+
+		assertInstanceOf(GLL.class, parser.parse("$GPGLL,4916.45,N,12311.12,W,225444,A,A*5C"));
+	}
+
+	@DisplayName("Template parser decodes RMC and GSV")
+	@Test
+	public void testRmcGsv() throws ChecksumFailException, IOException {
+		Parser parser = ParserFactory.builder().build()
+				.createParserByExample(new StringReader(RMC_EXAMPLE + "\n" + GSV_EXAMPLE + "\n"));
+
+		RMC rmc = new RMC();
+		assertTrue(parser.parseRmc(RMC_EXAMPLE, rmc));
+		assertEquals(12 * 3600000 + 35 * 60000 + 19 * 1000, rmc.getTimeInDay());
+		assertEquals("A", rmc.getStatus());
+		assertEquals(48.1173, rmc.getLatitude(), 1e-8);
+		assertEquals(11.516666667, rmc.getLongitude(), 1e-8);
+		assertEquals(22.4, rmc.getSpeedOverGroundKt(), 1e-8);
+		assertEquals(84.4, rmc.getTrackAngle(), 1e-8);
+		assertEquals("1994-03-23", rmc.getDateIso());
+		assertEquals(-3.1, rmc.getMagneticVariation(), 1e-8);
+
+		GSV gsv = new GSV();
+		assertTrue(parser.parseGsv(GSV_EXAMPLE, gsv));
+		assertEquals(2, gsv.getNumberOfMessages());
+		assertEquals(1, gsv.getMessageNumber());
+		assertEquals(8, gsv.getNSat());
+		assertEquals(4, gsv.getSignals().length);
+		assertEquals(Signal.GPS_L1_CA, gsv.getSignals()[0].getSignal());
+		assertEquals(19, gsv.getSignals()[3].getPrn());
+		assertEquals(45, gsv.getSignals()[3].getSnr());
+	}
+}
@@ -1,7 +1,10 @@
 package ie.strix.gnss.nmea;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,6 +30,46 @@ public class TestSentenceFactory {
         assertInstanceOf(UnknownSentence.class, sentence);
     }
 
+    @DisplayName("valueOf counts unknown sentences including unregistered proprietary sentences")
+    @Test
+    public void testUnknownSentenceCount() throws ChecksumFailException {
+        long before = Sentence.getUnknownSentenceCount();
+        Sentence.valueOf(withChecksum("GPXYZ,1,2,3"));
+        Sentence.valueOf(withChecksum("PQRSA,1,2,3"));
+        Sentence.valueOf(withChecksum("GPG1A,1"));
+        assertTrue(Sentence.getUnknownSentenceCount() - before >= 3);
+    }
+
+    @DisplayName("Proprietary sentences dispatch to registered factories by address or manufacturer")
+    @Test
+    public void testProprietaryRegistration() throws ChecksumFailException {
+        Sentence.registerProprietary("PUBX", ProprietarySentence::new);
+        Sentence.registerProprietary("PTSTA", ProprietarySentence::new);
+
+        assertInstanceOf(ProprietarySentence.class, Sentence.valueOf(withChecksum("PUBX,00,081350.00,4717.113210,N")));
+        assertInstanceOf(ProprietarySentence.class, Sentence.valueOf(withChecksum("PTSTA,1")));
+        // Manufacturer prefix of a registered full address does not match
+        assertInstanceOf(UnknownSentence.class, Sentence.valueOf(withChecksum("PTSTB,1")));
+        // Registered manufacturer matches longer addresses
+        Sentence.registerProprietary("PTST", ProprietarySentence::new);
+        assertInstanceOf(ProprietarySentence.class, Sentence.valueOf(withChecksum("PTSTB,1")));
+        // Standard sentences unaffected
+        assertInstanceOf(GLL.class, Sentence.valueOf("$GPGLL,4916.45,N,12311.12,W,225444,A,A*5C"));
+
+        assertThrows(IllegalArgumentException.class, () -> Sentence.registerProprietary("GPXYZ", ProprietarySentence::new));
+        assertEquals("1", ((ProprietarySentence) Sentence.valueOf(withChecksum("PTSTA,1"))).getValue());
+    }
+
+    static class ProprietarySentence extends Sentence {
+        ProprietarySentence(String sentence, boolean checksumVerified) throws ChecksumFailException {
+            super(sentence, checksumVerified);
+        }
+
+        String getValue() {
+            return getField(1);
+        }
+    }
+
     private static String withChecksum(String payload) {
         return "$" + payload + "*" + checksum(payload);
     }
@@ -0,0 +1,77 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestSentencePool {
+
+	private static final String GGA_1 = withChecksum("GNGGA,160041.60,5316.89755629,N,00859.58729552,W,4,23,0.7,27.7125,M,57.9942,M,1.6,0295");
+	private static final String GGA_2 = withChecksum("GNGGA,160041.80,5316.89755001,N,00859.58729999,W,4,22,0.8,-2.7125,M,57.9942,M,1.8,0295");
+	private static final String RMC = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+
+	@DisplayName("parseInto reuses the target and decodes identically to valueOf")
+	@Test
+	public void testParseInto() throws ChecksumFailException {
+		GGA gga = new GGA();
+		for (String s : new String[] { GGA_1, GGA_2 }) {
+			GGA expected = (GGA) Sentence.valueOf(s);
+			assertSame(gga, GGA.parseInto(s, gga));
+			assertEquals(expected.getTimeInDay(), gga.getTimeInDay());
+			assertEquals(expected.getLatitude(), gga.getLatitude());
+			assertEquals(expected.getAltitude(), gga.getAltitude());
+			assertEquals(expected.getNSat(), gga.getNSat());
+		}
+
+		// Caller's buffer is copied so it can be reused
+		byte[] buf = ("xx" + GGA_1 + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		GGA.parseInto(buf, 2, buf.length - 2, gga);
+		buf[20] = '9';
+		assertEquals(((GGA) Sentence.valueOf(GGA_1)).getLatitude(), gga.getLatitude());
+
+		StringBuilder sb = new StringBuilder(GGA_2);
+		GGA.parseInto(sb, gga);
+		sb.setLength(0);
+		assertEquals(((GGA) Sentence.valueOf(GGA_2)).getLatitude(), gga.getLatitude());
+	}
+
+	@DisplayName("parseInto rejects bad checksum and wrong type, leaving target unchanged")
+	@Test
+	public void testParseIntoErrors() throws ChecksumFailException {
+		GGA gga = GGA.parseInto(GGA_1, new GGA());
+		String badChecksum = GGA_2.substring(0, GGA_2.length() - 2) + "00";
+		assertThrows(ChecksumFailException.class, () -> GGA.parseInto(badChecksum, gga));
+		assertThrows(IllegalArgumentException.class, () -> GGA.parseInto(RMC, gga));
+		assertEquals(GGA_1, gga.toString());
+	}
+
+	@DisplayName("Pool returns one object per sentence type")
+	@Test
+	public void testPool() {
+		SentencePool pool = SentencePool.forCurrentThread();
+		assertSame(pool, SentencePool.forCurrentThread());
+
+		Sentence first = pool.parse(GGA_1);
+		assertInstanceOf(GGA.class, first);
+		Sentence rmc = pool.parse(RMC.getBytes(StandardCharsets.US_ASCII), 0, RMC.length());
+		assertInstanceOf(RMC.class, rmc);
+		assertEquals("1994-03-23", ((RMC) rmc).getDateIso());
+		Sentence second = pool.parse(GGA_2);
+		assertSame(first, second);
+		assertEquals(57641800, ((GGA) second).getTimeInDay());
+
+		Sentence unknown = pool.parse(withChecksum("GPZDA,160012.71,11,03,2004,-1,00"));
+		assertInstanceOf(UnknownSentence.class, unknown);
+		assertEquals("ZDA", unknown.getSentenceId());
+
+		assertNull(pool.parse(GGA_2.substring(0, GGA_2.length() - 2) + "00"));
+	}
+}
@@ -0,0 +1,53 @@
+package ie.strix.gnss.nmea;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestSignalQuality {
+
+	@DisplayName("Signal lookup table finds every signal by constellation and NMEA signal ID")
+	@Test
+	public void testSignalLookup() {
+		for (Signal signal : Signal.values()) {
+			assertSame(signal, Signal.getSignal(signal.getConstellation(), signal.getNmeaSignalId()));
+		}
+		assertNull(Signal.getSignal(Constellation.GPS, 0));
+		assertNull(Signal.getSignal(Constellation.GENERIC, 1));
+		assertNull(Signal.getSignal(Constellation.GALILEO, 16));
+		assertNull(Signal.getSignal(null, 1));
+	}
+
+	@DisplayName("SignalQuality packs into a long and back")
+	@Test
+	public void testPack() throws ChecksumFailException {
+		for (Signal signal : new Signal[] { null, Signal.GPS_L1_CA, Signal.NAVIC_UNK1 }) {
+			for (int[] v : new int[][] { { 1, 40, 83, 42, 1 }, { 65535, -1, -1, -1, 15 }, { 437, 90, 359, 99, 0 } }) {
+				SignalQuality sq = new SignalQuality(signal, v[0], v[1], v[2], v[3], v[4]);
+				long packed = sq.toLong();
+				assertSame(signal, SignalQuality.signal(packed));
+				assertEquals(v[0], SignalQuality.prn(packed));
+				assertEquals(v[1], SignalQuality.elevation(packed));
+				assertEquals(v[2], SignalQuality.azimuth(packed));
+				assertEquals(v[3], SignalQuality.snr(packed));
+				assertEquals(v[4], SignalQuality.signalId(packed));
+				assertEquals(sq.toString(), SignalQuality.valueOf(packed).toString());
+			}
+		}
+		// Out of range stored as not reported
+		assertEquals(-1, SignalQuality.azimuth(SignalQuality.pack(null, 1, 0, 5000, 0, 0)));
+
+		SkyView sky = new SkyView();
+		sky.add(new GSV("$GNGSV,1,1,04,11,55,100,41,19,25,210,37,24,12,310,29,31,05,045,18,7,3*68"));
+		long[] history = new long[sky.getSignalCount()];
+		for (int i = 0; i < history.length; i++) {
+			history[i] = sky.getSignalQualityPacked(i);
+		}
+		assertSame(Signal.GALILEO_L1BC, SignalQuality.signal(history[3]));
+		assertEquals(31, SignalQuality.prn(history[3]));
+		assertEquals(18, SignalQuality.snr(history[3]));
+	}
+}
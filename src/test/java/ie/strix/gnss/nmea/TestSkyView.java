@@ -0,0 +1,80 @@
+package ie.strix.gnss.nmea;
+
+import static ie.strix.gnss.nmea.NmeaTestData.withChecksum;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestSkyView {
+
+	@DisplayName("Multi-part GSV fills the sky view in place")
+	@Test
+	public void testMultiPart() throws ChecksumFailException {
+		SkyView sky = new SkyView();
+		sky.add(new GSV("$GNGSV,2,1,08,01,40,083,42,03,17,308,30,12,05,172,20,19,63,120,45,1,1*66"));
+		assertFalse(sky.isComplete());
+		assertEquals(4, sky.getSignalCount());
+		sky.add(new GSV("$GNGSV,2,2,08,65,45,123,38,66,30,300,35,72,15,050,20,75,70,180,50,1,2*6C"));
+		assertTrue(sky.isComplete());
+		assertEquals(8, sky.getSignalCount());
+
+		assertEquals(Constellation.GPS, sky.getConstellation(0));
+		assertEquals(Signal.GPS_L1_CA, sky.getSignal(0));
+		assertEquals(1, sky.getPrn(0));
+		assertEquals(40, sky.getElevation(0));
+		assertEquals(83, sky.getAzimuth(0));
+		assertEquals(42, sky.getSnr(0));
+
+		assertEquals(Constellation.GLONASS, sky.getConstellation(7));
+		assertEquals(Signal.GLONASS_G1_CA, sky.getSignal(7));
+		assertEquals(75, sky.getPrn(7));
+		assertEquals(50, sky.getSnr(Signal.GLONASS_G1_CA, 75));
+		assertEquals(-1, sky.getSnr(Signal.GLONASS_G1_CA, 76));
+		assertEquals(3, sky.indexOf(Constellation.GPS, 1, 19));
+
+		// Repeated report updates existing entries
+		sky.add(new GSV(withChecksum("GNGSV,1,1,01,19,64,121,47,1,1")));
+		assertEquals(8, sky.getSignalCount());
+		assertEquals(47, sky.getSnr(3));
+		assertEquals(121, sky.getAzimuth(3));
+
+		sky.clear();
+		assertEquals(0, sky.getSignalCount());
+		assertEquals(-1, sky.indexOf(Constellation.GPS, 1, 19));
+	}
+
+	@DisplayName("Grows past initial capacity and keeps signals without signal ID")
+	@Test
+	public void testGrow() throws ChecksumFailException {
+		SkyView sky = new SkyView();
+		for (int round = 0; round < 2; round++) {
+			for (int prn = 1; prn <= 400; prn++) {
+				sky.add(new GSV(withChecksum(String.format("GPGSV,1,1,01,%d,10,100,%d", prn, prn % 50))));
+			}
+			assertEquals(400, sky.getSignalCount());
+			for (int prn = 1; prn <= 400; prn++) {
+				final int i = sky.indexOf(Constellation.GPS, 0, prn);
+				assertEquals(prn, sky.getPrn(i));
+				assertEquals(prn % 50, sky.getSnr(i));
+				assertNull(sky.getSignal(i));
+			}
+			sky.clear();
+		}
+	}
+
+	@DisplayName("GSV from talkers without a constellation is ignored")
+	@Test
+	public void testUnmappedTalker() throws ChecksumFailException {
+		SkyView sky = new SkyView();
+		sky.add(new GSV(withChecksum("GQGSV,1,1,01,193,40,083,42")));
+		sky.add(new GSV(withChecksum("BDGSV,2,1,05,01,40,083,42,03,17,308,30,12,05,172,20,19,63,120,45")));
+		assertEquals(0, sky.getSignalCount());
+		assertTrue(sky.isComplete());
+		sky.add(new GSV(withChecksum("GPGSV,1,1,01,04,40,083,42")));
+		assertEquals(1, sky.getSignalCount());
+	}
+}
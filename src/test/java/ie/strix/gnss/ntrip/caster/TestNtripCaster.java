@@ -0,0 +1,180 @@
+package ie.strix.gnss.ntrip.caster;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.rtcm.BitReader;
+import ie.strix.gnss.rtcm.Rtcm3Framer;
+import ie.strix.gnss.sim.RtcmGenerator;
+
+public class TestNtripCaster {
+
+	private static final String MOUNTPOINT = "TEST";
+	/** 2024-11-03T12:00:00Z */
+	private static final long START = 1_730_635_200_000L;
+
+	@DisplayName("Rovers receive whole valid frames when the base station splits them across writes")
+	@Test
+	public void testFrameAlignedForwarding() throws Exception {
+		// Expected frames, and the stream with noise between frames, one damaged frame and a
+		// 1005 with a valid CRC but no antenna position
+		byte[] clean = new RtcmGenerator(1, 53.28, -8.99, 20, START, 1000, 1).generate(20);
+		List<byte[]> frames = frames(clean);
+		frames.add(3, RtcmGenerator.frame(new byte[] { 0x3e, (byte)0xd0, 0x01, 0, 0 }, 5));
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		List<byte[]> expected = new ArrayList<>();
+		for (int i = 0; i < frames.size(); i++) {
+			byte[] frame = frames.get(i).clone();
+			if (i == 7) {
+				frame[10] ^= 1;
+			} else {
+				expected.add(frame);
+			}
+			stream.writeBytes(frame);
+			if (i % 3 == 0) {
+				stream.write(0x55);
+			}
+		}
+		byte[] data = stream.toByteArray();
+		// Proprietary message 4095 to send until the rover is registered
+		byte[] primer = RtcmGenerator.frame(new byte[] { (byte)0xff, (byte)0xf0, 0, 0 }, 4);
+
+		NtripCaster caster = new NtripCaster(0, 0);
+		caster.start();
+		try (Socket base = connect(caster)) {
+			OutputStream baseOut = base.getOutputStream();
+			baseOut.write(("SOURCE /" + MOUNTPOINT + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			baseOut.flush();
+			try (Socket rover = connectRover(caster)) {
+				InputStream in = rover.getInputStream();
+
+				// The rover may join after the first frames: send a primer frame until it arrives
+				List<byte[]> received = new ArrayList<>();
+				Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -> received.add(Arrays.copyOfRange(buf, offset, offset + length)));
+				byte[] buf = new byte[4096];
+				rover.setSoTimeout(50);
+				while (received.isEmpty()) {
+					baseOut.write(primer);
+					baseOut.flush();
+					try {
+						int n = in.read(buf);
+						assertTrue(n > 0);
+						framer.accept(buf, 0, n);
+					} catch (SocketTimeoutException e) {
+						// not yet registered
+					}
+				}
+				rover.setSoTimeout(10_000);
+
+				// Split into writes that straddle frames
+				for (int i = 0; i < data.length; i += 37) {
+					baseOut.write(data, i, Math.min(37, data.length - i));
+					baseOut.flush();
+				}
+
+				while (received.size() < expected.size() + primers(received, primer)) {
+					int n = in.read(buf);
+					assertTrue(n > 0);
+					framer.accept(buf, 0, n);
+				}
+				assertEquals(0, framer.getSkippedBytes());
+
+				received.subList(0, primers(received, primer)).clear();
+				assertEquals(expected.size(), received.size());
+				for (int i = 0; i < expected.size(); i++) {
+					assertArrayEquals(expected.get(i), received.get(i));
+				}
+				assertEquals(1, caster.stations.get(MOUNTPOINT).getMalformedCount());
+			}
+		} finally {
+			caster.stop();
+			new File("rtcm-" + MOUNTPOINT + ".log").delete();
+		}
+	}
+
+	@DisplayName("The antenna position in a 1005 decodes with negative coordinates")
+	@Test
+	public void testAntennaPosition() {
+		// West of Greenwich and south of the equator: negative Y and Z
+		byte[] frame = frames(new RtcmGenerator(1, -33.86, -70.65, 520, START, 1000, 1).generate(1)).get(0);
+		BitReader br = new BitReader(frame, 3, frame.length - 6);
+		assertEquals(1005, br.readUnsigned(12));
+		assertEquals(1, br.readUnsigned(12));
+		double[] xyz = BaseStation.readAntennaPosition(br);
+		assertTrue(xyz[1] < 0 && xyz[2] < 0);
+		double[] latLngAlt = ECEF.ecefToLatLngAlt(xyz[0], xyz[1], xyz[2]);
+		assertEquals(-33.86, latLngAlt[0], 1e-8);
+		assertEquals(-70.65, latLngAlt[1], 1e-8);
+		assertEquals(520, latLngAlt[2], 0.01);
+	}
+
+	/**
+	 * @return Number of primer frames at the start of received.
+	 */
+	private static int primers(List<byte[]> received, byte[] primer) {
+		int n = 0;
+		while (n < received.size() && Arrays.equals(received.get(n), primer)) {
+			n++;
+		}
+		return n;
+	}
+
+	private static Socket connect(NtripCaster caster) throws IOException {
+		return new Socket(InetAddress.getLoopbackAddress(), caster.getNtripPort());
+	}
+
+	/**
+	 * Connect a rover, retrying until the base station is registered.
+	 */
+	private static Socket connectRover(NtripCaster caster) throws IOException, InterruptedException {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			Socket socket = connect(caster);
+			socket.getOutputStream().write(("GET /" + MOUNTPOINT + " HTTP/1.0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			InputStream in = socket.getInputStream();
+			String status = readLine(in);
+			if (status.startsWith("ICY 200")) {
+				readLine(in);
+				return socket;
+			}
+			socket.close();
+			Thread.sleep(20);
+		}
+		throw new IOException("mountpoint " + MOUNTPOINT + " not available");
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int b;
+		while ((b = in.read()) >= 0 && b != '\n') {
+			if (b != '\r') {
+				sb.append((char)b);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static List<byte[]> frames(byte[] data) {
+		List<byte[]> frames = new ArrayList<>();
+		new Rtcm3Framer((buf, offset, length) -> frames.add(Arrays.copyOfRange(buf, offset, offset + length)))
+				.accept(data, 0, data.length);
+		return frames;
+	}
+}
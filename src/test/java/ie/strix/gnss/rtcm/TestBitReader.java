@@ -0,0 +1,110 @@
+package ie.strix.gnss.rtcm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestBitReader {
+
+	@DisplayName("Fields of 0 to 64 bits match a bit at a time read, from arrays and buffers")
+	@Test
+	public void testReadUnsigned() {
+		Random random = new Random(11);
+		byte[] data = new byte[300];
+		random.nextBytes(data);
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+		ByteBuffer heap = ByteBuffer.wrap(data);
+
+		for (int offset : new int[] { 0, 1, 7 }) {
+			int length = data.length - offset - 3;
+			BitReader[] readers = { new BitReader(data, offset, length), new BitReader().reset(direct, offset, length),
+					new BitReader().reset(heap, offset, length) };
+			for (BitReader br : readers) {
+				int bit = offset * 8;
+				Random widths = new Random(offset);
+				while (true) {
+					int n = widths.nextInt(65);
+					if (bit + n > (offset + length) * 8) {
+						break;
+					}
+					assertEquals(bits(data, bit, n), br.readUnsigned(n), "bit " + bit + " n " + n);
+					bit += n;
+					assertEquals(bit - offset * 8, br.getBitPosition());
+				}
+				assertEquals((offset + length) * 8 - bit, br.getRemainingBits());
+			}
+		}
+		assertEquals(0, direct.position());
+	}
+
+	@DisplayName("Two's complement and sign-magnitude fields are sign extended and scaled")
+	@Test
+	public void testSigned() {
+		byte[] data = new byte[32];
+		int bit = 0;
+		bit = put(data, bit, -123456789012L, 38);
+		bit = put(data, bit, 123456789012L, 38);
+		bit = put(data, bit, -1, 1 + 21);
+		// Sign-magnitude -5 and +5
+		bit = put(data, bit, (1 << 26) | 5, 27);
+		bit = put(data, bit, 5, 27);
+		bit = put(data, bit, Long.MIN_VALUE, 64);
+		bit = put(data, bit, -3, 4);
+
+		BitReader br = new BitReader(data, 0, data.length);
+		assertEquals(-123456789012L, br.readSigned(38));
+		assertEquals(12345678.9012, br.readScaledSigned(38, 0.0001), 1e-6);
+		assertEquals(-1, br.readSigned(22));
+		assertEquals(-5, br.readSignMagnitude(27));
+		assertEquals(5 * 0.5, br.readScaledSignMagnitude(27, 0.5));
+		assertEquals(Long.MIN_VALUE, br.readSigned(64));
+		assertEquals(13, br.readUnsigned(4));
+	}
+
+	@DisplayName("Skipping and seeking keep the position, and reading past the end throws")
+	@Test
+	public void testSkip() {
+		byte[] data = new byte[40];
+		new Random(2).nextBytes(data);
+		BitReader br = new BitReader(data, 0, data.length);
+		br.skip(3);
+		assertEquals(bits(data, 3, 5), br.readUnsigned(5));
+		br.readUnsigned(20);
+		br.skip(100);
+		assertEquals(128, br.getBitPosition());
+		assertEquals(bits(data, 128, 33), br.readUnsigned(33));
+		br.setBitPosition(13);
+		assertEquals(bits(data, 13, 50), br.readUnsigned(50));
+		assertTrue(br.readBoolean() == (bits(data, 63, 1) == 1));
+
+		br.setBitPosition(data.length * 8 - 10);
+		assertEquals(bits(data, data.length * 8 - 10, 10), br.readUnsigned(10));
+		assertEquals(0, br.getRemainingBits());
+		assertThrows(IndexOutOfBoundsException.class, () -> br.readUnsigned(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> br.setBitPosition(data.length * 8 + 1));
+	}
+
+	private static long bits(byte[] data, int bitPos, int n) {
+		long value = 0;
+		for (int i = bitPos; i < bitPos + n; i++) {
+			value = (value << 1) | ((data[i >>> 3] >> (7 - (i & 7))) & 1);
+		}
+		return value;
+	}
+
+	private static int put(byte[] data, int bitPos, long value, int n) {
+		for (int i = n - 1; i >= 0; i--) {
+			if (((value >>> i) & 1) != 0) {
+				data[bitPos >>> 3] |= 0x80 >>> (bitPos & 7);
+			}
+			bitPos++;
+		}
+		return bitPos;
+	}
+}
@@ -0,0 +1,280 @@
+package ie.strix.gnss.rtcm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.nmea.Constellation;
+import ie.strix.gnss.sim.RtcmGenerator;
+
+public class TestEphemeris {
+
+	/** 2024-11-03T12:00:00Z, Sunday: GPS time of week 43218s */
+	private static final long START = 1_730_635_200_000L;
+	private static final double TOW = 12 * 3600 + 18;
+	private static final double PI = 3.1415926535898;
+
+	@DisplayName("1019 fields are scaled to SI units and radians")
+	@Test
+	public void testGpsDecode() {
+		byte[] frame = gps(17, 85, 43200, 5153.6, 0.01, 0.25, 0.3, -0.6, 0.5, -2.6e-9);
+		KeplerEphemeris eph = (KeplerEphemeris)EphemerisDecoder.decode(payload(frame));
+
+		assertEquals(Constellation.GPS, eph.getConstellation());
+		assertEquals(17, eph.getPrn());
+		assertEquals(85, eph.getIode());
+		assertEquals(300, eph.getWeek());
+		assertEquals(43200, eph.getToe());
+		assertEquals(43200, eph.getToc());
+		assertEquals(5153.6, eph.getSqrtA(), 0x1p-19);
+		assertEquals(0.01, eph.getE(), 0x1p-33);
+		assertEquals(0.25 * PI, eph.getM0(), 1e-9);
+		assertEquals(0.3 * PI, eph.getI0(), 1e-9);
+		assertEquals(-0.6 * PI, eph.getOmega0(), 1e-9);
+		assertEquals(0.5 * PI, eph.getOmega(), 1e-9);
+		assertEquals(-2.6e-9 * PI, eph.getOmegaDot(), 1e-13 * PI);
+		assertEquals(1e-4, eph.getAf0(), 0x1p-31);
+		assertEquals(-5e-9, eph.getTgd(), 0x1p-31);
+		assertEquals(0, eph.getHealth());
+		assertEquals(EphemerisCache.key(Constellation.GPS, 17, 85), EphemerisDecoder.key(payload(frame)));
+	}
+
+	@DisplayName("A circular equatorial orbit matches the closed form position")
+	@Test
+	public void testCircularOrbit() {
+		KeplerEphemeris eph = (KeplerEphemeris)EphemerisDecoder.decode(payload(gps(5, 1, 43200, 5153.6, 0, 0.1, 0, 0, 0, 0)));
+		double a = eph.getSqrtA() * eph.getSqrtA();
+		double n = Math.sqrt(3.986005e14 / (a * a * a));
+		double[] xyz = new double[3];
+		for (long dt : new long[] { -7200_000, 0, 18_000, 3_600_000 }) {
+			eph.position(START + dt, xyz);
+			double tk = TOW + dt / 1000.0 - 43200;
+			double angle = eph.getM0() + n * tk - 7.2921151467e-5 * (tk + 43200);
+			assertEquals(a * Math.cos(angle), xyz[0], 1e-3);
+			assertEquals(a * Math.sin(angle), xyz[1], 1e-3);
+			assertEquals(0, xyz[2], 1e-3);
+		}
+	}
+
+	@DisplayName("Galileo and BeiDou MEO positions are at the orbit radius")
+	@Test
+	public void testGalileoBeidou() {
+		KeplerEphemeris gal = (KeplerEphemeris)EphemerisDecoder.decode(payload(galileo(11, 100, 43200, 5440.6, 0.0002, 0.7, 0.31, 0.2, -0.3, -3e-9)));
+		assertEquals(Constellation.GALILEO, gal.getConstellation());
+		assertEquals(11, gal.getPrn());
+		assertEquals(100, gal.getIode());
+		assertEquals(1250, gal.getWeek());
+		assertEquals(5440.6, gal.getSqrtA(), 0x1p-19);
+		assertEquals(0.31 * PI, gal.getI0(), 1e-9);
+
+		KeplerEphemeris bds = (KeplerEphemeris)EphemerisDecoder.decode(payload(beidou(23, 9, 43200, 5282.6, 0.001, -0.4, 0.305, 0.9, 0.1, -2e-9)));
+		assertEquals(Constellation.BEIDOU, bds.getConstellation());
+		assertEquals(23, bds.getPrn());
+		assertEquals(9, bds.getIode());
+		assertEquals(43200, bds.getToe());
+		assertFalse(bds.isGeo());
+
+		double[] xyz = new double[3];
+		for (KeplerEphemeris eph : new KeplerEphemeris[] { gal, bds }) {
+			double a = eph.getSqrtA() * eph.getSqrtA();
+			for (long dt = -7_200_000; dt <= 7_200_000; dt += 600_000) {
+				eph.position(START + dt, xyz);
+				double r = Math.sqrt(xyz[0] * xyz[0] + xyz[1] * xyz[1] + xyz[2] * xyz[2]);
+				assertTrue(r >= a * (1 - eph.getE()) - 1 && r <= a * (1 + eph.getE()) + 1, "radius " + r);
+			}
+		}
+	}
+
+	@DisplayName("A BeiDou GEO stays over one point")
+	@Test
+	public void testBeidouGeo() {
+		// Geostationary radius for the BeiDou constants, inclined 5 degrees in the broadcast frame
+		double a = Math.cbrt(3.986004418e14 / (7.292115e-5 * 7.292115e-5));
+		KeplerEphemeris eph = (KeplerEphemeris)EphemerisDecoder.decode(payload(beidou(3, 1, 0, Math.sqrt(a), 0, 0.3, 5.0 / 180, -1, 0, 0)));
+		assertTrue(eph.isGeo());
+
+		double[] first = new double[3];
+		double[] xyz = new double[3];
+		// BDT time of week 0 is Saturday 23:59:46 UTC
+		long toe = START - (long)(TOW * 1000) + 14_000;
+		eph.position(toe, first);
+		assertEquals(a, Math.sqrt(first[0] * first[0] + first[1] * first[1]), 1);
+		for (long dt = 0; dt <= 12 * 3_600_000L; dt += 3_600_000) {
+			eph.position(toe + dt, xyz);
+			assertEquals(first[0], xyz[0], 50);
+			assertEquals(first[1], xyz[1], 50);
+			assertEquals(0, xyz[2], 50);
+		}
+
+		// Seen from directly below the satellite is overhead
+		double lng = Math.toDegrees(Math.atan2(first[1], first[0]));
+		assertEquals(90, ECEF.elevation(ECEF.latLngAltToEcef(0, lng, 0), first), 1e-6);
+	}
+
+	@DisplayName("GLONASS orbits are integrated from the state at tb")
+	@Test
+	public void testGlonass() {
+		// Circular equatorial orbit: state in the rotating frame at 12:00 Moscow time
+		double r = 25_510_000;
+		double n = Math.sqrt(3.9860044e14 / (r * r * r));
+		double w = 7.292115e-5;
+		byte[] frame = glonass(7, -3, 48, -r, 0, 0, 0, -r * (n - w), 0);
+		GlonassEphemeris eph = (GlonassEphemeris)EphemerisDecoder.decode(payload(frame));
+		assertEquals(7, eph.getPrn());
+		assertEquals(-3, eph.getFrequencyChannel());
+		assertEquals(48, eph.getIode());
+		assertEquals(-r, eph.getX(), 0x1p-11 * 1000);
+		assertEquals(-r * (n - w), eph.getVy(), 0x1p-20 * 1000);
+
+		double[] xyz = new double[3];
+		// tb 48 is 12:00 Moscow time, 09:00 UTC
+		long tb = START - 3 * 3_600_000L;
+		eph.position(tb, xyz);
+		assertEquals(-r, xyz[0], 1e-6);
+		assertEquals(0, xyz[1], 1e-6);
+		for (long dt : new long[] { -900_000, -125_500, 60_000, 900_000 }) {
+			eph.position(tb + dt, xyz);
+			double angle = Math.PI + (n - w) * dt / 1000.0;
+			// J2 pulls the orbit a few tens of m from the point mass circle over 15 minutes
+			assertEquals(r * Math.cos(angle), xyz[0], 200, "dt " + dt);
+			assertEquals(r * Math.sin(angle), xyz[1], 200, "dt " + dt);
+			assertEquals(0, xyz[2], 1e-6);
+		}
+	}
+
+	@DisplayName("The cache decodes each ephemeris once, keeps the latest per satellite and evicts old ones")
+	@Test
+	public void testCache() {
+		EphemerisCache cache = new EphemerisCache(3_600_000);
+		byte[] first = gps(5, 1, 43200, 5153.6, 0.01, 0.1, 0.3, 0.2, 0.1, 0);
+		byte[] second = gps(5, 2, 50400, 5153.6, 0.01, 0.2, 0.3, 0.2, 0.1, 0);
+		byte[] other = galileo(5, 7, 43200, 5440.6, 0.0002, 0.7, 0.31, 0.2, -0.3, 0);
+
+		// The same ephemeris from two base stations
+		assertTrue(cache.accept(view(first), START));
+		assertFalse(cache.accept(view(first), START + 1000));
+		assertTrue(cache.accept(view(other), START));
+		assertFalse(cache.accept(view(RtcmGenerator.frame(new byte[] { (byte)0x3E, (byte)0xD0, 0 }, 3)), START));
+		assertEquals(2, cache.getDecodeCount());
+		assertEquals(1, cache.getDuplicateCount());
+		assertEquals(2, cache.size());
+
+		Ephemeris gps1 = cache.get(Constellation.GPS, 5, 1);
+		assertEquals(1, gps1.getIode());
+		assertSame(gps1, cache.getLatest(Constellation.GPS, 5));
+		assertNull(cache.get(Constellation.GPS, 5, 2));
+		assertTrue(cache.accept(view(second), START + 600_000));
+		assertEquals(2, cache.getLatest(Constellation.GPS, 5).getIode());
+		assertEquals(Constellation.GALILEO, cache.getLatest(Constellation.GALILEO, 5).getConstellation());
+
+		double[] xyz = new double[3];
+		assertTrue(cache.position(Constellation.GPS, 5, START, xyz));
+		assertFalse(cache.position(Constellation.GPS, 6, START, xyz));
+		assertTrue(Double.isNaN(cache.elevation(Constellation.BEIDOU, 1, START, xyz)));
+
+		// The first GPS ephemeris is broadcast again, the Galileo one is not
+		cache.accept(view(first), START + 3_000_000);
+		assertEquals(1, cache.evict(START + 3_700_000));
+		assertNull(cache.get(Constellation.GALILEO, 5, 7));
+		assertNull(cache.getLatest(Constellation.GALILEO, 5));
+		assertEquals(2, cache.size());
+	}
+
+	private static BitReader payload(byte[] frame) {
+		return new BitReader(frame, 3, frame.length - 6);
+	}
+
+	private static Rtcm3Parser.FrameView view(byte[] frame) {
+		return new Rtcm3Parser.FrameView().wrap(frame, 0, frame.length);
+	}
+
+	/**
+	 * Angles in semicircles. Week 300, af0 1e-4 s, TGD -5ns and the other fields zero.
+	 */
+	private static byte[] gps(int prn, int iode, double toe, double sqrtA, double e, double m0, double i0, double omega0,
+			double omega, double omegaDot) {
+		Fields f = new Fields();
+		f.put(1019, 12).put(prn, 6).put(300, 10).put(0, 4).put(0, 2).put(0, 14).put(iode, 8);
+		f.put(Math.round(toe / 16), 16).put(0, 8).put(0, 16).put(Math.round(1e-4 * 0x1p31), 22).put(iode, 10);
+		f.put(0, 16).put(0, 16).scaled(m0, 0x1p-31, 32).put(0, 16).scaled(e, 0x1p-33, 32).put(0, 16);
+		f.scaled(sqrtA, 0x1p-19, 32).put(Math.round(toe / 16), 16).put(0, 16).scaled(omega0, 0x1p-31, 32).put(0, 16);
+		f.scaled(i0, 0x1p-31, 32).put(0, 16).scaled(omega, 0x1p-31, 32).scaled(omegaDot, 0x1p-43, 24);
+		f.scaled(-5e-9, 0x1p-31, 8).put(0, 6).put(0, 1).put(0, 1);
+		return f.frame(488);
+	}
+
+	private static byte[] galileo(int prn, int iodnav, double toe, double sqrtA, double e, double m0, double i0, double omega0,
+			double omega, double omegaDot) {
+		Fields f = new Fields();
+		f.put(1046, 12).put(prn, 6).put(1250, 12).put(iodnav, 10).put(107, 8).put(0, 14).put(Math.round(toe / 60), 14);
+		f.put(0, 6).put(0, 21).put(0, 31).put(0, 16).put(0, 16).scaled(m0, 0x1p-31, 32).put(0, 16);
+		f.scaled(e, 0x1p-33, 32).put(0, 16).scaled(sqrtA, 0x1p-19, 32).put(Math.round(toe / 60), 14).put(0, 16);
+		f.scaled(omega0, 0x1p-31, 32).put(0, 16).scaled(i0, 0x1p-31, 32).put(0, 16).scaled(omega, 0x1p-31, 32);
+		f.scaled(omegaDot, 0x1p-43, 24).put(0, 10).put(0, 10).put(0, 2).put(0, 1).put(0, 2).put(0, 1).put(0, 2);
+		return f.frame(504);
+	}
+
+	private static byte[] beidou(int prn, int aode, double toe, double sqrtA, double e, double m0, double i0, double omega0,
+			double omega, double omegaDot) {
+		Fields f = new Fields();
+		f.put(1042, 12).put(prn, 6).put(950, 13).put(0, 4).put(0, 14).put(aode, 5).put(Math.round(toe / 8), 17);
+		f.put(0, 11).put(0, 22).put(0, 24).put(0, 5).put(0, 18).put(0, 16).scaled(m0, 0x1p-31, 32).put(0, 18);
+		f.scaled(e, 0x1p-33, 32).put(0, 18).scaled(sqrtA, 0x1p-19, 32).put(Math.round(toe / 8), 17).put(0, 18);
+		f.scaled(omega0, 0x1p-31, 32).put(0, 18).scaled(i0, 0x1p-31, 32).put(0, 18).scaled(omega, 0x1p-31, 32);
+		f.scaled(omegaDot, 0x1p-43, 24).put(0, 10).put(0, 10).put(0, 1);
+		return f.frame(511);
+	}
+
+	/**
+	 * Position m and velocity m/s at tb, no lunisolar acceleration.
+	 */
+	private static byte[] glonass(int slot, int channel, int tb, double x, double y, double z, double vx, double vy, double vz) {
+		Fields f = new Fields();
+		f.put(1020, 12).put(slot, 6).put(channel + 7, 5).put(1, 1).put(1, 1).put(0, 2).put(0, 12).put(0, 1).put(0, 1);
+		f.put(tb, 7);
+		for (double[] axis : new double[][] { { vx, x }, { vy, y }, { vz, z } }) {
+			f.signMagnitude(axis[0] / 1000 * 0x1p20, 24).signMagnitude(axis[1] / 1000 * 0x1p11, 27).signMagnitude(0, 5);
+		}
+		f.put(0, 1).put(0, 11).put(0, 2).put(0, 1).put(0, 22).put(0, 5).put(0, 5).put(0, 1).put(0, 4).put(0, 11);
+		f.put(0, 2).put(0, 1).put(0, 11).put(0, 32).put(0, 5).put(0, 22).put(0, 1).put(0, 7);
+		return f.frame(360);
+	}
+
+	/**
+	 * Writes a payload field by field.
+	 */
+	private static class Fields {
+		private final byte[] data = new byte[128];
+		private int bitPos = 0;
+
+		Fields put(long value, int n) {
+			for (int i = n - 1; i >= 0; i--) {
+				if (((value >>> i) & 1) != 0) {
+					data[bitPos >>> 3] |= 0x80 >>> (bitPos & 7);
+				}
+				bitPos++;
+			}
+			return this;
+		}
+
+		Fields scaled(double value, double scale, int n) {
+			return put(Math.round(value / scale), n);
+		}
+
+		Fields signMagnitude(double value, int n) {
+			long magnitude = Math.round(Math.abs(value));
+			return put(value < 0 ? (1L << (n - 1)) | magnitude : magnitude, n);
+		}
+
+		byte[] frame(int expectedBits) {
+			assertEquals(expectedBits, bitPos);
+			return RtcmGenerator.frame(data, (bitPos + 7) / 8);
+		}
+	}
+}
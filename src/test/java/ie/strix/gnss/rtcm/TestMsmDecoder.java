@@ -0,0 +1,156 @@
+package ie.strix.gnss.rtcm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.nmea.Constellation;
+import ie.strix.gnss.sim.RtcmGenerator;
+
+public class TestMsmDecoder {
+
+	/** 2024-11-03T12:00:00Z, a Sunday */
+	private static final long START = 1_730_635_200_000L;
+
+	private static RtcmGenerator generator(int msm) {
+		RtcmGenerator generator = new RtcmGenerator(42, 53.28, -8.99, 20, START, 1000, 1);
+		generator.setMsm(msm);
+		return generator;
+	}
+
+	@DisplayName("MSM4 to MSM7 decode to plausible observations for all four constellations")
+	@Test
+	public void testObservations() {
+		for (int msm = 4; msm <= 7; msm++) {
+			byte[] data = generator(msm).generate(1);
+			final int type = msm;
+			MsmDecoder decoder = new MsmDecoder(epoch -> {
+				assertEquals(42, epoch.getStationId());
+				assertEquals(4, epoch.getMessageCount());
+				// GPS time 12:00:18
+				assertEquals(12 * 3_600_000L + 18_000, epoch.getTimeOfDay());
+				assertEquals(12 * 3_600_000L + 18_000, epoch.getEpochTime(Constellation.GPS));
+				assertEquals(-1, epoch.getEpochTime(Constellation.NAVIC));
+				boolean extended = type == 5 || type == 7;
+				for (int i = 0; i < epoch.getSize(); i++) {
+					double pr = epoch.getPseudorange()[i];
+					assertTrue(pr > 19e6 && pr < 30e6, "pseudorange " + pr);
+					assertEquals(pr, epoch.getPhaseRange()[i], 3);
+					assertEquals(extended, !Double.isNaN(epoch.getPhaseRangeRate()[i]));
+					if (extended) {
+						assertTrue(Math.abs(epoch.getPhaseRangeRate()[i]) < 1000);
+					}
+					double cnr = epoch.getCnr()[i];
+					assertTrue(cnr > 15 && cnr < 60, "cnr " + cnr);
+					assertEquals(type >= 6 ? 67_108_864 : 524_288, epoch.getLockTime()[i]);
+					assertFalse(epoch.getHalfCycle()[i]);
+					int glonassChannel = epoch.getConstellation()[i] == Constellation.GLONASS ? epoch.getSatellite()[i] % 14 : 0;
+					assertEquals(extended ? glonassChannel : -1, epoch.getExtendedInfo()[i]);
+				}
+				// GPS first, each satellite on 1C then 5Q
+				assertEquals(Constellation.GPS, epoch.getConstellation()[0]);
+				assertEquals(2, epoch.getSignal()[0]);
+				assertEquals(23, epoch.getSignal()[1]);
+				assertEquals(epoch.getSatellite()[0], epoch.getSatellite()[1]);
+				for (Constellation c : new Constellation[] { Constellation.GPS, Constellation.GLONASS, Constellation.GALILEO, Constellation.BEIDOU }) {
+					assertTrue(epoch.getSatelliteCount(c) > 0);
+					assertTrue(epoch.getMeanCnr(c) > 20);
+				}
+				assertEquals(2 * (epoch.getSatelliteCount(Constellation.GPS) + epoch.getSatelliteCount(Constellation.GLONASS)
+						+ epoch.getSatelliteCount(Constellation.GALILEO) + epoch.getSatelliteCount(Constellation.BEIDOU)), epoch.getSize());
+			});
+
+			Rtcm3Parser.FrameView frame = new Rtcm3Parser.FrameView().reset(data, 0, data.length);
+			int decoded = 0;
+			while (frame.next()) {
+				if (decoder.accept(frame)) {
+					decoded++;
+				}
+			}
+			// The 1005 is not an MSM
+			assertEquals(4, decoded);
+			assertEquals(1, decoder.getEpochCount(), "MSM" + msm);
+		}
+	}
+
+	@DisplayName("Epochs are assembled from consecutive messages and the epoch object is reused")
+	@Test
+	public void testEpochs() {
+		byte[] data = generator(7).generate(10);
+		List<Long> times = new ArrayList<>();
+		List<MsmEpoch> epochs = new ArrayList<>();
+		MsmDecoder decoder = new MsmDecoder(epoch -> {
+			times.add(epoch.getTimeOfDay());
+			epochs.add(epoch);
+		});
+		Rtcm3Parser.forEachFrame(data, 0, data.length, decoder::accept);
+
+		assertEquals(10, times.size());
+		for (int i = 1; i < times.size(); i++) {
+			assertEquals(times.get(0) + i * 1000, times.get(i));
+			assertSame(epochs.get(0), epochs.get(i));
+		}
+		assertEquals(40, decoder.getMessageCount());
+		assertEquals(0, decoder.getIncompleteEpochCount());
+	}
+
+	@DisplayName("An epoch missing its last message is dropped")
+	@Test
+	public void testIncompleteEpoch() {
+		byte[] data = generator(4).generate(3);
+		List<Rtcm3Parser.Frame> frames = Rtcm3Parser.parseAll(data);
+		List<Long> times = new ArrayList<>();
+		MsmDecoder decoder = new MsmDecoder(epoch -> times.add(epoch.getTimeOfDay()));
+		for (int i = 0; i < frames.size(); i++) {
+			byte[] payload = frames.get(i).payload;
+			// The BeiDou message ends the second epoch
+			if (!(frames.get(i).messageNumber == 1124 && i > 5 && i < 10)) {
+				decoder.accept(payload, 0, payload.length);
+			}
+		}
+		assertEquals(2, times.size());
+		assertEquals(2000, times.get(1) - times.get(0));
+		assertEquals(1, decoder.getIncompleteEpochCount());
+	}
+
+	@DisplayName("Other messages and truncated MSM are rejected")
+	@Test
+	public void testRejected() {
+		assertTrue(MsmDecoder.isSupported(1077));
+		assertTrue(MsmDecoder.isSupported(1124));
+		assertFalse(MsmDecoder.isSupported(1073));
+		assertFalse(MsmDecoder.isSupported(1005));
+		assertFalse(MsmDecoder.isSupported(1107));
+		assertEquals(Constellation.GALILEO, MsmDecoder.getConstellation(1096));
+
+		List<Rtcm3Parser.Frame> frames = Rtcm3Parser.parseAll(generator(7).generate(1));
+		MsmDecoder decoder = new MsmDecoder(epoch -> { });
+		assertFalse(decoder.accept(frames.get(0).payload, 0, frames.get(0).payload.length));
+		byte[] msm = frames.get(1).payload;
+		assertFalse(decoder.accept(msm, 0, msm.length - 20));
+		assertEquals(1, decoder.getMalformedCount());
+		assertTrue(decoder.accept(msm, 0, msm.length));
+	}
+
+	@DisplayName("Lock time indicators convert to ms")
+	@Test
+	public void testLockTime() {
+		assertEquals(0, MsmDecoder.lockTime(0));
+		assertEquals(32, MsmDecoder.lockTime(1));
+		assertEquals(524_288, MsmDecoder.lockTime(15));
+		assertEquals(63, MsmDecoder.extendedLockTime(63));
+		assertEquals(64, MsmDecoder.extendedLockTime(64));
+		assertEquals(66, MsmDecoder.extendedLockTime(65));
+		assertEquals(128, MsmDecoder.extendedLockTime(96));
+		assertEquals(4 * 100 - 256, MsmDecoder.extendedLockTime(100));
+		assertEquals(1_048_576 * 700 - 671_088_640, MsmDecoder.extendedLockTime(700));
+		assertEquals(67_108_864, MsmDecoder.extendedLockTime(704));
+	}
+}
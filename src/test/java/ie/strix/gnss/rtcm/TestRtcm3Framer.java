@@ -0,0 +1,134 @@
+package ie.strix.gnss.rtcm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.sim.RtcmGenerator;
+
+public class TestRtcm3Framer {
+
+	/** 2024-11-03T12:00:00Z */
+	private static final long START = 1_730_635_200_000L;
+
+	private static byte[] stream() {
+		return new RtcmGenerator(1, 53.28, -8.99, 20, START, 1000, 1).generate(30);
+	}
+
+	@DisplayName("Frames split across reads at any point are reassembled")
+	@Test
+	public void testSplitReads() {
+		byte[] data = stream();
+		List<byte[]> whole = frames(data, data.length);
+		// 1005 every 10 epochs and 4 MSM per epoch
+		assertEquals(3 + 30 * 4, whole.size());
+		assertEquals(data.length, whole.stream().mapToInt(f -> f.length).sum());
+
+		for (int chunk : new int[] { 1, 2, 3, 5, 7, 64, 1000, 4096, 10_000 }) {
+			List<byte[]> frames = frames(data, chunk);
+			assertEquals(whole.size(), frames.size(), "chunk " + chunk);
+			for (int i = 0; i < frames.size(); i++) {
+				assertArrayEquals(whole.get(i), frames.get(i));
+			}
+		}
+	}
+
+	@DisplayName("Random read sizes give the same frames")
+	@Test
+	public void testRandomReads() {
+		byte[] data = stream();
+		List<byte[]> expected = frames(data, data.length);
+		Random random = new Random(5);
+		List<byte[]> frames = new ArrayList<>();
+		Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -> frames.add(Arrays.copyOfRange(buf, offset, offset + length)));
+		for (int i = 0; i < data.length;) {
+			int n = Math.min(data.length - i, 1 + random.nextInt(3000));
+			framer.accept(data, i, n);
+			i += n;
+		}
+		assertEquals(expected.size(), frames.size());
+		assertEquals(0, framer.getPendingBytes());
+		assertEquals(0, framer.getSkippedBytes());
+	}
+
+	@DisplayName("Framer resyncs after noise")
+	@Test
+	public void testNoise() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// A false preamble with a length, and one with non-zero reserved bits
+		byte[] noise = { 0x01, (byte)0xD3, 0x00, (byte)0xD3, (byte)0xFF, 0x7F };
+		out.writeBytes(noise);
+		byte[] clean = stream();
+		out.writeBytes(clean);
+
+		byte[] data = out.toByteArray();
+		List<byte[]> frames = frames(data, 100);
+		assertEquals(frames(clean, clean.length).size(), frames.size());
+
+		Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -> { });
+		framer.accept(data, 0, data.length);
+		assertEquals(noise.length, framer.getSkippedBytes());
+		assertEquals(1, framer.getCrcFailCount());
+	}
+
+	@DisplayName("Damaged and truncated frames are dropped and the rest are found")
+	@Test
+	public void testDamagedFrames() {
+		byte[] cleanData = stream();
+		List<byte[]> clean = frames(cleanData, cleanData.length);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<byte[]> expected = new ArrayList<>();
+		for (int i = 0; i < clean.size(); i++) {
+			byte[] frame = clean.get(i).clone();
+			if (i % 5 == 1) {
+				frame[3 + i % (frame.length - 6)] ^= 0x10;
+				out.writeBytes(frame);
+			} else if (i % 7 == 3) {
+				out.write(frame, 0, frame.length / 2);
+			} else {
+				out.writeBytes(frame);
+				expected.add(frame);
+			}
+		}
+
+		byte[] data = out.toByteArray();
+		for (int chunk : new int[] { 1, 100, 4096, data.length }) {
+			List<byte[]> frames = frames(data, chunk);
+			assertEquals(expected.size(), frames.size(), "chunk " + chunk);
+			for (int i = 0; i < frames.size(); i++) {
+				assertArrayEquals(expected.get(i), frames.get(i));
+			}
+		}
+	}
+
+	@DisplayName("A partial frame is discarded by reset")
+	@Test
+	public void testReset() {
+		byte[] data = stream();
+		List<byte[]> frames = new ArrayList<>();
+		Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -> frames.add(Arrays.copyOfRange(buf, offset, offset + length)));
+		framer.accept(data, 0, 10);
+		assertEquals(10, framer.getPendingBytes());
+		framer.reset();
+		assertEquals(0, framer.getPendingBytes());
+		framer.accept(data, 0, data.length);
+		assertEquals(frames(data, data.length).size(), frames.size());
+	}
+
+	private static List<byte[]> frames(byte[] data, int chunk) {
+		List<byte[]> frames = new ArrayList<>();
+		Rtcm3Framer framer = new Rtcm3Framer((buf, offset, length) -> frames.add(Arrays.copyOfRange(buf, offset, offset + length)));
+		for (int i = 0; i < data.length; i += chunk) {
+			framer.accept(data, i, Math.min(chunk, data.length - i));
+		}
+		return frames;
+	}
+}
@@ -0,0 +1,125 @@
+package ie.strix.gnss.rtcm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.sim.RtcmGenerator;
+
+public class TestRtcm3Parser {
+
+	/** 2024-11-03T12:00:00Z */
+	private static final long START = 1_730_635_200_000L;
+
+	private static byte[] stream() {
+		return new RtcmGenerator(1234, 53.28, -8.99, 20, START, 1000, 1).generate(12);
+	}
+
+	@DisplayName("parseAll checks the CRC over the whole frame including the preamble")
+	@Test
+	public void testParseAll() {
+		byte[] data = stream();
+		List<Rtcm3Parser.Frame> frames = Rtcm3Parser.parseAll(data);
+		// 1005 every 10 epochs and 4 MSM per epoch
+		assertEquals(2 + 12 * 4, frames.size());
+		for (Rtcm3Parser.Frame frame : frames) {
+			assertTrue(frame.crcOk, frame.toString());
+			assertEquals(1234, frame.stationId);
+		}
+		assertEquals(1005, frames.get(0).messageNumber);
+		assertEquals(1077, frames.get(1).messageNumber);
+	}
+
+	@DisplayName("The cursor views the same frames in place")
+	@Test
+	public void testCursor() {
+		byte[] data = stream();
+		List<Rtcm3Parser.Frame> expected = Rtcm3Parser.parseAll(data);
+
+		Rtcm3Parser.FrameView view = new Rtcm3Parser.FrameView().reset(data, 0, data.length);
+		int n = 0;
+		while (view.next()) {
+			Rtcm3Parser.Frame frame = expected.get(n++);
+			assertSame(data, view.getArray());
+			assertNull(view.getBuffer());
+			assertEquals(frame.startIndex, view.getOffset());
+			assertEquals(frame.lengthField, view.getPayloadLength());
+			assertEquals(frame.messageNumber, view.getMessageType());
+			assertEquals(frame.stationId, view.getStationId());
+			assertArrayEquals(frame.payload, view.getPayload());
+			assertEquals(frame.payload[0], view.getPayloadBuffer().get(0));
+		}
+		assertEquals(expected.size(), n);
+		assertEquals(data.length, view.getPosition());
+		assertEquals(0, view.getCrcFailCount());
+	}
+
+	@DisplayName("Frames in a direct buffer are visited without moving its position")
+	@Test
+	public void testDirectBuffer() {
+		byte[] data = stream();
+		List<Rtcm3Parser.Frame> expected = Rtcm3Parser.parseAll(data);
+
+		// Data from position 5 of the buffer
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 5);
+		buffer.position(5);
+		buffer.put(data);
+		buffer.flip().position(5);
+
+		List<Integer> types = new ArrayList<>();
+		int n = Rtcm3Parser.forEachFrame(buffer, frame -> {
+			Rtcm3Parser.Frame f = expected.get(types.size());
+			assertSame(buffer, frame.getBuffer());
+			assertEquals(f.startIndex + 5, frame.getOffset());
+			assertEquals(f.crcTx, frame.getTransmittedCrc());
+			assertArrayEquals(f.payload, frame.getPayload());
+			ByteBuffer payload = frame.getPayloadBuffer();
+			assertEquals(f.payload.length, payload.remaining());
+			assertEquals(f.payload[f.payload.length - 1], payload.get(f.payload.length - 1));
+			types.add(frame.getMessageType());
+		});
+		assertEquals(expected.size(), n);
+		assertEquals(5, buffer.position());
+		assertEquals(List.of(1005, 1077, 1087, 1097, 1127), types.subList(0, 5));
+	}
+
+	@DisplayName("Damaged frames are skipped and a partial frame is left for the next read")
+	@Test
+	public void testDamagedAndPartial() {
+		byte[] data = stream();
+		List<Rtcm3Parser.Frame> frames = Rtcm3Parser.parseAll(data);
+		// Damage the payload of the second frame, and cut the last one short
+		data[frames.get(1).startIndex + 20] ^= 0x04;
+		int last = frames.get(frames.size() - 1).startIndex;
+		int length = last + 10;
+
+		Rtcm3Parser.FrameView view = new Rtcm3Parser.FrameView().reset(data, 0, length);
+		List<Integer> offsets = new ArrayList<>();
+		while (view.next()) {
+			offsets.add(view.getOffset());
+		}
+		assertEquals(frames.size() - 2, offsets.size());
+		assertFalse(offsets.contains(frames.get(1).startIndex));
+		assertEquals(frames.get(2).startIndex, offsets.get(1));
+		assertEquals(1, view.getCrcFailCount());
+		assertEquals(last, view.getPosition());
+
+		// Without the CRC check the damaged frame is returned
+		view.setVerifyCrc(false).reset(data, 0, length);
+		int n = 0;
+		while (view.next()) {
+			n++;
+		}
+		assertEquals(frames.size() - 1, n);
+	}
+}
@@ -0,0 +1,162 @@
+package ie.strix.gnss.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.PVT;
+import ie.strix.gnss.nmea.Epoch;
+import ie.strix.gnss.nmea.GGA;
+import ie.strix.gnss.nmea.GLL;
+import ie.strix.gnss.nmea.NmeaServer;
+import ie.strix.gnss.nmea.ParseStatistics;
+import ie.strix.gnss.nmea.Stream;
+
+public class TestNmeaGenerator {
+
+	/** 2024-11-03T12:00:00Z */
+	private static final long START = 1_730_635_200_000L;
+	private static final int N_EPOCH = 200;
+
+	private static Trajectory trajectory() {
+		return Trajectory.circle(53.28, -8.99, 20, 50, 30);
+	}
+
+	@DisplayName("Generated epochs parse without errors and follow the trajectory")
+	@Test
+	public void testEpochs() {
+		NmeaGenerator generator = new NmeaGenerator(trajectory(), START, 100, 1);
+		generator.setNoise(0.01);
+		ParseStatistics statistics = new ParseStatistics();
+		Stream stream = new Stream(generator.openStream(N_EPOCH));
+		stream.setStatistics(statistics);
+		List<Epoch> epochs = new ArrayList<>();
+		stream.readAllEpochs(epoch -> epochs.add(epoch.copy()));
+
+		assertEquals(0, statistics.getErrorCount());
+		assertEquals(N_EPOCH, epochs.size());
+		for (int i = 0; i < N_EPOCH; i++) {
+			Epoch epoch = epochs.get(i);
+			PVT truth = trajectory().at(START + i * 100L);
+			assertEquals(START + i * 100L, epoch.getTimestamp());
+			assertEquals(4, epoch.getFixType());
+			assertEquals(truth.getLatitude(), epoch.getLatitude(), 0.1 / Trajectory.M_PER_DEG);
+			assertEquals(truth.getLongitude(), epoch.getLongitude(), 0.2 / Trajectory.M_PER_DEG);
+			assertEquals(20, epoch.getAltitude(), 0.2);
+			assertEquals(truth.getCourse(), epoch.getCourse(), 0.01);
+			assertEquals(0.01, epoch.getStdLatitude(), 1e-9);
+			assertTrue(epoch.getSatellitesUsed() >= 16);
+			assertTrue(epoch.getSkyView().isComplete());
+			assertTrue(epoch.getSkyView().getSignalCount() > 2 * epoch.getSatellitesUsed());
+		}
+	}
+
+	@DisplayName("GLL, when on, gives the same position and time as GGA")
+	@Test
+	public void testGll() throws Exception {
+		NmeaGenerator generator = new NmeaGenerator(trajectory(), START, 100, 3);
+		generator.setGll(true);
+		String[] lines = new String(generator.generate(1), StandardCharsets.US_ASCII).split("\r\n");
+		GGA gga = new GGA(lines[1]);
+		GLL gll = new GLL(lines[2]);
+		assertEquals(gga.getLatitudeDeg(), gll.getLatitudeDeg(), 0);
+		assertEquals(gga.getLongitudeDeg(), gll.getLongitudeDeg(), 0);
+		assertEquals(gga.getTimeInDay(), (int)gll.getTimeInDay());
+		assertEquals("A", gll.getStatus());
+		assertEquals("R", gll.getMode());
+	}
+
+	@DisplayName("Output is deterministic for a seed, whether read as a stream, reader or array")
+	@Test
+	public void testDeterministic() throws Exception {
+		byte[] a = new NmeaGenerator(trajectory(), START, 100, 7).generate(20);
+		byte[] b = new NmeaGenerator(trajectory(), START, 100, 7).openStream(20).readAllBytes();
+		assertArrayEquals(a, b);
+
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[100];
+		int n;
+		try (Reader reader = new NmeaGenerator(trajectory(), START, 100, 7).openReader(20)) {
+			while ((n = reader.read(buf)) > 0) {
+				sb.append(buf, 0, n);
+			}
+		}
+		assertEquals(new String(a, StandardCharsets.US_ASCII), sb.toString());
+	}
+
+	@DisplayName("Corrupted sentences are counted as errors and the rest still parse")
+	@Test
+	public void testCorruption() {
+		NmeaGenerator generator = new NmeaGenerator(trajectory(), START, 100, 2);
+		generator.setSkyViewInterval(0);
+		generator.setCorruption(0.05);
+		byte[] data = generator.generate(N_EPOCH);
+
+		ParseStatistics statistics = new ParseStatistics();
+		statistics.setLogSampleInterval(0);
+		Stream stream = new Stream(new ByteArrayInputStream(data));
+		stream.setStatistics(statistics);
+		AtomicInteger withPosition = new AtomicInteger();
+		stream.readAllEpochs(epoch -> {
+			if (epoch.hasPosition()) {
+				withPosition.incrementAndGet();
+			}
+		});
+
+		// 8 sentences per epoch, 5% corrupted
+		long errors = statistics.getErrorCount();
+		assertTrue(errors > N_EPOCH * 8 * 0.025 && errors < N_EPOCH * 8 * 0.1, "errors " + errors);
+		assertTrue(withPosition.get() > N_EPOCH * 0.8);
+	}
+
+	@DisplayName("The load generator feeds many receivers to a server")
+	@Test
+	public void testLoadGenerator() throws Exception {
+		final int nReceiver = 10;
+		final int nEpoch = 30;
+		Map<String, AtomicInteger> epochs = new ConcurrentHashMap<>();
+		CountDownLatch disconnected = new CountDownLatch(nReceiver);
+		NmeaServer.EpochSink sink = new NmeaServer.EpochSink() {
+			@Override
+			public void onEpoch(NmeaServer.Connection connection, Epoch epoch) {
+				epochs.computeIfAbsent(connection.getName(), k -> new AtomicInteger()).incrementAndGet();
+			}
+
+			@Override
+			public void onDisconnect(NmeaServer.Connection connection) {
+				disconnected.countDown();
+			}
+		};
+
+		try (NmeaServer server = new NmeaServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), sink, 2)) {
+			server.start();
+			LoadGenerator load = new LoadGenerator(nReceiver,
+					i -> new NmeaGenerator(Trajectory.stationary(53.28 + i * 0.001, -8.99, 20), START, 100, i));
+			load.setHeader(i -> "SOURCE rx" + i + "\r\n");
+			long bytes = load.run(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), nEpoch, false);
+			assertTrue(bytes > nReceiver * nEpoch * 500);
+			assertTrue(disconnected.await(10, TimeUnit.SECONDS));
+		}
+
+		assertEquals(nReceiver, epochs.size());
+		for (int i = 0; i < nReceiver; i++) {
+			assertEquals(nEpoch, epochs.get("rx" + i).get());
+		}
+	}
+}
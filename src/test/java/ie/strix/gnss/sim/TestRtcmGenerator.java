@@ -0,0 +1,149 @@
+package ie.strix.gnss.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ie.strix.gnss.ECEF;
+import ie.strix.gnss.nmea.Constellation;
+import ie.strix.gnss.rtcm.RTCM3;
+
+public class TestRtcmGenerator {
+
+	/** 2024-11-03T12:00:00Z, a Sunday */
+	private static final long START = 1_730_635_200_000L;
+
+	@DisplayName("Frames have valid CRCs and the expected message types")
+	@Test
+	public void testFrames() {
+		RtcmGenerator generator = new RtcmGenerator(1234, 53.28, -8.99, 20, START, 1000, 1);
+		List<byte[]> frames = frames(generator.generate(20));
+
+		// 1005 every 10 epochs and MSM7 for four constellations
+		assertEquals(2 + 20 * 4, frames.size());
+		List<Integer> types = new ArrayList<>();
+		for (byte[] frame : frames) {
+			int length = frame.length - 6;
+			assertEquals(crc(frame, length), RTCM3.computeCRC24Q(frame, length + 3));
+			assertEquals(1234, bits(frame, 24 + 12, 12));
+			types.add((int)bits(frame, 24, 12));
+		}
+		assertEquals(List.of(1005, 1077, 1087, 1097, 1127, 1077), types.subList(0, 6));
+		assertEquals(1005, types.get(41));
+	}
+
+	@DisplayName("1005 and 1006 carry the antenna reference point")
+	@Test
+	public void testReferenceStation() {
+		RtcmGenerator generator = new RtcmGenerator(7, 53.28, -8.99, 20, START, 1000, 1);
+		generator.setAntennaHeight(1.5);
+		generator.setConstellations(Constellation.GPS);
+		byte[] frame = frames(generator.generate(1)).get(0);
+
+		assertEquals(21, frame.length - 6);
+		assertEquals(1006, bits(frame, 24, 12));
+		int bit = 24 + 12 + 12 + 6 + 4;
+		double x = signed(bits(frame, bit, 38), 38) * 0.0001;
+		double y = signed(bits(frame, bit + 40, 38), 38) * 0.0001;
+		double z = signed(bits(frame, bit + 80, 38), 38) * 0.0001;
+		assertEquals(1.5, bits(frame, bit + 118, 16) * 0.0001, 1e-9);
+
+		double[] latLngAlt = ECEF.ecefToLatLngAlt(x, y, z);
+		assertEquals(53.28, latLngAlt[0], 1e-8);
+		assertEquals(-8.99, latLngAlt[1], 1e-8);
+		assertEquals(20, latLngAlt[2], 0.01);
+	}
+
+	@DisplayName("MSM headers and satellite data match the sky and payload size")
+	@Test
+	public void testMsm() {
+		for (int msm = 4; msm <= 7; msm++) {
+			RtcmGenerator generator = new RtcmGenerator(1, 53.28, -8.99, 20, START, 1000, 1);
+			generator.setMsm(msm);
+			generator.setReferenceInterval(0);
+			generator.setConstellations(Constellation.GPS, Constellation.GLONASS);
+			List<byte[]> frames = frames(generator.generate(1));
+			assertEquals(2, frames.size());
+
+			byte[] gps = frames.get(0);
+			assertEquals(1070 + msm, bits(gps, 24, 12));
+			// GPS time of week: Sunday 12:00:18 GPS
+			assertEquals(12 * 3_600_000L + 18_000, bits(gps, 48, 30));
+			// Multiple message bit set on all but the last
+			assertEquals(1, bits(gps, 78, 1));
+			assertEquals(0, bits(frames.get(1), 78, 1));
+			// GLONASS: Sunday, 15:00 Moscow time
+			assertEquals((0L << 27) | 15 * 3_600_000L, bits(frames.get(1), 48, 30));
+
+			int nSat = Long.bitCount(bits(gps, 24 + 73, 32) << 32 | bits(gps, 24 + 105, 32));
+			int nSig = Long.bitCount(bits(gps, 24 + 137, 32));
+			assertEquals(2, nSig);
+			int[] ids = new int[64];
+			assertEquals(Sky.visible(Constellation.GPS, START, ids), nSat);
+
+			int satBits = msm == 5 || msm == 7 ? 36 : 18;
+			int cellBits = new int[] { 48, 63, 65, 80 }[msm - 4];
+			int payloadBits = 169 + nSat * nSig + nSat * satBits + nSat * nSig * cellBits;
+			assertEquals((payloadBits + 7) / 8, gps.length - 6);
+
+			// Rough range in ms of the first satellite
+			int cellMask = 24 + 169;
+			long roughMs = bits(gps, cellMask + nSat * nSig, 8);
+			assertTrue(roughMs >= 64 && roughMs <= 90, "range " + roughMs + "ms");
+		}
+	}
+
+	@DisplayName("Corrupted frames fail the CRC or are cut short")
+	@Test
+	public void testCorruption() {
+		RtcmGenerator generator = new RtcmGenerator(1, 53.28, -8.99, 20, START, 1000, 3);
+		generator.setCorruption(0.2);
+		byte[] data = generator.generate(50);
+		byte[] clean = new RtcmGenerator(1, 53.28, -8.99, 20, START, 1000, 3).generate(50);
+		assertTrue(data.length <= clean.length);
+		assertTrue(frames(data).size() < frames(clean).size());
+	}
+
+	/**
+	 * Split a stream into frames with a valid CRC, skipping anything else.
+	 */
+	private static List<byte[]> frames(byte[] data) {
+		List<byte[]> frames = new ArrayList<>();
+		int i = 0;
+		while (i + 6 <= data.length) {
+			int length = ((data[i + 1] & 0x03) << 8) | (data[i + 2] & 0xff);
+			if ((data[i] & 0xff) == 0xD3 && i + length + 6 <= data.length) {
+				byte[] frame = new byte[length + 6];
+				System.arraycopy(data, i, frame, 0, frame.length);
+				if (crc(frame, length) == RTCM3.computeCRC24Q(frame, length + 3)) {
+					frames.add(frame);
+					i += frame.length;
+					continue;
+				}
+			}
+			i++;
+		}
+		return frames;
+	}
+
+	private static int crc(byte[] frame, int length) {
+		return ((frame[length + 3] & 0xff) << 16) | ((frame[length + 4] & 0xff) << 8) | (frame[length + 5] & 0xff);
+	}
+
+	private static long bits(byte[] data, int bitPos, int n) {
+		long value = 0;
+		for (int i = bitPos; i < bitPos + n; i++) {
+			value = (value << 1) | ((data[i >>> 3] >> (7 - (i & 7))) & 1);
+		}
+		return value;
+	}
+
+	private static long signed(long value, int n) {
+		return value << (64 - n) >> (64 - n);
+	}
+}